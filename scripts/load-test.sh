@@ -0,0 +1,74 @@
+#!/bin/bash
+
+# API 通知系统 - 端到端压测
+# 按模式启动服务，运行 LoadTestHarness（内置模拟供应商），结束后停止服务
+#
+# 用法: ./scripts/load-test.sh [mock|rocketmq|db] [压测参数...]
+#   ./scripts/load-test.sh mock --rate 500 --duration 120
+#   ./scripts/load-test.sh db --rate 500 --duration 120
+#   ./scripts/load-test.sh rocketmq --rate 300 --vendors "A:p50=20,p99=200;B:p50=100,p99=3000,error=0.1,burst429=20s/4s,hang=0.01"
+#
+# rocketmq 模式使用 dev profile，需要先启动 RocketMQ（./scripts/start-rocketmq-local.sh）和 MySQL
+# db 模式（数据库轮询，不使用 MQ）使用 dev profile，只需要 MySQL 8（FOR UPDATE SKIP LOCKED）
+
+set -e
+
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+RED='\033[0;31m'
+NC='\033[0m'
+
+MODE="${1:-mock}"
+shift || true
+PORT="${PORT:-8080}"
+BASE_URL="http://localhost:${PORT}/api"
+APP_LOG="/tmp/notification-load-test.log"
+
+MODE_ARGS=""
+
+case "$MODE" in
+    mock)     PROFILE="local" ;;
+    rocketmq) PROFILE="dev" ;;
+    db)       PROFILE="dev"; MODE_ARGS="--notification.mq.mode=db" ;;
+    *)
+        echo -e "${RED}未知模式: $MODE（可选 mock、rocketmq、db）${NC}"
+        exit 1
+        ;;
+esac
+
+cd "$(dirname "$0")/.."
+
+echo "1. 构建..."
+mvn -q -DskipTests package test-compile
+
+echo "2. 启动服务（profile=${PROFILE}，日志: ${APP_LOG}）..."
+# 关闭 SQL 和 DEBUG 日志，避免日志本身成为瓶颈；暴露 prometheus 供压测采样资源指标
+java -jar target/*.jar \
+    --spring.profiles.active="${PROFILE}" \
+    --server.port="${PORT}" \
+    --management.endpoints.web.exposure.include=health,prometheus \
+    --mybatis-plus.configuration.log-impl=org.apache.ibatis.logging.nologging.NoLoggingImpl \
+    --logging.level.com.notification=WARN \
+    ${MODE_ARGS} \
+    > "$APP_LOG" 2>&1 &
+APP_PID=$!
+trap 'kill $APP_PID 2>/dev/null || true' EXIT
+
+for i in $(seq 1 60); do
+    if curl -s -f "${BASE_URL}/actuator/health" > /dev/null 2>&1; then
+        break
+    fi
+    if ! kill -0 $APP_PID 2>/dev/null; then
+        echo -e "${RED}✗ 服务启动失败，见 ${APP_LOG}${NC}"
+        exit 1
+    fi
+    sleep 1
+done
+echo -e "${GREEN}✓ 服务已启动${NC}"
+
+echo "3. 压测..."
+mvn -q exec:java -Dexec.classpathScope=test \
+    -Dexec.mainClass=com.notification.loadtest.LoadTestHarness \
+    -Dexec.args="--base-url ${BASE_URL} --mode ${MODE} $*"
+
+echo -e "${YELLOW}服务日志: ${APP_LOG}${NC}"
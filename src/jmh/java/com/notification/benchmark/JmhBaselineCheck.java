@@ -0,0 +1,164 @@
+package com.notification.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 对比 JMH 结果与基线，超出容差时以非零状态退出（mvn -Pjmh verify 失败）
+ * 
+ * 基线为 基准名(含参数) -> {mode, score, unit, allocNorm}：
+ * avgt 分数高于基线 (1 + tolerance) 倍、thrpt 分数低于基线 (1 - tolerance) 倍、
+ * 或每次操作分配字节数高于基线 (1 + allocTolerance) 倍时视为回退。
+ * 波动较大的基准可在基线条目中写 tolerance / allocTolerance 覆盖全局容差。
+ * update 为 true 时用本次结果更新基线中的对应条目（保留条目中的容差覆盖）。
+ * 
+ * 参数：result.json baseline.json tolerance allocTolerance update
+ */
+public class JmhBaselineCheck {
+    
+    private static final String ALLOC_NORM = "gc.alloc.rate.norm";
+    
+    /**
+     * 分配量很小时按比例比较会被 JIT 波动放大，额外允许的字节数
+     */
+    private static final double ALLOC_SLACK_BYTES = 16;
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    
+    public static void main(String[] args) throws Exception {
+        File resultFile = new File(args[0]);
+        File baselineFile = new File(args[1]);
+        double tolerance = Double.parseDouble(args[2]);
+        double allocTolerance = Double.parseDouble(args[3]);
+        boolean update = Boolean.parseBoolean(args[4]);
+        
+        Map<String, JsonNode> results = readResults(resultFile);
+        JsonNode baseline = baselineFile.exists() ? MAPPER.readTree(baselineFile) : MAPPER.createObjectNode();
+        if (update || !baselineFile.exists()) {
+            writeBaseline(baselineFile, results, baseline);
+            System.out.printf("JMH baseline updated: %s (%d benchmarks from this run)%n", baselineFile, results.size());
+            return;
+        }
+        
+        int regressions = 0;
+        System.out.printf("%-80s %5s %14s %14s %12s %12s  %s%n", "benchmark", "mode", "score", "baseline", "B/op", "base B/op", "");
+        for (Map.Entry<String, JsonNode> entry : results.entrySet()) {
+            JsonNode current = entry.getValue();
+            JsonNode base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("%-80s %5s %14.3f %14s %12s %12s  NEW%n", entry.getKey(), current.get("mode").asText(),
+                        current.get("score").asDouble(), "-", format(current.get("allocNorm")), "-");
+                continue;
+            }
+            String verdict = compare(current, base, tolerance, allocTolerance);
+            if (verdict != null) {
+                regressions++;
+            }
+            System.out.printf("%-80s %5s %14.3f %14.3f %12s %12s  %s%n", entry.getKey(), current.get("mode").asText(),
+                    current.get("score").asDouble(), base.get("score").asDouble(),
+                    format(current.get("allocNorm")), format(base.get("allocNorm")), verdict == null ? "ok" : verdict);
+        }
+        
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed beyond tolerance (score %.0f%%, alloc %.0f%%), "
+                    + "rerun with -Djmh.update=true to accept%n", regressions, tolerance * 100, allocTolerance * 100);
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * @return 回退说明，未回退时返回 null
+     */
+    private static String compare(JsonNode current, JsonNode base, double tolerance, double allocTolerance) {
+        tolerance = base.path("tolerance").asDouble(tolerance);
+        allocTolerance = base.path("allocTolerance").asDouble(allocTolerance);
+        String mode = current.get("mode").asText();
+        double score = current.get("score").asDouble();
+        double baseScore = base.get("score").asDouble();
+        if (!mode.equals(base.get("mode").asText()) || !current.get("unit").asText().equals(base.get("unit").asText())) {
+            return "MODE/UNIT CHANGED";
+        }
+        if ("thrpt".equals(mode) ? score < baseScore * (1 - tolerance) : score > baseScore * (1 + tolerance)) {
+            return String.format("SLOWER %+.0f%%", (score / baseScore - 1) * 100);
+        }
+        JsonNode alloc = current.get("allocNorm");
+        JsonNode baseAlloc = base.get("allocNorm");
+        if (alloc != null && baseAlloc != null
+                && alloc.asDouble() > baseAlloc.asDouble() * (1 + allocTolerance) + ALLOC_SLACK_BYTES) {
+            return String.format("ALLOC %+.0f B/op", alloc.asDouble() - baseAlloc.asDouble());
+        }
+        return null;
+    }
+    
+    /**
+     * 读取 JMH JSON 结果（-rf json），按 基准名(含参数) 索引
+     */
+    private static Map<String, JsonNode> readResults(File resultFile) throws Exception {
+        Map<String, JsonNode> results = new TreeMap<>();
+        for (JsonNode run : MAPPER.readTree(resultFile)) {
+            StringBuilder name = new StringBuilder(run.get("benchmark").asText());
+            JsonNode params = run.get("params");
+            if (params != null) {
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    name.append(name.indexOf(":") < 0 ? ":" : ",").append(param.getKey()).append('=').append(param.getValue().asText());
+                }
+            }
+            
+            JsonNode primary = run.get("primaryMetric");
+            ObjectNode entry = MAPPER.createObjectNode();
+            entry.put("mode", run.get("mode").asText());
+            entry.put("score", primary.get("score").asDouble());
+            entry.put("unit", primary.get("scoreUnit").asText());
+            JsonNode secondary = run.get("secondaryMetrics");
+            if (secondary != null) {
+                Iterator<Map.Entry<String, JsonNode>> metrics = secondary.fields();
+                while (metrics.hasNext()) {
+                    Map.Entry<String, JsonNode> metric = metrics.next();
+                    // 不同 JMH 版本的次要指标名可能带 "·" 前缀
+                    if (metric.getKey().replaceFirst("^·", "").equals(ALLOC_NORM)) {
+                        entry.put("allocNorm", metric.getValue().get("score").asDouble());
+                    }
+                }
+            }
+            results.put(name.toString(), entry);
+        }
+        return results;
+    }
+    
+    /**
+     * 本次运行的基准覆盖基线中的同名条目（保留容差覆盖），未运行的基准保持不变
+     */
+    private static void writeBaseline(File baselineFile, Map<String, JsonNode> results, JsonNode previous) throws Exception {
+        Map<String, JsonNode> merged = new TreeMap<>();
+        previous.fields().forEachRemaining(entry -> merged.put(entry.getKey(), entry.getValue()));
+        for (Map.Entry<String, JsonNode> entry : results.entrySet()) {
+            JsonNode old = previous.get(entry.getKey());
+            if (old != null) {
+                for (String override : new String[] {"tolerance", "allocTolerance"}) {
+                    if (old.has(override)) {
+                        ((ObjectNode) entry.getValue()).set(override, old.get(override));
+                    }
+                }
+            }
+            merged.put(entry.getKey(), entry.getValue());
+        }
+        File parent = baselineFile.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        MAPPER.writeValue(baselineFile, merged);
+    }
+    
+    private static String format(JsonNode alloc) {
+        return alloc == null ? "-" : String.format("%.1f", alloc.asDouble());
+    }
+}
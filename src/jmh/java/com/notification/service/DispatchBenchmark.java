@@ -0,0 +1,109 @@
+package com.notification.service;
+
+import com.notification.NotificationSystemApplication;
+import com.notification.benchmark.BenchmarkPayloads;
+import com.notification.entity.NotificationTask;
+import com.notification.entity.enums.TaskStatus;
+import com.notification.mapper.NotificationTaskMapper;
+import com.notification.util.IdGenerator;
+import com.notification.util.JsonUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单次投递全流程基准：领取租约 -> 限流/熔断判断 -> WebClient 调用 -> 提交结果
+ * 
+ * 使用 test profile（H2 内存库）和本地桩服务（固定返回 200），测量的是本服务自身的开销，
+ * 不含真实网络和供应商耗时。每次调用前插入一条 PENDING 任务，插入不计入测量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchBenchmark {
+    
+    private ConfigurableApplicationContext context;
+    private DisposableServer vendorServer;
+    private NotificationDispatcher dispatcher;
+    private NotificationTaskMapper taskMapper;
+    private String targetUrl;
+    private String headersJson;
+    private String bodyJson;
+    
+    private String notificationId;
+    
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        vendorServer = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes.post("/hook", (request, response) -> request.receive().then(
+                        response.header("Content-Type", "application/json").sendString(Mono.just("{\"code\":0}")).then())))
+                .bindNow();
+        targetUrl = "http://127.0.0.1:" + vendorServer.port() + "/hook";
+        
+        // 以命令行参数传入，优先于 application.yml 中的 spring.profiles.active
+        context = new SpringApplicationBuilder(NotificationSystemApplication.class).run(
+                "--spring.profiles.active=test",
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=jdbc:h2:mem:dispatch_benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--mybatis-plus.configuration.log-impl=org.apache.ibatis.logging.nologging.NoLoggingImpl",
+                "--logging.level.root=WARN",
+                "--logging.level.com.notification=WARN",
+                "--notification.mq.mock.async-dispatch=false");
+        dispatcher = context.getBean(NotificationDispatcher.class);
+        taskMapper = context.getBean(NotificationTaskMapper.class);
+        headersJson = JsonUtil.toJson(BenchmarkPayloads.headers());
+        bodyJson = JsonUtil.toJson(BenchmarkPayloads.body());
+    }
+    
+    @Setup(Level.Invocation)
+    public void insertTask() {
+        NotificationTask task = new NotificationTask();
+        task.setId(IdGenerator.generateNotificationId());
+        task.setTargetUrl(targetUrl);
+        task.setHttpMethod("POST");
+        task.setHeadersJson(headersJson);
+        task.setBodyJson(bodyJson);
+        task.setStatus(TaskStatus.PENDING.getCode());
+        task.setRetryCount(0);
+        task.setMaxRetry(5);
+        task.setCallbackTimeoutMs(3000);
+        taskMapper.insert(task);
+        notificationId = task.getId();
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        if (context != null) {
+            context.close();
+        }
+        if (vendorServer != null) {
+            vendorServer.disposeNow();
+        }
+    }
+    
+    @Benchmark
+    public void dispatch() {
+        dispatcher.dispatch(notificationId);
+    }
+}
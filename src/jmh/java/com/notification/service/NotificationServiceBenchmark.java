@@ -0,0 +1,74 @@
+package com.notification.service;
+
+import com.notification.benchmark.BenchmarkPayloads;
+import com.notification.config.NotificationProperties;
+import com.notification.dto.CreateNotificationRequest;
+import com.notification.entity.NotificationTask;
+import com.notification.entity.VendorConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NotificationService.buildNotificationTask 基准：每个接收的条目调用一次（生成 ID、序列化请求头和请求体）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationServiceBenchmark {
+    
+    private NotificationService notificationService;
+    private CreateNotificationRequest explicitRequest;
+    private CreateNotificationRequest vendorDefaultsRequest;
+    private VendorConfig vendorConfig;
+    
+    @Setup
+    public void setUp() {
+        // buildNotificationTask 不访问数据库和其他组件
+        notificationService = new NotificationService(null, null, null, null, null, null, null, new NotificationProperties());
+        
+        explicitRequest = new CreateNotificationRequest();
+        explicitRequest.setTargetUrl("https://api.vendor.example.com/webhooks/orders");
+        explicitRequest.setHttpMethod("POST");
+        explicitRequest.setHeaders(BenchmarkPayloads.headers());
+        explicitRequest.setBody(BenchmarkPayloads.body());
+        explicitRequest.setMaxRetry(5);
+        explicitRequest.setCallbackTimeoutMs(3000);
+        explicitRequest.setEventId("evt_20260117_000000123456");
+        
+        vendorDefaultsRequest = new CreateNotificationRequest();
+        vendorDefaultsRequest.setVendorCode("CRM_SYSTEM");
+        vendorDefaultsRequest.setHttpMethod("POST");
+        vendorDefaultsRequest.setHeaders(BenchmarkPayloads.headers());
+        vendorDefaultsRequest.setBody(BenchmarkPayloads.body());
+        
+        vendorConfig = new VendorConfig();
+        vendorConfig.setVendorCode("CRM_SYSTEM");
+        vendorConfig.setBaseUrl("https://crm.example.com");
+        vendorConfig.setDefaultPath("/api/notifications");
+        vendorConfig.setDefaultMaxRetry(3);
+        vendorConfig.setDefaultTimeoutMs(5000);
+    }
+    
+    @Benchmark
+    public NotificationTask buildWithExplicitTarget() {
+        return notificationService.buildNotificationTask(explicitRequest, null);
+    }
+    
+    @Benchmark
+    public NotificationTask buildWithVendorDefaults() {
+        return notificationService.buildNotificationTask(vendorDefaultsRequest, vendorConfig);
+    }
+}
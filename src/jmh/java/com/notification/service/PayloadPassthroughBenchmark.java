@@ -0,0 +1,114 @@
+package com.notification.service;
+
+import com.notification.benchmark.BenchmarkPayloads;
+import com.notification.config.NotificationProperties;
+import com.notification.entity.NotificationTask;
+import com.notification.util.JsonUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单次尝试的请求构建和发送：每次尝试解析 headers_json、编码请求体，对比复用缓存的 PreparedPayload
+ * 
+ * 供应商为本地桩服务（固定返回 200），不经过数据库，分配量的差异即每次投递节省的部分。
+ * 含回环 HTTP 往返的两项耗时由网络栈和线程调度主导，单 CPU 机器上分叉间波动可达 ±45%，
+ * 因此使用 3 个分叉取平均；只比较载荷准备的 prepare* 两项不经过网络，耗时差异更可靠
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+public class PayloadPassthroughBenchmark {
+    
+    private DisposableServer vendorServer;
+    private HttpClientService httpClientService;
+    private PreparedPayloadCache preparedPayloadCache;
+    private NotificationTask task;
+    
+    @Setup
+    public void setUp() {
+        vendorServer = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .handle((request, response) -> request.receive().then(
+                        response.header("Content-Type", "application/json").sendString(Mono.just("{\"code\":0}")).then()))
+                .bindNow();
+        
+        NotificationProperties properties = new NotificationProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        httpClientService = new HttpClientService(null, properties, new NotificationMetrics(meterRegistry, properties));
+        preparedPayloadCache = new PreparedPayloadCache(properties, meterRegistry);
+        
+        task = new NotificationTask();
+        task.setId("ntf_benchmark");
+        task.setTargetUrl("http://127.0.0.1:" + vendorServer.port() + "/hook");
+        task.setHttpMethod("POST");
+        task.setHeadersJson(JsonUtil.toJson(BenchmarkPayloads.headers()));
+        task.setBodyJson(JsonUtil.toJson(BenchmarkPayloads.body()));
+        task.setCallbackTimeoutMs(3000);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        httpClientService.shutdown();
+        vendorServer.disposeNow();
+    }
+    
+    /**
+     * 每次尝试解析请求头、编码请求体（原投递路径）
+     */
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public HttpClientService.HttpResponse decodePerAttempt() {
+        Map<String, String> headers = JsonUtil.fromJson(task.getHeadersJson(), Map.class);
+        return httpClientService.callAsync(null, task.getTargetUrl(), HttpMethod.POST, headers, task.getBodyJson(),
+                task.getCallbackTimeoutMs()).block();
+    }
+    
+    /**
+     * 只准备载荷：解析请求头、编码请求体（原投递路径，不发送）
+     */
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object prepareDecodePerAttempt() {
+        Map<String, String> headers = JsonUtil.fromJson(task.getHeadersJson(), Map.class);
+        return new Object[] {headers, task.getBodyJson().getBytes(StandardCharsets.UTF_8)};
+    }
+    
+    /**
+     * 只准备载荷：取缓存的预处理载荷（不发送）
+     */
+    @Benchmark
+    public PreparedPayload prepareCached() {
+        return preparedPayloadCache.get(task);
+    }
+    
+    /**
+     * 复用缓存的预处理载荷，请求体包装后直接写出
+     */
+    @Benchmark
+    public HttpClientService.HttpResponse preparedPayload() {
+        return httpClientService.callAsync(null, task.getTargetUrl(), HttpMethod.POST, preparedPayloadCache.get(task),
+                task.getCallbackTimeoutMs()).block();
+    }
+}
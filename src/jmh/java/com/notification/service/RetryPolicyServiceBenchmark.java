@@ -0,0 +1,55 @@
+package com.notification.service;
+
+import com.notification.entity.NotificationTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RetryPolicyService 基准：每次失败投递都会判断是否重试、计算退避并映射到 RocketMQ 延迟级别
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RetryPolicyServiceBenchmark {
+    
+    @Param({"0", "3", "6"})
+    public int retryCount;
+    
+    private RetryPolicyService retryPolicyService;
+    private NotificationTask task;
+    
+    @Setup
+    public void setUp() {
+        retryPolicyService = new RetryPolicyService();
+        task = new NotificationTask();
+        task.setRetryCount(retryCount);
+        task.setMaxRetry(5);
+    }
+    
+    /**
+     * 与 NotificationDispatcher / MqDelayLevelRetryScheduler 的调用顺序一致
+     */
+    @Benchmark
+    public int scheduleRetry() {
+        if (!retryPolicyService.shouldRetry(task)) {
+            return -1;
+        }
+        int delaySeconds = retryPolicyService.calculateDelaySeconds(retryCount + 1);
+        int delayLevel = retryPolicyService.mapToRocketMQDelayLevel(delaySeconds);
+        return retryPolicyService.getDelayLevelSeconds(delayLevel);
+    }
+}
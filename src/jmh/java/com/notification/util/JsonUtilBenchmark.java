@@ -0,0 +1,61 @@
+package com.notification.util;
+
+import com.notification.benchmark.BenchmarkPayloads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsonUtil 基准：接收时序列化请求头和请求体，投递时反序列化请求头
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonUtilBenchmark {
+    
+    private Map<String, String> headers;
+    private Map<String, Object> body;
+    private String headersJson;
+    private String bodyJson;
+    
+    @Setup
+    public void setUp() {
+        headers = BenchmarkPayloads.headers();
+        body = BenchmarkPayloads.body();
+        headersJson = JsonUtil.toJson(headers);
+        bodyJson = JsonUtil.toJson(body);
+    }
+    
+    @Benchmark
+    public String headersToJson() {
+        return JsonUtil.toJson(headers);
+    }
+    
+    @Benchmark
+    public String bodyToJson() {
+        return JsonUtil.toJson(body);
+    }
+    
+    @Benchmark
+    public Map<?, ?> headersFromJson() {
+        return JsonUtil.fromJson(headersJson, Map.class);
+    }
+    
+    @Benchmark
+    public Map<?, ?> bodyFromJson() {
+        return JsonUtil.fromJson(bodyJson, Map.class);
+    }
+}
@@ -0,0 +1,122 @@
+package com.notification.util;
+
+import com.notification.benchmark.BenchmarkPayloads;
+import com.notification.benchmark.PayloadDictionaryTrainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * 大字段存储压缩基准：写入时编码、读取时解码的耗时，以及每行存储的字节数
+ * 
+ * 载荷为带 items 个订单行的订单事件（items=4 约 0.9KB，32 约 2.9KB，256 约 20KB），每个载荷的 ID、金额、时间等各不相同。
+ * 字典由另一批同构载荷训练，不包含被测载荷本身。每行存储字节数在 setup 时输出
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class PayloadCodecBenchmark {
+    
+    private static final int PAYLOADS = 64;
+    
+    @Param({"4", "32", "256"})
+    public int items;
+    
+    /**
+     * none：不使用字典；trained：使用训练得到的字典
+     */
+    @Param({"none", "trained"})
+    public String dictionary;
+    
+    private PayloadCodec codec;
+    private String[] raw;
+    private String[] stored;
+    private int next;
+    
+    @Setup
+    public void setUp() {
+        List<byte[]> dictionaries = new ArrayList<>();
+        if ("trained".equals(dictionary)) {
+            Random trainingRandom = new Random(1);
+            List<byte[]> samples = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                samples.add(payload(trainingRandom, 1 + trainingRandom.nextInt(items)).getBytes(StandardCharsets.UTF_8));
+            }
+            dictionaries.add(PayloadDictionaryTrainer.train(samples, 16 * 1024, 24));
+        }
+        codec = new PayloadCodec(true, 0, Deflater.DEFAULT_COMPRESSION, dictionaries);
+        
+        Random random = new Random(2);
+        raw = new String[PAYLOADS];
+        stored = new String[PAYLOADS];
+        long rawBytes = 0;
+        long storedBytes = 0;
+        for (int i = 0; i < PAYLOADS; i++) {
+            raw[i] = payload(random, items);
+            stored[i] = codec.encode(raw[i]);
+            rawBytes += raw[i].getBytes(StandardCharsets.UTF_8).length;
+            storedBytes += stored[i].length();
+        }
+        System.out.printf("%nitems=%d dictionary=%s: raw %d bytes/row, stored %d bytes/row (%.1f%%)%n",
+                items, dictionary, rawBytes / PAYLOADS, storedBytes / PAYLOADS, 100.0 * storedBytes / rawBytes);
+    }
+    
+    @Benchmark
+    public String encode() {
+        return codec.encode(raw[nextIndex()]);
+    }
+    
+    @Benchmark
+    public String decode() {
+        return codec.decode(stored[nextIndex()]);
+    }
+    
+    private int nextIndex() {
+        int index = next;
+        next = (index + 1) % PAYLOADS;
+        return index;
+    }
+    
+    /**
+     * 与 {@link BenchmarkPayloads#body()} 同构的订单事件，字段取值随机
+     */
+    private static String payload(Random random, int itemCount) {
+        Map<String, Object> body = BenchmarkPayloads.body();
+        body.put("eventId", "evt_20260117_" + String.format("%012d", random.nextInt(1_000_000_000)));
+        body.put("orderId", "O-20260117" + String.format("%011d", random.nextLong(100_000_000_000L)));
+        body.put("occurredAt", String.format("2026-01-%02dT%02d:%02d:%02d.%03d+08:00", 1 + random.nextInt(28),
+                random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1000)));
+        body.put("amount", random.nextInt(1_000_000));
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("sku", "SKU-" + (10000 + random.nextInt(90000)));
+            line.put("name", "Product " + Integer.toString(random.nextInt(1 << 20), 36));
+            line.put("quantity", 1 + random.nextInt(5));
+            line.put("priceCents", 100 + random.nextInt(100000));
+            lines.add(line);
+        }
+        body.put("items", lines);
+        return JsonUtil.toJson(body);
+    }
+}
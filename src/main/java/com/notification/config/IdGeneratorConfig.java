@@ -0,0 +1,28 @@
+package com.notification.config;
+
+import com.notification.service.ClusterMembership;
+import com.notification.util.IdGenerator;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * ID 生成器配置类
+ * 启动时通过 cluster_node 租用节点号，连同主键模式下发给静态的 {@link IdGenerator}
+ * 
+ * @author Notification System
+ */
+@Configuration
+@RequiredArgsConstructor
+public class IdGeneratorConfig {
+    
+    private final NotificationProperties properties;
+    private final ClusterMembership clusterMembership;
+    
+    @PostConstruct
+    public void configureIdGenerator() {
+        NotificationProperties.IdConfig idConfig = properties.getId();
+        long nodeId = clusterMembership.leaseIdNodeId(idConfig.getNodeId(), IdGenerator.getNodeId());
+        IdGenerator.configure(nodeId, idConfig.isCompactKey());
+    }
+}
@@ -0,0 +1,30 @@
+package com.notification.config;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 指标过滤配置
+ * 
+ * 限制 notification.* 指标 vendor 标签的取值个数：vendorCode 由调用方传入，
+ * 异常请求不应让 Prometheus 的时间序列数量无限增长，超过上限的新取值直接丢弃。
+ * 熔断指标的 key 标签（vendorCode，主机熔断器统一为 host）使用同一上限
+ * 
+ * @author Notification System
+ */
+@Configuration
+public class MeterFilterConfig {
+    
+    @Bean
+    public MeterFilter vendorTagCardinalityFilter(NotificationProperties properties) {
+        return MeterFilter.maximumAllowableTags("notification", "vendor",
+                properties.getMetrics().getMaxVendorTags(), MeterFilter.deny());
+    }
+    
+    @Bean
+    public MeterFilter circuitKeyTagCardinalityFilter(NotificationProperties properties) {
+        return MeterFilter.maximumAllowableTags("notification.circuit", "key",
+                properties.getMetrics().getMaxVendorTags(), MeterFilter.deny());
+    }
+}
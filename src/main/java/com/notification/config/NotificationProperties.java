@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 通知系统配置属性
  * 
@@ -19,10 +22,115 @@ public class NotificationProperties {
      */
     private MqConfig mq = new MqConfig();
     
+    /**
+     * 投递执行配置
+     */
+    private DispatchConfig dispatch = new DispatchConfig();
+    
+    /**
+     * 出站 HTTP 连接池配置
+     */
+    private HttpConfig http = new HttpConfig();
+    
+    /**
+     * 供应商配置缓存
+     */
+    private VendorCacheConfig vendorCache = new VendorCacheConfig();
+    
+    /**
+     * 批量创建配置
+     */
+    private BatchConfig batch = new BatchConfig();
+    
+    /**
+     * ID 生成配置
+     */
+    private IdConfig id = new IdConfig();
+    
+    /**
+     * 幂等性配置
+     */
+    private IdempotencyConfig idempotency = new IdempotencyConfig();
+    
+    /**
+     * 发件箱配置
+     */
+    private OutboxConfig outbox = new OutboxConfig();
+    
+    /**
+     * 集群配置
+     */
+    private ClusterConfig cluster = new ClusterConfig();
+    
+    /**
+     * 补偿扫描配置
+     */
+    private SweeperConfig sweeper = new SweeperConfig();
+    
+    /**
+     * 重试调度配置
+     */
+    private RetryConfig retry = new RetryConfig();
+    
+    /**
+     * 线程执行配置
+     */
+    private ExecutionConfig execution = new ExecutionConfig();
+    
+    /**
+     * 供应商熔断配置
+     */
+    private CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+    
+    /**
+     * 供应商限流配置
+     */
+    private RateLimitConfig rateLimit = new RateLimitConfig();
+    
+    /**
+     * 调用记录写入配置
+     */
+    private AttemptJournalConfig attemptJournal = new AttemptJournalConfig();
+    
+    /**
+     * 历史任务清理配置
+     */
+    private RetentionConfig retention = new RetentionConfig();
+    
+    /**
+     * 分区维护配置
+     */
+    private PartitionConfig partition = new PartitionConfig();
+    
+    /**
+     * 终态状态查询缓存配置
+     */
+    private StatusCacheConfig statusCache = new StatusCacheConfig();
+    
+    /**
+     * 状态变更推送配置
+     */
+    private StatusPushConfig statusPush = new StatusPushConfig();
+    
+    /**
+     * 指标配置
+     */
+    private MetricsConfig metrics = new MetricsConfig();
+    
+    /**
+     * 请求载荷缓存配置
+     */
+    private PayloadCacheConfig payloadCache = new PayloadCacheConfig();
+    
+    /**
+     * 存储压缩配置
+     */
+    private PayloadCompressionConfig payloadCompression = new PayloadCompressionConfig();
+    
     @Data
     public static class MqConfig {
         /**
-         * MQ 模式：mock 或 rocketmq
+         * MQ 模式：mock、rocketmq 或 db（不使用 MQ，各节点轮询任务表领取到期任务）
          */
         private String mode = "mock";
         
@@ -30,6 +138,15 @@ public class NotificationProperties {
          * Mock 模式配置
          */
         private MockConfig mock = new MockConfig();
+        
+        /**
+         * db 模式配置
+         */
+        private DbQueueConfig db = new DbQueueConfig();
+        
+        public boolean isDb() {
+            return "db".equalsIgnoreCase(mode);
+        }
     }
     
     @Data
@@ -43,5 +160,696 @@ public class NotificationProperties {
          * 是否启用异步投递
          */
         private boolean asyncDispatch = true;
+        
+        /**
+         * 进程内 broker 工作队列容量
+         */
+        private int queueCapacity = 65536;
+        
+        /**
+         * 进程内 broker 工作线程数
+         */
+        private int workerThreads = 8;
+        
+        /**
+         * 队列满时发送方的最长等待时间（毫秒），超时后拒绝
+         */
+        private long enqueueTimeoutMs = 200;
+        
+        /**
+         * 延迟消息时间轮刻度（毫秒）
+         */
+        private long delayTickMs = 10;
+        
+        /**
+         * 未到期延迟消息上限
+         */
+        private long maxDelayed = 1_000_000;
+    }
+    
+    @Data
+    public static class DbQueueConfig {
+        /**
+         * 每个节点的轮询线程数
+         */
+        private int pollerThreads = 2;
+        
+        /**
+         * 单次领取的最大任务数（同时受 dispatch.max-in-flight 剩余名额限制）
+         */
+        private int claimBatchSize = 64;
+        
+        /**
+         * 空闲时的最短轮询间隔（毫秒），领取到任务后恢复为该值
+         */
+        private long minPollIntervalMs = 10;
+        
+        /**
+         * 空闲时的最长轮询间隔（毫秒），连续空轮询时间隔从最短值逐次翻倍到该值
+         */
+        private long maxPollIntervalMs = 1000;
+        
+        /**
+         * 领取时是否使用 SKIP LOCKED（MySQL 8）；H2 不支持，本地 profile 关闭后退化为 FOR UPDATE
+         */
+        private boolean skipLocked = true;
+    }
+    
+    @Data
+    public static class DispatchConfig {
+        /**
+         * 投递模式：blocking（调用线程阻塞等待供应商响应）或 reactive（事件循环非阻塞投递）
+         */
+        private String mode = "blocking";
+        
+        /**
+         * reactive 模式和 db 模式下全局最大并发投递数；reactive 模式超出部分排队等待，db 模式达到上限时暂停领取
+         */
+        private int maxInFlight = 2000;
+        
+        /**
+         * reactive 模式下等待名额的最大排队数，超出时拒绝提交，由调用方稍后重投
+         */
+        private int maxWaiting = 10000;
+        
+        /**
+         * reactive 模式下 RocketMQ 每次批量消费的消息数
+         */
+        private int consumeBatchSize = 32;
+        
+        /**
+         * 投递租约在调用超时之外额外预留的时间（毫秒）
+         */
+        private long leaseMarginMs = 30000;
+        
+        public boolean isReactive() {
+            return "reactive".equalsIgnoreCase(mode);
+        }
+    }
+    
+    @Data
+    public static class HttpConfig {
+        /**
+         * 默认最大连接数（供应商未配置时，以及直接指定 targetUrl 的共享连接池）
+         */
+        private int maxConnections = 200;
+        
+        /**
+         * 等待获取连接的最大排队数
+         */
+        private int pendingAcquireMaxCount = 1000;
+        
+        /**
+         * 默认获取连接超时时间（毫秒）
+         */
+        private int acquireTimeoutMs = 5000;
+        
+        /**
+         * 默认空闲连接保活时间（毫秒）
+         */
+        private int idleTtlMs = 30000;
+        
+        /**
+         * 默认建立连接超时时间（毫秒）
+         */
+        private int connectTimeoutMs = 3000;
+        
+        /**
+         * 后台清理空闲连接的间隔（毫秒）
+         */
+        private int evictIntervalMs = 30000;
+        
+        /**
+         * 连接池配置变更后，旧连接池等待在途请求完成的最长时间（毫秒）
+         */
+        private int disposeTimeoutMs = 60000;
+    }
+    
+    @Data
+    public static class VendorCacheConfig {
+        /**
+         * 最大缓存条目数
+         */
+        private long maximumSize = 1000;
+        
+        /**
+         * 写入后多久异步刷新（毫秒）
+         */
+        private long refreshAfterWriteMs = 60000;
+        
+        /**
+         * 写入后多久过期（毫秒），刷新失败时兜底
+         */
+        private long expireAfterWriteMs = 600000;
+        
+        /**
+         * 配置表变更检查间隔（毫秒）
+         */
+        private long changeCheckIntervalMs = 5000;
+    }
+    
+    @Data
+    public static class BatchConfig {
+        /**
+         * 单次批量创建的最大条数
+         */
+        private int maxSize = 500;
+    }
+    
+    @Data
+    public static class IdConfig {
+        /**
+         * 节点号（0-1023），启动时通过 cluster_node 租用，已被其他存活节点占用则启动失败；
+         * -1 表示自动分配，从主机名序号或 IP 推导的号开始寻找空闲节点号
+         */
+        private long nodeId = -1;
+        
+        /**
+         * 紧凑主键模式：生成纯数字ID，配合 db/compact-key.sql 将主键改为 BIGINT
+         */
+        private boolean compactKey = false;
+    }
+    
+    @Data
+    public static class IdempotencyConfig {
+        /**
+         * 是否启用本地快速路径（布隆过滤器判定确定未见过的 eventId 不查库）；启用分区时强制关闭
+         */
+        private boolean fastPathEnabled = true;
+        
+        /**
+         * 本地记忆 eventId 的窗口长度（毫秒）
+         */
+        private long fastPathWindowMs = 600000;
+        
+        /**
+         * 布隆过滤器代数
+         */
+        private int generations = 2;
+        
+        /**
+         * 每一代预计写入的 eventId 数
+         */
+        private long expectedInsertions = 1000000;
+        
+        /**
+         * 布隆过滤器误判率
+         */
+        private double falsePositiveRate = 0.01;
+        
+        /**
+         * 成功任务的去重窗口（毫秒）：窗口内相同 eventId 视为重复；0 表示只对进行中的任务去重
+         */
+        private long dedupeWindowMs = 0;
+        
+        /**
+         * 释放过期 eventId 的检查间隔（毫秒）
+         */
+        private long releaseIntervalMs = 60000;
+        
+        /**
+         * 释放过期 eventId 的单批行数
+         */
+        private int releaseBatchSize = 1000;
+    }
+    
+    @Data
+    public static class OutboxConfig {
+        /**
+         * 单批领取的最大条数
+         */
+        private int batchSize = 200;
+        
+        /**
+         * 兜底轮询间隔（毫秒），正常情况下由事务提交后的唤醒触发
+         */
+        private long pollIntervalMs = 1000;
+        
+        /**
+         * 领取租约时长（毫秒），节点宕机后其他节点在租约到期后接管
+         */
+        private long leaseMs = 30000;
+        
+        /**
+         * 投递失败后再次领取的间隔（毫秒）
+         */
+        private long retryBackoffMs = 5000;
+        
+        /**
+         * 同时在途的批次数上限
+         */
+        private int maxInFlightBatches = 4;
+        
+        /**
+         * 已投递记录保留时长（毫秒）
+         */
+        private long retentionMs = 86400000;
+        
+        /**
+         * 清理已投递记录的检查间隔（毫秒）
+         */
+        private long purgeIntervalMs = 300000;
+        
+        /**
+         * 清理已投递记录的单批行数
+         */
+        private int purgeBatchSize = 1000;
+    }
+    
+    @Data
+    public static class ClusterConfig {
+        /**
+         * 节点名称，为空时使用 主机名:进程号
+         */
+        private String nodeName;
+        
+        /**
+         * 心跳间隔（毫秒）
+         */
+        private long heartbeatIntervalMs = 10000;
+        
+        /**
+         * 节点存活判定时长（毫秒），超过该时长无心跳视为下线
+         */
+        private long nodeTtlMs = 30000;
+    }
+    
+    @Data
+    public static class SweeperConfig {
+        /**
+         * 是否启用补偿扫描
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 扫描间隔（毫秒）
+         */
+        private long intervalMs = 60000;
+        
+        /**
+         * PENDING 任务无进展多久后补偿（毫秒）
+         */
+        private long pendingStaleMs = 300000;
+        
+        /**
+         * RETRYING 任务无进展多久后补偿（毫秒），需大于最长重试延迟（1 小时）
+         */
+        private long retryingStaleMs = 4500000;
+        
+        /**
+         * 每页扫描条数
+         */
+        private int chunkSize = 500;
+        
+        /**
+         * 单次扫描的最大页数，避免一次运行时间过长
+         */
+        private int maxChunksPerRun = 200;
+    }
+    
+    @Data
+    public static class RetryConfig {
+        /**
+         * 重试调度方式：mq-delay-level（RocketMQ 延迟级别）或 timing-wheel（进程内时间轮，按精确时间触发）。
+         * mq.mode=db 时忽略，到期任务由轮询线程直接领取
+         */
+        private String scheduler = "mq-delay-level";
+        
+        /**
+         * 领取重试任务时允许的提前量（毫秒），吸收节点间的时钟偏差
+         */
+        private long dueToleranceMs = 1000;
+        
+        /**
+         * 时间轮刻度（毫秒）
+         */
+        private long wheelTickMs = 10;
+        
+        /**
+         * 时间轮每层格子数（2 的幂）
+         */
+        private int wheelSize = 512;
+        
+        /**
+         * 时间轮层数
+         */
+        private int wheelLevels = 4;
+        
+        /**
+         * 到期后发送投递消息的线程数
+         */
+        private int fireThreads = 2;
+        
+        /**
+         * 启动时从数据库恢复重试任务的时间分段长度（毫秒）
+         */
+        private long rehydrateBucketMs = 600000;
+        
+        /**
+         * 启动恢复时每页读取条数
+         */
+        private int rehydrateChunkSize = 1000;
+        
+        public boolean isTimingWheel() {
+            return "timing-wheel".equalsIgnoreCase(scheduler);
+        }
+    }
+    
+    @Data
+    public static class ExecutionConfig {
+        /**
+         * 执行模式：platform（平台线程池）或 virtual（虚拟线程，需要 Java 21）
+         */
+        private String mode = "platform";
+        
+        /**
+         * virtual 模式下全局最大并发投递数，达到上限后 MQ 消费/进程内 broker 线程等待
+         */
+        private int maxConcurrency = 10000;
+        
+        /**
+         * virtual 模式下单个供应商的默认最大并发投递数（供应商未配置 max_connections 时，以及直接指定 targetUrl 的任务）
+         */
+        private int vendorMaxConcurrency = 200;
+        
+        /**
+         * virtual 模式下单个供应商在并发上限之外最多排队等待的投递数，超出时拒绝提交，由 MQ 稍后重投；
+         * 单个供应商最多占用 (并发上限 + 排队数) 个全局名额，慢供应商不会耗尽全局并发
+         */
+        private int vendorMaxQueued = 800;
+        
+        public boolean isVirtual() {
+            return "virtual".equalsIgnoreCase(mode);
+        }
+    }
+    
+    @Data
+    public static class CircuitBreakerConfig {
+        /**
+         * 是否启用供应商熔断
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 滑动窗口长度（毫秒）
+         */
+        private long windowMs = 10000;
+        
+        /**
+         * 窗口内的桶数
+         */
+        private int windowBuckets = 10;
+        
+        /**
+         * 窗口内最少调用数，不足时不判定熔断
+         */
+        private int minimumCalls = 20;
+        
+        /**
+         * 失败率阈值（0-1），超时、连接异常和 5xx 计为失败
+         */
+        private double failureRateThreshold = 0.5;
+        
+        /**
+         * 熔断打开持续时间（毫秒）
+         */
+        private long openDurationMs = 30000;
+        
+        /**
+         * 半开状态同时放行的探测请求数
+         */
+        private int halfOpenMaxProbes = 3;
+        
+        /**
+         * 半开状态关闭熔断所需的成功探测数
+         */
+        private int halfOpenSuccessesToClose = 3;
+        
+        /**
+         * 熔断期间推迟投递的最短时间（毫秒）
+         */
+        private long minDeferMs = 1000;
+        
+        /**
+         * 在 actuator 中保留的最近状态迁移记录数
+         */
+        private int transitionHistorySize = 100;
+        
+        /**
+         * 按目标主机维护的熔断器数量上限（主机由调用方传入，超出后淘汰最久未使用的）
+         */
+        private long maxHostBreakers = 1000;
+        
+        /**
+         * 按目标主机维护的熔断器闲置多久后淘汰（毫秒）
+         */
+        private long hostBreakerIdleMs = 600000;
+    }
+    
+    @Data
+    public static class RateLimitConfig {
+        /**
+         * 是否启用供应商限流（vendor_config.rate_limit_qps 为空的供应商始终不限流）
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 被限流的投递推迟的最短时间（毫秒）
+         */
+        private long minDeferMs = 200;
+        
+        /**
+         * 供应商返回 429 后推迟投递的时间（毫秒），不消耗重试次数
+         */
+        private long tooManyRequestsDeferMs = 5000;
+    }
+    
+    @Data
+    public static class AttemptJournalConfig {
+        /**
+         * 是否记录每次对外调用（notification_attempt）
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 内存缓冲区容量，写满后新的记录直接丢弃并计数，不阻塞投递
+         */
+        private int bufferCapacity = 10000;
+        
+        /**
+         * 单次批量插入的最大行数，缓冲达到该数量时立即写入
+         */
+        private int batchSize = 200;
+        
+        /**
+         * 缓冲未满一批时的最长写入间隔（毫秒）
+         */
+        private long flushIntervalMs = 500;
+        
+        /**
+         * 请求体、响应体保留的最大字符数
+         */
+        private int maxBodyChars = 2048;
+    }
+    
+    @Data
+    public static class RetentionConfig {
+        /**
+         * 是否启用历史任务清理
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 清理间隔（毫秒）
+         */
+        private long intervalMs = 3600000;
+        
+        /**
+         * SUCCESS 任务保留天数
+         */
+        private int successRetentionDays = 30;
+        
+        /**
+         * FAILED 任务保留天数
+         */
+        private int failedRetentionDays = 90;
+        
+        /**
+         * 每批删除的任务数
+         */
+        private int chunkSize = 1000;
+        
+        /**
+         * 删除速率上限（任务行/秒），避免清理占满数据库 IO 和主从复制带宽
+         */
+        private int maxRowsPerSecond = 5000;
+        
+        /**
+         * 单次清理的最长运行时间（毫秒），未清完的部分留给下一次
+         */
+        private long maxRunMs = 600000;
+    }
+    
+    @Data
+    public static class PartitionConfig {
+        /**
+         * 是否启用分区维护（仅 MySQL，需先执行 db/partitioning.sql）
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 分区粒度：daily 或 monthly
+         */
+        private String granularity = "daily";
+        
+        /**
+         * 提前创建的分区数（按粒度计）
+         */
+        private int precreatePeriods = 7;
+        
+        /**
+         * 分区保留天数，分区上界早于 当前时间 - 保留天数 时过期
+         */
+        private int retentionDays = 90;
+        
+        /**
+         * 过期分区的处理方式：archive（交换出来写入压缩归档表后删除分区）或 drop（直接删除分区）
+         */
+        private String expiredAction = "archive";
+        
+        /**
+         * 维护间隔（毫秒）
+         */
+        private long intervalMs = 3600000;
+        
+        /**
+         * 按 ID 查询状态时主表未命中是否回查归档表
+         */
+        private boolean archiveLookup = true;
+        
+        public boolean isMonthly() {
+            return "monthly".equalsIgnoreCase(granularity);
+        }
+        
+        public boolean isArchive() {
+            return "archive".equalsIgnoreCase(expiredAction);
+        }
+    }
+    
+    @Data
+    public static class StatusCacheConfig {
+        /**
+         * 是否缓存终态（SUCCESS / FAILED）任务的状态查询结果
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 缓存总大小上限（字节，按响应中字符串长度估算）
+         */
+        private long maximumWeightBytes = 64L * 1024 * 1024;
+        
+        /**
+         * 写入后多久过期（毫秒），终态不会再变化，过期只为让清理/归档后的任务最终离开缓存
+         */
+        private long expireAfterWriteMs = 3600000;
+    }
+    
+    @Data
+    public static class StatusPushConfig {
+        /**
+         * 是否启用状态变更推送（SSE / 长轮询）
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 本节点同时保持的订阅上限，超过后新订阅返回 503
+         */
+        private int maxSubscribers = 50000;
+        
+        /**
+         * SSE 连接最长保持时间（毫秒），到期后由客户端重连
+         */
+        private long sseTimeoutMs = 300000;
+        
+        /**
+         * 长轮询默认等待时间（毫秒）
+         */
+        private long longPollTimeoutMs = 30000;
+        
+        /**
+         * 长轮询允许的最长等待时间（毫秒）
+         */
+        private long maxLongPollTimeoutMs = 120000;
+        
+        /**
+         * 向订阅者推送的线程数
+         */
+        private int pushThreads = 2;
+        
+        /**
+         * 推送队列容量，写满后丢弃变更（订阅者在超时或重连时拿到最新状态）
+         */
+        private int pushQueueCapacity = 10000;
+        
+        /**
+         * rocketmq 模式下是否通过广播消息把变更转发给其他节点上的订阅者（熔断、限流推迟不广播）
+         */
+        private boolean broadcast = true;
+    }
+    
+    @Data
+    public static class MetricsConfig {
+        /**
+         * vendor 标签允许的不同取值上限，超过后新的供应商指标被丢弃，避免标签基数失控
+         */
+        private int maxVendorTags = 200;
+        
+        /**
+         * 重试级别标签的上限，更高的级别合并为 "{上限}+"
+         */
+        private int maxRetryLevelTag = 10;
+    }
+    
+    @Data
+    public static class PayloadCacheConfig {
+        /**
+         * 是否缓存预处理的请求载荷（解析后的请求头、UTF-8 编码的请求体），供同一任务的重试复用
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 缓存总大小上限（字节，按请求体和请求头长度估算）
+         */
+        private long maximumWeightBytes = 64L * 1024 * 1024;
+        
+        /**
+         * 多久未被使用后过期（毫秒），应覆盖常见的重试间隔；过期后的重试重新从任务解析
+         */
+        private long expireAfterAccessMs = 3600000;
+    }
+    
+    @Data
+    public static class PayloadCompressionConfig {
+        /**
+         * 是否压缩写入 headers_json、body_json 及尝试记录的请求/响应内容
+         * 关闭后新写入的行不再压缩，已压缩的行仍可读取（需保留 dictionaries 配置）
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 压缩阈值（字符数），短于该长度的内容原样存储
+         */
+        private int thresholdLength = 1024;
+        
+        /**
+         * Deflate 压缩级别（1-9）
+         */
+        private int level = 6;
+        
+        /**
+         * 预训练字典位置（classpath: 或 file:），第一个用于压缩，全部用于解压
+         * 字典一经使用不能删除，替换字典时把新字典放在首位并保留旧字典
+         */
+        private List<String> dictionaries = new ArrayList<>();
     }
 }
@@ -0,0 +1,53 @@
+package com.notification.config;
+
+import com.notification.util.PayloadCodec;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 存储压缩配置类
+ * 启动时加载预训练字典，把压缩配置下发给静态的 {@link PayloadCodec}
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class PayloadCodecConfig {
+    
+    private final NotificationProperties properties;
+    private final ResourceLoader resourceLoader;
+    
+    @PostConstruct
+    public void configurePayloadCodec() {
+        NotificationProperties.PayloadCompressionConfig config = properties.getPayloadCompression();
+        List<byte[]> dictionaries = new ArrayList<>();
+        for (String location : config.getDictionaries()) {
+            byte[] dictionary = load(location);
+            dictionaries.add(dictionary);
+            log.info("Payload dictionary loaded: location={}, id={}, size={}",
+                    location, PayloadCodec.dictionaryId(dictionary), dictionary.length);
+        }
+        PayloadCodec.configure(new PayloadCodec(config.isEnabled(), config.getThresholdLength(),
+                config.getLevel(), dictionaries));
+    }
+    
+    private byte[] load(String location) {
+        Resource resource = resourceLoader.getResource(location);
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load payload dictionary: " + location, e);
+        }
+    }
+}
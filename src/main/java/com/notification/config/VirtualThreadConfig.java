@@ -0,0 +1,29 @@
+package com.notification.config;
+
+import com.notification.util.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 虚拟线程配置（notification.execution.mode=virtual）
+ * 
+ * Tomcat 请求处理改为每个请求一个虚拟线程，server.tomcat.threads.max 不再限制并发请求数
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "notification.execution.mode", havingValue = "virtual")
+public class VirtualThreadConfig {
+    
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            protocolHandler.setExecutor(VirtualThreads.newThreadPerTaskExecutor("tomcat-vt-"));
+            log.info("Tomcat request handling switched to virtual threads");
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package com.notification.controller;
+
+import com.notification.service.CircuitBreakerRegistry;
+import com.notification.service.CircuitBreakerRegistry.BreakerView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 熔断器 actuator 端点
+ * 
+ * GET /actuator/circuitbreakers：全部熔断器状态和最近的状态迁移
+ * GET /actuator/circuitbreakers/{key}：单个熔断器状态
+ * DELETE /actuator/circuitbreakers/{key}：强制关闭熔断
+ * 
+ * @author Notification System
+ */
+@Component
+@Endpoint(id = "circuitbreakers")
+public class CircuitBreakerEndpoint {
+    
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    
+    @ReadOperation
+    public Map<String, Object> circuitBreakers() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("breakers", circuitBreakerRegistry.snapshot());
+        result.put("transitions", circuitBreakerRegistry.recentTransitions());
+        return result;
+    }
+    
+    @ReadOperation
+    public BreakerView circuitBreaker(@Selector String key) {
+        return circuitBreakerRegistry.snapshot(key);
+    }
+    
+    @DeleteOperation
+    public Map<String, Object> reset(@Selector String key) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("key", key);
+        result.put("reset", circuitBreakerRegistry.reset(key));
+        return result;
+    }
+}
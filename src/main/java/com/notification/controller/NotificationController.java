@@ -1,5 +1,7 @@
 package com.notification.controller;
 
+import com.notification.dto.BatchCreateNotificationRequest;
+import com.notification.dto.BatchCreateNotificationResponse;
 import com.notification.dto.CreateNotificationRequest;
 import com.notification.dto.CreateNotificationResponse;
 import com.notification.dto.ErrorResponse;
@@ -43,6 +45,18 @@ public class NotificationController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * 批量创建通知任务
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchCreateNotificationResponse> createNotifications(
+            @Valid @RequestBody BatchCreateNotificationRequest request) {
+        log.info("Received batch create notification request: size={}", request.getItems().size());
+        
+        BatchCreateNotificationResponse response = notificationService.createNotifications(request.getItems());
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * 查询通知状态
      */
@@ -0,0 +1,165 @@
+package com.notification.controller;
+
+import com.notification.config.NotificationProperties;
+import com.notification.dto.NotificationStatusResponse;
+import com.notification.service.NotificationService;
+import com.notification.service.StatusSubscriptionRegistry;
+import com.notification.service.StatusSubscriptionRegistry.Subscription;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 通知状态变更推送控制器
+ * 
+ * 替代客户端轮询 GET /notifications/{id}：SSE 推送每次状态变更直到终态，长轮询在状态变化时立即返回。
+ * 请求以 Servlet 异步方式挂起，不占用请求线程；先登记订阅再读取当前状态，读取与提交并发时也不会漏掉变更
+ * 
+ * @author Notification System
+ */
+@RestController
+@RequestMapping("/notifications")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "notification.status-push.enabled", havingValue = "true", matchIfMissing = true)
+public class NotificationEventController {
+    
+    private final NotificationService notificationService;
+    private final StatusSubscriptionRegistry statusSubscriptionRegistry;
+    private final NotificationProperties properties;
+    
+    /**
+     * 订阅状态变更（SSE）
+     * 
+     * 首个事件为当前状态，之后每次变更推送一个 status 事件，到达终态或超时后关闭连接
+     */
+    @GetMapping(value = "/{notificationId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamStatus(@PathVariable String notificationId) {
+        SseEmitter emitter = new SseEmitter(properties.getStatusPush().getSseTimeoutMs());
+        StatusStream stream = new StatusStream(emitter);
+        Subscription subscription;
+        try {
+            subscription = statusSubscriptionRegistry.subscribe(notificationId, stream::send);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        emitter.onTimeout(emitter::complete);
+        emitter.onCompletion(subscription::close);
+        emitter.onError(e -> subscription.close());
+        
+        NotificationStatusResponse current = notificationService.getNotificationStatus(notificationId);
+        if (current == null) {
+            subscription.close();
+            return ResponseEntity.notFound().build();
+        }
+        stream.send(current);
+        return ResponseEntity.ok(emitter);
+    }
+    
+    /**
+     * 长轮询状态变更
+     * 
+     * 客户端传入已知的 status / retryCount：当前状态比已知状态新或已是终态时立即返回，
+     * 否则挂起到下一次变更或 timeoutMs 到期，超时时返回当前状态
+     */
+    @GetMapping("/{notificationId}/events/poll")
+    public DeferredResult<ResponseEntity<NotificationStatusResponse>> pollStatus(
+            @PathVariable String notificationId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Integer retryCount,
+            @RequestParam(required = false) Long timeoutMs) {
+        NotificationProperties.StatusPushConfig config = properties.getStatusPush();
+        long timeout = Math.max(1, Math.min(timeoutMs == null ? config.getLongPollTimeoutMs() : timeoutMs,
+                config.getMaxLongPollTimeoutMs()));
+        DeferredResult<ResponseEntity<NotificationStatusResponse>> result = new DeferredResult<>(timeout);
+        
+        // 读取当前状态之前到达的变更先记下，确定比较基准后再判断
+        AtomicReference<NotificationStatusResponse> baseline = new AtomicReference<>();
+        AtomicReference<NotificationStatusResponse> latestSeen = new AtomicReference<>();
+        Subscription subscription;
+        try {
+            subscription = statusSubscriptionRegistry.subscribe(notificationId, change -> {
+                latestSeen.accumulateAndGet(change, (previous, next) ->
+                        StatusSubscriptionRegistry.supersedes(next, previous) ? next : previous);
+                NotificationStatusResponse base = baseline.get();
+                if (base != null && StatusSubscriptionRegistry.supersedes(change, base)) {
+                    result.setResult(ResponseEntity.ok(change));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+            return result;
+        }
+        result.onCompletion(subscription::close);
+        
+        NotificationStatusResponse current = notificationService.getNotificationStatus(notificationId);
+        if (current == null) {
+            result.setResult(ResponseEntity.notFound().build());
+            return result;
+        }
+        result.onTimeout(() -> result.setResult(ResponseEntity.ok(current)));
+        
+        // 客户端已知状态只按 status / retryCount 比较
+        NotificationStatusResponse known = status == null ? null : NotificationStatusResponse.builder()
+                .status(status)
+                .retryCount(retryCount)
+                .lastErrorCode(current.getLastErrorCode())
+                .build();
+        if (StatusSubscriptionRegistry.isTerminal(current)
+                || (known != null && StatusSubscriptionRegistry.supersedes(current, known))) {
+            result.setResult(ResponseEntity.ok(current));
+            return result;
+        }
+        baseline.set(current);
+        NotificationStatusResponse seen = latestSeen.get();
+        if (seen != null && StatusSubscriptionRegistry.supersedes(seen, current)) {
+            result.setResult(ResponseEntity.ok(seen));
+        }
+        return result;
+    }
+    
+    /**
+     * 单个 SSE 连接的发送状态：只发送比上一次更新的状态，到达终态后关闭
+     */
+    private static final class StatusStream {
+        
+        private final SseEmitter emitter;
+        private NotificationStatusResponse lastSent;
+        private boolean finished;
+        
+        private StatusStream(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+        
+        synchronized void send(NotificationStatusResponse status) {
+            if (finished || !StatusSubscriptionRegistry.supersedes(status, lastSent)) {
+                return;
+            }
+            lastSent = status;
+            try {
+                emitter.send(SseEmitter.event().name("status").data(status, MediaType.APPLICATION_JSON));
+            } catch (IOException e) {
+                finished = true;
+                emitter.completeWithError(e);
+                throw new UncheckedIOException(e);
+            }
+            if (StatusSubscriptionRegistry.isTerminal(status)) {
+                finished = true;
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.notification.controller;
+
+import com.notification.dto.ErrorResponse;
+import com.notification.dto.VendorRateLimitRequest;
+import com.notification.dto.VendorRateLimitResponse;
+import com.notification.entity.VendorConfig;
+import com.notification.service.VendorConfigService;
+import com.notification.service.VendorRateLimiter;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 供应商管理 REST API 控制器
+ * 
+ * 限流配置写入 vendor_config，本节点立即生效，其他节点在下一次配置变更检测时生效
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/vendors")
+@RequiredArgsConstructor
+public class VendorAdminController {
+    
+    private final VendorConfigService vendorConfigService;
+    private final VendorRateLimiter vendorRateLimiter;
+    
+    /**
+     * 查询供应商限流配置及本节点实际生效的份额
+     */
+    @GetMapping("/{vendorCode}/rate-limit")
+    public ResponseEntity<VendorRateLimitResponse> getRateLimit(@PathVariable String vendorCode) {
+        VendorConfig vendorConfig = vendorConfigService.getVendorConfig(vendorCode);
+        if (vendorConfig == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(toResponse(vendorCode));
+    }
+    
+    /**
+     * 修改供应商限流配置（qps 为空表示取消限流）
+     */
+    @PutMapping("/{vendorCode}/rate-limit")
+    public ResponseEntity<VendorRateLimitResponse> updateRateLimit(
+            @PathVariable String vendorCode,
+            @Valid @RequestBody VendorRateLimitRequest request) {
+        log.info("Update vendor rate limit: vendorCode={}, qps={}, burst={}",
+                vendorCode, request.getQps(), request.getBurst());
+        
+        Integer burst = request.getQps() == null ? null : request.getBurst();
+        if (!vendorConfigService.updateRateLimit(vendorCode, request.getQps(), burst)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(toResponse(vendorCode));
+    }
+    
+    /**
+     * 全局异常处理 - 参数验证异常
+     */
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<ErrorResponse> handleValidationException(MethodArgumentNotValidException ex) {
+        String message = ex.getBindingResult().getFieldErrors().stream()
+                .map(error -> error.getField() + ": " + error.getDefaultMessage())
+                .findFirst()
+                .orElse("Invalid request");
+        return ResponseEntity.badRequest().body(ErrorResponse.of("VALIDATION_ERROR", message));
+    }
+    
+    private VendorRateLimitResponse toResponse(String vendorCode) {
+        VendorRateLimiter.NodeLimit limit = vendorRateLimiter.limit(vendorCode);
+        return VendorRateLimitResponse.builder()
+                .vendorCode(vendorCode)
+                .clusterQps(limit.clusterQps())
+                .clusterBurst(limit.clusterBurst())
+                .liveNodes(limit.liveNodes())
+                .nodeQps(limit.bucket() == null ? null : limit.bucket().getRatePerSecond())
+                .nodeBurst(limit.bucket() == null ? null : limit.bucket().getBurst())
+                .build();
+    }
+}
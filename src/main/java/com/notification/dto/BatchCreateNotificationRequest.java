@@ -0,0 +1,29 @@
+package com.notification.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量创建通知请求 DTO
+ * 
+ * 单条请求的校验在服务层逐条进行，某一条不合法不会导致整批被拒绝
+ * 
+ * @author Notification System
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchCreateNotificationRequest {
+    
+    /**
+     * 通知请求列表（必填，数量上限由 notification.batch.max-size 控制）
+     */
+    @NotEmpty(message = "items is required")
+    private List<CreateNotificationRequest> items;
+}
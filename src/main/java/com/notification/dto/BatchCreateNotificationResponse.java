@@ -0,0 +1,79 @@
+package com.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量创建通知响应 DTO
+ * 
+ * @author Notification System
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchCreateNotificationResponse {
+    
+    /**
+     * 受理数量
+     */
+    private int accepted;
+    
+    /**
+     * 重复数量
+     */
+    private int duplicate;
+    
+    /**
+     * 不合法数量
+     */
+    private int invalid;
+    
+    /**
+     * 逐条结果，顺序与请求一致
+     */
+    private List<ItemResult> items;
+    
+    /**
+     * 单条处理结果
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        
+        public static final String ACCEPTED = "ACCEPTED";
+        public static final String DUPLICATE = "DUPLICATE";
+        public static final String INVALID = "INVALID";
+        
+        /**
+         * 在请求列表中的下标
+         */
+        private int index;
+        
+        /**
+         * 状态：ACCEPTED / DUPLICATE / INVALID
+         */
+        private String status;
+        
+        /**
+         * 通知任务ID（ACCEPTED 为新任务ID，DUPLICATE 为已存在任务ID）
+         */
+        private String notificationId;
+        
+        /**
+         * 业务幂等ID
+         */
+        private String eventId;
+        
+        /**
+         * 错误信息（INVALID 时返回）
+         */
+        private String message;
+    }
+}
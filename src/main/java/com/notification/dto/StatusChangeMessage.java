@@ -0,0 +1,33 @@
+package com.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 状态变更广播消息 DTO
+ * 用于把投递结果转发给其他节点上的订阅者
+ * 
+ * @author Notification System
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusChangeMessage implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * 发出变更的节点名
+     */
+    private String originNode;
+    
+    /**
+     * 变更后的状态
+     */
+    private NotificationStatusResponse status;
+}
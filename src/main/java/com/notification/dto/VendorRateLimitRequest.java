@@ -0,0 +1,31 @@
+package com.notification.dto;
+
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 修改供应商限流配置请求 DTO
+ * 
+ * @author Notification System
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendorRateLimitRequest {
+    
+    /**
+     * 集群总限流速率（次/秒），为空表示取消限流
+     */
+    @Positive(message = "qps must be positive")
+    private Double qps;
+    
+    /**
+     * 限流突发容量（可选，为空等于速率）
+     */
+    @Positive(message = "burst must be positive")
+    private Integer burst;
+}
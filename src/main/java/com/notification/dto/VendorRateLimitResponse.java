@@ -0,0 +1,48 @@
+package com.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 供应商限流配置响应 DTO
+ * 
+ * @author Notification System
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendorRateLimitResponse {
+    
+    /**
+     * 供应商编码
+     */
+    private String vendorCode;
+    
+    /**
+     * 集群总限流速率（次/秒），为空表示不限流
+     */
+    private Double clusterQps;
+    
+    /**
+     * 集群总突发容量
+     */
+    private Integer clusterBurst;
+    
+    /**
+     * 当前存活节点数
+     */
+    private Integer liveNodes;
+    
+    /**
+     * 本节点限流速率（次/秒）
+     */
+    private Double nodeQps;
+    
+    /**
+     * 本节点突发容量
+     */
+    private Integer nodeBurst;
+}
@@ -0,0 +1,44 @@
+package com.notification.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 集群节点实体类
+ * 对应数据库表: cluster_node
+ * 
+ * @author Notification System
+ */
+@Data
+@TableName("cluster_node")
+public class ClusterNode {
+    
+    /**
+     * 节点名称（主机名:进程号）
+     */
+    @TableId(value = "node_name", type = IdType.INPUT)
+    private String nodeName;
+    
+    /**
+     * 租用的 ID 生成器节点号
+     */
+    @TableField("id_node_id")
+    private Integer idNodeId;
+    
+    /**
+     * 启动时间
+     */
+    @TableField("started_at")
+    private LocalDateTime startedAt;
+    
+    /**
+     * 最近心跳时间
+     */
+    @TableField("heartbeat_at")
+    private LocalDateTime heartbeatAt;
+}
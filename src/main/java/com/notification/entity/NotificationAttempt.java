@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
+import com.notification.util.CompressedTextTypeHandler;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -17,7 +18,7 @@ import java.time.LocalDateTime;
  * @author Notification System
  */
 @Data
-@TableName("notification_attempt")
+@TableName(value = "notification_attempt", autoResultMap = true)
 public class NotificationAttempt {
     
     /**
@@ -33,7 +34,8 @@ public class NotificationAttempt {
     private String notificationId;
     
     /**
-     * 第几次尝试(从1开始)
+     * 第几轮尝试(retry_count + 1，从1开始)
+     * 429 推迟和租约过期后的重新领取不消耗重试次数，同一轮可能有多条记录，按 id 区分先后
      */
     @TableField("attempt_no")
     private Integer attemptNo;
@@ -41,13 +43,13 @@ public class NotificationAttempt {
     /**
      * 本次请求头
      */
-    @TableField("request_headers")
+    @TableField(value = "request_headers", typeHandler = CompressedTextTypeHandler.class)
     private String requestHeaders;
     
     /**
      * 本次请求体
      */
-    @TableField("request_body")
+    @TableField(value = "request_body", typeHandler = CompressedTextTypeHandler.class)
     private String requestBody;
     
     /**
@@ -59,7 +61,7 @@ public class NotificationAttempt {
     /**
      * 响应体
      */
-    @TableField("response_body")
+    @TableField(value = "response_body", typeHandler = CompressedTextTypeHandler.class)
     private String responseBody;
     
     /**
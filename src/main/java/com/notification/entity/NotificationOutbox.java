@@ -0,0 +1,79 @@
+package com.notification.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 通知发件箱实体类
+ * 对应数据库表: notification_outbox
+ * 
+ * 与通知任务在同一事务中写入，由 OutboxRelay 异步投递到 MQ
+ * 
+ * @author Notification System
+ */
+@Data
+@TableName("notification_outbox")
+public class NotificationOutbox {
+    
+    public static final String STATUS_NEW = "NEW";
+    public static final String STATUS_PUBLISHED = "PUBLISHED";
+    
+    /**
+     * 主键
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    
+    /**
+     * 关联通知任务ID
+     */
+    @TableField("notification_id")
+    private String notificationId;
+    
+    /**
+     * 供应商编码
+     */
+    @TableField("vendor_code")
+    private String vendorCode;
+    
+    /**
+     * 状态: NEW/PUBLISHED
+     */
+    @TableField("status")
+    private String status;
+    
+    /**
+     * 领取批次标识
+     */
+    @TableField("claim_token")
+    private String claimToken;
+    
+    /**
+     * 领取租约到期时间，到期后其他节点可重新领取
+     */
+    @TableField("lease_until")
+    private LocalDateTime leaseUntil;
+    
+    /**
+     * 已尝试投递次数
+     */
+    @TableField("attempts")
+    private Integer attempts;
+    
+    /**
+     * 创建时间
+     */
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+    
+    /**
+     * 投递成功时间
+     */
+    @TableField("published_at")
+    private LocalDateTime publishedAt;
+}
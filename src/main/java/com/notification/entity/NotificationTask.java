@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
+import com.notification.util.CompressedTextTypeHandler;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -16,11 +17,11 @@ import java.time.LocalDateTime;
  * @author Notification System
  */
 @Data
-@TableName("notification_task")
+@TableName(value = "notification_task", autoResultMap = true)
 public class NotificationTask {
     
     /**
-     * 通知任务ID，格式: ntf_yyyyMMddHHmmss_随机数
+     * 通知任务ID，格式: ntf_ + 19 位 Snowflake ID（compact-key 模式下为纯数字）
      */
     @TableId(type = IdType.ASSIGN_ID)
     private String id;
@@ -46,13 +47,13 @@ public class NotificationTask {
     /**
      * 请求头JSON
      */
-    @TableField("headers_json")
+    @TableField(value = "headers_json", typeHandler = CompressedTextTypeHandler.class)
     private String headersJson;
     
     /**
      * 请求体JSON
      */
-    @TableField("body_json")
+    @TableField(value = "body_json", typeHandler = CompressedTextTypeHandler.class)
     private String bodyJson;
     
     /**
@@ -97,6 +98,13 @@ public class NotificationTask {
     @TableField("event_id")
     private String eventId;
     
+    /**
+     * eventId 是否仍被占用：1-进行中或去重窗口内成功, NULL-已释放
+     * 与 event_id 组成唯一索引，保证同一 eventId 只有一条活跃任务
+     */
+    @TableField("event_active")
+    private Integer eventActive;
+    
     /**
      * 创建时间
      */
@@ -114,4 +122,16 @@ public class NotificationTask {
      */
     @TableField("last_attempt_at")
     private LocalDateTime lastAttemptAt;
+    
+    /**
+     * 投递租约到期时间，非空且未过期表示有节点正在投递
+     */
+    @TableField("lease_until")
+    private LocalDateTime leaseUntil;
+    
+    /**
+     * 下一次重试的计划时间（RETRYING 状态有效）
+     */
+    @TableField("next_attempt_at")
+    private LocalDateTime nextAttemptAt;
 }
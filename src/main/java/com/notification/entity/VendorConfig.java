@@ -79,6 +79,42 @@ public class VendorConfig {
     @TableField("default_timeout_ms")
     private Integer defaultTimeoutMs;
     
+    /**
+     * 连接池最大连接数，为空使用系统默认值
+     */
+    @TableField("max_connections")
+    private Integer maxConnections;
+    
+    /**
+     * 从连接池获取连接的最长等待时间(毫秒)
+     */
+    @TableField("acquire_timeout_ms")
+    private Integer acquireTimeoutMs;
+    
+    /**
+     * 空闲连接保活时间(毫秒)，超过后被回收
+     */
+    @TableField("idle_ttl_ms")
+    private Integer idleTtlMs;
+    
+    /**
+     * 建立连接超时时间(毫秒)
+     */
+    @TableField("connect_timeout_ms")
+    private Integer connectTimeoutMs;
+    
+    /**
+     * 集群总限流速率(次/秒)，为空不限流，按存活节点数均分
+     */
+    @TableField("rate_limit_qps")
+    private Double rateLimitQps;
+    
+    /**
+     * 限流突发容量，为空等于速率
+     */
+    @TableField("rate_limit_burst")
+    private Integer rateLimitBurst;
+    
     /**
      * 是否启用: 0-禁用, 1-启用
      */
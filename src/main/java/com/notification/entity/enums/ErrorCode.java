@@ -25,7 +25,9 @@ public enum ErrorCode {
     HTTP_TIMEOUT("HTTP_TIMEOUT", "External API call timeout"),
     HTTP_4XX("HTTP_4XX", "External API returned 4xx error"),
     HTTP_5XX("HTTP_5XX", "External API returned 5xx error"),
-    NETWORK_ERROR("NETWORK_ERROR", "Network connection failed");
+    NETWORK_ERROR("NETWORK_ERROR", "Network connection failed"),
+    CIRCUIT_OPEN("CIRCUIT_OPEN", "Delivery deferred because the vendor circuit is open"),
+    RATE_LIMITED("RATE_LIMITED", "Delivery deferred by the vendor rate limit");
     
     private final String code;
     private final String message;
@@ -0,0 +1,71 @@
+package com.notification.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.notification.entity.ClusterNode;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 集群节点 Mapper 接口
+ * 
+ * @author Notification System
+ */
+@Mapper
+public interface ClusterNodeMapper extends BaseMapper<ClusterNode> {
+    
+    /**
+     * 更新心跳时间
+     * 
+     * @param nodeName 节点名称
+     * @param now 当前时间
+     * @return 更新行数，0 表示节点尚未注册
+     */
+    @Update("UPDATE cluster_node SET heartbeat_at = #{now} WHERE node_name = #{nodeName}")
+    int heartbeat(@Param("nodeName") String nodeName, @Param("now") LocalDateTime now);
+    
+    /**
+     * 查询存活节点名称（按名称排序，各节点据此得到一致的分片序号）
+     * 
+     * @param after 心跳时间阈值
+     * @return 节点名称列表
+     */
+    @Select("SELECT node_name FROM cluster_node " +
+            "WHERE heartbeat_at > #{after} " +
+            "ORDER BY node_name")
+    List<String> selectLiveNodeNames(@Param("after") LocalDateTime after);
+    
+    /**
+     * 为已注册的节点租用 ID 生成器节点号，节点号被其他节点占用时违反唯一索引
+     * 
+     * @param nodeName 节点名称
+     * @param idNodeId ID 生成器节点号
+     * @param now 当前时间（同时刷新心跳）
+     * @return 更新行数，0 表示节点尚未注册
+     */
+    @Update("UPDATE cluster_node SET id_node_id = #{idNodeId}, heartbeat_at = #{now} WHERE node_name = #{nodeName}")
+    int leaseIdNode(@Param("nodeName") String nodeName, @Param("idNodeId") int idNodeId, @Param("now") LocalDateTime now);
+    
+    /**
+     * 查询占用指定 ID 生成器节点号的节点
+     * 
+     * @param idNodeId ID 生成器节点号
+     * @return 节点，未被占用时为 null
+     */
+    @Select("SELECT * FROM cluster_node WHERE id_node_id = #{idNodeId}")
+    ClusterNode selectByIdNode(@Param("idNodeId") int idNodeId);
+    
+    /**
+     * 删除长时间无心跳的节点
+     * 
+     * @param before 心跳时间阈值
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM cluster_node WHERE heartbeat_at < #{before}")
+    int deleteExpired(@Param("before") LocalDateTime before);
+}
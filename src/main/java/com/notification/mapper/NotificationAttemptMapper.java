@@ -0,0 +1,63 @@
+package com.notification.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.notification.entity.NotificationAttempt;
+import com.notification.util.CompressedTextTypeHandler;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 通知尝试记录 Mapper 接口
+ * 
+ * @author Notification System
+ */
+@Mapper
+public interface NotificationAttemptMapper extends BaseMapper<NotificationAttempt> {
+    
+    /**
+     * 多行插入
+     * 
+     * @param rows 尝试记录
+     * @return 插入行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO notification_attempt (notification_id, attempt_no, request_headers, request_body, " +
+            "response_status, response_body, error_code, error_message, cost_ms, created_at) VALUES " +
+            "<foreach collection='rows' item='r' separator=','>" +
+            "(#{r.notificationId}, #{r.attemptNo}, " +
+            "#{r.requestHeaders," + CompressedTextTypeHandler.TYPE_HANDLER + "}, " +
+            "#{r.requestBody," + CompressedTextTypeHandler.TYPE_HANDLER + "}, #{r.responseStatus}, " +
+            "#{r.responseBody," + CompressedTextTypeHandler.TYPE_HANDLER + "}, " +
+            "#{r.errorCode}, #{r.errorMessage}, #{r.costMs}, #{r.createdAt})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("rows") List<NotificationAttempt> rows);
+    
+    /**
+     * 查询任务的全部尝试记录（按时间顺序）
+     * 
+     * @param notificationId 通知任务ID
+     * @return 尝试记录列表
+     */
+    @Select("SELECT * FROM notification_attempt WHERE notification_id = #{notificationId} ORDER BY id")
+    @ResultMap("mybatis-plus_NotificationAttempt")
+    List<NotificationAttempt> selectByNotificationId(@Param("notificationId") String notificationId);
+    
+    /**
+     * 删除指定任务的全部尝试记录（走 idx_notification_id）
+     * 
+     * @param notificationIds 通知任务ID列表
+     * @return 删除的记录数
+     */
+    @Delete("<script>" +
+            "DELETE FROM notification_attempt WHERE notification_id IN " +
+            "<foreach collection='notificationIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int deleteByNotificationIds(@Param("notificationIds") List<String> notificationIds);
+}
@@ -0,0 +1,126 @@
+package com.notification.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.notification.entity.NotificationOutbox;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 通知发件箱 Mapper 接口
+ * 
+ * 领取流程：先查出可领取的 id，再用带条件的 UPDATE 打上本批次 claim_token 和租约，
+ * 最后按 claim_token 读回，多个节点同时领取时每行只会被一个节点拿到
+ * 
+ * @author Notification System
+ */
+@Mapper
+public interface NotificationOutboxMapper extends BaseMapper<NotificationOutbox> {
+    
+    /**
+     * 多行插入
+     * 
+     * @param rows 发件箱记录
+     * @return 插入行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO notification_outbox (notification_id, vendor_code, status, attempts, created_at) VALUES " +
+            "<foreach collection='rows' item='r' separator=','>" +
+            "(#{r.notificationId}, #{r.vendorCode}, #{r.status}, #{r.attempts}, #{r.createdAt})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("rows") List<NotificationOutbox> rows);
+    
+    /**
+     * 查询可领取的记录ID（未投递且未被领取或租约已过期）
+     * 
+     * @param now 当前时间
+     * @param limit 最大条数
+     * @return 记录ID列表
+     */
+    @Select("SELECT id FROM notification_outbox " +
+            "WHERE status = 'NEW' " +
+            "AND (lease_until IS NULL OR lease_until < #{now}) " +
+            "ORDER BY id " +
+            "LIMIT #{limit}")
+    List<Long> selectClaimableIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    /**
+     * 领取记录
+     * 
+     * @param ids 候选记录ID
+     * @param claimToken 本批次标识
+     * @param leaseUntil 租约到期时间
+     * @param now 当前时间
+     * @return 实际领取的行数
+     */
+    @Update("<script>" +
+            "UPDATE notification_outbox " +
+            "SET claim_token = #{claimToken}, lease_until = #{leaseUntil}, attempts = attempts + 1 " +
+            "WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            " AND status = 'NEW' " +
+            "AND (lease_until IS NULL OR lease_until &lt; #{now})" +
+            "</script>")
+    int claim(@Param("ids") List<Long> ids,
+              @Param("claimToken") String claimToken,
+              @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("now") LocalDateTime now);
+    
+    /**
+     * 按批次标识读回已领取的记录
+     * 
+     * @param claimToken 批次标识
+     * @return 记录列表
+     */
+    @Select("SELECT * FROM notification_outbox " +
+            "WHERE claim_token = #{claimToken} " +
+            "AND status = 'NEW' " +
+            "ORDER BY id")
+    List<NotificationOutbox> selectByClaimToken(@Param("claimToken") String claimToken);
+    
+    /**
+     * 标记本批次已投递（仅当记录仍归本批次所有）
+     * 
+     * @param claimToken 批次标识
+     * @param publishedAt 投递时间
+     * @return 更新行数
+     */
+    @Update("UPDATE notification_outbox " +
+            "SET status = 'PUBLISHED', published_at = #{publishedAt}, lease_until = NULL " +
+            "WHERE claim_token = #{claimToken} " +
+            "AND status = 'NEW'")
+    int markPublished(@Param("claimToken") String claimToken, @Param("publishedAt") LocalDateTime publishedAt);
+    
+    /**
+     * 投递失败后推迟本批次的下一次领取时间
+     * 
+     * @param claimToken 批次标识
+     * @param retryAt 最早可再次领取的时间
+     * @return 更新行数
+     */
+    @Update("UPDATE notification_outbox " +
+            "SET lease_until = #{retryAt} " +
+            "WHERE claim_token = #{claimToken} " +
+            "AND status = 'NEW'")
+    int deferClaim(@Param("claimToken") String claimToken, @Param("retryAt") LocalDateTime retryAt);
+    
+    /**
+     * 分批删除早于指定时间的已投递记录
+     * 
+     * @param before 投递时间阈值
+     * @param limit 单批最大行数
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM notification_outbox " +
+            "WHERE status = 'PUBLISHED' " +
+            "AND published_at < #{before} " +
+            "LIMIT #{limit}")
+    int deletePublishedBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
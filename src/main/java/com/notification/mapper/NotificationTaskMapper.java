@@ -2,11 +2,17 @@ package com.notification.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.notification.entity.NotificationTask;
+import com.notification.util.CompressedTextTypeHandler;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -18,48 +24,321 @@ import java.util.List;
 public interface NotificationTaskMapper extends BaseMapper<NotificationTask> {
     
     /**
-     * 根据 eventId 和状态列表查询任务
-     * 用于幂等性检查
+     * 状态查询使用的列
+     */
+    String STATUS_COLUMNS = "id, vendor_code, target_url, http_method, status, retry_count, max_retry, "
+            + "last_error_code, last_error_message, created_at, updated_at, last_attempt_at";
+    
+    /**
+     * 根据 eventId 查询占用该 eventId 的活跃任务
+     * 用于幂等性检查（活跃 = 进行中，或去重窗口内的成功任务）
      * 
      * @param eventId 业务事件ID
-     * @param statuses 状态列表
      * @return 匹配的任务，如果不存在返回null
      */
-    @Select("<script>" +
-            "SELECT * FROM notification_task " +
+    @Select("SELECT * FROM notification_task " +
             "WHERE event_id = #{eventId} " +
-            "AND status IN " +
-            "<foreach collection='statuses' item='status' open='(' separator=',' close=')'>" +
-            "#{status}" +
+            "AND event_active = 1 " +
+            "LIMIT 1")
+    @ResultMap("mybatis-plus_NotificationTask")
+    NotificationTask selectActiveByEventId(@Param("eventId") String eventId);
+    
+    /**
+     * 根据一组 eventId 查询活跃任务（仅返回 id、event_id）
+     * 用于批量创建时一次性完成幂等性检查
+     * 
+     * @param eventIds 业务事件ID集合
+     * @return 匹配的任务
+     */
+    @Select("<script>" +
+            "SELECT id, event_id FROM notification_task " +
+            "WHERE event_id IN " +
+            "<foreach collection='eventIds' item='eventId' open='(' separator=',' close=')'>" +
+            "#{eventId}" +
+            "</foreach>" +
+            " AND event_active = 1" +
+            "</script>")
+    List<NotificationTask> selectActiveByEventIds(@Param("eventIds") Collection<String> eventIds);
+    
+    /**
+     * 释放超出去重窗口的成功任务占用的 eventId（分批执行）
+     * 
+     * @param before 更新时间阈值
+     * @param limit 单批最大行数
+     * @return 释放的行数
+     */
+    @Update("UPDATE notification_task SET event_active = NULL " +
+            "WHERE event_active = 1 " +
+            "AND status = 'SUCCESS' " +
+            "AND updated_at < #{before} " +
+            "LIMIT #{limit}")
+    int releaseSuccessEventIds(@Param("before") LocalDateTime before, @Param("limit") int limit);
+    
+    /**
+     * 多行插入任务（单条 INSERT ... VALUES (...), (...)）
+     * 自定义 SQL 不经过自动填充，调用方需设置 createdAt / updatedAt
+     * 
+     * @param tasks 任务列表
+     * @return 插入行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO notification_task " +
+            "(id, vendor_code, target_url, http_method, headers_json, body_json, status, " +
+            "retry_count, max_retry, callback_timeout_ms, event_id, event_active, created_at, updated_at) VALUES " +
+            "<foreach collection='tasks' item='t' separator=','>" +
+            "(#{t.id}, #{t.vendorCode}, #{t.targetUrl}, #{t.httpMethod}, " +
+            "#{t.headersJson," + CompressedTextTypeHandler.TYPE_HANDLER + "}, " +
+            "#{t.bodyJson," + CompressedTextTypeHandler.TYPE_HANDLER + "}, #{t.status}, " +
+            "#{t.retryCount}, #{t.maxRetry}, #{t.callbackTimeoutMs}, #{t.eventId}, #{t.eventActive}, #{t.createdAt}, #{t.updatedAt})" +
             "</foreach>" +
-            " LIMIT 1" +
             "</script>")
-    NotificationTask selectByEventIdAndStatusIn(
-            @Param("eventId") String eventId,
-            @Param("statuses") List<String> statuses
+    int insertBatch(@Param("tasks") List<NotificationTask> tasks);
+    
+    /**
+     * 领取投递租约
+     * 仅当任务处于 PENDING/RETRYING、没有未过期的租约且已到重试时间时成功，保证同一时刻只有一个节点在投递，
+     * 提前到达或已过时的重试消息不会触发投递
+     * 
+     * @param id 任务ID
+     * @param leaseUntil 租约到期时间
+     * @param now 当前时间
+     * @param dueBefore 重试计划时间上限（当前时间 + 允许的时钟偏差）
+     * @return 更新行数，1 表示领取成功
+     */
+    @Update("UPDATE notification_task SET lease_until = #{leaseUntil} " +
+            "WHERE id = #{id} " +
+            "AND status IN ('PENDING', 'RETRYING') " +
+            "AND (lease_until IS NULL OR lease_until < #{now}) " +
+            "AND (next_attempt_at IS NULL OR next_attempt_at <= #{dueBefore})")
+    int claimLease(
+            @Param("id") String id,
+            @Param("leaseUntil") LocalDateTime leaseUntil,
+            @Param("now") LocalDateTime now,
+            @Param("dueBefore") LocalDateTime dueBefore
     );
     
     /**
-     * 查询指定状态且创建时间早于指定时间的任务
-     * 用于数据清理
+     * 锁定一批到期任务（db 模式领取）
+     * 沿 idx_status_next_attempt 按到期时间顺序扫描：next_attempt_at 为空的新任务排在最前，
+     * 已被其他事务锁定的行直接跳过，多个节点并发领取时互不等待。须在事务中调用，随后用 {@link #leaseClaimed} 写入租约
      * 
-     * @param status 任务状态
-     * @param before 时间阈值
-     * @return 符合条件的任务列表
+     * @param status 任务状态（PENDING 或 RETRYING）
+     * @param now 当前时间
+     * @param limit 最大行数
+     * @param skipLocked 是否使用 SKIP LOCKED（H2 不支持）
+     * @return 锁定的任务
      */
-    @Select("SELECT * FROM notification_task " +
+    @Select("<script>" +
+            "SELECT * FROM notification_task " +
             "WHERE status = #{status} " +
-            "AND created_at < #{before}")
-    List<NotificationTask> selectByStatusAndCreatedAtBefore(
-            @Param("status") String status,
-            @Param("before") LocalDateTime before
+            "AND (next_attempt_at IS NULL OR next_attempt_at &lt;= #{now}) " +
+            "AND (lease_until IS NULL OR lease_until &lt; #{now}) " +
+            "ORDER BY next_attempt_at, id " +
+            "LIMIT #{limit} " +
+            "FOR UPDATE" +
+            "<if test='skipLocked'> SKIP LOCKED</if>" +
+            "</script>")
+    @ResultMap("mybatis-plus_NotificationTask")
+    List<NotificationTask> selectDueForUpdate(@Param("status") String status,
+                                              @Param("now") LocalDateTime now,
+                                              @Param("limit") int limit,
+                                              @Param("skipLocked") boolean skipLocked);
+    
+    /**
+     * 为已锁定的任务写入投递租约
+     * next_attempt_at 同时推到租约到期时间：投递中的任务移出到期范围，后续领取不再扫描到它们；
+     * 节点宕机未提交结果时，租约到期后任务重新到期
+     * 
+     * @param ids 任务ID列表
+     * @param leaseUntil 租约到期时间
+     * @return 更新行数
+     */
+    @Update("<script>" +
+            "UPDATE notification_task SET lease_until = #{leaseUntil}, next_attempt_at = #{leaseUntil} " +
+            "WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int leaseClaimed(@Param("ids") List<String> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+    
+    /**
+     * 提交投递结果并释放租约
+     * 以领取时的状态和重试次数作为条件，状态已被其他节点推进时不会覆盖
+     * 
+     * @param task 包含投递结果的任务
+     * @param expectedStatus 领取时的状态
+     * @param expectedRetryCount 领取时的重试次数
+     * @return 更新行数，0 表示状态已被并发修改
+     */
+    @Update("UPDATE notification_task SET " +
+            "status = #{task.status}, " +
+            "retry_count = #{task.retryCount}, " +
+            "last_error_code = #{task.lastErrorCode}, " +
+            "last_error_message = #{task.lastErrorMessage}, " +
+            "last_attempt_at = #{task.lastAttemptAt}, " +
+            "event_active = #{task.eventActive}, " +
+            "next_attempt_at = #{task.nextAttemptAt}, " +
+            "lease_until = NULL, " +
+            "updated_at = #{task.updatedAt} " +
+            "WHERE id = #{task.id} " +
+            "AND status = #{expectedStatus} " +
+            "AND retry_count = #{expectedRetryCount}")
+    int updateDispatchResult(
+            @Param("task") NotificationTask task,
+            @Param("expectedStatus") String expectedStatus,
+            @Param("expectedRetryCount") int expectedRetryCount
     );
     
     /**
-     * 批量删除任务
+     * 按ID查询状态查询所需的列（不读取 headers_json、body_json）
+     * 
+     * @param id 任务ID
+     * @return 任务，不存在返回null
+     */
+    @Select("SELECT " + STATUS_COLUMNS + " FROM notification_task WHERE id = #{id}")
+    NotificationTask selectStatusById(@Param("id") String id);
+    
+    /**
+     * 在归档表中按ID查询状态查询所需的列（分区模式下过期分区归档后使用）
+     * 
+     * @param id 任务ID
+     * @return 归档的任务，不存在返回null
+     */
+    @Select("SELECT " + STATUS_COLUMNS + " FROM notification_task_archive WHERE id = #{id}")
+    NotificationTask selectArchivedStatusById(@Param("id") String id);
+    
+    /**
+     * 按 (created_at, id) 键集分页查询可清理的任务ID（仅返回 id、created_at，沿 idx_created_at 顺序扫描）
+     * 
+     * @param status 任务状态
+     * @param before 创建时间阈值
+     * @param afterCreatedAt 上一页最后一条的 created_at，首页为 null
+     * @param afterId 上一页最后一条的 id，首页为 null
+     * @param limit 每页条数
+     * @return 任务列表
+     */
+    @Select("<script>" +
+            "SELECT id, created_at FROM notification_task " +
+            "WHERE created_at &lt; #{before} " +
+            "AND status = #{status} " +
+            "<if test='afterCreatedAt != null'>" +
+            "AND (created_at &gt; #{afterCreatedAt} OR (created_at = #{afterCreatedAt} AND id &gt; #{afterId})) " +
+            "</if>" +
+            "ORDER BY created_at, id " +
+            "LIMIT #{limit}" +
+            "</script>")
+    List<NotificationTask> selectExpiredChunk(@Param("status") String status,
+                                              @Param("before") LocalDateTime before,
+                                              @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                              @Param("afterId") String afterId,
+                                              @Param("limit") int limit);
+    
+    /**
+     * 按主键批量删除仍处于指定状态的任务
      * 
      * @param ids 任务ID列表
+     * @param status 期望状态
      * @return 删除的记录数
      */
-    int deleteBatchByIds(@Param("ids") List<String> ids);
+    @Delete("<script>" +
+            "DELETE FROM notification_task WHERE status = #{status} AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int deleteByIdsAndStatus(@Param("ids") List<String> ids, @Param("status") String status);
+    
+    /**
+     * 按 (updated_at, id) 键集分页查询长时间无进展的任务（仅返回 id、updated_at，走 idx_status_updated 覆盖索引）
+     * 
+     * 按 ID 末 9 位数字取模分片（雪花 ID 的低位包含序列号和节点号，分布均匀），MySQL 和 H2 都能计算
+     * 
+     * @param status 任务状态
+     * @param before 最近更新时间阈值
+     * @param afterUpdatedAt 上一页最后一条的 updated_at，首页为 null
+     * @param afterId 上一页最后一条的 id，首页为 null
+     * @param shardIndex 分片序号
+     * @param shardCount 分片数，不大于 1 时不分片
+     * @param limit 每页条数
+     * @return 任务列表
+     */
+    @Select("<script>" +
+            "SELECT id, updated_at FROM notification_task " +
+            "WHERE status = #{status} " +
+            "AND updated_at &lt; #{before} " +
+            "<if test='shardCount > 1'>" +
+            "AND MOD(CAST(RIGHT(id, 9) AS SIGNED), #{shardCount}) = #{shardIndex} " +
+            "</if>" +
+            "<if test='afterUpdatedAt != null'>" +
+            "AND (updated_at &gt; #{afterUpdatedAt} OR (updated_at = #{afterUpdatedAt} AND id &gt; #{afterId})) " +
+            "</if>" +
+            "ORDER BY updated_at, id " +
+            "LIMIT #{limit}" +
+            "</script>")
+    List<NotificationTask> selectStaleChunk(@Param("status") String status,
+                                            @Param("before") LocalDateTime before,
+                                            @Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                            @Param("afterId") String afterId,
+                                            @Param("shardIndex") int shardIndex,
+                                            @Param("shardCount") int shardCount,
+                                            @Param("limit") int limit);
+    
+    /**
+     * 补偿前占位：仅当任务仍处于该状态、仍无进展且没有有效租约时刷新 updated_at
+     * 
+     * @param id 任务ID
+     * @param status 期望状态
+     * @param before 最近更新时间阈值
+     * @param now 当前时间
+     * @return 更新行数，0 表示任务已有进展或正在投递
+     */
+    @Update("UPDATE notification_task SET updated_at = #{now} " +
+            "WHERE id = #{id} " +
+            "AND status = #{status} " +
+            "AND updated_at < #{before} " +
+            "AND (lease_until IS NULL OR lease_until < #{now})")
+    int touchStale(@Param("id") String id,
+                   @Param("status") String status,
+                   @Param("before") LocalDateTime before,
+                   @Param("now") LocalDateTime now);
+    
+    /**
+     * 查询 RETRYING 任务中最早的重试计划时间（用于划分启动恢复的时间段）
+     * 
+     * @return 最早计划时间，无重试任务时返回 null
+     */
+    @Select("SELECT MIN(next_attempt_at) FROM notification_task WHERE status = 'RETRYING'")
+    LocalDateTime selectMinNextAttemptAt();
+    
+    /**
+     * 查询 RETRYING 任务中最晚的重试计划时间
+     * 
+     * @return 最晚计划时间，无重试任务时返回 null
+     */
+    @Select("SELECT MAX(next_attempt_at) FROM notification_task WHERE status = 'RETRYING'")
+    LocalDateTime selectMaxNextAttemptAt();
+    
+    /**
+     * 按 (next_attempt_at, id) 键集分页查询某一时间段内的 RETRYING 任务（仅返回 id、next_attempt_at）
+     * 
+     * @param from 时间段起点（含）
+     * @param to 时间段终点（不含）
+     * @param afterNextAttemptAt 上一页最后一条的 next_attempt_at，首页为 null
+     * @param afterId 上一页最后一条的 id，首页为 null
+     * @param limit 每页条数
+     * @return 任务列表
+     */
+    @Select("<script>" +
+            "SELECT id, next_attempt_at FROM notification_task " +
+            "WHERE status = 'RETRYING' " +
+            "AND next_attempt_at &gt;= #{from} " +
+            "AND next_attempt_at &lt; #{to} " +
+            "<if test='afterNextAttemptAt != null'>" +
+            "AND (next_attempt_at &gt; #{afterNextAttemptAt} OR (next_attempt_at = #{afterNextAttemptAt} AND id &gt; #{afterId})) " +
+            "</if>" +
+            "ORDER BY next_attempt_at, id " +
+            "LIMIT #{limit}" +
+            "</script>")
+    List<NotificationTask> selectRetryDueChunk(@Param("from") LocalDateTime from,
+                                               @Param("to") LocalDateTime to,
+                                               @Param("afterNextAttemptAt") LocalDateTime afterNextAttemptAt,
+                                               @Param("afterId") String afterId,
+                                               @Param("limit") int limit);
 }
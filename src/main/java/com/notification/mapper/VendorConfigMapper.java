@@ -5,7 +5,9 @@ import com.notification.entity.VendorConfig;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -35,4 +37,30 @@ public interface VendorConfigMapper extends BaseMapper<VendorConfig> {
      */
     @Select("SELECT * FROM vendor_config WHERE enabled = 1")
     List<VendorConfig> selectAllEnabled();
+    
+    /**
+     * 查询配置表版本标记（行数 + 最大更新时间）
+     * 用于各节点检测配置变更，新增、修改、删除都会使标记变化
+     * 
+     * @return 版本标记
+     */
+    @Select("SELECT CONCAT(COUNT(*), '@', COALESCE(MAX(updated_at), '')) FROM vendor_config")
+    String selectVersion();
+    
+    /**
+     * 更新供应商限流配置，同时刷新 updated_at 以便其他节点检测到变更
+     * 
+     * @param vendorCode 供应商编码
+     * @param qps 集群总限流速率，为空表示不限流
+     * @param burst 限流突发容量，为空表示等于速率
+     * @param now 当前时间
+     * @return 更新行数，0 表示供应商不存在
+     */
+    @Update("UPDATE vendor_config SET rate_limit_qps = #{qps}, rate_limit_burst = #{burst}, updated_at = #{now} " +
+            "WHERE vendor_code = #{vendorCode}")
+    int updateRateLimit(
+            @Param("vendorCode") String vendorCode,
+            @Param("qps") Double qps,
+            @Param("burst") Integer burst,
+            @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,255 @@
+package com.notification.mq;
+
+import com.notification.config.NotificationProperties;
+import com.notification.entity.NotificationTask;
+import com.notification.entity.enums.TaskStatus;
+import com.notification.mapper.NotificationTaskMapper;
+import com.notification.service.NotificationDispatcher;
+import com.notification.service.NotificationMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据库轮询投递（不使用 MQ）
+ * 
+ * 当配置 notification.mq.mode=db 时启用。任务表本身就是队列：每个节点的轮询线程在短事务中用
+ * SELECT ... FOR UPDATE SKIP LOCKED 锁定一批到期任务并写入租约，提交后并发投递。
+ * 多个节点同时领取时跳过彼此锁定的行，不互相等待；节点宕机时租约到期，任务重新到期被其他节点领取。
+ * 
+ * 轮询间隔自适应：领取满批说明有积压，立即再次领取；空轮询时间隔逐次翻倍到上限；
+ * 在途投递达到 dispatch.max-in-flight 时暂停领取，本节点创建任务提交后立即唤醒
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notification.mq.mode", havingValue = "db")
+public class DbTaskPoller {
+    
+    private final NotificationTaskMapper taskMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationDispatcher dispatcher;
+    private final NotificationMetrics metrics;
+    private final NotificationProperties properties;
+    private final NotificationProperties.DbQueueConfig config;
+    private final int maxInFlight;
+    private final Semaphore inFlightPermits;
+    
+    private final List<Thread> pollers = new ArrayList<>();
+    private volatile boolean running;
+    
+    /**
+     * 唤醒序号，轮询线程等待前比较，避免错过等待前到达的唤醒
+     */
+    private final Object signal = new Object();
+    private long wakeups;
+    
+    /**
+     * 领取次数，用于在 PENDING 和 RETRYING 之间轮换优先顺序
+     */
+    private final AtomicLong claims = new AtomicLong();
+    private final Object claimLock = new Object();
+    
+    @Autowired
+    public DbTaskPoller(NotificationTaskMapper taskMapper, TransactionTemplate transactionTemplate,
+                        @Lazy NotificationDispatcher dispatcher, NotificationMetrics metrics,
+                        NotificationProperties properties, MeterRegistry meterRegistry) {
+        this.taskMapper = taskMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.dispatcher = dispatcher;
+        this.metrics = metrics;
+        this.properties = properties;
+        this.config = properties.getMq().getDb();
+        this.maxInFlight = Math.max(1, properties.getDispatch().getMaxInFlight());
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        Gauge.builder("notification.db_queue.in_flight", this, DbTaskPoller::getInFlight)
+                .description("Tasks claimed from the database and not yet committed")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 数据库初始化完成后启动轮询线程
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        for (int i = 0; i < Math.max(1, config.getPollerThreads()); i++) {
+            Thread thread = new Thread(this::pollLoop, "db-poller-" + i);
+            thread.setDaemon(true);
+            pollers.add(thread);
+            thread.start();
+        }
+        log.info("Database polling dispatch started: pollerThreads={}, claimBatchSize={}, maxInFlight={}, skipLocked={}",
+                pollers.size(), config.getClaimBatchSize(), maxInFlight, config.isSkipLocked());
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        pollers.forEach(Thread::interrupt);
+        pollers.clear();
+    }
+    
+    /**
+     * 唤醒空闲的轮询线程（新任务提交后调用）
+     */
+    public void wakeUp() {
+        synchronized (signal) {
+            wakeups++;
+            signal.notifyAll();
+        }
+    }
+    
+    /**
+     * 当前在途投递数
+     */
+    public int getInFlight() {
+        return maxInFlight - inFlightPermits.availablePermits();
+    }
+    
+    /**
+     * 当前可用的在途名额，任何时刻都不应超过 dispatch.max-in-flight
+     */
+    int getAvailablePermits() {
+        return inFlightPermits.availablePermits();
+    }
+    
+    private void pollLoop() {
+        long intervalMs = config.getMinPollIntervalMs();
+        long seenWakeups = 0;
+        while (running) {
+            try {
+                // 至少等到一个在途名额，再按剩余名额决定本次领取数量
+                inFlightPermits.acquire();
+                int requested = 1;
+                int extra = Math.min(config.getClaimBatchSize() - 1, inFlightPermits.availablePermits());
+                if (extra > 0 && inFlightPermits.tryAcquire(extra)) {
+                    requested += extra;
+                }
+                
+                // 领取失败按空批处理，未用到的名额在下面统一归还
+                List<NotificationTask> claimed;
+                try {
+                    claimed = claim(requested);
+                } catch (Exception e) {
+                    log.error("Failed to claim due tasks", e);
+                    intervalMs = config.getMaxPollIntervalMs();
+                    claimed = List.of();
+                }
+                if (claimed.size() < requested) {
+                    inFlightPermits.release(requested - claimed.size());
+                }
+                claimed.forEach(this::dispatch);
+                
+                // 满批：还有积压，立即继续领取
+                if (!claimed.isEmpty() && claimed.size() == requested) {
+                    intervalMs = config.getMinPollIntervalMs();
+                    continue;
+                }
+                intervalMs = claimed.isEmpty()
+                        ? Math.min(config.getMaxPollIntervalMs(), Math.max(intervalMs, 1) * 2)
+                        : config.getMinPollIntervalMs();
+                synchronized (signal) {
+                    if (wakeups == seenWakeups) {
+                        signal.wait(intervalMs);
+                    }
+                    if (wakeups != seenWakeups) {
+                        // 被新任务唤醒：从最短间隔重新开始退避
+                        seenWakeups = wakeups;
+                        intervalMs = config.getMinPollIntervalMs();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // 不让意外异常结束轮询线程，否则本节点停止投递且没有任何报错
+                log.error("Database polling loop failed", e);
+            }
+        }
+    }
+    
+    /**
+     * 在一个短事务中锁定一批到期任务并写入租约
+     * PENDING 和 RETRYING 各自沿索引按到期时间顺序扫描，两者轮流优先，积压的新任务不会饿死到期的重试
+     */
+    private List<NotificationTask> claim(int limit) {
+        long start = System.nanoTime();
+        boolean pendingFirst = claims.getAndIncrement() % 2 == 0;
+        String first = pendingFirst ? TaskStatus.PENDING.getCode() : TaskStatus.RETRYING.getCode();
+        String second = pendingFirst ? TaskStatus.RETRYING.getCode() : TaskStatus.PENDING.getCode();
+        
+        List<NotificationTask> claimed;
+        if (config.isSkipLocked()) {
+            claimed = transactionTemplate.execute(txStatus -> claimDue(first, second, limit));
+        } else {
+            // 没有 SKIP LOCKED 时，等锁的领取可能在锁释放后读到同一批行，本节点内串行领取
+            synchronized (claimLock) {
+                claimed = transactionTemplate.execute(txStatus -> claimDue(first, second, limit));
+            }
+        }
+        List<NotificationTask> result = claimed == null ? List.of() : claimed;
+        metrics.recordDbClaim(limit, result.size(), System.nanoTime() - start);
+        return result;
+    }
+    
+    private List<NotificationTask> claimDue(String first, String second, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationTask> tasks = new ArrayList<>(
+                taskMapper.selectDueForUpdate(first, now, limit, config.isSkipLocked()));
+        if (tasks.size() < limit) {
+            tasks.addAll(taskMapper.selectDueForUpdate(second, now, limit - tasks.size(), config.isSkipLocked()));
+        }
+        
+        // 租约覆盖一次完整的调用超时；通常所有任务超时相同，只需一条 UPDATE
+        Map<LocalDateTime, List<String>> byLease = new LinkedHashMap<>();
+        for (NotificationTask task : tasks) {
+            LocalDateTime leaseUntil = now
+                    .plus(Duration.ofMillis(task.getCallbackTimeoutMs()))
+                    .plus(Duration.ofMillis(properties.getDispatch().getLeaseMarginMs()));
+            task.setLeaseUntil(leaseUntil);
+            task.setNextAttemptAt(leaseUntil);
+            byLease.computeIfAbsent(leaseUntil, key -> new ArrayList<>()).add(task.getId());
+        }
+        byLease.forEach((leaseUntil, ids) -> taskMapper.leaseClaimed(ids, leaseUntil));
+        return tasks;
+    }
+    
+    /**
+     * 投递一个已领取的任务，结果落库后归还在途名额
+     * 限流、熔断判断会在调用线程上同步读取供应商配置，放在 defer 中使同步异常也走错误信号并归还名额
+     */
+    private void dispatch(NotificationTask task) {
+        long start = System.nanoTime();
+        Mono.defer(() -> dispatcher.dispatchClaimedAsync(task))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doFinally(signalType -> inFlightPermits.release())
+                .subscribe(
+                        null,
+                        e -> {
+                            metrics.recordConsume("db", "poller", false, 1, System.nanoTime() - start);
+                            log.error("Database polling dispatch failed: notificationId={}", task.getId(), e);
+                        },
+                        () -> metrics.recordConsume("db", "poller", true, 1, System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,207 @@
+package com.notification.mq;
+
+import com.notification.util.HierarchicalTimingWheel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * 进程内消息 broker（无 RocketMQ 的单节点部署使用）
+ * 
+ * 普通消息进入有界环形队列（ArrayBlockingQueue），由固定数量的工作线程取出并交给 handler；
+ * 队列满时发送方最多等待 enqueueTimeoutMs，仍然放不下则抛出 RejectedExecutionException，由调用方稍后重试（背压）。
+ * 延迟消息放入分层时间轮，到期后由时间轮驱动线程非阻塞地转入工作队列；队列满时推迟 redeliveryBackoffMs 后再次尝试，
+ * 整个过程中没有线程因等待延迟而休眠
+ * 
+ * @param <T> 消息类型
+ * @author Notification System
+ */
+@Slf4j
+public class InProcessBroker<T> {
+    
+    private final String name;
+    private final BlockingQueue<Envelope<T>> queue;
+    private final HierarchicalTimingWheel<Envelope<T>> delayWheel;
+    private final Thread[] workers;
+    private final Consumer<T> handler;
+    private final LongConsumer latencyRecorder;
+    private final long enqueueTimeoutMs;
+    private final long maxDelayed;
+    private final long redeliveryBackoffMs;
+    
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    
+    private volatile boolean running;
+    
+    /**
+     * @param name 线程名前缀
+     * @param capacity 工作队列容量
+     * @param workerThreads 工作线程数
+     * @param enqueueTimeoutMs 队列满时发送方的最长等待时间（毫秒）
+     * @param delayTickMs 延迟消息时间轮的刻度（毫秒）
+     * @param maxDelayed 延迟消息上限，超过后拒绝
+     * @param handler 消息处理函数，在工作线程上执行
+     * @param latencyRecorder 入队到开始处理的耗时（纳秒）记录器
+     */
+    public InProcessBroker(String name, int capacity, int workerThreads, long enqueueTimeoutMs,
+                           long delayTickMs, long maxDelayed, Consumer<T> handler, LongConsumer latencyRecorder) {
+        if (capacity <= 0 || workerThreads <= 0) {
+            throw new IllegalArgumentException("capacity and workerThreads must be positive");
+        }
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.delayWheel = new HierarchicalTimingWheel<>(name + "-delay", delayTickMs, 512, 4, this::onDelayExpired);
+        this.workers = new Thread[workerThreads];
+        this.handler = handler;
+        this.latencyRecorder = latencyRecorder;
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.maxDelayed = maxDelayed;
+        this.redeliveryBackoffMs = Math.max(delayTickMs, 50);
+    }
+    
+    /**
+     * 启动工作线程和时间轮
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(this::runWorker, name + "-worker-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        delayWheel.start();
+    }
+    
+    /**
+     * 停止 broker，队列中和未到期的消息被丢弃
+     */
+    public synchronized void shutdown() {
+        running = false;
+        delayWheel.stop();
+        for (Thread worker : workers) {
+            if (worker != null) {
+                worker.interrupt();
+            }
+        }
+        int dropped = queue.size();
+        queue.clear();
+        if (dropped > 0 || delayWheel.size() > 0) {
+            log.warn("In-process broker stopped with undelivered messages: name={}, queued={}, delayed={}",
+                    name, dropped, delayWheel.size());
+        }
+    }
+    
+    /**
+     * 发送普通消息
+     * 
+     * @throws RejectedExecutionException 队列在 enqueueTimeoutMs 内仍然已满，或 broker 未运行
+     */
+    public void publish(T message) {
+        if (!running) {
+            throw new RejectedExecutionException("In-process broker is not running: " + name);
+        }
+        Envelope<T> envelope = new Envelope<>(message, System.nanoTime());
+        boolean accepted;
+        try {
+            accepted = queue.offer(envelope) || queue.offer(envelope, enqueueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("In-process broker queue is full: " + name);
+        }
+    }
+    
+    /**
+     * 发送延迟消息（不阻塞）
+     * 
+     * @throws RejectedExecutionException 延迟消息数量达到上限，或 broker 未运行
+     */
+    public void publishDelayed(T message, long delayMs) {
+        if (!running) {
+            throw new RejectedExecutionException("In-process broker is not running: " + name);
+        }
+        if (delayWheel.size() >= maxDelayed) {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("In-process broker delay queue is full: " + name);
+        }
+        delayWheel.schedule(new Envelope<>(message, 0L), System.currentTimeMillis() + Math.max(0L, delayMs));
+    }
+    
+    /**
+     * 工作队列中等待处理的消息数
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+    
+    /**
+     * 未到期的延迟消息数
+     */
+    public long getDelayedCount() {
+        return delayWheel.size();
+    }
+    
+    /**
+     * 因队列已满被拒绝的消息数
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+    
+    /**
+     * 已交给 handler 的消息数
+     */
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+    
+    /**
+     * 时间轮驱动线程上执行，不能阻塞：队列满时放回时间轮稍后再试
+     */
+    private void onDelayExpired(Envelope<T> envelope) {
+        Envelope<T> due = new Envelope<>(envelope.message(), System.nanoTime());
+        if (!queue.offer(due)) {
+            delayWheel.schedule(envelope, System.currentTimeMillis() + redeliveryBackoffMs);
+        }
+    }
+    
+    private void runWorker() {
+        while (running) {
+            Envelope<T> envelope;
+            try {
+                envelope = queue.take();
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+                continue;
+            }
+            latencyRecorder.accept(System.nanoTime() - envelope.enqueuedAtNanos());
+            delivered.incrementAndGet();
+            try {
+                handler.accept(envelope.message());
+            } catch (Throwable e) {
+                log.error("In-process broker handler failed: name={}", name, e);
+            }
+        }
+    }
+    
+    /**
+     * 队列元素，记录入队时间用于统计延迟
+     */
+    private record Envelope<T>(T message, long enqueuedAtNanos) {
+    }
+}
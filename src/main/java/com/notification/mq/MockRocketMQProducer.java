@@ -3,109 +3,180 @@ package com.notification.mq;
 import com.notification.config.NotificationProperties;
 import com.notification.dto.NotificationMessage;
 import com.notification.service.NotificationDispatcher;
+import com.notification.service.NotificationMetrics;
+import com.notification.service.ReactiveDispatchExecutor;
+import com.notification.service.RetryPolicyService;
+import com.notification.service.VirtualDispatchExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
 /**
- * Mock RocketMQ 生产者（用于本地测试，不依赖真实 RocketMQ）
- * 
- * 当配置 notification.mq.mode=mock 时启用
- * 
+ * Mock RocketMQ 生产者（用于本地测试和无 RocketMQ 的单节点部署）
+ *
+ * 当配置 notification.mq.mode=mock 时启用。消息经由进程内 broker 投递：
+ * 普通消息进入有界队列由固定工作线程处理，延迟消息进入时间轮，队列满时发送方收到 RejectedExecutionException
+ *
  * @author Notification System
  */
 @Slf4j
 @Component
 @ConditionalOnProperty(name = "notification.mq.mode", havingValue = "mock", matchIfMissing = true)
 public class MockRocketMQProducer {
-    
+
     @Lazy
     @Autowired
     private NotificationDispatcher dispatcher;
-    
+
     @Autowired
     private NotificationProperties properties;
-    
+
+    @Autowired
+    private RetryPolicyService retryPolicyService;
+
+    @Lazy
+    @Autowired
+    private ReactiveDispatchExecutor reactiveDispatchExecutor;
+
+    @Autowired(required = false)
+    private VirtualDispatchExecutor virtualDispatchExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private NotificationMetrics metrics;
+
+    private InProcessBroker<NotificationMessage> broker;
+
+    @PostConstruct
+    public void start() {
+        NotificationProperties.MockConfig config = properties.getMq().getMock();
+        Timer latency = Timer.builder("notification.broker.dispatch_latency")
+                .description("Time from enqueue to dispatch in the in-process broker")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        broker = new InProcessBroker<>("mock-mq", config.getQueueCapacity(), config.getWorkerThreads(),
+                config.getEnqueueTimeoutMs(), config.getDelayTickMs(), config.getMaxDelayed(),
+                this::deliver, nanos -> latency.record(nanos, TimeUnit.NANOSECONDS));
+        Gauge.builder("notification.broker.queued", broker, InProcessBroker::getQueuedCount)
+                .description("Messages waiting in the in-process broker queue")
+                .register(meterRegistry);
+        Gauge.builder("notification.broker.delayed", broker, InProcessBroker::getDelayedCount)
+                .description("Delayed messages not yet due in the in-process broker")
+                .register(meterRegistry);
+        FunctionCounter.builder("notification.broker.rejected", broker, InProcessBroker::getRejectedCount)
+                .description("Messages rejected because the in-process broker was full")
+                .register(meterRegistry);
+        broker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        broker.shutdown();
+    }
+
     /**
-     * 发送普通消息（立即触发投递）
+     * 发送普通消息（进入 broker 工作队列）
+     *
+     * @throws java.util.concurrent.RejectedExecutionException 队列已满
      */
-    @Async
     public void sendMessage(NotificationMessage message) {
-        log.info("[MOCK MQ] Sending notification message: notificationId={}, retryCount={}", 
+        log.debug("[MOCK MQ] Sending notification message: notificationId={}, retryCount={}",
                 message.getNotificationId(), message.getRetryCount());
-        
+
         if (!properties.getMq().getMock().isAsyncDispatch()) {
-            log.info("[MOCK MQ] Async dispatch is disabled, skipping automatic dispatch");
+            log.debug("[MOCK MQ] Async dispatch is disabled, skipping automatic dispatch");
             return;
         }
-        
-        // 模拟异步处理，立即触发投递
+        long start = System.nanoTime();
+        boolean published = false;
         try {
-            Thread.sleep(100); // 模拟网络延迟
-            dispatcher.dispatch(message.getNotificationId());
-        } catch (Exception e) {
-            log.error("[MOCK MQ] Failed to dispatch notification: notificationId={}", 
-                    message.getNotificationId(), e);
+            broker.publish(message);
+            published = true;
+        } finally {
+            metrics.recordPublish("mock", "normal", published, System.nanoTime() - start);
         }
     }
-    
+
     /**
-     * 发送延迟消息（模拟延迟后触发投递）
-     * 
+     * 发送延迟消息（到期后进入 broker 工作队列）
+     *
      * @param message 消息内容
      * @param delayLevel RocketMQ 延迟级别 (1-18)
      */
-    @Async
     public void sendDelayMessage(NotificationMessage message, int delayLevel) {
-        int delaySeconds = mapDelayLevelToSeconds(delayLevel);
+        int delaySeconds = retryPolicyService.getDelayLevelSeconds(delayLevel);
         int scaleFactor = properties.getMq().getMock().getDelayScaleFactor();
-        int actualDelayMs = (delaySeconds * 1000) / scaleFactor;
-        
-        log.info("[MOCK MQ] Sending delayed notification message: notificationId={}, retryCount={}, delayLevel={}, originalDelaySeconds={}, actualDelayMs={}", 
+        long actualDelayMs = (delaySeconds * 1000L) / scaleFactor;
+
+        log.debug("[MOCK MQ] Sending delayed notification message: notificationId={}, retryCount={}, delayLevel={}, originalDelaySeconds={}, actualDelayMs={}",
                 message.getNotificationId(), message.getRetryCount(), delayLevel, delaySeconds, actualDelayMs);
-        
+
         if (!properties.getMq().getMock().isAsyncDispatch()) {
-            log.info("[MOCK MQ] Async dispatch is disabled, skipping automatic dispatch");
+            log.debug("[MOCK MQ] Async dispatch is disabled, skipping automatic dispatch");
             return;
         }
-        
-        // 模拟延迟处理
+        long start = System.nanoTime();
+        boolean published = false;
         try {
-            Thread.sleep(actualDelayMs);
-            dispatcher.dispatch(message.getNotificationId());
-        } catch (Exception e) {
-            log.error("[MOCK MQ] Failed to dispatch delayed notification: notificationId={}", 
-                    message.getNotificationId(), e);
+            broker.publishDelayed(message, actualDelayMs);
+            published = true;
+        } finally {
+            metrics.recordPublish("mock", "delayed", published, System.nanoTime() - start);
         }
     }
-    
+
     /**
-     * 将 RocketMQ 延迟级别映射为秒数
+     * broker 工作线程上执行投递
      */
-    private int mapDelayLevelToSeconds(int delayLevel) {
-        switch (delayLevel) {
-            case 1: return 1;
-            case 2: return 5;
-            case 3: return 10;
-            case 4: return 30;
-            case 5: return 60;
-            case 6: return 120;
-            case 7: return 180;
-            case 8: return 240;
-            case 9: return 300;
-            case 10: return 360;
-            case 11: return 420;
-            case 12: return 480;
-            case 13: return 540;
-            case 14: return 600;
-            case 15: return 1200;
-            case 16: return 1800;
-            case 17: return 3600;
-            case 18: return 7200;
-            default: return 60;
+    private void deliver(NotificationMessage message) {
+        long start = System.nanoTime();
+        // reactive 模式直接提交到非阻塞执行器，不占用 broker 工作线程；等待队列已满时按最短延迟级别重新入队
+        if (properties.getDispatch().isReactive()) {
+            reactiveDispatchExecutor.submit(message.getNotificationId())
+                    .whenComplete((ignored, error) -> {
+                        if (error instanceof RejectedExecutionException) {
+                            sendDelayMessage(message, 1);
+                        }
+                        recordConsume(error == null, start);
+                    });
+            return;
+        }
+        // virtual 模式交给虚拟线程阻塞投递；全局并发达到上限时工作线程在这里等待，队列随之积压形成背压
+        // 供应商排队已满时拒绝，按最短延迟级别重新入队，不阻塞其他供应商的消息
+        if (virtualDispatchExecutor != null) {
+            virtualDispatchExecutor.submit(message.getNotificationId(), message.getVendorCode())
+                    .whenComplete((ignored, error) -> {
+                        if (error instanceof RejectedExecutionException) {
+                            sendDelayMessage(message, 1);
+                        }
+                        recordConsume(error == null, start);
+                    });
+            return;
+        }
+        try {
+            dispatcher.dispatch(message.getNotificationId());
+            recordConsume(true, start);
+        } catch (Exception e) {
+            recordConsume(false, start);
+            log.error("[MOCK MQ] Failed to dispatch notification: notificationId={}",
+                    message.getNotificationId(), e);
         }
     }
+
+    private void recordConsume(boolean success, long startNanos) {
+        metrics.recordConsume("mock", "single", success, 1, System.nanoTime() - startNanos);
+    }
 }
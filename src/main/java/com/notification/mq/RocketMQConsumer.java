@@ -1,16 +1,36 @@
 package com.notification.mq;
 
+import com.notification.config.NotificationProperties;
 import com.notification.dto.NotificationMessage;
 import com.notification.service.NotificationDispatcher;
+import com.notification.service.NotificationMetrics;
+import com.notification.service.ReactiveDispatchExecutor;
+import com.notification.service.VirtualDispatchExecutor;
+import com.notification.util.JsonUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
+import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
 /**
  * RocketMQ 消息消费者
- * 
+ *
+ * blocking 模式下逐条消费，消费线程等待投递完成；
+ * reactive 模式下批量拉取消息并发提交给 {@link ReactiveDispatchExecutor}，
+ * virtual 执行模式下批量拉取消息并发提交给 {@link VirtualDispatchExecutor}，
+ * 两种批量方式都在整批投递结果落库后才返回消费成功（ACK）
+ *
  * @author Notification System
  */
 @Slf4j
@@ -19,23 +39,91 @@ import org.springframework.stereotype.Component;
         topic = "${rocketmq.topic.notification:notification-task}",
         consumerGroup = "${rocketmq.consumer.group:notification-dispatcher-group}"
 )
-public class RocketMQConsumer implements RocketMQListener<NotificationMessage> {
-    
+public class RocketMQConsumer implements RocketMQListener<NotificationMessage>, RocketMQPushConsumerLifecycleListener {
+
     @Autowired
     private NotificationDispatcher dispatcher;
-    
+
+    @Autowired
+    private ReactiveDispatchExecutor reactiveDispatchExecutor;
+
+    @Autowired(required = false)
+    private VirtualDispatchExecutor virtualDispatchExecutor;
+
+    @Autowired
+    private NotificationProperties properties;
+
+    @Autowired
+    private NotificationMetrics metrics;
+
     @Override
     public void onMessage(NotificationMessage message) {
-        log.info("Received notification message from MQ: notificationId={}, retryCount={}", 
+        log.info("Received notification message from MQ: notificationId={}, retryCount={}",
                 message.getNotificationId(), message.getRetryCount());
-        
+
+        long start = System.nanoTime();
         try {
             dispatcher.dispatch(message.getNotificationId());
+            metrics.recordConsume("rocketmq", "single", true, 1, System.nanoTime() - start);
         } catch (Exception e) {
-            log.error("Failed to dispatch notification: notificationId={}", 
+            metrics.recordConsume("rocketmq", "single", false, 1, System.nanoTime() - start);
+            log.error("Failed to dispatch notification: notificationId={}",
                     message.getNotificationId(), e);
             // RocketMQ 会自动重投消息
             throw new RuntimeException("Dispatch failed", e);
         }
     }
+
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        if (properties.getDispatch().isReactive()) {
+            // reactive 模式：替换为批量监听器，单个消费线程同时承载一整批在途投递
+            consumer.setConsumeMessageBatchMaxSize(properties.getDispatch().getConsumeBatchSize());
+            consumer.setMessageListener((MessageListenerConcurrently) (messages, context) ->
+                    onMessages(messages, message -> reactiveDispatchExecutor.submit(message.getNotificationId())));
+            log.info("RocketMQ consumer switched to reactive batch mode: batchSize={}",
+                    properties.getDispatch().getConsumeBatchSize());
+        } else if (virtualDispatchExecutor != null) {
+            // virtual 模式：整批消息各自在虚拟线程上阻塞投递，消费线程只负责分发和等待；
+            // 某个供应商排队已满时整批稍后重投，已完成的任务在重投时按状态跳过
+            consumer.setConsumeMessageBatchMaxSize(properties.getDispatch().getConsumeBatchSize());
+            consumer.setMessageListener((MessageListenerConcurrently) (messages, context) ->
+                    onMessages(messages, message -> virtualDispatchExecutor.submit(
+                            message.getNotificationId(), message.getVendorCode())));
+            log.info("RocketMQ consumer switched to virtual thread batch mode: batchSize={}",
+                    properties.getDispatch().getConsumeBatchSize());
+        }
+    }
+
+    /**
+     * 批量消费：并发投递整批消息，全部完成后再确认
+     */
+    private ConsumeConcurrentlyStatus onMessages(List<MessageExt> messages,
+                                                 Function<NotificationMessage, CompletableFuture<Void>> submit) {
+        long start = System.nanoTime();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[messages.size()];
+        for (int i = 0; i < messages.size(); i++) {
+            NotificationMessage message = JsonUtil.fromJson(
+                    new String(messages.get(i).getBody(), StandardCharsets.UTF_8), NotificationMessage.class);
+            if (message == null) {
+                log.error("Discarding unparseable notification message: msgId={}", messages.get(i).getMsgId());
+                futures[i] = CompletableFuture.completedFuture(null);
+                continue;
+            }
+            log.info("Received notification message from MQ: notificationId={}, retryCount={}",
+                    message.getNotificationId(), message.getRetryCount());
+            futures[i] = submit.apply(message);
+        }
+
+        try {
+            CompletableFuture.allOf(futures).join();
+            metrics.recordConsume("rocketmq", "batch", true, messages.size(), System.nanoTime() - start);
+            return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
+        } catch (Exception e) {
+            metrics.recordConsume("rocketmq", "batch", false, messages.size(), System.nanoTime() - start);
+            // 与逐条消费一致，交由 RocketMQ 整批重投
+            log.error("Failed to dispatch notification batch: size={}", messages.size(), e);
+            return ConsumeConcurrentlyStatus.RECONSUME_LATER;
+        }
+    }
 }
@@ -1,16 +1,24 @@
 package com.notification.mq;
 
 import com.notification.dto.NotificationMessage;
+import com.notification.service.NotificationMetrics;
 import com.notification.util.JsonUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
 import org.apache.rocketmq.spring.core.RocketMQTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
 /**
  * RocketMQ 消息生产者
  * 
@@ -27,6 +35,9 @@ public class RocketMQProducer {
     @Autowired
     private RocketMQTemplate rocketMQTemplate;
     
+    @Autowired
+    private NotificationMetrics metrics;
+    
     @Value("${rocketmq.topic.notification:notification-task}")
     private String topic;
     
@@ -34,17 +45,60 @@ public class RocketMQProducer {
      * 发送普通消息
      */
     public void sendMessage(NotificationMessage message) {
+        long start = System.nanoTime();
         try {
             rocketMQTemplate.syncSend(topic, MessageBuilder.withPayload(message).build());
+            metrics.recordPublish("rocketmq", "normal", true, System.nanoTime() - start);
             log.info("Sent notification message to RocketMQ: notificationId={}, retryCount={}", 
                     message.getNotificationId(), message.getRetryCount());
         } catch (Exception e) {
+            metrics.recordPublish("rocketmq", "normal", false, System.nanoTime() - start);
             log.error("Failed to send message to RocketMQ: notificationId={}", 
                     message.getNotificationId(), e);
             throw new RuntimeException("MQ send failed", e);
         }
     }
     
+    /**
+     * 异步批量发送普通消息（单次网络往返，不阻塞调用线程）
+     * 
+     * @return 发送结果，broker 确认后完成
+     */
+    public CompletableFuture<Void> sendMessagesAsync(List<NotificationMessage> messages) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        if (messages.isEmpty()) {
+            result.complete(null);
+            return result;
+        }
+        long start = System.nanoTime();
+        try {
+            List<Message<NotificationMessage>> batch = messages.stream()
+                    .map(message -> MessageBuilder.withPayload(message).build())
+                    .collect(Collectors.toList());
+            rocketMQTemplate.asyncSend(topic, batch, new SendCallback() {
+                @Override
+                public void onSuccess(SendResult sendResult) {
+                    metrics.recordPublish("rocketmq", "batch", true, System.nanoTime() - start);
+                    log.info("Sent notification message batch to RocketMQ: size={}, msgId={}", 
+                            messages.size(), sendResult.getMsgId());
+                    result.complete(null);
+                }
+                
+                @Override
+                public void onException(Throwable e) {
+                    metrics.recordPublish("rocketmq", "batch", false, System.nanoTime() - start);
+                    log.error("Failed to send message batch to RocketMQ: size={}", messages.size(), e);
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (Exception e) {
+            metrics.recordPublish("rocketmq", "batch", false, System.nanoTime() - start);
+            log.error("Failed to send message batch to RocketMQ: size={}", messages.size(), e);
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+    
     /**
      * 发送延迟消息
      * 
@@ -52,6 +106,7 @@ public class RocketMQProducer {
      * @param delayLevel RocketMQ 延迟级别 (1-18)
      */
     public void sendDelayMessage(NotificationMessage message, int delayLevel) {
+        long start = System.nanoTime();
         try {
             rocketMQTemplate.syncSend(
                     topic, 
@@ -59,9 +114,11 @@ public class RocketMQProducer {
                     3000,
                     delayLevel
             );
+            metrics.recordPublish("rocketmq", "delayed", true, System.nanoTime() - start);
             log.info("Sent delayed notification message to RocketMQ: notificationId={}, retryCount={}, delayLevel={}", 
                     message.getNotificationId(), message.getRetryCount(), delayLevel);
         } catch (Exception e) {
+            metrics.recordPublish("rocketmq", "delayed", false, System.nanoTime() - start);
             log.error("Failed to send delayed message to RocketMQ: notificationId={}", 
                     message.getNotificationId(), e);
             throw new RuntimeException("MQ send failed", e);
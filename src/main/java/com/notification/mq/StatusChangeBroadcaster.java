@@ -0,0 +1,44 @@
+package com.notification.mq;
+
+import com.notification.dto.StatusChangeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.spring.core.RocketMQTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+/**
+ * 状态变更广播生产者
+ * 
+ * 当配置 notification.mq.mode=rocketmq 时启用。单向发送，不等待 broker 确认：
+ * 丢失一条变更只会让其他节点上的订阅者等到超时后再取最新状态
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notification.mq.mode", havingValue = "rocketmq")
+@ConditionalOnBean(RocketMQTemplate.class)
+public class StatusChangeBroadcaster {
+    
+    @Autowired
+    private RocketMQTemplate rocketMQTemplate;
+    
+    @Value("${rocketmq.topic.status:notification-status}")
+    private String topic;
+    
+    /**
+     * 广播一条状态变更
+     */
+    public void broadcast(StatusChangeMessage message) {
+        try {
+            rocketMQTemplate.sendOneWay(topic, MessageBuilder.withPayload(message).build());
+        } catch (Exception e) {
+            log.warn("Failed to broadcast status change: notificationId={}", 
+                    message.getStatus().getNotificationId(), e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.notification.mq;
+
+import com.notification.dto.StatusChangeMessage;
+import com.notification.service.StatusSubscriptionRegistry;
+import org.apache.rocketmq.spring.annotation.MessageModel;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 状态变更广播消费者
+ * 
+ * 广播模式消费，每个节点都收到全部变更，只通知本节点上的订阅者
+ * 
+ * @author Notification System
+ */
+@Component
+@RocketMQMessageListener(
+        topic = "${rocketmq.topic.status:notification-status}",
+        consumerGroup = "${rocketmq.consumer.status-group:notification-status-group}",
+        messageModel = MessageModel.BROADCASTING
+)
+public class StatusChangeListener implements RocketMQListener<StatusChangeMessage> {
+    
+    @Autowired
+    private StatusSubscriptionRegistry statusSubscriptionRegistry;
+    
+    @Override
+    public void onMessage(StatusChangeMessage message) {
+        statusSubscriptionRegistry.onBroadcast(message);
+    }
+}
@@ -0,0 +1,203 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import com.notification.entity.NotificationAttempt;
+import com.notification.entity.NotificationTask;
+import com.notification.entity.enums.ErrorCode;
+import com.notification.mapper.NotificationAttemptMapper;
+import com.notification.service.HttpClientService.HttpResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 调用记录异步写入器
+ * 
+ * 投递线程只把记录放入有界的无锁缓冲区（ConcurrentLinkedQueue + 原子计数），
+ * 由单个后台线程每满 batchSize 条或每 flushIntervalMs 毫秒用一条多行 INSERT 批量写入 notification_attempt。
+ * 缓冲区写满或写库失败时记录直接丢弃并计数，调用记录只用于排查，不影响投递本身
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+public class AttemptJournal {
+    
+    private final NotificationAttemptMapper attemptMapper;
+    private final NotificationProperties.AttemptJournalConfig config;
+    
+    private final Queue<NotificationAttempt> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+    
+    private final Counter written;
+    private final Counter droppedBufferFull;
+    private final Counter droppedWriteFailed;
+    
+    private volatile boolean running;
+    private Thread writer;
+    
+    @Autowired
+    public AttemptJournal(NotificationAttemptMapper attemptMapper, NotificationProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.attemptMapper = attemptMapper;
+        this.config = properties.getAttemptJournal();
+        this.written = Counter.builder("notification.attempt.written")
+                .description("Attempt records written to notification_attempt")
+                .register(meterRegistry);
+        this.droppedBufferFull = Counter.builder("notification.attempt.dropped")
+                .description("Attempt records dropped without being written")
+                .tag("reason", "buffer_full")
+                .register(meterRegistry);
+        this.droppedWriteFailed = Counter.builder("notification.attempt.dropped")
+                .description("Attempt records dropped without being written")
+                .tag("reason", "write_failed")
+                .register(meterRegistry);
+        Gauge.builder("notification.attempt.buffered", buffered, AtomicInteger::get)
+                .description("Attempt records waiting to be written")
+                .register(meterRegistry);
+    }
+    
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "attempt-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    /**
+     * 记录一次对外调用，不阻塞调用方
+     * 
+     * @param task 投递的任务（retryCount 为领取时的值）
+     * @param response 调用结果
+     */
+    public void record(NotificationTask task, HttpResponse response) {
+        if (!running) {
+            return;
+        }
+        // 先占位再入队，保证缓冲区不超过容量
+        int size = buffered.incrementAndGet();
+        if (size > config.getBufferCapacity()) {
+            buffered.decrementAndGet();
+            droppedBufferFull.increment();
+            return;
+        }
+        buffer.offer(toAttempt(task, response));
+        if (size == config.getBatchSize()) {
+            LockSupport.unpark(writer);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (buffered.get() > 0) {
+            log.warn("Attempt journal stopped with unwritten records: {}", buffered.get());
+        }
+    }
+    
+    private void runWriter() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMs());
+        while (running) {
+            if (buffered.get() < config.getBatchSize()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            flush();
+        }
+        // 停止时写完剩余记录
+        flush();
+    }
+    
+    /**
+     * 分批写完当前缓冲区中的记录
+     */
+    private void flush() {
+        List<NotificationAttempt> batch = new ArrayList<>(config.getBatchSize());
+        NotificationAttempt attempt;
+        while ((attempt = buffer.poll()) != null) {
+            buffered.decrementAndGet();
+            batch.add(attempt);
+            if (batch.size() >= config.getBatchSize()) {
+                write(batch);
+                batch = new ArrayList<>(config.getBatchSize());
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+    
+    private void write(List<NotificationAttempt> batch) {
+        try {
+            attemptMapper.insertBatch(batch);
+            written.increment(batch.size());
+        } catch (Exception e) {
+            droppedWriteFailed.increment(batch.size());
+            log.warn("Failed to write attempt records, dropped: size={}", batch.size(), e);
+        }
+    }
+    
+    private NotificationAttempt toAttempt(NotificationTask task, HttpResponse response) {
+        NotificationAttempt attempt = new NotificationAttempt();
+        attempt.setNotificationId(task.getId());
+        // 按重试轮次编号：429 推迟不消耗重试次数，推迟后的调用与上一条记录同号
+        attempt.setAttemptNo(task.getRetryCount() + 1);
+        attempt.setRequestHeaders(task.getHeadersJson());
+        attempt.setRequestBody(truncate(task.getBodyJson()));
+        attempt.setResponseStatus(response.getStatusCode() == 0 ? null : response.getStatusCode());
+        attempt.setResponseBody(truncate(response.getBody()));
+        attempt.setErrorCode(errorCodeOf(response));
+        attempt.setErrorMessage(response.getErrorMessage() == null || response.getErrorMessage().length() <= 500
+                ? response.getErrorMessage() : response.getErrorMessage().substring(0, 500));
+        attempt.setCostMs(response.getCostMs());
+        attempt.setCreatedAt(LocalDateTime.now());
+        return attempt;
+    }
+    
+    private static String errorCodeOf(HttpResponse response) {
+        if (response.isSuccess()) {
+            return null;
+        }
+        if (response.getStatusCode() == 429) {
+            return ErrorCode.RATE_LIMITED.getCode();
+        }
+        if (response.isTimeout()) {
+            return ErrorCode.HTTP_TIMEOUT.getCode();
+        }
+        if (response.getStatusCode() == 0) {
+            return ErrorCode.NETWORK_ERROR.getCode();
+        }
+        return response.isServerError() ? ErrorCode.HTTP_5XX.getCode() : ErrorCode.HTTP_4XX.getCode();
+    }
+    
+    private String truncate(String body) {
+        int max = config.getMaxBodyChars();
+        return body == null || body.length() <= max ? body : body.substring(0, max);
+    }
+}
@@ -0,0 +1,262 @@
+package com.notification.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.config.NotificationProperties;
+import com.notification.entity.NotificationTask;
+import com.notification.util.SlidingWindowCircuitBreaker;
+import com.notification.util.SlidingWindowCircuitBreaker.State;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 供应商熔断器注册表
+ * 
+ * 按 vendorCode 维护熔断器，直接指定 targetUrl 的任务按目标主机维护。
+ * 主机由调用方传入、取值无上限：主机熔断器放在有容量上限并按闲置时间淘汰的缓存中，
+ * 指标的 key 标签统一为 host，不注册逐主机的状态 gauge
+ * 熔断打开时投递方不发起 HTTP 调用，而是按 {@link #deferDelayMs(String)} 推迟任务，且不消耗重试次数
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+public class CircuitBreakerRegistry {
+    
+    private static final String HOST_KEY_PREFIX = "host:";
+    
+    /**
+     * 主机熔断器在指标中的 key 标签
+     */
+    private static final String HOST_METRIC_KEY = "host";
+    
+    private final NotificationProperties.CircuitBreakerConfig config;
+    private final MeterRegistry meterRegistry;
+    
+    private final Map<String, SlidingWindowCircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Cache<String, SlidingWindowCircuitBreaker> hostBreakers;
+    private final Deque<Transition> transitions = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger transitionCount = new AtomicInteger();
+    
+    @Autowired
+    public CircuitBreakerRegistry(NotificationProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getCircuitBreaker();
+        this.meterRegistry = meterRegistry;
+        this.hostBreakers = Caffeine.newBuilder()
+                .maximumSize(config.getMaxHostBreakers())
+                .expireAfterAccess(Duration.ofMillis(config.getHostBreakerIdleMs()))
+                .build();
+    }
+    
+    /**
+     * 任务对应的熔断键：优先使用 vendorCode，否则使用目标主机
+     */
+    public String keyOf(NotificationTask task) {
+        if (task.getVendorCode() != null) {
+            return task.getVendorCode();
+        }
+        try {
+            URI uri = URI.create(task.getTargetUrl());
+            return HOST_KEY_PREFIX + uri.getHost() + (uri.getPort() > 0 ? ":" + uri.getPort() : "");
+        } catch (Exception e) {
+            return HOST_KEY_PREFIX + task.getTargetUrl();
+        }
+    }
+    
+    /**
+     * 是否允许向该键发起调用；返回 false 时调用方应推迟投递
+     */
+    public boolean tryAcquire(String key) {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        boolean permitted = breaker(key).tryAcquire(System.currentTimeMillis());
+        if (!permitted) {
+            Counter.builder("notification.circuit.short_circuited")
+                    .description("Deliveries deferred without an HTTP call because the circuit was open")
+                    .tag("key", metricKey(key))
+                    .register(meterRegistry)
+                    .increment();
+        }
+        return permitted;
+    }
+    
+    /**
+     * 记录一次调用结果
+     * 
+     * @param failure 超时、连接异常或 5xx
+     */
+    public void onResult(String key, boolean failure) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (failure) {
+            breaker(key).onFailure(now);
+        } else {
+            breaker(key).onSuccess(now);
+        }
+    }
+    
+    /**
+     * 获准的调用没有产生结果就结束时调用（出错或取消），归还半开探测名额
+     */
+    public void release(String key) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        SlidingWindowCircuitBreaker breaker = find(key);
+        if (breaker != null) {
+            breaker.releaseProbe();
+        }
+    }
+    
+    /**
+     * 被熔断的投递推迟多久（毫秒）：至少到熔断允许探测时，并加入最多 20% 的随机抖动，避免恢复时集中涌入
+     */
+    public long deferDelayMs(String key) {
+        SlidingWindowCircuitBreaker breaker = find(key);
+        long remaining = breaker == null ? 0 : breaker.remainingOpenMs(System.currentTimeMillis());
+        long base = Math.max(config.getMinDeferMs(), remaining);
+        return base + ThreadLocalRandom.current().nextLong(base / 5 + 1);
+    }
+    
+    /**
+     * 强制关闭指定键的熔断
+     * 
+     * @return 熔断器是否存在
+     */
+    public boolean reset(String key) {
+        SlidingWindowCircuitBreaker breaker = find(key);
+        if (breaker == null) {
+            return false;
+        }
+        breaker.reset(System.currentTimeMillis());
+        return true;
+    }
+    
+    /**
+     * 全部熔断器的当前状态
+     */
+    public Map<String, BreakerView> snapshot() {
+        long now = System.currentTimeMillis();
+        Map<String, BreakerView> views = new TreeMap<>();
+        breakers.forEach((key, breaker) -> views.put(key, view(breaker, now)));
+        hostBreakers.asMap().forEach((key, breaker) -> views.put(key, view(breaker, now)));
+        return views;
+    }
+    
+    /**
+     * 指定键的当前状态，不存在时返回 null
+     */
+    public BreakerView snapshot(String key) {
+        SlidingWindowCircuitBreaker breaker = find(key);
+        return breaker == null ? null : view(breaker, System.currentTimeMillis());
+    }
+    
+    /**
+     * 最近的状态迁移（最新的在前）
+     */
+    public List<Transition> recentTransitions() {
+        return new ArrayList<>(transitions);
+    }
+    
+    private SlidingWindowCircuitBreaker find(String key) {
+        return isHostKey(key) ? hostBreakers.getIfPresent(key) : breakers.get(key);
+    }
+    
+    private SlidingWindowCircuitBreaker breaker(String key) {
+        if (isHostKey(key)) {
+            return hostBreakers.get(key, this::createBreaker);
+        }
+        SlidingWindowCircuitBreaker breaker = breakers.get(key);
+        if (breaker != null) {
+            return breaker;
+        }
+        return breakers.computeIfAbsent(key, this::createBreaker);
+    }
+    
+    private SlidingWindowCircuitBreaker createBreaker(String key) {
+        SlidingWindowCircuitBreaker breaker = new SlidingWindowCircuitBreaker(
+                config.getWindowMs(), config.getWindowBuckets(), config.getMinimumCalls(),
+                config.getFailureRateThreshold(), config.getOpenDurationMs(),
+                config.getHalfOpenMaxProbes(), config.getHalfOpenSuccessesToClose(),
+                (from, to, nowMs) -> onTransition(key, from, to, nowMs));
+        if (!isHostKey(key)) {
+            Gauge.builder("notification.circuit.state", breaker, b -> b.getState().ordinal())
+                    .description("Circuit breaker state: 0=closed, 1=open, 2=half-open")
+                    .tag("key", key)
+                    .register(meterRegistry);
+        }
+        return breaker;
+    }
+    
+    private void onTransition(String key, State from, State to, long nowMs) {
+        if (to == State.OPEN) {
+            log.warn("Circuit breaker opened: key={}, from={}, openDurationMs={}", key, from, config.getOpenDurationMs());
+        } else {
+            log.info("Circuit breaker transition: key={}, from={}, to={}", key, from, to);
+        }
+        Counter.builder("notification.circuit.transitions")
+                .description("Circuit breaker state transitions")
+                .tag("key", metricKey(key))
+                .tag("to", to.name())
+                .register(meterRegistry)
+                .increment();
+        
+        transitions.addFirst(new Transition(key, from, to,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(nowMs), ZoneId.systemDefault())));
+        if (transitionCount.incrementAndGet() > config.getTransitionHistorySize()) {
+            if (transitions.pollLast() != null) {
+                transitionCount.decrementAndGet();
+            }
+        }
+    }
+    
+    private static boolean isHostKey(String key) {
+        return key.startsWith(HOST_KEY_PREFIX);
+    }
+    
+    private static String metricKey(String key) {
+        return isHostKey(key) ? HOST_METRIC_KEY : key;
+    }
+    
+    private static BreakerView view(SlidingWindowCircuitBreaker breaker, long now) {
+        long calls = breaker.getCalls(now);
+        long failures = breaker.getFailures(now);
+        return new BreakerView(breaker.getState(), calls, failures,
+                calls == 0 ? 0.0 : (double) failures / calls, breaker.remainingOpenMs(now));
+    }
+    
+    /**
+     * 熔断器状态快照
+     */
+    public record BreakerView(State state, long windowCalls, long windowFailures, double failureRate,
+                              long remainingOpenMs) {
+    }
+    
+    /**
+     * 状态迁移记录
+     */
+    public record Transition(String key, State from, State to, LocalDateTime at) {
+    }
+}
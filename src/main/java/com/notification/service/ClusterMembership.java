@@ -0,0 +1,240 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import com.notification.entity.ClusterNode;
+import com.notification.mapper.ClusterNodeMapper;
+import com.notification.util.IdGenerator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 集群成员管理
+ * 
+ * 各节点定时向 cluster_node 写入心跳，并按节点名称排序得到存活节点列表，
+ * 本节点在列表中的位置即分片序号。成员变化期间可能短暂出现两个节点扫描同一分片，
+ * 后台任务需通过条件更新保证幂等。
+ * 节点行同时记录本节点租用的 ID 生成器节点号，唯一索引保证存活节点之间不会重复
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+public class ClusterMembership {
+    
+    private final ClusterNodeMapper clusterNodeMapper;
+    private final NotificationProperties.ClusterConfig config;
+    private final String nodeName;
+    
+    /**
+     * 当前分片视图，心跳成功前视为单节点
+     */
+    private volatile ShardView view = new ShardView(0, 1);
+    
+    /**
+     * 本节点租用的 ID 生成器节点号，未租用时为 -1
+     */
+    private volatile long idNodeId = -1;
+    private volatile boolean idNodeIdConfigured;
+    
+    @Autowired
+    public ClusterMembership(ClusterNodeMapper clusterNodeMapper, NotificationProperties properties) {
+        this.clusterNodeMapper = clusterNodeMapper;
+        this.config = properties.getCluster();
+        this.nodeName = StringUtils.hasText(config.getNodeName()) ? config.getNodeName() : defaultNodeName();
+    }
+    
+    /**
+     * 写入心跳并刷新分片视图
+     */
+    @Scheduled(fixedDelayString = "${notification.cluster.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (clusterNodeMapper.heartbeat(nodeName, now) == 0) {
+                register(now);
+            }
+            
+            LocalDateTime ttlCutoff = now.minusNanos(config.getNodeTtlMs() * 1_000_000L);
+            List<String> liveNodes = clusterNodeMapper.selectLiveNodeNames(ttlCutoff);
+            int index = liveNodes.indexOf(nodeName);
+            ShardView next = index < 0 ? new ShardView(0, 1) : new ShardView(index, liveNodes.size());
+            if (!next.equals(view)) {
+                log.info("Cluster membership changed: node={}, shardIndex={}, liveNodes={}", 
+                        nodeName, next.index(), next.count());
+            }
+            view = next;
+            
+            clusterNodeMapper.deleteExpired(now.minusNanos(config.getNodeTtlMs() * 10 * 1_000_000L));
+        } catch (Exception e) {
+            log.warn("Cluster heartbeat failed: node={}", nodeName, e);
+        }
+    }
+    
+    /**
+     * 本节点是否负责该任务（按 ID 哈希分片）
+     */
+    public boolean owns(String id) {
+        ShardView current = view;
+        return current.count() <= 1 || Math.floorMod(id.hashCode(), current.count()) == current.index();
+    }
+    
+    /**
+     * 存活节点数
+     */
+    public int getLiveNodeCount() {
+        return view.count();
+    }
+    
+    /**
+     * 本节点分片序号
+     */
+    public int getShardIndex() {
+        return view.index();
+    }
+    
+    /**
+     * 当前分片视图（序号和节点数来自同一次心跳）
+     */
+    public ShardView getShardView() {
+        return view;
+    }
+    
+    public String getNodeName() {
+        return nodeName;
+    }
+    
+    /**
+     * 下线时删除心跳，其他节点在下一次心跳时接管分片
+     */
+    @PreDestroy
+    public void leave() {
+        try {
+            clusterNodeMapper.deleteById(nodeName);
+        } catch (Exception e) {
+            log.warn("Failed to deregister cluster node: {}", nodeName, e);
+        }
+    }
+    
+    /**
+     * 租用 ID 生成器节点号（启动时在生成任何 ID 之前调用）
+     * 
+     * 先清除超过 node-ttl-ms 无心跳的节点，再把节点号写到本节点的行上，由唯一索引判定是否被占用。
+     * 配置了节点号时只尝试该号，被其他存活节点占用则启动失败；未配置时从 preferred 开始依次尝试空闲的节点号
+     * 
+     * @param configured 配置的节点号，小于 0 表示自动分配
+     * @param preferred 自动分配时优先尝试的节点号
+     * @return 租到的节点号
+     * @throws IllegalStateException 配置的节点号被其他存活节点占用，或没有空闲节点号
+     */
+    public synchronized long leaseIdNodeId(long configured, long preferred) {
+        LocalDateTime now = LocalDateTime.now();
+        clusterNodeMapper.deleteExpired(now.minusNanos(config.getNodeTtlMs() * 1_000_000L));
+        int total = (int) IdGenerator.MAX_NODE_ID + 1;
+        long start = configured >= 0 ? configured : preferred;
+        int attempts = configured >= 0 ? 1 : total;
+        for (int i = 0; i < attempts; i++) {
+            int candidate = (int) Math.floorMod(start + i, (long) total);
+            if (tryLeaseIdNode(candidate, now)) {
+                idNodeId = candidate;
+                idNodeIdConfigured = configured >= 0;
+                log.info("Leased ID generator node id: node={}, idNodeId={}, configured={}", 
+                        nodeName, candidate, idNodeIdConfigured);
+                return candidate;
+            }
+        }
+        if (configured >= 0) {
+            ClusterNode holder = clusterNodeMapper.selectByIdNode((int) configured);
+            throw new IllegalStateException("notification.id.node-id=" + configured + " is held by live node "
+                    + (holder == null ? "unknown" : holder.getNodeName()));
+        }
+        throw new IllegalStateException("No free ID generator node id for node " + nodeName);
+    }
+    
+    /**
+     * 本节点租用的 ID 生成器节点号，未租用时为 -1
+     */
+    public long getIdNodeId() {
+        return idNodeId;
+    }
+    
+    private boolean tryLeaseIdNode(int candidate, LocalDateTime now) {
+        try {
+            if (clusterNodeMapper.leaseIdNode(nodeName, candidate, now) == 1) {
+                return true;
+            }
+            ClusterNode node = new ClusterNode();
+            node.setNodeName(nodeName);
+            node.setIdNodeId(candidate);
+            node.setStartedAt(now);
+            node.setHeartbeatAt(now);
+            clusterNodeMapper.insert(node);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+    
+    private void register(LocalDateTime now) {
+        ClusterNode node = new ClusterNode();
+        node.setNodeName(nodeName);
+        node.setIdNodeId(idNodeId >= 0 ? (int) idNodeId : null);
+        node.setStartedAt(now);
+        node.setHeartbeatAt(now);
+        try {
+            clusterNodeMapper.insert(node);
+            log.info("Registered cluster node: {}", nodeName);
+        } catch (DuplicateKeyException e) {
+            if (clusterNodeMapper.heartbeat(nodeName, now) == 0) {
+                // 本节点长时间无心跳、行被清除，期间节点号被其他节点租走
+                reassignIdNodeId(now);
+            }
+        }
+    }
+    
+    private void reassignIdNodeId(LocalDateTime now) {
+        if (idNodeIdConfigured) {
+            log.error("Configured ID generator node id was taken over while this node missed heartbeats, "
+                    + "generated IDs may collide: node={}, idNodeId={}", nodeName, idNodeId);
+            ClusterNode node = new ClusterNode();
+            node.setNodeName(nodeName);
+            node.setStartedAt(now);
+            node.setHeartbeatAt(now);
+            clusterNodeMapper.insert(node);
+            return;
+        }
+        long previous = idNodeId;
+        long next = leaseIdNodeId(-1, previous + 1);
+        IdGenerator.setNodeId(next);
+        log.warn("ID generator node id was taken over while this node missed heartbeats, switched: node={}, from={}, to={}",
+                nodeName, previous, next);
+    }
+    
+    private static String defaultNodeName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + ":" + ManagementFactory.getRuntimeMXBean().getPid();
+    }
+    
+    /**
+     * 分片视图
+     * 
+     * @param index 本节点分片序号
+     * @param count 存活节点数
+     */
+    public record ShardView(int index, int count) {
+    }
+}
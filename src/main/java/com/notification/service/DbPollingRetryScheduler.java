@@ -0,0 +1,31 @@
+package com.notification.service;
+
+import com.notification.entity.NotificationTask;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 数据库轮询模式下的重试调度
+ * 
+ * next_attempt_at 随投递结果一起提交后，任务到期即被轮询线程领取，不需要额外发送消息；
+ * 延迟没有级别取整与上限，精度为一个轮询间隔
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notification.mq.mode", havingValue = "db")
+public class DbPollingRetryScheduler implements RetryScheduler {
+    
+    @Override
+    public long effectiveDelayMs(long requestedDelayMs) {
+        return requestedDelayMs;
+    }
+    
+    @Override
+    public void schedule(NotificationTask task, long requestedDelayMs) {
+        log.info("Scheduled retry for notification (database polling): notificationId={}, retryCount={}, nextAttemptAt={}", 
+                task.getId(), task.getRetryCount(), task.getNextAttemptAt());
+    }
+}
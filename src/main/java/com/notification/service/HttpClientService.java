@@ -1,110 +1,302 @@
 package com.notification.service;
 
+import com.notification.config.NotificationProperties;
+import com.notification.entity.VendorConfig;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
 import lombok.Builder;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpHeaders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
 
 /**
  * HTTP 客户端服务
  * 
+ * 每个供应商使用独立的 Reactor Netty 连接池，连接数、获取连接超时、空闲保活时间
+ * 和建连超时取自 vendor_config，单个供应商变慢时不会占满其他供应商的连接；
+ * 未指定 vendorCode 的请求使用共享连接池。连接池指标以池名称（vendorCode）为标签
+ * 导出到 reactor.netty.connection.provider.*
+ * 
  * @author Notification System
  */
 @Slf4j
 @Service
 public class HttpClientService {
     
-    private final WebClient webClient;
+    private static final String SHARED_POOL_NAME = "shared";
+    
+    /**
+     * 包装请求体字节（Unpooled.wrappedBuffer），写出后释放的只是包装对象
+     */
+    private static final NettyDataBufferFactory BUFFER_FACTORY = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+    
+    private final VendorConfigService vendorConfigService;
+    private final NotificationProperties.HttpConfig httpConfig;
+    private final NotificationMetrics metrics;
+    
+    private final VendorClient sharedClient;
+    private final Map<String, VendorClient> vendorClients = new ConcurrentHashMap<>();
     
-    public HttpClientService() {
-        this.webClient = WebClient.builder().build();
+    @Autowired
+    public HttpClientService(VendorConfigService vendorConfigService, NotificationProperties properties,
+                             NotificationMetrics metrics) {
+        this.vendorConfigService = vendorConfigService;
+        this.httpConfig = properties.getHttp();
+        this.metrics = metrics;
+        this.sharedClient = createClient(SHARED_POOL_NAME, null);
     }
     
     /**
-     * 执行 HTTP 调用
+     * 执行 HTTP 调用（阻塞等待响应）
      */
     public HttpResponse call(
+            String vendorCode,
             String url,
             HttpMethod method,
             Map<String, String> headers,
             String body,
             int timeoutMs) {
+        return callAsync(vendorCode, url, method, headers, body, timeoutMs).block();
+    }
+    
+    /**
+     * 执行 HTTP 调用（非阻塞）
+     * 
+     * 返回的 Mono 总是以 HttpResponse 完成，不会以错误信号结束：
+     * 非 2xx 响应、超时和网络异常都会转换为对应状态码的 HttpResponse
+     */
+    public Mono<HttpResponse> callAsync(
+            String vendorCode,
+            String url,
+            HttpMethod method,
+            Map<String, String> headers,
+            String body,
+            int timeoutMs) {
+        return callAsync(vendorCode, url, method, PreparedPayload.of(headers, body), timeoutMs);
+    }
+    
+    /**
+     * 以预处理的载荷执行 HTTP 调用（非阻塞），请求体字节直接包装为 ByteBuf 写出，不复制
+     */
+    public Mono<HttpResponse> callAsync(
+            String vendorCode,
+            String url,
+            HttpMethod method,
+            PreparedPayload payload,
+            int timeoutMs) {
         
-        long startTime = System.currentTimeMillis();
-        
-        try {
-            WebClient.RequestBodySpec requestSpec = webClient
+        return Mono.defer(() -> {
+            long startTime = System.currentTimeMillis();
+            long startNanos = System.nanoTime();
+            
+            byte[] body = method == HttpMethod.POST || method == HttpMethod.PUT ? payload.getBody() : null;
+            WebClient.RequestBodySpec requestSpec = clientFor(vendorCode).webClient()
                     .method(method)
                     .uri(url)
                     .headers(httpHeaders -> {
-                        if (headers != null) {
-                            headers.forEach(httpHeaders::add);
-                        }
-                        if (!httpHeaders.containsKey(HttpHeaders.CONTENT_TYPE)) {
-                            httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+                        payload.applyHeaders(httpHeaders);
+                        if (body != null) {
+                            httpHeaders.setContentLength(body.length);
                         }
                     });
             
             // 添加请求体（如果有）
-            if (body != null && !body.isEmpty() && 
-                (method == HttpMethod.POST || method == HttpMethod.PUT)) {
-                requestSpec.bodyValue(body);
+            if (body != null) {
+                requestSpec.body(BodyInserters.fromDataBuffers(Mono.fromSupplier(() -> BUFFER_FACTORY.wrap(body))));
             }
             
-            // 执行请求
-            String responseBody = requestSpec
-                    .retrieve()
-                    .bodyToMono(String.class)
+            // 执行请求，保留真实状态码
+            return requestSpec
+                    .exchangeToMono(response -> {
+                        int statusCode = response.statusCode().value();
+                        return response.bodyToMono(String.class)
+                                .map(responseBody -> buildResponse(statusCode, responseBody, startTime, url, method))
+                                .switchIfEmpty(Mono.fromSupplier(() -> buildResponse(statusCode, null, startTime, url, method)));
+                    })
                     .timeout(Duration.ofMillis(timeoutMs))
-                    .onErrorResume(WebClientResponseException.class, ex -> 
-                        Mono.just(ex.getResponseBodyAsString())
-                    )
-                    .block();
-            
-            long costMs = System.currentTimeMillis() - startTime;
-            
-            return HttpResponse.builder()
-                    .statusCode(200)
-                    .body(responseBody)
-                    .costMs((int) costMs)
-                    .success(true)
-                    .build();
-            
-        } catch (WebClientResponseException e) {
-            long costMs = System.currentTimeMillis() - startTime;
+                    .onErrorResume(e -> Mono.just(buildErrorResponse(e, startTime, url, method, timeoutMs)))
+                    .doOnNext(response -> metrics.recordVendorCall(vendorCode, response, System.nanoTime() - startNanos));
+        });
+    }
+    
+    /**
+     * 获取供应商对应的客户端，首次使用时按 vendor_config 创建连接池
+     */
+    private VendorClient clientFor(String vendorCode) {
+        if (!StringUtils.hasText(vendorCode)) {
+            return sharedClient;
+        }
+        VendorClient client = vendorClients.get(vendorCode);
+        if (client != null) {
+            return client;
+        }
+        VendorConfig vendorConfig = vendorConfigService.getVendorConfig(vendorCode);
+        if (vendorConfig == null) {
+            return sharedClient;
+        }
+        return vendorClients.computeIfAbsent(vendorCode, code -> createClient(code, vendorConfig));
+    }
+    
+    /**
+     * 创建带独立连接池的 WebClient
+     * 
+     * @param poolName 连接池名称，同时作为指标标签
+     * @param vendorConfig 供应商配置，为空时全部使用默认值
+     */
+    private VendorClient createClient(String poolName, VendorConfig vendorConfig) {
+        PoolSettings settings = resolveSettings(vendorConfig);
+        
+        ConnectionProvider provider = ConnectionProvider.builder(poolName)
+                .maxConnections(settings.maxConnections())
+                .pendingAcquireMaxCount(httpConfig.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(Duration.ofMillis(settings.acquireTimeoutMs()))
+                .maxIdleTime(Duration.ofMillis(settings.idleTtlMs()))
+                .evictInBackground(Duration.ofMillis(httpConfig.getEvictIntervalMs()))
+                .disposeTimeout(Duration.ofMillis(httpConfig.getDisposeTimeoutMs()))
+                .metrics(true)
+                .build();
+        
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, settings.connectTimeoutMs())
+                .option(ChannelOption.SO_KEEPALIVE, true);
+        
+        log.info("Created HTTP connection pool: name={}, settings={}", poolName, settings);
+        
+        WebClient webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        return new VendorClient(webClient, provider, settings);
+    }
+    
+    /**
+     * 合并供应商连接池配置与默认值
+     */
+    private PoolSettings resolveSettings(VendorConfig vendorConfig) {
+        if (vendorConfig == null) {
+            return new PoolSettings(httpConfig.getMaxConnections(), httpConfig.getAcquireTimeoutMs(), 
+                    httpConfig.getIdleTtlMs(), httpConfig.getConnectTimeoutMs());
+        }
+        return new PoolSettings(
+                valueOrDefault(vendorConfig.getMaxConnections(), httpConfig.getMaxConnections()),
+                valueOrDefault(vendorConfig.getAcquireTimeoutMs(), httpConfig.getAcquireTimeoutMs()),
+                valueOrDefault(vendorConfig.getIdleTtlMs(), httpConfig.getIdleTtlMs()),
+                valueOrDefault(vendorConfig.getConnectTimeoutMs(), httpConfig.getConnectTimeoutMs()));
+    }
+    
+    private static int valueOrDefault(Integer value, int defaultValue) {
+        return value != null && value > 0 ? value : defaultValue;
+    }
+    
+    /**
+     * 供应商配置变更时重建连接池参数发生变化的连接池
+     * 旧连接池在途请求完成（或超过 disposeTimeout）后关闭
+     */
+    @EventListener
+    public void onVendorConfigChanged(VendorConfigChangedEvent event) {
+        Collection<String> vendorCodes = event.getVendorCode() == null 
+                ? new ArrayList<>(vendorClients.keySet()) 
+                : List.of(event.getVendorCode());
+        
+        for (String vendorCode : vendorCodes) {
+            VendorClient current = vendorClients.get(vendorCode);
+            if (current == null) {
+                continue;
+            }
+            VendorConfig vendorConfig = vendorConfigService.getVendorConfig(vendorCode);
+            if (vendorConfig != null && resolveSettings(vendorConfig).equals(current.settings())) {
+                continue;
+            }
+            if (vendorClients.remove(vendorCode, current)) {
+                log.info("Retiring HTTP connection pool after vendor config change: name={}", vendorCode);
+                current.provider().disposeLater().subscribe();
+            }
+        }
+    }
+    
+    /**
+     * 关闭所有连接池
+     */
+    @PreDestroy
+    public void shutdown() {
+        vendorClients.values().forEach(client -> client.provider().dispose());
+        vendorClients.clear();
+        sharedClient.provider().dispose();
+    }
+    
+    /**
+     * 根据供应商返回的状态码构建响应
+     */
+    private HttpResponse buildResponse(int statusCode, String responseBody, long startTime, String url, HttpMethod method) {
+        long costMs = System.currentTimeMillis() - startTime;
+        boolean success = statusCode >= 200 && statusCode < 300;
+        if (!success) {
             log.warn("HTTP call failed with status {}: url={}, method={}, costMs={}", 
-                    e.getStatusCode().value(), url, method, costMs);
-            
-            return HttpResponse.builder()
-                    .statusCode(e.getStatusCode().value())
-                    .body(e.getResponseBodyAsString())
-                    .costMs((int) costMs)
-                    .success(false)
-                    .errorMessage(e.getMessage())
-                    .build();
-            
-        } catch (Exception e) {
-            long costMs = System.currentTimeMillis() - startTime;
+                    statusCode, url, method, costMs);
+        }
+        
+        return HttpResponse.builder()
+                .statusCode(statusCode)
+                .body(responseBody)
+                .costMs((int) costMs)
+                .success(success)
+                .errorMessage(success ? null : "HTTP " + statusCode)
+                .build();
+    }
+    
+    /**
+     * 根据调用异常构建响应（状态码为 0）
+     */
+    private HttpResponse buildErrorResponse(Throwable e, long startTime, String url, HttpMethod method, int timeoutMs) {
+        long costMs = System.currentTimeMillis() - startTime;
+        String errorMessage;
+        if (e instanceof TimeoutException) {
+            errorMessage = "Request timeout after " + timeoutMs + "ms";
+            log.warn("HTTP call timeout: url={}, method={}, costMs={}", url, method, costMs);
+        } else {
+            errorMessage = e.getMessage();
             log.error("HTTP call failed with exception: url={}, method={}, costMs={}", 
                     url, method, costMs, e);
-            
-            return HttpResponse.builder()
-                    .statusCode(0)
-                    .body(null)
-                    .costMs((int) costMs)
-                    .success(false)
-                    .errorMessage(e.getMessage())
-                    .build();
         }
+        
+        return HttpResponse.builder()
+                .statusCode(0)
+                .body(null)
+                .costMs((int) costMs)
+                .success(false)
+                .errorMessage(errorMessage)
+                .build();
+    }
+    
+    /**
+     * 供应商客户端及其连接池
+     */
+    private record VendorClient(WebClient webClient, ConnectionProvider provider, PoolSettings settings) {
+    }
+    
+    /**
+     * 连接池参数
+     */
+    private record PoolSettings(int maxConnections, int acquireTimeoutMs, int idleTtlMs, int connectTimeoutMs) {
     }
     
     /**
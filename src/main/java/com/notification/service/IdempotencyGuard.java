@@ -0,0 +1,177 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import com.notification.entity.NotificationTask;
+import com.notification.mapper.NotificationTaskMapper;
+import com.notification.util.SlidingBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 幂等性守卫
+ * 
+ * 正确性由 notification_task 上的唯一索引 (event_id, event_active) 保证：
+ * 进行中以及去重窗口内成功的任务 event_active = 1，其余为 NULL，同一 eventId 只能有一条活跃任务。
+ * 
+ * 本节点最近写入过的 eventId 记录在滑动窗口布隆过滤器中：过滤器判定“确定没见过”时跳过数据库查询，
+ * 直接插入，跨节点的并发重复由唯一索引拦截；判定“可能见过”时才查询数据库取得已存在的任务ID。
+ * 
+ * 启用分区（notification.partition.enabled）后唯一索引包含 created_at，不再拦截其他节点或稍后写入的重复 eventId，
+ * 此时快速路径强制关闭，每次创建前都查询数据库
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+public class IdempotencyGuard {
+    
+    private final NotificationTaskMapper taskMapper;
+    private final NotificationProperties.IdempotencyConfig config;
+    private final boolean fastPathEnabled;
+    private final SlidingBloomFilter recentEventIds;
+    
+    private final Counter fastPathHits;
+    private final Counter fastPathMisses;
+    private final Counter checkConflicts;
+    private final Counter uniqueKeyConflicts;
+    
+    @Autowired
+    public IdempotencyGuard(NotificationTaskMapper taskMapper, NotificationProperties properties, MeterRegistry meterRegistry) {
+        this.taskMapper = taskMapper;
+        this.config = properties.getIdempotency();
+        this.fastPathEnabled = config.isFastPathEnabled() && !properties.getPartition().isEnabled();
+        if (config.isFastPathEnabled() && !fastPathEnabled) {
+            log.warn("Idempotency fast path disabled: uk_event_active includes created_at when partitioning is enabled");
+        }
+        this.recentEventIds = new SlidingBloomFilter(
+                config.getExpectedInsertions(),
+                config.getFalsePositiveRate(),
+                config.getGenerations(),
+                config.getFastPathWindowMs());
+        
+        this.fastPathHits = Counter.builder("notification.idempotency.fast_path")
+                .description("Idempotency checks answered without a database query")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.fastPathMisses = Counter.builder("notification.idempotency.fast_path")
+                .description("Idempotency checks answered without a database query")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.checkConflicts = Counter.builder("notification.idempotency.conflicts")
+                .tag("source", "check")
+                .register(meterRegistry);
+        this.uniqueKeyConflicts = Counter.builder("notification.idempotency.conflicts")
+                .tag("source", "unique_key")
+                .register(meterRegistry);
+        
+        log.info("Idempotency fast path initialized: enabled={}, bytesPerGeneration={}",
+                fastPathEnabled, recentEventIds.bytesPerGeneration());
+    }
+    
+    /**
+     * 查找与 eventId 冲突的活跃任务
+     * 
+     * @return 已存在的通知任务ID，不存在返回 null
+     */
+    public String findActive(String eventId) {
+        if (isDefinitelyNew(eventId)) {
+            return null;
+        }
+        NotificationTask existing = taskMapper.selectActiveByEventId(eventId);
+        if (existing != null) {
+            checkConflicts.increment();
+            return existing.getId();
+        }
+        return null;
+    }
+    
+    /**
+     * 批量查找冲突的活跃任务，只对过滤器判定“可能见过”的 eventId 查询数据库
+     * 
+     * @return eventId -> 已存在的通知任务ID
+     */
+    public Map<String, String> findActive(Collection<String> eventIds) {
+        List<String> candidates = eventIds.stream()
+                .filter(eventId -> !isDefinitelyNew(eventId))
+                .collect(Collectors.toList());
+        
+        Map<String, String> existingByEventId = new HashMap<>();
+        if (candidates.isEmpty()) {
+            return existingByEventId;
+        }
+        for (NotificationTask existing : taskMapper.selectActiveByEventIds(candidates)) {
+            if (existingByEventId.putIfAbsent(existing.getEventId(), existing.getId()) == null) {
+                checkConflicts.increment();
+            }
+        }
+        return existingByEventId;
+    }
+    
+    /**
+     * 插入违反唯一索引后，查询与之冲突的任务
+     */
+    public String resolveConflict(String eventId) {
+        uniqueKeyConflicts.increment();
+        NotificationTask existing = taskMapper.selectActiveByEventId(eventId);
+        return existing == null ? null : existing.getId();
+    }
+    
+    /**
+     * 记录本节点写入的 eventId
+     */
+    public void remember(String eventId) {
+        if (fastPathEnabled) {
+            recentEventIds.put(eventId);
+        }
+    }
+    
+    /**
+     * 任务进入终态后是否仍保持去重（SUCCESS 在去重窗口内继续占用 eventId）
+     */
+    public boolean keepsActiveAfterSuccess() {
+        return config.getDedupeWindowMs() > 0;
+    }
+    
+    /**
+     * 释放超出去重窗口的成功任务所占用的 eventId
+     */
+    @Scheduled(fixedDelayString = "${notification.idempotency.release-interval-ms:60000}")
+    public void releaseExpiredSuccess() {
+        if (config.getDedupeWindowMs() <= 0) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(config.getDedupeWindowMs() * 1_000_000L);
+        int released;
+        int total = 0;
+        do {
+            released = taskMapper.releaseSuccessEventIds(cutoff, config.getReleaseBatchSize());
+            total += released;
+        } while (released >= config.getReleaseBatchSize());
+        if (total > 0) {
+            log.info("Released eventIds of successful tasks outside dedupe window: count={}", total);
+        }
+    }
+    
+    private boolean isDefinitelyNew(String eventId) {
+        if (!fastPathEnabled) {
+            return false;
+        }
+        if (recentEventIds.mightContain(eventId)) {
+            fastPathMisses.increment();
+            return false;
+        }
+        fastPathHits.increment();
+        return true;
+    }
+}
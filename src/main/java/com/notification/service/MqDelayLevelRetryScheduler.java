@@ -0,0 +1,77 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import com.notification.dto.NotificationMessage;
+import com.notification.entity.NotificationTask;
+import com.notification.mq.MockRocketMQProducer;
+import com.notification.mq.RocketMQProducer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于 RocketMQ 延迟级别的重试调度
+ * 
+ * 延迟向上取整到 18 个固定级别之一（例如 61 秒实际等待 120 秒），超过 2 小时的延迟被截断；
+ * Mock 模式下按 delay-scale-factor 缩短
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${notification.mq.mode:mock}' != 'db' and '${notification.retry.scheduler:mq-delay-level}' == 'mq-delay-level'")
+public class MqDelayLevelRetryScheduler implements RetryScheduler {
+    
+    @Autowired
+    private RetryPolicyService retryPolicyService;
+    
+    @Autowired
+    private NotificationProperties properties;
+    
+    @Autowired(required = false)
+    private RocketMQProducer rocketMQProducer;
+    
+    @Autowired(required = false)
+    private MockRocketMQProducer mockRocketMQProducer;
+    
+    @Override
+    public long effectiveDelayMs(long requestedDelayMs) {
+        int delayLevel = toDelayLevel(requestedDelayMs);
+        long delayMs = retryPolicyService.getDelayLevelSeconds(delayLevel) * 1000L;
+        if (rocketMQProducer == null && mockRocketMQProducer != null) {
+            delayMs = delayMs / properties.getMq().getMock().getDelayScaleFactor();
+        }
+        return delayMs;
+    }
+    
+    @Override
+    public void schedule(NotificationTask task, long requestedDelayMs) {
+        int delayLevel = toDelayLevel(requestedDelayMs);
+        
+        // 构建消息
+        NotificationMessage message = NotificationMessage.builder()
+                .notificationId(task.getId())
+                .vendorCode(task.getVendorCode())
+                .retryCount(task.getRetryCount())
+                .build();
+        
+        // 发送延迟消息到队列
+        if (rocketMQProducer != null) {
+            rocketMQProducer.sendDelayMessage(message, delayLevel);
+            log.info("Scheduled retry for notification (RocketMQ): notificationId={}, retryCount={}, delayMs={}, delayLevel={}", 
+                    task.getId(), task.getRetryCount(), requestedDelayMs, delayLevel);
+        } else if (mockRocketMQProducer != null) {
+            mockRocketMQProducer.sendDelayMessage(message, delayLevel);
+            log.info("Scheduled retry for notification (Mock MQ): notificationId={}, retryCount={}, delayMs={}, delayLevel={}", 
+                    task.getId(), task.getRetryCount(), requestedDelayMs, delayLevel);
+        } else {
+            log.warn("No MQ producer available, retry will not be scheduled automatically: notificationId={}, retryCount={}", 
+                    task.getId(), task.getRetryCount());
+        }
+    }
+    
+    private int toDelayLevel(long delayMs) {
+        return retryPolicyService.mapToRocketMQDelayLevel((int) Math.min(Integer.MAX_VALUE, (delayMs + 999) / 1000));
+    }
+}
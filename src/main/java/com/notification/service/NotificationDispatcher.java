@@ -1,22 +1,23 @@
 package com.notification.service;
 
-import com.notification.dto.NotificationMessage;
+import com.notification.config.NotificationProperties;
+import com.notification.dto.NotificationStatusResponse;
 import com.notification.entity.NotificationTask;
 import com.notification.entity.enums.ErrorCode;
 import com.notification.entity.enums.TaskStatus;
 import com.notification.mapper.NotificationTaskMapper;
-import com.notification.mq.MockRocketMQProducer;
-import com.notification.mq.RocketMQProducer;
 import com.notification.service.HttpClientService.HttpResponse;
-import com.notification.util.JsonUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 通知投递核心服务
@@ -36,62 +37,225 @@ public class NotificationDispatcher {
     @Autowired
     private RetryPolicyService retryPolicyService;
     
-    @Autowired(required = false)
-    private RocketMQProducer rocketMQProducer;
+    @Autowired
+    private RetryScheduler retryScheduler;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private IdempotencyGuard idempotencyGuard;
+    
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    
+    @Autowired
+    private VendorRateLimiter vendorRateLimiter;
+    
+    @Autowired
+    private AttemptJournal attemptJournal;
+    
+    @Autowired
+    private TerminalStatusCache terminalStatusCache;
+    
+    @Autowired
+    private PreparedPayloadCache preparedPayloadCache;
+    
+    @Autowired
+    private StatusSubscriptionRegistry statusSubscriptionRegistry;
     
-    @Autowired(required = false)
-    private MockRocketMQProducer mockRocketMQProducer;
+    @Autowired
+    private NotificationMetrics metrics;
+    
+    @Autowired
+    private NotificationProperties properties;
     
     /**
-     * 投递通知
+     * 投递通知（阻塞直到本次投递结果落库）
      */
-    @Transactional(rollbackFor = Exception.class)
     public void dispatch(String notificationId) {
-        // 1. 加载任务详情
-        NotificationTask task = taskMapper.selectById(notificationId);
-        if (task == null) {
-            log.error("Notification task not found: {}", notificationId);
-            return;
+        dispatchAsync(notificationId).block();
+    }
+    
+    /**
+     * 投递通知（非阻塞）
+     * 
+     * 分三个阶段执行，数据库连接不会跨越供应商调用：
+     * 1. 短事务领取任务租约
+     * 2. 不持有任何连接调用外部 API（WebClient 事件循环）
+     * 3. 短事务按领取时的状态条件提交结果（切换到 boundedElastic 线程池，避免阻塞事件循环）
+     */
+    public Mono<Void> dispatchAsync(String notificationId) {
+        return Mono.fromCallable(() -> claimTask(notificationId))
+                .flatMap(this::deliver)
+                .then();
+    }
+    
+    /**
+     * 投递已领取租约的任务（非阻塞，db 模式由轮询器批量领取后调用）
+     * 
+     * @param task 已写入租约的完整任务
+     */
+    public Mono<Void> dispatchClaimedAsync(NotificationTask task) {
+        return deliver(task).then();
+    }
+    
+    /**
+     * 阶段二、三：调用供应商并提交结果
+     */
+    private Mono<HttpResponse> deliver(NotificationTask task) {
+        // 超出供应商限流时不发起调用，推迟任务且不消耗重试次数；
+        // 先于熔断判断，避免半开状态下领取的探测名额因限流而无法归还
+        long throttleDelayMs = vendorRateLimiter.tryAcquire(task.getVendorCode());
+        if (throttleDelayMs > 0) {
+            return Mono.fromRunnable(() -> defer(task, ErrorCode.RATE_LIMITED,
+                    "Rate limited: " + task.getVendorCode(), throttleDelayMs));
         }
         
-        log.info("Dispatching notification: notificationId={}, retryCount={}, targetUrl={}", 
-                task.getId(), task.getRetryCount(), task.getTargetUrl());
+        // 熔断打开时不发起调用，推迟任务且不消耗重试次数
+        String breakerKey = circuitBreakerRegistry.keyOf(task);
+        if (!circuitBreakerRegistry.tryAcquire(breakerKey)) {
+            return Mono.fromRunnable(() -> defer(task, ErrorCode.CIRCUIT_OPEN,
+                    "Circuit open: " + breakerKey, circuitBreakerRegistry.deferDelayMs(breakerKey)));
+        }
         
-        // 2. 构建 HTTP 请求参数
-        HttpMethod httpMethod = HttpMethod.valueOf(task.getHttpMethod());
-        Map<String, String> headers = JsonUtil.fromJson(task.getHeadersJson(), Map.class);
-        String body = task.getBodyJson();
+        // 获准后必须以结果或归还结束，否则半开状态的探测名额会永久丢失
+        AtomicBoolean breakerSettled = new AtomicBoolean();
+        return Mono.defer(() -> {
+                    log.info("Dispatching notification: notificationId={}, retryCount={}, targetUrl={}", 
+                            task.getId(), task.getRetryCount(), task.getTargetUrl());
+                    if (task.getLastAttemptAt() == null) {
+                        metrics.recordQueueDwell(task);
+                    }
+                    
+                    // 构建 HTTP 请求参数（请求头、请求体在任务的多次尝试间复用）
+                    HttpMethod httpMethod = HttpMethod.valueOf(task.getHttpMethod());
+                    PreparedPayload payload = preparedPayloadCache.get(task);
+                    
+                    // 调用外部 API
+                    return httpClientService.callAsync(
+                            task.getVendorCode(),
+                            task.getTargetUrl(),
+                            httpMethod,
+                            payload,
+                            task.getCallbackTimeoutMs());
+                })
+                .doOnNext(response -> {
+                    breakerSettled.set(true);
+                    circuitBreakerRegistry.onResult(breakerKey, isBreakerFailure(response));
+                })
+                .doFinally(signalType -> {
+                    // 调用前出错、没有响应或被取消：不计入成功或失败，只归还名额
+                    if (breakerSettled.compareAndSet(false, true)) {
+                        circuitBreakerRegistry.release(breakerKey);
+                    }
+                })
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(response -> handleResponse(task, response));
+    }
+    
+    /**
+     * 阶段一：加载任务并领取投递租约
+     * 
+     * @return 领取成功的任务；任务不存在、已终态或正被其他节点投递时返回 null
+     */
+    private NotificationTask claimTask(String notificationId) {
+        return transactionTemplate.execute(txStatus -> {
+            NotificationTask task = taskMapper.selectById(notificationId);
+            if (task == null) {
+                log.error("Notification task not found: {}", notificationId);
+                return null;
+            }
+            
+            TaskStatus status = TaskStatus.fromCode(task.getStatus());
+            if (status == TaskStatus.SUCCESS || status == TaskStatus.FAILED) {
+                log.info("Notification already finished, skipping dispatch: notificationId={}, status={}", 
+                        task.getId(), task.getStatus());
+                return null;
+            }
+            
+            // 租约覆盖一次完整的调用超时，节点宕机后租约过期即可被重新领取
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime leaseUntil = now
+                    .plus(Duration.ofMillis(task.getCallbackTimeoutMs()))
+                    .plus(Duration.ofMillis(properties.getDispatch().getLeaseMarginMs()));
+            LocalDateTime dueBefore = now.plus(Duration.ofMillis(properties.getRetry().getDueToleranceMs()));
+            if (taskMapper.claimLease(task.getId(), leaseUntil, now, dueBefore) == 0) {
+                log.info("Notification is being dispatched by another worker or not yet due, skipping: notificationId={}, nextAttemptAt={}", 
+                        task.getId(), task.getNextAttemptAt());
+                return null;
+            }
+            task.setLeaseUntil(leaseUntil);
+            return task;
+        });
+    }
+    
+    /**
+     * 阶段三：根据响应处理结果
+     */
+    private void handleResponse(NotificationTask task, HttpResponse response) {
+        attemptJournal.record(task, response);
         
-        // 3. 调用外部 API
-        HttpResponse response = httpClientService.call(
-                task.getTargetUrl(),
-                httpMethod,
-                headers,
-                body,
-                task.getCallbackTimeoutMs()
-        );
+        // 记录领取时的状态，作为条件更新的依据
+        String claimedStatus = task.getStatus();
+        int claimedRetryCount = task.getRetryCount();
         
-        // 4. 更新最后尝试时间
+        // 更新最后尝试时间
         task.setLastAttemptAt(LocalDateTime.now());
         
-        // 5. 根据响应处理结果
         if (response.isSuccess()) {
-            handleSuccess(task, response);
+            handleSuccess(task, response, claimedStatus, claimedRetryCount);
+        } else if (response.getStatusCode() == 429) {
+            // 供应商限流：推迟且不消耗重试次数
+            defer(task, ErrorCode.RATE_LIMITED, truncateErrorMessage(response.getErrorMessage()),
+                    vendorRateLimiter.tooManyRequestsDeferMs(task.getVendorCode()));
         } else if (response.isClientError()) {
-            handleFailure(task, response, false); // 4xx 不重试
+            handleFailure(task, response, false, claimedStatus, claimedRetryCount); // 4xx 不重试
         } else {
-            handleFailure(task, response, true); // 5xx 和超时需要重试
+            handleFailure(task, response, true, claimedStatus, claimedRetryCount); // 5xx 和超时需要重试
+        }
+    }
+    
+    /**
+     * 在短事务中提交投递结果
+     * 
+     * @return 是否提交成功；false 表示任务状态已被并发修改，本次结果被丢弃
+     */
+    private boolean commitResult(NotificationTask task, String claimedStatus, int claimedRetryCount) {
+        task.setUpdatedAt(LocalDateTime.now());
+        Integer updated = transactionTemplate.execute(txStatus -> 
+                taskMapper.updateDispatchResult(task, claimedStatus, claimedRetryCount));
+        if (updated == null || updated == 0) {
+            log.warn("Notification state changed concurrently, discarding dispatch result: notificationId={}, claimedStatus={}, claimedRetryCount={}", 
+                    task.getId(), claimedStatus, claimedRetryCount);
+            return false;
         }
+        // 提交成功后再对外可见：写入终态缓存，并通知等待该任务状态的订阅者
+        NotificationStatusResponse status = TerminalStatusCache.toResponse(task);
+        if (StatusSubscriptionRegistry.isTerminal(status)) {
+            metrics.countTerminal(task);
+            preparedPayloadCache.invalidate(task.getId());
+        }
+        terminalStatusCache.putIfTerminal(status);
+        statusSubscriptionRegistry.publish(status);
+        return true;
     }
     
     /**
      * 处理成功响应
      */
-    private void handleSuccess(NotificationTask task, HttpResponse response) {
+    private void handleSuccess(NotificationTask task, HttpResponse response, String claimedStatus, int claimedRetryCount) {
         task.setStatus(TaskStatus.SUCCESS.getCode());
         task.setLastErrorCode(null);
         task.setLastErrorMessage(null);
-        taskMapper.updateById(task);
+        task.setNextAttemptAt(null);
+        // 去重窗口内成功任务继续占用 eventId，由 IdempotencyGuard 到期释放
+        if (!idempotencyGuard.keepsActiveAfterSuccess()) {
+            task.setEventActive(null);
+        }
+        if (!commitResult(task, claimedStatus, claimedRetryCount)) {
+            return;
+        }
         
         log.info("Notification dispatched successfully: notificationId={}, statusCode={}, costMs={}", 
                 task.getId(), response.getStatusCode(), response.getCostMs());
@@ -100,7 +264,8 @@ public class NotificationDispatcher {
     /**
      * 处理失败响应
      */
-    private void handleFailure(NotificationTask task, HttpResponse response, boolean shouldRetry) {
+    private void handleFailure(NotificationTask task, HttpResponse response, boolean shouldRetry, 
+                               String claimedStatus, int claimedRetryCount) {
         // 记录错误信息
         String errorCode = response.isTimeout() ? 
                 ErrorCode.HTTP_TIMEOUT.getCode() : 
@@ -111,11 +276,15 @@ public class NotificationDispatcher {
         
         // 判断是否需要重试
         if (shouldRetry && retryPolicyService.shouldRetry(task)) {
-            handleRetry(task);
+            handleRetry(task, claimedStatus, claimedRetryCount);
         } else {
             // 达到最大重试次数或不应重试，标记为失败
             task.setStatus(TaskStatus.FAILED.getCode());
-            taskMapper.updateById(task);
+            task.setEventActive(null);
+            task.setNextAttemptAt(null);
+            if (!commitResult(task, claimedStatus, claimedRetryCount)) {
+                return;
+            }
             
             log.warn("Notification failed permanently: notificationId={}, retryCount={}, errorCode={}", 
                     task.getId(), task.getRetryCount(), errorCode);
@@ -125,36 +294,44 @@ public class NotificationDispatcher {
     /**
      * 处理重试逻辑
      */
-    private void handleRetry(NotificationTask task) {
-        // 增加重试计数
+    private void handleRetry(NotificationTask task, String claimedStatus, int claimedRetryCount) {
+        // 增加重试计数并记录计划重试时间，提交成功后才安排重试（事务外）
         task.setRetryCount(task.getRetryCount() + 1);
         task.setStatus(TaskStatus.RETRYING.getCode());
-        taskMapper.updateById(task);
-        
-        // 计算延迟时间
-        int delaySeconds = retryPolicyService.calculateDelaySeconds(task.getRetryCount());
-        int delayLevel = retryPolicyService.mapToRocketMQDelayLevel(delaySeconds);
-        
-        // 构建消息
-        NotificationMessage message = NotificationMessage.builder()
-                .notificationId(task.getId())
-                .vendorCode(task.getVendorCode())
-                .retryCount(task.getRetryCount())
-                .build();
+        long delayMs = retryPolicyService.calculateDelaySeconds(task.getRetryCount()) * 1000L;
+        task.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(retryScheduler.effectiveDelayMs(delayMs))));
+        if (!commitResult(task, claimedStatus, claimedRetryCount)) {
+            return;
+        }
         
-        // 发送延迟消息到队列
-        if (rocketMQProducer != null) {
-            rocketMQProducer.sendDelayMessage(message, delayLevel);
-            log.info("Scheduled retry for notification (RocketMQ): notificationId={}, retryCount={}, delaySeconds={}, delayLevel={}", 
-                    task.getId(), task.getRetryCount(), delaySeconds, delayLevel);
-        } else if (mockRocketMQProducer != null) {
-            mockRocketMQProducer.sendDelayMessage(message, delayLevel);
-            log.info("Scheduled retry for notification (Mock MQ): notificationId={}, retryCount={}, delaySeconds={}, delayLevel={}", 
-                    task.getId(), task.getRetryCount(), delaySeconds, delayLevel);
-        } else {
-            log.warn("No MQ producer available, retry will not be scheduled automatically: notificationId={}, retryCount={}", 
-                    task.getId(), task.getRetryCount());
+        metrics.countRetry(task.getVendorCode(), task.getRetryCount());
+        retryScheduler.schedule(task, delayMs);
+    }
+    
+    /**
+     * 推迟任务（熔断打开、限流）：状态和重试次数保持不变，只更新下次尝试时间
+     */
+    private void defer(NotificationTask task, ErrorCode reason, String message, long delayMs) {
+        String claimedStatus = task.getStatus();
+        int claimedRetryCount = task.getRetryCount();
+        task.setLastErrorCode(reason.getCode());
+        task.setLastErrorMessage(message);
+        task.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(retryScheduler.effectiveDelayMs(delayMs))));
+        if (!commitResult(task, claimedStatus, claimedRetryCount)) {
+            return;
         }
+        
+        log.info("Deferring notification: notificationId={}, reason={}, delayMs={}", 
+                task.getId(), reason.getCode(), delayMs);
+        metrics.countDeferred(task.getVendorCode(), reason.getCode());
+        retryScheduler.schedule(task, delayMs);
+    }
+    
+    /**
+     * 超时、连接异常和 5xx 计入熔断失败率；4xx 说明供应商可用
+     */
+    private boolean isBreakerFailure(HttpResponse response) {
+        return response.getStatusCode() == 0 || response.isServerError();
     }
     
     /**
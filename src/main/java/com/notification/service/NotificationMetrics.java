@@ -0,0 +1,236 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import com.notification.entity.NotificationTask;
+import com.notification.service.HttpClientService.HttpResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通知生命周期指标
+ * 
+ * 接收 -> 发件箱/MQ 发送 -> 排队 -> 供应商调用 -> 重试 -> 终态，各阶段的计时和计数集中在这里定义，
+ * 保证指标名和标签在各处一致。标签取值都是有界的：vendor 来自 vendor_config（数量由 MeterFilter 限制），
+ * 其余标签为固定枚举或封顶的重试级别
+ * 
+ * @author Notification System
+ */
+@Component
+public class NotificationMetrics {
+    
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(60);
+    
+    private final MeterRegistry meterRegistry;
+    private final NotificationProperties.MetricsConfig config;
+    
+    @Autowired
+    public NotificationMetrics(MeterRegistry meterRegistry, NotificationProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.config = properties.getMetrics();
+    }
+    
+    /**
+     * 开始为一次接收请求计时，在所在事务结束（提交或回滚）时记录，包含提交耗时
+     * 
+     * @param api single 或 batch
+     */
+    public void timeIngest(String api) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                sample.stop(Timer.builder("notification.ingest")
+                        .description("Notification creation latency including the transaction commit")
+                        .tag("api", api)
+                        .tag("outcome", status == STATUS_COMMITTED ? "committed" : "rolled_back")
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(MIN_EXPECTED)
+                        .maximumExpectedValue(MAX_EXPECTED)
+                        .register(meterRegistry));
+            }
+        });
+    }
+    
+    /**
+     * 接收的条目数
+     * 
+     * @param result ACCEPTED、DUPLICATE 或 INVALID
+     */
+    public void countIngested(String api, String result, long count) {
+        if (count <= 0) {
+            return;
+        }
+        Counter.builder("notification.ingest.items")
+                .description("Notification items received, by result")
+                .tag("api", api)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment(count);
+    }
+    
+    /**
+     * MQ 发送耗时
+     * 
+     * @param mode rocketmq 或 mock
+     * @param type normal、batch 或 delayed
+     */
+    public void recordPublish(String mode, String type, boolean success, long nanos) {
+        Timer.builder("notification.mq.publish")
+                .description("Time to hand a message to the MQ (broker acknowledgement for rocketmq)")
+                .tag("mode", mode)
+                .tag("type", type)
+                .tag("outcome", success ? "success" : "failure")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * MQ 消费耗时（消息到达到投递结果落库）
+     * 
+     * @param mode rocketmq、mock 或 db
+     * @param listener single、batch 或 poller
+     * @param messages 本次消费的消息数
+     */
+    public void recordConsume(String mode, String listener, boolean success, int messages, long nanos) {
+        Timer.builder("notification.mq.consume")
+                .description("Time from message delivery to the dispatch result being committed")
+                .tag("mode", mode)
+                .tag("listener", listener)
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        Counter.builder("notification.mq.consumed")
+                .description("Messages consumed from the MQ")
+                .tag("mode", mode)
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry)
+                .increment(messages);
+    }
+    
+    /**
+     * 排队时间：创建到第一次调用供应商
+     */
+    public void recordQueueDwell(NotificationTask task) {
+        if (task.getCreatedAt() == null) {
+            return;
+        }
+        Duration dwell = Duration.between(task.getCreatedAt(), LocalDateTime.now());
+        Timer.builder("notification.queue.dwell")
+                .description("Time from task creation to the first vendor call")
+                .tag("vendor", vendorTag(task.getVendorCode()))
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(meterRegistry)
+                .record(dwell.isNegative() ? Duration.ZERO : dwell);
+    }
+    
+    /**
+     * 供应商调用耗时，按状态码类别区分
+     */
+    public void recordVendorCall(String vendorCode, HttpResponse response, long nanos) {
+        Timer.builder("notification.vendor.call")
+                .description("Vendor HTTP call latency")
+                .tag("vendor", vendorTag(vendorCode))
+                .tag("outcome", statusClass(response))
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * 安排了一次重试
+     * 
+     * @param level 第几次重试（从 1 开始）
+     */
+    public void countRetry(String vendorCode, int level) {
+        int cap = config.getMaxRetryLevelTag();
+        Counter.builder("notification.retry.scheduled")
+                .description("Retries scheduled, by retry level")
+                .tag("vendor", vendorTag(vendorCode))
+                .tag("level", level >= cap ? cap + "+" : String.valueOf(level))
+                .register(meterRegistry)
+                .increment();
+    }
+    
+    /**
+     * 数据库轮询模式的一次批量领取
+     * 
+     * @param requested 本次请求领取的数量
+     * @param claimed 实际领取的数量
+     */
+    public void recordDbClaim(int requested, int claimed, long nanos) {
+        String outcome = claimed == 0 ? "empty" : claimed < requested ? "partial" : "full";
+        Timer.builder("notification.db_queue.claim")
+                .description("Time to lock and lease a batch of due tasks")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        Counter.builder("notification.db_queue.claimed")
+                .description("Tasks claimed from the database queue")
+                .register(meterRegistry)
+                .increment(claimed);
+    }
+    
+    /**
+     * 推迟了一次投递（限流、熔断），不消耗重试次数
+     */
+    public void countDeferred(String vendorCode, String reason) {
+        Counter.builder("notification.deferred")
+                .description("Deliveries deferred without consuming a retry")
+                .tag("vendor", vendorTag(vendorCode))
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+    
+    /**
+     * 任务到达终态
+     */
+    public void countTerminal(NotificationTask task) {
+        String vendor = vendorTag(task.getVendorCode());
+        Counter.builder("notification.terminal")
+                .description("Tasks that reached a terminal state")
+                .tag("vendor", vendor)
+                .tag("status", task.getStatus())
+                .register(meterRegistry)
+                .increment();
+        DistributionSummary.builder("notification.terminal.retries")
+                .description("Retries used by tasks that reached a terminal state")
+                .tag("vendor", vendor)
+                .tag("status", task.getStatus())
+                .register(meterRegistry)
+                .record(task.getRetryCount());
+    }
+    
+    private static String vendorTag(String vendorCode) {
+        return vendorCode == null || vendorCode.isEmpty() ? "none" : vendorCode;
+    }
+    
+    private static String statusClass(HttpResponse response) {
+        int statusCode = response.getStatusCode();
+        if (statusCode == 0) {
+            return response.isTimeout() ? "timeout" : "network_error";
+        }
+        return statusCode / 100 + "xx";
+    }
+}
@@ -1,27 +1,36 @@
 package com.notification.service;
 
+import com.notification.config.NotificationProperties;
+import com.notification.dto.BatchCreateNotificationResponse;
+import com.notification.dto.BatchCreateNotificationResponse.ItemResult;
 import com.notification.dto.CreateNotificationRequest;
 import com.notification.dto.CreateNotificationResponse;
-import com.notification.dto.NotificationMessage;
 import com.notification.dto.NotificationStatusResponse;
 import com.notification.entity.NotificationTask;
 import com.notification.entity.VendorConfig;
 import com.notification.entity.enums.ErrorCode;
 import com.notification.entity.enums.TaskStatus;
 import com.notification.mapper.NotificationTaskMapper;
-import com.notification.mq.MockRocketMQProducer;
-import com.notification.mq.RocketMQProducer;
 import com.notification.util.IdGenerator;
 import com.notification.util.JsonUtil;
-import lombok.RequiredArgsConstructor;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 通知服务
@@ -34,19 +43,31 @@ public class NotificationService {
     
     private final NotificationTaskMapper taskMapper;
     private final VendorConfigService vendorConfigService;
-    
-    @Autowired(required = false)
-    private RocketMQProducer rocketMQProducer;
-    
-    @Autowired(required = false)
-    private MockRocketMQProducer mockRocketMQProducer;
+    private final IdempotencyGuard idempotencyGuard;
+    private final OutboxRelay outboxRelay;
+    private final TerminalStatusCache terminalStatusCache;
+    private final NotificationMetrics metrics;
+    private final Validator validator;
+    private final NotificationProperties properties;
     
     @Autowired
     public NotificationService(
             NotificationTaskMapper taskMapper, 
-            VendorConfigService vendorConfigService) {
+            VendorConfigService vendorConfigService,
+            IdempotencyGuard idempotencyGuard,
+            OutboxRelay outboxRelay,
+            TerminalStatusCache terminalStatusCache,
+            NotificationMetrics metrics,
+            Validator validator,
+            NotificationProperties properties) {
         this.taskMapper = taskMapper;
         this.vendorConfigService = vendorConfigService;
+        this.idempotencyGuard = idempotencyGuard;
+        this.outboxRelay = outboxRelay;
+        this.terminalStatusCache = terminalStatusCache;
+        this.metrics = metrics;
+        this.validator = validator;
+        this.properties = properties;
     }
     
     /**
@@ -54,6 +75,8 @@ public class NotificationService {
      */
     @Transactional(rollbackFor = Exception.class)
     public CreateNotificationResponse createNotification(CreateNotificationRequest request) {
+        metrics.timeIngest("single");
+        
         // 1. 参数验证
         validateRequest(request);
         
@@ -63,90 +86,260 @@ public class NotificationService {
         }
         
         // 3. 查询供应商配置并合并默认值
-        VendorConfig vendorConfig = null;
-        if (StringUtils.hasText(request.getVendorCode())) {
-            vendorConfig = vendorConfigService.getVendorConfig(request.getVendorCode());
-            if (vendorConfig == null || !vendorConfig.getEnabled()) {
-                throw new IllegalArgumentException(ErrorCode.VENDOR_DISABLED.getMessage());
-            }
-        }
+        VendorConfig vendorConfig = resolveVendorConfig(request);
         
         // 4. 创建通知任务
         NotificationTask task = buildNotificationTask(request, vendorConfig);
         
-        // 5. 持久化到数据库
-        taskMapper.insert(task);
+        // 5. 持久化到数据库（并发重复由唯一索引兜底）
+        try {
+            taskMapper.insert(task);
+        } catch (DuplicateKeyException e) {
+            throw duplicateEventId(idempotencyGuard.resolveConflict(request.getEventId()));
+        }
+        rememberEventIds(List.of(task));
         log.info("Created notification task: {}", task.getId());
         
-        // 6. 发送消息到 RocketMQ（或 Mock）
-        try {
-            NotificationMessage message = NotificationMessage.builder()
+        // 6. 同一事务写入发件箱，提交后由 OutboxRelay 投递到 MQ
+        outboxRelay.enqueue(List.of(task));
+        
+        // 7. 返回响应
+        metrics.countIngested("single", ItemResult.ACCEPTED, 1);
+        return CreateNotificationResponse.accepted(task.getId());
+    }
+    
+    /**
+     * 批量创建通知任务
+     * 
+     * 逐条校验，整批只做一次幂等查询（event_id IN (...)）、一次任务多行插入、一次发件箱多行插入；
+     * 不合法或重复的条目单独返回结果，不影响其他条目
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public BatchCreateNotificationResponse createNotifications(List<CreateNotificationRequest> requests) {
+        metrics.timeIngest("batch");
+        int maxSize = properties.getBatch().getMaxSize();
+        if (requests.size() > maxSize) {
+            throw new IllegalArgumentException(
+                    String.format("Batch size %d exceeds the limit of %d", requests.size(), maxSize));
+        }
+        
+        ItemResult[] results = new ItemResult[requests.size()];
+        VendorConfig[] vendorConfigs = new VendorConfig[requests.size()];
+        
+        // 1. 逐条参数验证
+        for (int i = 0; i < requests.size(); i++) {
+            CreateNotificationRequest request = requests.get(i);
+            try {
+                validateItem(request);
+                vendorConfigs[i] = resolveVendorConfig(request);
+            } catch (IllegalArgumentException e) {
+                results[i] = ItemResult.builder()
+                        .index(i)
+                        .status(ItemResult.INVALID)
+                        .eventId(request == null ? null : request.getEventId())
+                        .message(e.getMessage())
+                        .build();
+            }
+        }
+        
+        // 2. 一次性幂等性检查
+        Map<String, String> existingByEventId = findActiveByEventIds(requests, results);
+        
+        // 3. 构建任务（同批次内重复的 eventId 以第一条为准）
+        List<NotificationTask> tasks = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            CreateNotificationRequest request = requests.get(i);
+            String eventId = request.getEventId();
+            String existingId = StringUtils.hasText(eventId) ? existingByEventId.get(eventId) : null;
+            if (existingId != null) {
+                results[i] = duplicateItem(i, eventId, existingId);
+                continue;
+            }
+            
+            NotificationTask task = buildNotificationTask(request, vendorConfigs[i]);
+            task.setCreatedAt(now);
+            task.setUpdatedAt(now);
+            tasks.add(task);
+            if (StringUtils.hasText(eventId)) {
+                existingByEventId.put(eventId, task.getId());
+            }
+            results[i] = ItemResult.builder()
+                    .index(i)
+                    .status(ItemResult.ACCEPTED)
                     .notificationId(task.getId())
-                    .vendorCode(task.getVendorCode())
-                    .retryCount(0)
+                    .eventId(eventId)
                     .build();
-            
-            if (rocketMQProducer != null) {
-                rocketMQProducer.sendMessage(message);
-                log.info("Sent message to RocketMQ: {}", task.getId());
-            } else if (mockRocketMQProducer != null) {
-                mockRocketMQProducer.sendMessage(message);
-                log.info("Sent message to Mock MQ (will be dispatched asynchronously): {}", task.getId());
-            } else {
-                log.warn("No MQ producer available, task will not be dispatched automatically: {}", task.getId());
+        }
+        
+        // 4. 多行插入；与其他请求并发冲突时退化为逐条插入，冲突的条目标记为重复
+        if (!tasks.isEmpty()) {
+            try {
+                taskMapper.insertBatch(tasks);
+            } catch (DuplicateKeyException e) {
+                log.warn("Batch insert hit a concurrent duplicate eventId, falling back to row-by-row insert");
+                tasks = insertIndividually(tasks, results);
             }
-        } catch (Exception e) {
-            // MQ 发送失败不影响接口响应，任务已持久化，可通过定时任务补偿
-            log.error("Failed to send message to MQ, but task is persisted: {}", task.getId(), e);
+            rememberEventIds(tasks);
+            log.info("Created notification tasks in batch: size={}", tasks.size());
         }
         
-        // 7. 返回响应
-        return CreateNotificationResponse.accepted(task.getId());
+        // 5. 同一事务写入发件箱
+        outboxRelay.enqueue(tasks);
+        
+        // 6. 汇总结果
+        List<ItemResult> items = Arrays.asList(results);
+        BatchCreateNotificationResponse response = BatchCreateNotificationResponse.builder()
+                .accepted(countByStatus(items, ItemResult.ACCEPTED))
+                .duplicate(countByStatus(items, ItemResult.DUPLICATE))
+                .invalid(countByStatus(items, ItemResult.INVALID))
+                .items(items)
+                .build();
+        metrics.countIngested("batch", ItemResult.ACCEPTED, response.getAccepted());
+        metrics.countIngested("batch", ItemResult.DUPLICATE, response.getDuplicate());
+        metrics.countIngested("batch", ItemResult.INVALID, response.getInvalid());
+        return response;
     }
     
     /**
-     * 查询通知状态
+     * 查询通知状态（终态任务优先从本地缓存返回）
      */
     public NotificationStatusResponse getNotificationStatus(String notificationId) {
-        NotificationTask task = taskMapper.selectById(notificationId);
+        NotificationStatusResponse cached = terminalStatusCache.get(notificationId);
+        if (cached != null) {
+            return cached;
+        }
+        
+        NotificationTask task = taskMapper.selectStatusById(notificationId);
+        if (task == null && properties.getPartition().isArchiveLookup()) {
+            // 过期分区已归档的任务
+            task = taskMapper.selectArchivedStatusById(notificationId);
+        }
         if (task == null) {
             return null;
         }
         
-        return NotificationStatusResponse.builder()
-                .notificationId(task.getId())
-                .vendorCode(task.getVendorCode())
-                .targetUrl(task.getTargetUrl())
-                .httpMethod(task.getHttpMethod())
-                .status(task.getStatus())
-                .retryCount(task.getRetryCount())
-                .maxRetry(task.getMaxRetry())
-                .lastErrorCode(task.getLastErrorCode())
-                .lastErrorMessage(task.getLastErrorMessage())
-                .createdAt(task.getCreatedAt())
-                .updatedAt(task.getUpdatedAt())
-                .lastAttemptAt(task.getLastAttemptAt())
-                .build();
+        NotificationStatusResponse response = TerminalStatusCache.toResponse(task);
+        terminalStatusCache.putIfTerminal(response);
+        return response;
     }
     
     /**
      * 幂等性检查
      */
     public void checkIdempotency(String eventId) {
-        List<String> inProgressStatuses = Arrays.asList(
-                TaskStatus.PENDING.getCode(),
-                TaskStatus.RETRYING.getCode()
-        );
-        
-        NotificationTask existingTask = taskMapper.selectByEventIdAndStatusIn(eventId, inProgressStatuses);
-        if (existingTask != null) {
-            throw new IllegalStateException(
-                    String.format("Duplicate eventId detected. Existing notificationId: %s", 
-                            existingTask.getId())
-            );
+        String existingId = idempotencyGuard.findActive(eventId);
+        if (existingId != null) {
+            throw duplicateEventId(existingId);
         }
     }
     
+    /**
+     * 批量检查活跃的 eventId
+     * 
+     * @return eventId -> 已存在的通知任务ID
+     */
+    private Map<String, String> findActiveByEventIds(List<CreateNotificationRequest> requests, ItemResult[] results) {
+        Set<String> eventIds = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] == null && StringUtils.hasText(requests.get(i).getEventId())) {
+                eventIds.add(requests.get(i).getEventId());
+            }
+        }
+        if (eventIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return idempotencyGuard.findActive(eventIds);
+    }
+    
+    /**
+     * 逐条插入，违反唯一索引的条目改为重复结果
+     * 
+     * @return 实际插入成功的任务
+     */
+    private List<NotificationTask> insertIndividually(List<NotificationTask> tasks, ItemResult[] results) {
+        Map<String, Integer> indexById = new HashMap<>();
+        for (ItemResult result : results) {
+            if (ItemResult.ACCEPTED.equals(result.getStatus())) {
+                indexById.put(result.getNotificationId(), result.getIndex());
+            }
+        }
+        
+        List<NotificationTask> inserted = new ArrayList<>();
+        for (NotificationTask task : tasks) {
+            try {
+                taskMapper.insertBatch(List.of(task));
+                inserted.add(task);
+            } catch (DuplicateKeyException e) {
+                int index = indexById.get(task.getId());
+                String existingId = idempotencyGuard.resolveConflict(task.getEventId());
+                results[index] = duplicateItem(index, task.getEventId(), existingId);
+            }
+        }
+        return inserted;
+    }
+    
+    private void rememberEventIds(List<NotificationTask> tasks) {
+        for (NotificationTask task : tasks) {
+            if (StringUtils.hasText(task.getEventId())) {
+                idempotencyGuard.remember(task.getEventId());
+            }
+        }
+    }
+    
+    private static IllegalStateException duplicateEventId(String existingId) {
+        return new IllegalStateException(
+                String.format("Duplicate eventId detected. Existing notificationId: %s", existingId));
+    }
+    
+    private static ItemResult duplicateItem(int index, String eventId, String existingId) {
+        return ItemResult.builder()
+                .index(index)
+                .status(ItemResult.DUPLICATE)
+                .notificationId(existingId)
+                .eventId(eventId)
+                .message(String.format("Duplicate eventId detected. Existing notificationId: %s", existingId))
+                .build();
+    }
+    
+    /**
+     * 校验批量请求中的单条参数（注解校验 + 业务校验）
+     */
+    private void validateItem(CreateNotificationRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("item must not be null");
+        }
+        Set<ConstraintViolation<CreateNotificationRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        validateRequest(request);
+    }
+    
+    /**
+     * 查询供应商配置，供应商不存在或未启用时抛出异常
+     */
+    private VendorConfig resolveVendorConfig(CreateNotificationRequest request) {
+        if (!StringUtils.hasText(request.getVendorCode())) {
+            return null;
+        }
+        VendorConfig vendorConfig = vendorConfigService.getVendorConfig(request.getVendorCode());
+        if (vendorConfig == null || !vendorConfig.getEnabled()) {
+            throw new IllegalArgumentException(ErrorCode.VENDOR_DISABLED.getMessage());
+        }
+        return vendorConfig;
+    }
+    
+    private static int countByStatus(List<ItemResult> items, String status) {
+        return (int) items.stream().filter(item -> status.equals(item.getStatus())).count();
+    }
+    
     /**
      * 验证请求参数
      */
@@ -159,9 +352,9 @@ public class NotificationService {
     }
     
     /**
-     * 构建通知任务实体
+     * 构建通知任务实体（包可见，供基准测试调用）
      */
-    private NotificationTask buildNotificationTask(
+    NotificationTask buildNotificationTask(
             CreateNotificationRequest request, 
             VendorConfig vendorConfig) {
         
@@ -201,6 +394,7 @@ public class NotificationService {
         }
         
         task.setEventId(request.getEventId());
+        task.setEventActive(StringUtils.hasText(request.getEventId()) ? 1 : null);
         
         return task;
     }
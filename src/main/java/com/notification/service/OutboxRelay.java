@@ -0,0 +1,281 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import com.notification.dto.NotificationMessage;
+import com.notification.entity.NotificationOutbox;
+import com.notification.entity.NotificationTask;
+import com.notification.mapper.NotificationOutboxMapper;
+import com.notification.mq.DbTaskPoller;
+import com.notification.mq.MockRocketMQProducer;
+import com.notification.mq.RocketMQProducer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 发件箱中继
+ * 
+ * 创建任务时在同一事务中写入 notification_outbox，事务提交后唤醒中继；
+ * 中继在单个后台线程上分批领取记录，异步批量发送到 MQ，broker 确认后标记为已投递。
+ * 领取使用 claim_token + 租约，可在多个节点上同时运行；节点宕机或发送失败的记录在租约到期后被重新领取，
+ * 因此消息至少投递一次，重复消息由投递阶段的任务租约和状态检查过滤。
+ * 数据库轮询模式下任务表本身就是队列，不写发件箱，提交后只唤醒本节点的轮询线程
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+    
+    private final NotificationOutboxMapper outboxMapper;
+    private final NotificationProperties.OutboxConfig config;
+    
+    @Autowired(required = false)
+    private RocketMQProducer rocketMQProducer;
+    
+    @Autowired(required = false)
+    private MockRocketMQProducer mockRocketMQProducer;
+    
+    @Autowired(required = false)
+    private DbTaskPoller dbTaskPoller;
+    
+    private final ExecutorService relayThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * 是否已有排队中的 drain，用于合并频繁的唤醒
+     */
+    private final AtomicBoolean drainQueued = new AtomicBoolean();
+    
+    /**
+     * 在途批次许可
+     */
+    private final Semaphore inFlightBatches;
+    
+    private final Counter published;
+    private final Counter publishFailures;
+    
+    @Autowired
+    public OutboxRelay(NotificationOutboxMapper outboxMapper, NotificationProperties properties, MeterRegistry meterRegistry) {
+        this.outboxMapper = outboxMapper;
+        this.config = properties.getOutbox();
+        this.inFlightBatches = new Semaphore(Math.max(1, config.getMaxInFlightBatches()));
+        this.published = Counter.builder("notification.outbox.published")
+                .description("Outbox rows published to MQ")
+                .register(meterRegistry);
+        this.publishFailures = Counter.builder("notification.outbox.publish_failures")
+                .description("Outbox batches that failed to publish and will be retried")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 在当前事务中写入发件箱，并在事务提交后唤醒中继
+     */
+    public void enqueue(List<NotificationTask> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        if (dbTaskPoller != null) {
+            afterCommit(dbTaskPoller::wakeUp);
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationOutbox> rows = tasks.stream()
+                .map(task -> {
+                    NotificationOutbox row = new NotificationOutbox();
+                    row.setNotificationId(task.getId());
+                    row.setVendorCode(task.getVendorCode());
+                    row.setStatus(NotificationOutbox.STATUS_NEW);
+                    row.setAttempts(0);
+                    row.setCreatedAt(now);
+                    return row;
+                })
+                .collect(Collectors.toList());
+        outboxMapper.insertBatch(rows);
+        afterCommit(this::wakeUp);
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+    
+    /**
+     * 唤醒中继（多次唤醒合并为一次 drain）
+     */
+    public void wakeUp() {
+        if (drainQueued.compareAndSet(false, true)) {
+            try {
+                relayThread.execute(() -> {
+                    drainQueued.set(false);
+                    drain();
+                });
+            } catch (Exception e) {
+                drainQueued.set(false);
+                log.warn("Outbox relay is not accepting work", e);
+            }
+        }
+    }
+    
+    /**
+     * 兜底轮询：接管其他节点遗留、发送失败或唤醒丢失的记录
+     */
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        wakeUp();
+    }
+    
+    /**
+     * 清理超过保留期的已投递记录
+     */
+    @Scheduled(fixedDelayString = "${notification.outbox.purge-interval-ms:300000}")
+    public void purgePublished() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(config.getRetentionMs() * 1_000_000L);
+        int deleted;
+        int total = 0;
+        do {
+            deleted = outboxMapper.deletePublishedBefore(cutoff, config.getPurgeBatchSize());
+            total += deleted;
+        } while (deleted >= config.getPurgeBatchSize());
+        if (total > 0) {
+            log.info("Purged published outbox rows: count={}", total);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        relayThread.shutdown();
+    }
+    
+    /**
+     * 持续领取并发送，直到没有可领取的记录
+     */
+    private void drain() {
+        if (rocketMQProducer == null && mockRocketMQProducer == null) {
+            return;
+        }
+        try {
+            while (true) {
+                if (!inFlightBatches.tryAcquire(config.getLeaseMs(), TimeUnit.MILLISECONDS)) {
+                    log.warn("Outbox relay timed out waiting for in-flight batches");
+                    return;
+                }
+                List<NotificationOutbox> batch;
+                String claimToken = UUID.randomUUID().toString();
+                try {
+                    batch = claimBatch(claimToken);
+                } catch (Exception e) {
+                    inFlightBatches.release();
+                    throw e;
+                }
+                if (batch.isEmpty()) {
+                    inFlightBatches.release();
+                    return;
+                }
+                
+                publish(batch).whenComplete((ignored, error) -> {
+                    try {
+                        complete(claimToken, batch.size(), error);
+                    } finally {
+                        inFlightBatches.release();
+                    }
+                });
+                
+                if (batch.size() < config.getBatchSize()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Outbox relay drain failed", e);
+        }
+    }
+    
+    /**
+     * 领取一批记录
+     */
+    private List<NotificationOutbox> claimBatch(String claimToken) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = outboxMapper.selectClaimableIds(now, config.getBatchSize());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime leaseUntil = now.plusNanos(config.getLeaseMs() * 1_000_000L);
+        if (outboxMapper.claim(ids, claimToken, leaseUntil, now) == 0) {
+            return List.of();
+        }
+        return outboxMapper.selectByClaimToken(claimToken);
+    }
+    
+    /**
+     * 异步发送一批消息
+     */
+    private CompletableFuture<Void> publish(List<NotificationOutbox> batch) {
+        List<NotificationMessage> messages = batch.stream()
+                .map(row -> NotificationMessage.builder()
+                        .notificationId(row.getNotificationId())
+                        .vendorCode(row.getVendorCode())
+                        .retryCount(0)
+                        .build())
+                .collect(Collectors.toList());
+        
+        if (rocketMQProducer != null) {
+            return rocketMQProducer.sendMessagesAsync(messages);
+        }
+        try {
+            messages.forEach(mockRocketMQProducer::sendMessage);
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * 根据发送结果标记已投递，或推迟下一次领取
+     */
+    private void complete(String claimToken, int size, Throwable error) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            if (error == null) {
+                outboxMapper.markPublished(claimToken, now);
+                published.increment(size);
+            } else {
+                publishFailures.increment();
+                outboxMapper.deferClaim(claimToken, now.plusNanos(config.getRetryBackoffMs() * 1_000_000L));
+                log.warn("Outbox batch publish failed, will retry: claimToken={}, size={}", claimToken, size, error);
+            }
+        } catch (Exception e) {
+            // 状态未能落库时租约到期后会被重新领取
+            log.error("Failed to record outbox publish result: claimToken={}", claimToken, e);
+        }
+    }
+}
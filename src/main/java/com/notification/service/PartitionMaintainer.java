@@ -0,0 +1,292 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 分区维护
+ * 
+ * 对按 created_at 做 RANGE COLUMNS 分区的 notification_task、notification_attempt（见 db/partitioning.sql）：
+ * 1. 提前创建未来 precreatePeriods 个分区（从兜底的 pmax 分区中拆出，pmax 为空时只修改元数据）
+ * 2. 上界早于保留期的分区整体处理：drop 直接删除；archive 先用 EXCHANGE PARTITION 把分区换到一张同结构的空表（只改元数据），
+ *    再顺序写入压缩归档表，最后删除空分区。主表上不产生逐行 DELETE
+ * 仍有 PENDING / RETRYING 任务的过期分区跳过并告警，避免丢失未完成的任务。
+ * DDL 和归档写入可能持续较久，在独立线程上执行，不占用调度线程。
+ * 仅在 MySQL 上运行，集群中只由分片序号为 0 的节点执行
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+public class PartitionMaintainer {
+    
+    private static final String TASK_TABLE = "notification_task";
+    private static final String ATTEMPT_TABLE = "notification_attempt";
+    private static final String CATCH_ALL = "pmax";
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterMembership clusterMembership;
+    private final NotificationProperties.PartitionConfig config;
+    private final MeterRegistry meterRegistry;
+    
+    private final ExecutorService maintainThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "partition-maintain");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    private volatile Boolean mysql;
+    
+    @Autowired
+    public PartitionMaintainer(JdbcTemplate jdbcTemplate, ClusterMembership clusterMembership,
+                               NotificationProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterMembership = clusterMembership;
+        this.config = properties.getPartition();
+        this.meterRegistry = meterRegistry;
+    }
+    
+    /**
+     * 定时触发分区维护（在独立线程上执行，上一次未结束时跳过）
+     */
+    @Scheduled(fixedDelayString = "${notification.partition.interval-ms:3600000}", initialDelay = 30000)
+    public void trigger() {
+        if (!config.isEnabled() || clusterMembership.getShardIndex() != 0) {
+            return;
+        }
+        if (running.compareAndSet(false, true)) {
+            try {
+                maintainThread.execute(() -> {
+                    try {
+                        maintain();
+                    } finally {
+                        running.set(false);
+                    }
+                });
+            } catch (Exception e) {
+                running.set(false);
+                log.warn("Partition maintenance is not accepting work", e);
+            }
+        }
+    }
+    
+    /**
+     * 执行一次分区维护
+     */
+    public void maintain() {
+        if (!isMysql()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (String table : List.of(TASK_TABLE, ATTEMPT_TABLE)) {
+            try {
+                maintain(table, now);
+            } catch (Exception e) {
+                log.error("Partition maintenance failed: table={}", table, e);
+            }
+        }
+    }
+    
+    private void maintain(String table, LocalDateTime now) {
+        List<Partition> partitions = listPartitions(table);
+        if (partitions.isEmpty()) {
+            log.warn("Partition maintenance enabled but table is not partitioned, run db/partitioning.sql: table={}", table);
+            return;
+        }
+        createAhead(table, partitions, now);
+        LocalDateTime cutoff = now.minusDays(config.getRetentionDays());
+        for (Partition partition : partitions) {
+            if (partition.upperBound() != null && !partition.upperBound().isAfter(cutoff)) {
+                expire(table, partition);
+            }
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        maintainThread.shutdownNow();
+    }
+    
+    /**
+     * 补齐到 当前周期 + precreatePeriods 为止的分区，一条 ALTER 完成
+     */
+    private void createAhead(String table, List<Partition> partitions, LocalDateTime now) {
+        LocalDateTime highest = null;
+        boolean hasCatchAll = false;
+        for (Partition partition : partitions) {
+            if (partition.upperBound() == null) {
+                hasCatchAll = true;
+            } else if (highest == null || partition.upperBound().isAfter(highest)) {
+                highest = partition.upperBound();
+            }
+        }
+        LocalDateTime target = periodStart(now);
+        for (int i = 0; i <= config.getPrecreatePeriods(); i++) {
+            target = nextPeriod(target);
+        }
+        
+        List<String> definitions = new ArrayList<>();
+        LocalDateTime lower = highest == null ? periodStart(now) : highest;
+        while (lower.isBefore(target)) {
+            LocalDateTime upper = nextPeriod(periodStart(lower));
+            definitions.add("PARTITION " + partitionName(lower) + " VALUES LESS THAN ('" + upper.format(BOUND_FORMAT) + "')");
+            lower = upper;
+        }
+        if (definitions.isEmpty()) {
+            return;
+        }
+        
+        String ddl;
+        if (hasCatchAll) {
+            definitions.add("PARTITION " + CATCH_ALL + " VALUES LESS THAN (MAXVALUE)");
+            ddl = "ALTER TABLE " + table + " REORGANIZE PARTITION " + CATCH_ALL + " INTO (" + String.join(", ", definitions) + ")";
+        } else {
+            ddl = "ALTER TABLE " + table + " ADD PARTITION (" + String.join(", ", definitions) + ")";
+        }
+        int created = hasCatchAll ? definitions.size() - 1 : definitions.size();
+        jdbcTemplate.execute(ddl);
+        Counter.builder("notification.partition.created")
+                .description("Partitions created ahead of time")
+                .tag("table", table)
+                .register(meterRegistry)
+                .increment(created);
+        log.info("Partitions created ahead: table={}, count={}, upTo={}", table, created, target);
+    }
+    
+    /**
+     * 处理一个过期分区
+     */
+    private void expire(String table, Partition partition) {
+        if (TASK_TABLE.equals(table)) {
+            Long unfinished = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " PARTITION (" + partition.name() + ")"
+                    + " WHERE status IN ('PENDING', 'RETRYING')", Long.class);
+            if (unfinished != null && unfinished > 0) {
+                log.warn("Expired partition still has unfinished tasks, skipping: table={}, partition={}, unfinished={}",
+                        table, partition.name(), unfinished);
+                return;
+            }
+        }
+        
+        if (config.isArchive()) {
+            archive(table, partition.name());
+        }
+        jdbcTemplate.execute("ALTER TABLE " + table + " DROP PARTITION " + partition.name());
+        Counter.builder("notification.partition.expired")
+                .description("Expired partitions removed from the hot table")
+                .tag("table", table)
+                .tag("action", config.isArchive() ? "archive" : "drop")
+                .register(meterRegistry)
+                .increment();
+        log.info("Expired partition removed: table={}, partition={}, action={}, rows~{}",
+                table, partition.name(), config.getExpiredAction(), partition.rows());
+    }
+    
+    /**
+     * 把分区交换到同结构的空表，再整体写入压缩归档表
+     */
+    private void archive(String table, String partition) {
+        String exchange = table + "_exchange";
+        // 上次归档在交换之后中断时，交换表中仍有数据，先补写归档
+        if (tableExists(exchange)) {
+            copyToArchive(table, exchange);
+            jdbcTemplate.execute("DROP TABLE " + exchange);
+        }
+        jdbcTemplate.execute("CREATE TABLE " + exchange + " LIKE " + table);
+        jdbcTemplate.execute("ALTER TABLE " + exchange + " REMOVE PARTITIONING");
+        jdbcTemplate.execute("ALTER TABLE " + table + " EXCHANGE PARTITION " + partition + " WITH TABLE " + exchange);
+        int archived = copyToArchive(table, exchange);
+        jdbcTemplate.execute("DROP TABLE " + exchange);
+        log.info("Partition archived: table={}, partition={}, rows={}", table, partition, archived);
+    }
+    
+    private int copyToArchive(String table, String exchange) {
+        String archive = table + "_archive";
+        List<String> columns = jdbcTemplate.queryForList(
+                "SELECT COLUMN_NAME FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? "
+                        + "ORDER BY ORDINAL_POSITION", String.class, archive);
+        String columnList = String.join(", ", columns);
+        // 归档后不再占用 eventId
+        String selectList = columnList.replace("event_active", "NULL");
+        return jdbcTemplate.update("INSERT IGNORE INTO " + archive + " (" + columnList + ") "
+                + "SELECT " + selectList + " FROM " + exchange);
+    }
+    
+    private boolean tableExists(String table) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.TABLES "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?", Long.class, table);
+        return count != null && count > 0;
+    }
+    
+    private List<Partition> listPartitions(String table) {
+        return jdbcTemplate.query(
+                "SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL "
+                        + "ORDER BY PARTITION_ORDINAL_POSITION",
+                (rs, rowNum) -> new Partition(rs.getString(1), parseBound(rs.getString(2)), rs.getLong(3)),
+                table);
+    }
+    
+    /**
+     * 解析 RANGE COLUMNS 分区上界，如 '2026-11-01 00:00:00'；MAXVALUE 返回 null
+     */
+    private static LocalDateTime parseBound(String description) {
+        if (description == null || "MAXVALUE".equalsIgnoreCase(description)) {
+            return null;
+        }
+        return LocalDateTime.parse(description.replace("'", ""), BOUND_FORMAT);
+    }
+    
+    private LocalDateTime periodStart(LocalDateTime time) {
+        LocalDate date = time.toLocalDate();
+        return (config.isMonthly() ? date.withDayOfMonth(1) : date).atStartOfDay();
+    }
+    
+    private LocalDateTime nextPeriod(LocalDateTime periodStart) {
+        return config.isMonthly() ? periodStart.plusMonths(1) : periodStart.plusDays(1);
+    }
+    
+    private String partitionName(LocalDateTime periodStart) {
+        return "p" + periodStart.format(DateTimeFormatter.ofPattern(config.isMonthly() ? "yyyyMM" : "yyyyMMdd"));
+    }
+    
+    private boolean isMysql() {
+        if (mysql == null) {
+            mysql = Boolean.TRUE.equals(jdbcTemplate.execute((Connection connection) ->
+                    connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql")));
+            if (!mysql) {
+                log.warn("Partition maintenance enabled but database is not MySQL, skipping");
+            }
+        }
+        return mysql;
+    }
+    
+    /**
+     * 分区信息
+     * 
+     * @param name 分区名
+     * @param upperBound 上界（不含），MAXVALUE 为 null
+     * @param rows 估算行数
+     */
+    private record Partition(String name, LocalDateTime upperBound, long rows) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.notification.service;
+
+import com.notification.util.JsonUtil;
+import org.springframework.http.HttpHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 预处理的请求载荷
+ * 
+ * 请求头解析为名称/值交替排列的数组，请求体编码为 UTF-8 字节，同一任务的每次尝试复用同一份：
+ * 发送时请求体直接包装为 Netty ByteBuf 写出，不再逐次解析 headers_json、复制请求体。实例不可变
+ * 
+ * @author Notification System
+ */
+public final class PreparedPayload {
+    
+    private static final String[] NO_HEADERS = new String[0];
+    
+    /**
+     * name, value, name, value ...
+     */
+    private final String[] headers;
+    private final byte[] body;
+    private final boolean hasContentType;
+    
+    private PreparedPayload(String[] headers, byte[] body) {
+        this.headers = headers;
+        this.body = body;
+        boolean contentType = false;
+        for (int i = 0; i < headers.length; i += 2) {
+            contentType |= HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(headers[i]);
+        }
+        this.hasContentType = contentType;
+    }
+    
+    /**
+     * 从任务中存储的 JSON 构建
+     */
+    @SuppressWarnings("unchecked")
+    public static PreparedPayload of(String headersJson, String body) {
+        return of((Map<String, Object>) JsonUtil.fromJson(headersJson, Map.class), body);
+    }
+    
+    /**
+     * 从请求头和请求体构建
+     */
+    public static PreparedPayload of(Map<String, ?> headers, String body) {
+        String[] flat = NO_HEADERS;
+        if (headers != null && !headers.isEmpty()) {
+            flat = new String[headers.size() * 2];
+            int i = 0;
+            for (Map.Entry<String, ?> header : headers.entrySet()) {
+                flat[i++] = header.getKey();
+                flat[i++] = header.getValue() == null ? "" : String.valueOf(header.getValue());
+            }
+        }
+        byte[] bytes = body == null || body.isEmpty() ? null : body.getBytes(StandardCharsets.UTF_8);
+        return new PreparedPayload(flat, bytes);
+    }
+    
+    /**
+     * 写入请求头，未指定 Content-Type 时使用 application/json
+     */
+    public void applyHeaders(HttpHeaders target) {
+        for (int i = 0; i < headers.length; i += 2) {
+            target.add(headers[i], headers[i + 1]);
+        }
+        if (!hasContentType) {
+            target.set(HttpHeaders.CONTENT_TYPE, "application/json");
+        }
+    }
+    
+    /**
+     * UTF-8 请求体，没有请求体时为 null（调用方不得修改）
+     */
+    public byte[] getBody() {
+        return body;
+    }
+    
+    /**
+     * 估算占用的字节数
+     */
+    public int weight() {
+        int weight = body == null ? 0 : body.length;
+        for (String value : headers) {
+            weight += 2 * value.length();
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,63 @@
+package com.notification.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.config.NotificationProperties;
+import com.notification.entity.NotificationTask;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 请求载荷缓存
+ * 
+ * 任务的请求头和请求体在创建后不再变化，第一次投递时预处理为 {@link PreparedPayload}，
+ * 之后在本节点上的重试直接复用；任务到达终态后移除。缓存按估算字节数限制总大小，
+ * 未命中（过期、重试落到其他节点）时从任务重新构建，指标以 cache=preparedPayload 导出
+ * 
+ * @author Notification System
+ */
+@Component
+public class PreparedPayloadCache {
+    
+    /**
+     * 每个条目除请求头、请求体外的固定开销估算（字节）
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+    
+    private final boolean enabled;
+    private final Cache<String, PreparedPayload> cache;
+    
+    @Autowired
+    public PreparedPayloadCache(NotificationProperties properties, MeterRegistry meterRegistry) {
+        NotificationProperties.PayloadCacheConfig config = properties.getPayloadCache();
+        this.enabled = config.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(config.getMaximumWeightBytes())
+                .weigher((String id, PreparedPayload payload) -> ENTRY_OVERHEAD_BYTES + payload.weight())
+                .expireAfterAccess(Duration.ofMillis(config.getExpireAfterAccessMs()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "preparedPayload");
+    }
+    
+    /**
+     * 获取任务的预处理载荷，未缓存时构建并缓存
+     */
+    public PreparedPayload get(NotificationTask task) {
+        if (!enabled) {
+            return PreparedPayload.of(task.getHeadersJson(), task.getBodyJson());
+        }
+        return cache.get(task.getId(), id -> PreparedPayload.of(task.getHeadersJson(), task.getBodyJson()));
+    }
+    
+    /**
+     * 任务不再投递时移除
+     */
+    public void invalidate(String notificationId) {
+        cache.invalidate(notificationId);
+    }
+}
@@ -0,0 +1,137 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 非阻塞投递执行器（reactive 模式）
+ * 
+ * 用全局在途上限代替线程池大小来约束并发：提交时如果在途投递数未达上限立即开始，
+ * 否则进入等待队列，由完成的投递释放名额后接力启动。整个过程不阻塞提交线程，
+ * 供应商调用全部运行在 WebClient 的少量事件循环线程上。
+ * 等待队列有上限，排满时返回以 {@link RejectedExecutionException} 失败的 Future，调用方稍后重投。
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+public class ReactiveDispatchExecutor {
+    
+    private final NotificationDispatcher dispatcher;
+    private final int maxInFlight;
+    private final int maxWaiting;
+    
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    
+    /**
+     * 排队数单独计数，ConcurrentLinkedQueue.size() 需要遍历
+     */
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    
+    @Autowired
+    public ReactiveDispatchExecutor(@Lazy NotificationDispatcher dispatcher, NotificationProperties properties) {
+        this.dispatcher = dispatcher;
+        this.maxInFlight = Math.max(1, properties.getDispatch().getMaxInFlight());
+        this.maxWaiting = Math.max(0, properties.getDispatch().getMaxWaiting());
+    }
+    
+    /**
+     * 提交一次投递，返回的 Future 在结果落库后完成
+     * 
+     * @return 等待队列已满时返回以 {@link RejectedExecutionException} 失败的 Future，调用方应稍后重投
+     */
+    public CompletableFuture<Void> submit(String notificationId) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Runnable start = () -> dispatcher.dispatchAsync(notificationId)
+                .subscribeOn(Schedulers.boundedElastic())
+                .doFinally(signal -> release())
+                .subscribe(
+                        null,
+                        e -> {
+                            log.error("Reactive dispatch failed: notificationId={}", notificationId, e);
+                            result.completeExceptionally(e);
+                        },
+                        () -> result.complete(null));
+        
+        if (tryAcquire()) {
+            start.run();
+            return result;
+        }
+        if (waitingCount.incrementAndGet() > maxWaiting) {
+            waitingCount.decrementAndGet();
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "Reactive dispatch queue full: maxWaiting=" + maxWaiting));
+        }
+        waiting.offer(start);
+        drain();
+        return result;
+    }
+    
+    /**
+     * 当前在途投递数
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    /**
+     * 当前排队等待的投递数
+     */
+    public int getWaiting() {
+        return waitingCount.get();
+    }
+    
+    /**
+     * 因等待队列已满被拒绝的提交数
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+    
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+    
+    /**
+     * 在有空闲名额时启动排队中的投递
+     */
+    private void drain() {
+        while (!waiting.isEmpty() && tryAcquire()) {
+            Runnable next = waiting.poll();
+            if (next == null) {
+                // 队列已被其他线程取空，归还名额后重新检查，避免与并发入队的任务错过
+                inFlight.decrementAndGet();
+                continue;
+            }
+            waitingCount.decrementAndGet();
+            next.run();
+        }
+    }
+}
@@ -13,6 +13,13 @@ import org.springframework.stereotype.Service;
 @Service
 public class RetryPolicyService {
     
+    /**
+     * RocketMQ 默认延迟级别对应的秒数（下标 = 级别 - 1）
+     */
+    private static final int[] DELAY_LEVEL_SECONDS = {
+            1, 5, 10, 30, 60, 120, 180, 240, 300, 360, 420, 480, 540, 600, 1200, 1800, 3600, 7200
+    };
+    
     /**
      * 判断是否应该重试
      */
@@ -57,4 +64,14 @@ public class RetryPolicyService {
         if (delaySeconds <= 3600) return 17;
         return 18; // > 1h
     }
+    
+    /**
+     * RocketMQ 延迟级别对应的实际延迟秒数
+     */
+    public int getDelayLevelSeconds(int delayLevel) {
+        if (delayLevel < 1 || delayLevel > DELAY_LEVEL_SECONDS.length) {
+            return 60;
+        }
+        return DELAY_LEVEL_SECONDS[delayLevel - 1];
+    }
 }
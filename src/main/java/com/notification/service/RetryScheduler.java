@@ -0,0 +1,30 @@
+package com.notification.service;
+
+import com.notification.entity.NotificationTask;
+
+/**
+ * 重试调度器
+ * 
+ * 投递失败需要重试时，先按 effectiveDelayMs 计算 next_attempt_at 并随结果一起提交，
+ * 提交成功后再调用 schedule 安排重试
+ * 
+ * @author Notification System
+ */
+public interface RetryScheduler {
+    
+    /**
+     * 实际生效的延迟
+     * 
+     * @param requestedDelayMs 重试策略计算出的延迟（毫秒）
+     * @return 调度方式实际能达到的延迟（毫秒），用于写入 next_attempt_at
+     */
+    long effectiveDelayMs(long requestedDelayMs);
+    
+    /**
+     * 安排重试（task.nextAttemptAt 已提交）
+     * 
+     * @param task 已提交 next_attempt_at 的任务（RETRYING，或因熔断推迟的 PENDING/RETRYING 任务）
+     * @param requestedDelayMs 重试策略计算出的延迟（毫秒）
+     */
+    void schedule(NotificationTask task, long requestedDelayMs);
+}
@@ -0,0 +1,257 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import com.notification.dto.NotificationStatusResponse;
+import com.notification.dto.StatusChangeMessage;
+import com.notification.entity.enums.ErrorCode;
+import com.notification.entity.enums.TaskStatus;
+import com.notification.mq.StatusChangeBroadcaster;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 状态变更订阅表
+ * 
+ * 按 notificationId 登记订阅者（SSE 连接、挂起的长轮询），投递方提交状态后调用 {@link #publish}：
+ * 本节点的订阅者由少量推送线程通知，rocketmq 模式下同时广播给其他节点，由各节点的 {@link #deliver} 通知本地订阅者。
+ * 熔断、限流推迟只改下次尝试时间和原因，数量随过载放大，只通知本节点订阅者，不广播；
+ * 其他节点上的订阅者在下一次状态推进时收到变更，长轮询超时或 SSE 重连时读到最新原因。
+ * 订阅只是一个回调，不占用线程；等待和超时由 Servlet 异步请求处理
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+public class StatusSubscriptionRegistry {
+    
+    private final NotificationProperties.StatusPushConfig config;
+    private final ClusterMembership clusterMembership;
+    private final ObjectProvider<StatusChangeBroadcaster> broadcaster;
+    
+    /**
+     * notificationId -> 订阅者
+     */
+    private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    
+    private final ThreadPoolExecutor pushExecutor;
+    private final Counter rejected;
+    private final Counter dropped;
+    
+    @Autowired
+    public StatusSubscriptionRegistry(NotificationProperties properties, ClusterMembership clusterMembership,
+                                      ObjectProvider<StatusChangeBroadcaster> broadcaster, MeterRegistry meterRegistry) {
+        this.config = properties.getStatusPush();
+        this.clusterMembership = clusterMembership;
+        this.broadcaster = broadcaster;
+        
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.pushExecutor = new ThreadPoolExecutor(config.getPushThreads(), config.getPushThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getPushQueueCapacity()), runnable -> {
+                    Thread thread = new Thread(runnable, "status-push-" + threadIndex.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        
+        Gauge.builder("notification.status_push.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Status change subscribers held on this node")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("notification.status_push.rejected")
+                .description("Subscriptions refused because the node reached max-subscribers")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("notification.status_push.dropped")
+                .description("Status changes not pushed because the push queue was full")
+                .register(meterRegistry);
+    }
+    
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+    
+    /**
+     * 订阅一个通知的状态变更
+     * 
+     * @param listener 变更回调，在推送线程上执行，不应阻塞
+     * @return 订阅句柄，连接结束时必须关闭
+     * @throws RejectedExecutionException 本节点订阅数已达上限
+     */
+    public Subscription subscribe(String notificationId, Consumer<NotificationStatusResponse> listener) {
+        if (subscriberCount.incrementAndGet() > config.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            rejected.increment();
+            throw new RejectedExecutionException("Too many status subscribers on this node");
+        }
+        Subscription subscription = new Subscription(notificationId, listener);
+        subscriptions.compute(notificationId, (id, set) -> {
+            Set<Subscription> subscribers = set == null ? ConcurrentHashMap.newKeySet() : set;
+            subscribers.add(subscription);
+            return subscribers;
+        });
+        return subscription;
+    }
+    
+    /**
+     * 发布本节点提交的状态变更
+     */
+    public void publish(NotificationStatusResponse status) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        deliver(status);
+        if (isDeferral(status)) {
+            return;
+        }
+        StatusChangeBroadcaster sender = broadcaster.getIfAvailable();
+        if (sender != null && config.isBroadcast() && clusterMembership.getLiveNodeCount() > 1) {
+            sender.broadcast(StatusChangeMessage.builder()
+                    .originNode(clusterMembership.getNodeName())
+                    .status(status)
+                    .build());
+        }
+    }
+    
+    /**
+     * 接收其他节点广播的状态变更
+     */
+    public void onBroadcast(StatusChangeMessage message) {
+        if (message.getStatus() == null || Objects.equals(message.getOriginNode(), clusterMembership.getNodeName())) {
+            return;
+        }
+        deliver(message.getStatus());
+    }
+    
+    /**
+     * 通知本节点的订阅者（没有订阅者时不占用推送线程）
+     */
+    public void deliver(NotificationStatusResponse status) {
+        Set<Subscription> subscribers = subscriptions.get(status.getNotificationId());
+        if (subscribers == null) {
+            return;
+        }
+        try {
+            pushExecutor.execute(() -> {
+                for (Subscription subscription : subscribers) {
+                    subscription.push(status);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+        }
+    }
+    
+    /**
+     * 本节点当前订阅数
+     */
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        pushExecutor.shutdownNow();
+    }
+    
+    /**
+     * 是否为终态
+     */
+    public static boolean isTerminal(NotificationStatusResponse status) {
+        return TaskStatus.SUCCESS.getCode().equals(status.getStatus())
+                || TaskStatus.FAILED.getCode().equals(status.getStatus());
+    }
+    
+    /**
+     * 是否为推迟（熔断打开、限流）：状态和重试次数不变，只记录推迟原因
+     */
+    public static boolean isDeferral(NotificationStatusResponse status) {
+        return !isTerminal(status) && (ErrorCode.RATE_LIMITED.getCode().equals(status.getLastErrorCode())
+                || ErrorCode.CIRCUIT_OPEN.getCode().equals(status.getLastErrorCode()));
+    }
+    
+    /**
+     * next 是否比 previous 更新
+     * 
+     * 状态只会沿 PENDING -> RETRYING(retryCount 递增) -> SUCCESS / FAILED 前进，
+     * 因此用 (是否终态, retryCount) 排序，不依赖数据库时间精度；同一阶段内错误信息变化（如推迟原因）也视为更新
+     */
+    public static boolean supersedes(NotificationStatusResponse next, NotificationStatusResponse previous) {
+        if (previous == null) {
+            return true;
+        }
+        int byProgress = Long.compare(progress(next), progress(previous));
+        if (byProgress != 0) {
+            return byProgress > 0;
+        }
+        return !isTerminal(previous) && (!Objects.equals(next.getStatus(), previous.getStatus())
+                || !Objects.equals(next.getLastErrorCode(), previous.getLastErrorCode()));
+    }
+    
+    private static long progress(NotificationStatusResponse status) {
+        if (isTerminal(status)) {
+            return Long.MAX_VALUE;
+        }
+        return status.getRetryCount() == null ? 0 : status.getRetryCount();
+    }
+    
+    private void remove(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.notificationId, (id, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+        subscriberCount.decrementAndGet();
+    }
+    
+    /**
+     * 订阅句柄
+     */
+    public final class Subscription implements AutoCloseable {
+        
+        private final String notificationId;
+        private final Consumer<NotificationStatusResponse> listener;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        
+        private Subscription(String notificationId, Consumer<NotificationStatusResponse> listener) {
+            this.notificationId = notificationId;
+            this.listener = listener;
+        }
+        
+        private void push(NotificationStatusResponse status) {
+            if (closed.get()) {
+                return;
+            }
+            try {
+                listener.accept(status);
+            } catch (Exception e) {
+                log.debug("Status subscriber failed, closing: notificationId={}", notificationId, e);
+                close();
+            }
+        }
+        
+        /**
+         * 取消订阅（可重复调用）
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                remove(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import com.notification.entity.NotificationTask;
+import com.notification.entity.enums.TaskStatus;
+import com.notification.mapper.NotificationTaskMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 卡住任务补偿扫描
+ * 
+ * MQ 消息丢失（发送失败、延迟消息丢失、节点在 Mock 延迟期间宕机等）会让任务一直停留在 PENDING/RETRYING。
+ * 本组件定时按 (status, updated_at, id) 键集分页扫描超过阈值仍无进展的任务，每页固定条数，不会加载全部积压；
+ * 扫描条件中按 ID 分片，各节点只读取并处理属于自己的任务；条件刷新 updated_at 成功后通过发件箱重新入队。
+ * 成员变化期间分片可能短暂重叠或遗漏，条件刷新保证同一任务只入队一次，遗漏的任务在下一轮补上。
+ * 数据库轮询模式下不丢消息，任务按 next_attempt_at 和租约到期自然被重新领取，不需要扫描
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+public class StuckTaskSweeper {
+    
+    private final NotificationTaskMapper taskMapper;
+    private final OutboxRelay outboxRelay;
+    private final ClusterMembership clusterMembership;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationProperties.SweeperConfig config;
+    private final boolean dbQueue;
+    
+    private final Counter recoveredPending;
+    private final Counter recoveredRetrying;
+    private final AtomicInteger lastRunRecovered = new AtomicInteger();
+    
+    @Autowired
+    public StuckTaskSweeper(
+            NotificationTaskMapper taskMapper,
+            OutboxRelay outboxRelay,
+            ClusterMembership clusterMembership,
+            TransactionTemplate transactionTemplate,
+            NotificationProperties properties,
+            MeterRegistry meterRegistry) {
+        this.taskMapper = taskMapper;
+        this.outboxRelay = outboxRelay;
+        this.clusterMembership = clusterMembership;
+        this.transactionTemplate = transactionTemplate;
+        this.config = properties.getSweeper();
+        this.dbQueue = properties.getMq().isDb();
+        
+        this.recoveredPending = Counter.builder("notification.sweeper.recovered")
+                .description("Stuck tasks re-enqueued by the sweeper")
+                .tag("status", TaskStatus.PENDING.getCode())
+                .register(meterRegistry);
+        this.recoveredRetrying = Counter.builder("notification.sweeper.recovered")
+                .description("Stuck tasks re-enqueued by the sweeper")
+                .tag("status", TaskStatus.RETRYING.getCode())
+                .register(meterRegistry);
+        Gauge.builder("notification.sweeper.last_run_recovered", lastRunRecovered, AtomicInteger::get)
+                .description("Tasks re-enqueued by the most recent sweep on this node")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 执行一次补偿扫描
+     * 
+     * @return 本次重新入队的任务数
+     */
+    @Scheduled(fixedDelayString = "${notification.sweeper.interval-ms:60000}",
+            initialDelayString = "${notification.sweeper.interval-ms:60000}")
+    public int sweep() {
+        if (!config.isEnabled() || dbQueue) {
+            return 0;
+        }
+        ClusterMembership.ShardView shard = clusterMembership.getShardView();
+        int pending = 0;
+        int retrying = 0;
+        try {
+            pending = sweepStatus(TaskStatus.PENDING.getCode(), config.getPendingStaleMs(), shard);
+            retrying = sweepStatus(TaskStatus.RETRYING.getCode(), config.getRetryingStaleMs(), shard);
+        } catch (Exception e) {
+            log.error("Stuck task sweep failed", e);
+        }
+        recoveredPending.increment(pending);
+        recoveredRetrying.increment(retrying);
+        lastRunRecovered.set(pending + retrying);
+        if (pending + retrying > 0) {
+            log.info("Stuck task sweep recovered tasks: pending={}, retrying={}, shardIndex={}, liveNodes={}", 
+                    pending, retrying, shard.index(), shard.count());
+        }
+        return pending + retrying;
+    }
+    
+    /**
+     * 键集分页扫描单个状态
+     */
+    private int sweepStatus(String status, long staleMs, ClusterMembership.ShardView shard) {
+        LocalDateTime before = LocalDateTime.now().minusNanos(staleMs * 1_000_000L);
+        LocalDateTime afterUpdatedAt = null;
+        String afterId = null;
+        int recovered = 0;
+        
+        for (int chunk = 0; chunk < config.getMaxChunksPerRun(); chunk++) {
+            List<NotificationTask> page = taskMapper.selectStaleChunk(
+                    status, before, afterUpdatedAt, afterId, shard.index(), shard.count(), config.getChunkSize());
+            if (page.isEmpty()) {
+                break;
+            }
+            
+            List<String> ids = new ArrayList<>(page.size());
+            for (NotificationTask task : page) {
+                ids.add(task.getId());
+            }
+            recovered += recover(ids, status, before);
+            
+            NotificationTask last = page.get(page.size() - 1);
+            afterUpdatedAt = last.getUpdatedAt();
+            afterId = last.getId();
+            if (page.size() < config.getChunkSize()) {
+                break;
+            }
+        }
+        return recovered;
+    }
+    
+    /**
+     * 条件刷新后重新入队（同一事务写入发件箱）
+     */
+    private int recover(List<String> ids, String status, LocalDateTime before) {
+        Integer count = transactionTemplate.execute(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<String> touched = new ArrayList<>();
+            for (String id : ids) {
+                if (taskMapper.touchStale(id, status, before, now) == 1) {
+                    touched.add(id);
+                }
+            }
+            if (touched.isEmpty()) {
+                return 0;
+            }
+            List<NotificationTask> tasks = taskMapper.selectBatchIds(touched);
+            outboxRelay.enqueue(tasks);
+            tasks.forEach(task -> log.warn("Re-enqueued stuck task: notificationId={}, status={}, retryCount={}", 
+                    task.getId(), task.getStatus(), task.getRetryCount()));
+            return tasks.size();
+        });
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,210 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import com.notification.entity.NotificationTask;
+import com.notification.entity.enums.TaskStatus;
+import com.notification.mapper.NotificationAttemptMapper;
+import com.notification.mapper.NotificationTaskMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 历史任务清理
+ * 
+ * 按 (created_at, id) 键集分页沿 idx_created_at 扫描超过保留期的 SUCCESS / FAILED 任务，每批只读取 id，
+ * 在一个短事务中先删除其尝试记录再按主键删除任务；批次之间按 maxRowsPerSecond 限速，单次运行有时间上限。
+ * 清理在独立线程上执行，不占用调度线程；集群中只由分片序号为 0 的节点执行，删除本身是幂等的
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+public class TaskRetentionPurger {
+    
+    private final NotificationTaskMapper taskMapper;
+    private final NotificationAttemptMapper attemptMapper;
+    private final ClusterMembership clusterMembership;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationProperties.RetentionConfig config;
+    private final boolean partitioned;
+    
+    private final ExecutorService purgeThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "retention-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopping;
+    
+    private final Counter deletedTasks;
+    private final Counter deletedAttempts;
+    private final AtomicLong lastRunDeleted = new AtomicLong();
+    
+    /**
+     * 当前扫描位置的创建时间（epoch 秒），未运行时为 0
+     */
+    private final AtomicLong cursorEpochSeconds = new AtomicLong();
+    
+    @Autowired
+    public TaskRetentionPurger(
+            NotificationTaskMapper taskMapper,
+            NotificationAttemptMapper attemptMapper,
+            ClusterMembership clusterMembership,
+            TransactionTemplate transactionTemplate,
+            NotificationProperties properties,
+            MeterRegistry meterRegistry) {
+        this.taskMapper = taskMapper;
+        this.attemptMapper = attemptMapper;
+        this.clusterMembership = clusterMembership;
+        this.transactionTemplate = transactionTemplate;
+        this.config = properties.getRetention();
+        this.partitioned = properties.getPartition().isEnabled();
+        
+        this.deletedTasks = Counter.builder("notification.retention.deleted")
+                .description("Rows deleted by the retention purge")
+                .tag("table", "notification_task")
+                .register(meterRegistry);
+        this.deletedAttempts = Counter.builder("notification.retention.deleted")
+                .description("Rows deleted by the retention purge")
+                .tag("table", "notification_attempt")
+                .register(meterRegistry);
+        Gauge.builder("notification.retention.running", running, r -> r.get() ? 1 : 0)
+                .description("Whether a retention purge is running on this node")
+                .register(meterRegistry);
+        Gauge.builder("notification.retention.last_run_deleted", lastRunDeleted, AtomicLong::get)
+                .description("Tasks deleted by the most recent retention purge on this node")
+                .register(meterRegistry);
+        Gauge.builder("notification.retention.cursor_created_at", cursorEpochSeconds, AtomicLong::get)
+                .description("created_at (epoch seconds) of the last task examined by the running purge")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 定时触发清理（在独立线程上执行，上一次未结束时跳过）
+     */
+    @Scheduled(fixedDelayString = "${notification.retention.interval-ms:3600000}",
+            initialDelayString = "${notification.retention.interval-ms:3600000}")
+    public void trigger() {
+        // 分区模式下过期数据按分区整体处理
+        if (!config.isEnabled() || partitioned || clusterMembership.getShardIndex() != 0) {
+            return;
+        }
+        if (running.compareAndSet(false, true)) {
+            try {
+                purgeThread.execute(() -> {
+                    try {
+                        purge();
+                    } finally {
+                        running.set(false);
+                    }
+                });
+            } catch (Exception e) {
+                running.set(false);
+                log.warn("Retention purge is not accepting work", e);
+            }
+        }
+    }
+    
+    /**
+     * 执行一次清理
+     * 
+     * @return 本次删除的任务数
+     */
+    public long purge() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getMaxRunMs());
+        LocalDateTime now = LocalDateTime.now();
+        long deleted = 0;
+        try {
+            deleted += purgeStatus(TaskStatus.SUCCESS.getCode(), now.minusDays(config.getSuccessRetentionDays()), deadline);
+            deleted += purgeStatus(TaskStatus.FAILED.getCode(), now.minusDays(config.getFailedRetentionDays()), deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Retention purge failed", e);
+        } finally {
+            cursorEpochSeconds.set(0);
+        }
+        lastRunDeleted.set(deleted);
+        if (deleted > 0) {
+            log.info("Retention purge deleted tasks: deleted={}", deleted);
+        }
+        return deleted;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        purgeThread.shutdownNow();
+    }
+    
+    /**
+     * 键集分页清理单个状态
+     */
+    private long purgeStatus(String status, LocalDateTime before, long deadline) throws InterruptedException {
+        long nanosPerRow = TimeUnit.SECONDS.toNanos(1) / Math.max(1, config.getMaxRowsPerSecond());
+        LocalDateTime afterCreatedAt = null;
+        String afterId = null;
+        long deleted = 0;
+        
+        while (!stopping && System.nanoTime() < deadline) {
+            long chunkStart = System.nanoTime();
+            List<NotificationTask> page = taskMapper.selectExpiredChunk(
+                    status, before, afterCreatedAt, afterId, config.getChunkSize());
+            if (page.isEmpty()) {
+                break;
+            }
+            
+            List<String> ids = page.stream().map(NotificationTask::getId).collect(Collectors.toList());
+            deleted += deleteChunk(ids, status);
+            
+            NotificationTask last = page.get(page.size() - 1);
+            afterCreatedAt = last.getCreatedAt();
+            afterId = last.getId();
+            cursorEpochSeconds.set(afterCreatedAt.atZone(ZoneId.systemDefault()).toEpochSecond());
+            if (page.size() < config.getChunkSize()) {
+                break;
+            }
+            
+            // 限速：本批耗时不足 行数 / 速率 时补足
+            long pauseNanos = nanosPerRow * ids.size() - (System.nanoTime() - chunkStart);
+            if (pauseNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(pauseNanos);
+            }
+        }
+        return deleted;
+    }
+    
+    /**
+     * 短事务中删除一批任务及其尝试记录
+     */
+    private int deleteChunk(List<String> ids, String status) {
+        int[] counts = transactionTemplate.execute(tx -> new int[] {
+                attemptMapper.deleteByNotificationIds(ids),
+                taskMapper.deleteByIdsAndStatus(ids, status)
+        });
+        if (counts == null) {
+            return 0;
+        }
+        deletedAttempts.increment(counts[0]);
+        deletedTasks.increment(counts[1]);
+        return counts[1];
+    }
+}
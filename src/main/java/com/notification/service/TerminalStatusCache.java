@@ -0,0 +1,97 @@
+package com.notification.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.config.NotificationProperties;
+import com.notification.dto.NotificationStatusResponse;
+import com.notification.entity.NotificationTask;
+import com.notification.entity.enums.TaskStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 终态任务状态缓存
+ * 
+ * SUCCESS / FAILED 任务不会再变化，其状态查询结果缓存在本地：投递方提交终态后写入，
+ * 其他节点在第一次查询到终态时写入。缓存按估算字节数限制总大小，命中率等指标以 cache=terminalStatus 导出
+ * 
+ * @author Notification System
+ */
+@Component
+public class TerminalStatusCache {
+    
+    /**
+     * 每个条目除字符串外的固定开销估算（字节）
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+    
+    private final boolean enabled;
+    private final Cache<String, NotificationStatusResponse> cache;
+    
+    @Autowired
+    public TerminalStatusCache(NotificationProperties properties, MeterRegistry meterRegistry) {
+        NotificationProperties.StatusCacheConfig config = properties.getStatusCache();
+        this.enabled = config.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(config.getMaximumWeightBytes())
+                .weigher((String id, NotificationStatusResponse response) -> weigh(response))
+                .expireAfterWrite(Duration.ofMillis(config.getExpireAfterWriteMs()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "terminalStatus");
+    }
+    
+    /**
+     * 查询缓存，未命中返回 null
+     */
+    public NotificationStatusResponse get(String notificationId) {
+        return enabled ? cache.getIfPresent(notificationId) : null;
+    }
+    
+    /**
+     * 任务处于终态时写入缓存（投递方提交终态后，或查询到终态时）
+     */
+    public void putIfTerminal(NotificationStatusResponse response) {
+        if (enabled && isTerminal(response.getStatus())) {
+            cache.put(response.getNotificationId(), response);
+        }
+    }
+    
+    /**
+     * 任务转换为状态查询响应
+     */
+    public static NotificationStatusResponse toResponse(NotificationTask task) {
+        return NotificationStatusResponse.builder()
+                .notificationId(task.getId())
+                .vendorCode(task.getVendorCode())
+                .targetUrl(task.getTargetUrl())
+                .httpMethod(task.getHttpMethod())
+                .status(task.getStatus())
+                .retryCount(task.getRetryCount())
+                .maxRetry(task.getMaxRetry())
+                .lastErrorCode(task.getLastErrorCode())
+                .lastErrorMessage(task.getLastErrorMessage())
+                .createdAt(task.getCreatedAt())
+                .updatedAt(task.getUpdatedAt())
+                .lastAttemptAt(task.getLastAttemptAt())
+                .build();
+    }
+    
+    private static boolean isTerminal(String status) {
+        return TaskStatus.SUCCESS.getCode().equals(status) || TaskStatus.FAILED.getCode().equals(status);
+    }
+    
+    private static int weigh(NotificationStatusResponse response) {
+        return ENTRY_OVERHEAD_BYTES + 2 * (length(response.getNotificationId()) + length(response.getVendorCode())
+                + length(response.getTargetUrl()) + length(response.getHttpMethod()) + length(response.getStatus())
+                + length(response.getLastErrorCode()) + length(response.getLastErrorMessage()));
+    }
+    
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
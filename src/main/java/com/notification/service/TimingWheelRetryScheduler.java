@@ -0,0 +1,174 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import com.notification.dto.NotificationMessage;
+import com.notification.entity.NotificationTask;
+import com.notification.mapper.NotificationTaskMapper;
+import com.notification.mq.MockRocketMQProducer;
+import com.notification.mq.RocketMQProducer;
+import com.notification.util.HierarchicalTimingWheel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于进程内分层时间轮的重试调度
+ * 
+ * 重试在 next_attempt_at 精确触发（误差为一个刻度），没有延迟级别的取整与 2 小时上限；
+ * 到期后发送普通投递消息，由消费者按正常流程投递。
+ * 时间轮只在内存中，启动时按 next_attempt_at 时间段分页扫描数据库恢复本节点分片内的 RETRYING 任务；
+ * 运行期间节点宕机丢失的重试由 StuckTaskSweeper 补偿
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${notification.mq.mode:mock}' != 'db' and '${notification.retry.scheduler:mq-delay-level}' == 'timing-wheel'")
+public class TimingWheelRetryScheduler implements RetryScheduler {
+    
+    private final NotificationTaskMapper taskMapper;
+    private final ClusterMembership clusterMembership;
+    private final NotificationProperties.RetryConfig config;
+    private final HierarchicalTimingWheel<String> wheel;
+    private final ExecutorService fireExecutor;
+    
+    @Autowired(required = false)
+    private RocketMQProducer rocketMQProducer;
+    
+    @Autowired(required = false)
+    private MockRocketMQProducer mockRocketMQProducer;
+    
+    @Autowired
+    public TimingWheelRetryScheduler(
+            NotificationTaskMapper taskMapper,
+            ClusterMembership clusterMembership,
+            NotificationProperties properties,
+            MeterRegistry meterRegistry) {
+        this.taskMapper = taskMapper;
+        this.clusterMembership = clusterMembership;
+        this.config = properties.getRetry();
+        this.wheel = new HierarchicalTimingWheel<>("retry-timing-wheel",
+                config.getWheelTickMs(), config.getWheelSize(), config.getWheelLevels(), this::fire);
+        
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.fireExecutor = Executors.newFixedThreadPool(Math.max(1, config.getFireThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "retry-fire-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        Gauge.builder("notification.retry.pending", wheel, HierarchicalTimingWheel::size)
+                .description("Retries waiting in the in-process timing wheel")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public long effectiveDelayMs(long requestedDelayMs) {
+        return requestedDelayMs;
+    }
+    
+    @Override
+    public void schedule(NotificationTask task, long requestedDelayMs) {
+        wheel.schedule(task.getId(), toEpochMs(task.getNextAttemptAt()));
+        log.info("Scheduled retry for notification (timing wheel): notificationId={}, retryCount={}, nextAttemptAt={}", 
+                task.getId(), task.getRetryCount(), task.getNextAttemptAt());
+    }
+    
+    /**
+     * 启动驱动线程，并从数据库恢复本节点负责的重试任务
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        wheel.start();
+        try {
+            rehydrate();
+        } catch (Exception e) {
+            log.error("Failed to rehydrate retry timing wheel, stuck retries will be recovered by the sweeper", e);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        wheel.stop();
+        fireExecutor.shutdown();
+    }
+    
+    /**
+     * 按 next_attempt_at 时间段分页加载 RETRYING 任务
+     */
+    private void rehydrate() {
+        // 先写入心跳，保证分片视图是最新的
+        clusterMembership.heartbeat();
+        
+        LocalDateTime min = taskMapper.selectMinNextAttemptAt();
+        LocalDateTime max = taskMapper.selectMaxNextAttemptAt();
+        if (min == null || max == null) {
+            return;
+        }
+        
+        long loaded = 0;
+        long bucketNanos = config.getRehydrateBucketMs() * 1_000_000L;
+        for (LocalDateTime from = min; !from.isAfter(max); from = from.plusNanos(bucketNanos)) {
+            LocalDateTime to = from.plusNanos(bucketNanos);
+            LocalDateTime afterNextAttemptAt = null;
+            String afterId = null;
+            while (true) {
+                List<NotificationTask> page = taskMapper.selectRetryDueChunk(
+                        from, to, afterNextAttemptAt, afterId, config.getRehydrateChunkSize());
+                for (NotificationTask task : page) {
+                    if (clusterMembership.owns(task.getId())) {
+                        wheel.schedule(task.getId(), toEpochMs(task.getNextAttemptAt()));
+                        loaded++;
+                    }
+                }
+                if (page.size() < config.getRehydrateChunkSize()) {
+                    break;
+                }
+                NotificationTask last = page.get(page.size() - 1);
+                afterNextAttemptAt = last.getNextAttemptAt();
+                afterId = last.getId();
+            }
+        }
+        log.info("Rehydrated retry timing wheel: loaded={}, from={}, to={}", loaded, min, max);
+    }
+    
+    /**
+     * 到期：在独立线程上发送普通投递消息，不阻塞时间轮驱动线程
+     */
+    private void fire(String notificationId) {
+        fireExecutor.execute(() -> {
+            NotificationMessage message = NotificationMessage.builder()
+                    .notificationId(notificationId)
+                    .build();
+            try {
+                if (rocketMQProducer != null) {
+                    rocketMQProducer.sendMessage(message);
+                } else if (mockRocketMQProducer != null) {
+                    mockRocketMQProducer.sendMessage(message);
+                } else {
+                    log.warn("No MQ producer available, due retry will not be dispatched: notificationId={}", notificationId);
+                }
+            } catch (Exception e) {
+                log.error("Failed to enqueue due retry, it will be recovered by the sweeper: notificationId={}", 
+                        notificationId, e);
+            }
+        });
+    }
+    
+    private static long toEpochMs(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,23 @@
+package com.notification.service;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 供应商配置变更事件
+ * 
+ * @author Notification System
+ */
+@Getter
+public class VendorConfigChangedEvent extends ApplicationEvent {
+    
+    /**
+     * 变更的供应商编码，为空表示全部供应商
+     */
+    private final String vendorCode;
+    
+    public VendorConfigChangedEvent(Object source, String vendorCode) {
+        super(source);
+        this.vendorCode = vendorCode;
+    }
+}
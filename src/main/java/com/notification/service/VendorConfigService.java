@@ -1,45 +1,162 @@
 package com.notification.service;
 
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.notification.config.NotificationProperties;
 import com.notification.entity.VendorConfig;
 import com.notification.mapper.VendorConfigMapper;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 
 /**
  * 供应商配置服务
- * 
+ *
+ * 配置读取走本地缓存：容量有界，写入后定期异步刷新，不存在或未启用的编码同样缓存（负缓存）。
+ * 各节点定时比对 vendor_config 的行数与最大 updated_at，发现变化即清空缓存，
+ * 修改配置后无需重启即可在数秒内全集群生效
+ *
  * @author Notification System
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class VendorConfigService {
-    
+
     private final VendorConfigMapper vendorConfigMapper;
-    
+    private final ApplicationEventPublisher eventPublisher;
+    private final LoadingCache<String, Optional<VendorConfig>> cache;
+
+    /**
+     * 上次检查时的配置表版本标记
+     */
+    private volatile String lastVersion;
+
+    @Autowired
+    public VendorConfigService(
+            VendorConfigMapper vendorConfigMapper,
+            ApplicationEventPublisher eventPublisher,
+            NotificationProperties properties,
+            MeterRegistry meterRegistry) {
+        this.vendorConfigMapper = vendorConfigMapper;
+        this.eventPublisher = eventPublisher;
+
+        NotificationProperties.VendorCacheConfig cacheConfig = properties.getVendorCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheConfig.getMaximumSize())
+                .refreshAfterWrite(Duration.ofMillis(cacheConfig.getRefreshAfterWriteMs()))
+                .expireAfterWrite(Duration.ofMillis(cacheConfig.getExpireAfterWriteMs()))
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Optional<VendorConfig> load(String vendorCode) {
+                        Optional<VendorConfig> config = loadConfig(vendorCode);
+                        if (config.isEmpty()) {
+                            log.warn("Vendor config not found or disabled: {}", vendorCode);
+                        }
+                        return config;
+                    }
+
+                    @Override
+                    public Optional<VendorConfig> reload(String vendorCode, Optional<VendorConfig> oldValue) {
+                        // 定期刷新时只在配置消失时告警一次，持续不存在的编码不重复告警
+                        Optional<VendorConfig> config = loadConfig(vendorCode);
+                        if (config.isEmpty() && oldValue.isPresent()) {
+                            log.warn("Vendor config not found or disabled: {}", vendorCode);
+                        }
+                        return config;
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "vendorConfig");
+    }
+
     /**
      * 根据供应商编码获取配置
-     * 
+     *
      * @param vendorCode 供应商编码
      * @return 供应商配置，如果不存在或未启用返回null
      */
     public VendorConfig getVendorConfig(String vendorCode) {
-        VendorConfig config = vendorConfigMapper.selectByVendorCodeAndEnabled(vendorCode);
-        if (config == null) {
-            log.warn("Vendor config not found or disabled: {}", vendorCode);
-        }
-        return config;
+        // 不存在的编码只在载入缓存时告警，命中负缓存不再重复记录
+        return cache.get(vendorCode).orElse(null);
     }
-    
+
     /**
      * 获取所有启用的供应商配置
-     * 
+     *
      * @return 启用的供应商配置列表
      */
     public List<VendorConfig> getAllEnabledConfigs() {
         return vendorConfigMapper.selectAllEnabled();
     }
+
+    /**
+     * 修改供应商限流配置并使本节点缓存失效，其他节点通过变更检测生效
+     *
+     * @param vendorCode 供应商编码
+     * @param qps 集群总限流速率，为空表示不限流
+     * @param burst 限流突发容量，为空表示等于速率
+     * @return 供应商是否存在
+     */
+    public boolean updateRateLimit(String vendorCode, Double qps, Integer burst) {
+        if (vendorConfigMapper.updateRateLimit(vendorCode, qps, burst, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        log.info("Vendor rate limit updated: vendorCode={}, qps={}, burst={}", vendorCode, qps, burst);
+        invalidate(vendorCode);
+        return true;
+    }
+
+    /**
+     * 使指定供应商的缓存失效（修改配置后调用）
+     */
+    public void invalidate(String vendorCode) {
+        cache.invalidate(vendorCode);
+        eventPublisher.publishEvent(new VendorConfigChangedEvent(this, vendorCode));
+        log.info("Vendor config cache invalidated: {}", vendorCode);
+    }
+
+    /**
+     * 使全部供应商缓存失效
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        eventPublisher.publishEvent(new VendorConfigChangedEvent(this, null));
+        log.info("Vendor config cache invalidated: all");
+    }
+
+    private Optional<VendorConfig> loadConfig(String vendorCode) {
+        return Optional.ofNullable(vendorConfigMapper.selectByVendorCodeAndEnabled(vendorCode));
+    }
+
+    /**
+     * 定时检查配置表是否发生变化
+     */
+    @Scheduled(fixedDelayString = "${notification.vendor-cache.change-check-interval-ms:5000}")
+    public void checkForChanges() {
+        String version;
+        try {
+            version = vendorConfigMapper.selectVersion();
+        } catch (Exception e) {
+            log.warn("Failed to check vendor config version", e);
+            return;
+        }
+
+        String previous = lastVersion;
+        lastVersion = version;
+        if (previous != null && !Objects.equals(previous, version)) {
+            log.info("Vendor config table changed: {} -> {}", previous, version);
+            invalidateAll();
+        }
+    }
 }
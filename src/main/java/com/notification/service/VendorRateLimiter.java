@@ -0,0 +1,142 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import com.notification.entity.VendorConfig;
+import com.notification.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 供应商限流器
+ * 
+ * 每个供应商一个令牌桶，速率和突发容量来自 vendor_config.rate_limit_qps / rate_limit_burst，
+ * 表示整个集群的预算，按 {@link ClusterMembership} 的存活节点数均分到每个节点。
+ * 供应商配置变更（本节点管理接口修改或其他节点修改后的变更检测）以及存活节点数变化时重建令牌桶
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+public class VendorRateLimiter {
+    
+    private final VendorConfigService vendorConfigService;
+    private final ClusterMembership clusterMembership;
+    private final NotificationProperties.RateLimitConfig config;
+    private final MeterRegistry meterRegistry;
+    
+    /**
+     * 供应商编码 -> 本节点限流状态
+     */
+    private final Map<String, NodeLimit> limits = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public VendorRateLimiter(VendorConfigService vendorConfigService, ClusterMembership clusterMembership,
+                             NotificationProperties properties, MeterRegistry meterRegistry) {
+        this.vendorConfigService = vendorConfigService;
+        this.clusterMembership = clusterMembership;
+        this.config = properties.getRateLimit();
+        this.meterRegistry = meterRegistry;
+    }
+    
+    /**
+     * 尝试为一次调用取令牌
+     * 
+     * @return 0 表示放行；否则为建议推迟的毫秒数
+     */
+    public long tryAcquire(String vendorCode) {
+        if (!config.isEnabled() || vendorCode == null) {
+            return 0;
+        }
+        NodeLimit limit = limit(vendorCode);
+        if (limit.bucket() == null) {
+            return 0;
+        }
+        long waitNanos = limit.bucket().tryAcquire(System.nanoTime());
+        if (waitNanos == 0) {
+            return 0;
+        }
+        Counter.builder("notification.ratelimit.throttled")
+                .description("Deliveries deferred by the local vendor token bucket")
+                .tag("vendor", vendorCode)
+                .register(meterRegistry)
+                .increment();
+        return withJitter(Math.max(config.getMinDeferMs(), (waitNanos + 999_999) / 1_000_000));
+    }
+    
+    /**
+     * 供应商返回 429 后建议推迟的毫秒数
+     */
+    public long tooManyRequestsDeferMs(String vendorCode) {
+        Counter.builder("notification.ratelimit.vendor_429")
+                .description("Deliveries deferred because the vendor answered 429")
+                .tag("vendor", vendorCode == null ? "none" : vendorCode)
+                .register(meterRegistry)
+                .increment();
+        return withJitter(config.getTooManyRequestsDeferMs());
+    }
+    
+    /**
+     * 本节点对指定供应商实际生效的限流（不限流时 bucket 为 null）
+     */
+    public NodeLimit limit(String vendorCode) {
+        int liveNodes = Math.max(1, clusterMembership.getLiveNodeCount());
+        NodeLimit limit = limits.get(vendorCode);
+        if (limit != null && limit.liveNodes() == liveNodes) {
+            return limit;
+        }
+        // 读取供应商配置可能访问数据库，不放在 compute 中执行；并发重建时以后写入的为准
+        NodeLimit rebuilt = build(vendorCode, liveNodes);
+        limits.put(vendorCode, rebuilt);
+        if (limit != null) {
+            log.info("Vendor rate limit rebuilt: vendorCode={}, clusterQps={}, liveNodes={}, nodeQps={}, nodeBurst={}",
+                    vendorCode, rebuilt.clusterQps(), liveNodes,
+                    rebuilt.bucket() == null ? null : rebuilt.bucket().getRatePerSecond(),
+                    rebuilt.bucket() == null ? null : rebuilt.bucket().getBurst());
+        }
+        return rebuilt;
+    }
+    
+    @EventListener
+    public void onVendorConfigChanged(VendorConfigChangedEvent event) {
+        if (event.getVendorCode() == null) {
+            limits.clear();
+        } else {
+            limits.remove(event.getVendorCode());
+        }
+    }
+    
+    private NodeLimit build(String vendorCode, int liveNodes) {
+        VendorConfig vendorConfig = vendorConfigService.getVendorConfig(vendorCode);
+        Double clusterQps = vendorConfig == null ? null : vendorConfig.getRateLimitQps();
+        if (clusterQps == null || clusterQps <= 0) {
+            return new NodeLimit(null, null, null, liveNodes);
+        }
+        Integer clusterBurst = vendorConfig.getRateLimitBurst();
+        int burst = clusterBurst == null || clusterBurst <= 0 ? (int) Math.ceil(clusterQps) : clusterBurst;
+        TokenBucket bucket = new TokenBucket(clusterQps / liveNodes, Math.max(1, (int) Math.ceil((double) burst / liveNodes)));
+        return new NodeLimit(bucket, clusterQps, burst, liveNodes);
+    }
+    
+    private static long withJitter(long delayMs) {
+        return delayMs + ThreadLocalRandom.current().nextLong(delayMs / 5 + 1);
+    }
+    
+    /**
+     * 本节点限流状态
+     * 
+     * @param bucket 本节点令牌桶，不限流时为 null
+     * @param clusterQps 集群总速率
+     * @param clusterBurst 集群总突发容量
+     * @param liveNodes 构建时的存活节点数
+     */
+    public record NodeLimit(TokenBucket bucket, Double clusterQps, Integer clusterBurst, int liveNodes) {
+    }
+}
@@ -0,0 +1,178 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import com.notification.entity.VendorConfig;
+import com.notification.util.VirtualThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 虚拟线程投递执行器（notification.execution.mode=virtual）
+ * 
+ * 每次投递运行在独立的虚拟线程上，阻塞等待供应商响应时不占用平台线程。
+ * 并发不再由线程池大小决定，而是由两层信号量约束：
+ * 全局上限在提交时获取，达到上限时提交方（MQ 消费线程、进程内 broker 工作线程）等待，形成背压；
+ * 供应商上限在虚拟线程内获取，默认等于供应商连接池大小。
+ * 每个供应商在并发上限之外最多排队 vendor-max-queued 个等待者，提交时先占用供应商的排队名额再获取全局名额，
+ * 排队已满时立即拒绝（由 MQ 稍后重投），因此慢供应商最多占用自己的 (并发上限 + 排队数) 个全局名额，不会饿死其他供应商
+ * 
+ * @author Notification System
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notification.execution.mode", havingValue = "virtual")
+public class VirtualDispatchExecutor {
+    
+    private static final String DEFAULT_VENDOR = "";
+    
+    private final NotificationDispatcher dispatcher;
+    private final VendorConfigService vendorConfigService;
+    private final NotificationProperties.ExecutionConfig config;
+    private final ExecutorService executor;
+    private final Semaphore globalPermits;
+    
+    /**
+     * 供应商编码 -> 并发与排队许可
+     */
+    private final Map<String, VendorPermits> vendorPermits = new ConcurrentHashMap<>();
+    
+    private final Counter vendorQueueRejections;
+    
+    @Autowired
+    public VirtualDispatchExecutor(@Lazy NotificationDispatcher dispatcher, VendorConfigService vendorConfigService,
+                                   NotificationProperties properties, MeterRegistry meterRegistry) {
+        if (!VirtualThreads.isAvailable()) {
+            throw new IllegalStateException("notification.execution.mode=virtual requires Java 21 or later, running on Java "
+                    + Runtime.version().feature());
+        }
+        this.dispatcher = dispatcher;
+        this.vendorConfigService = vendorConfigService;
+        this.config = properties.getExecution();
+        this.executor = VirtualThreads.newThreadPerTaskExecutor("dispatch-vt-");
+        this.globalPermits = new Semaphore(Math.max(1, config.getMaxConcurrency()));
+        this.vendorQueueRejections = Counter.builder("notification.dispatch.vendor_queue_rejected")
+                .description("Virtual thread dispatches rejected because the vendor wait queue was full")
+                .register(meterRegistry);
+        Gauge.builder("notification.dispatch.virtual_in_flight", this, VirtualDispatchExecutor::getInFlight)
+                .description("Dispatches currently running on virtual threads")
+                .register(meterRegistry);
+        log.info("Virtual thread dispatch enabled: maxConcurrency={}, vendorMaxConcurrency={}, vendorMaxQueued={}",
+                config.getMaxConcurrency(), config.getVendorMaxConcurrency(), config.getVendorMaxQueued());
+    }
+    
+    /**
+     * 提交一次投递，全局并发达到上限时阻塞调用方；返回的 Future 在结果落库后完成
+     * 
+     * @return 供应商排队已满时返回以 {@link RejectedExecutionException} 失败的 Future，调用方应稍后重投
+     */
+    public CompletableFuture<Void> submit(String notificationId, String vendorCode) {
+        VendorPermits permits = vendorPermits(vendorCode);
+        if (!permits.admission.tryAcquire()) {
+            vendorQueueRejections.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "Virtual dispatch queue full for vendor: " + permits.vendorCode));
+        }
+        try {
+            globalPermits.acquire();
+        } catch (InterruptedException e) {
+            permits.admission.release();
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    permits.running.acquire();
+                    try {
+                        dispatcher.dispatch(notificationId);
+                    } finally {
+                        permits.running.release();
+                    }
+                    result.complete(null);
+                } catch (Throwable e) {
+                    log.error("Virtual thread dispatch failed: notificationId={}", notificationId, e);
+                    result.completeExceptionally(e);
+                } finally {
+                    permits.admission.release();
+                    globalPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.admission.release();
+            globalPermits.release();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+    
+    /**
+     * 当前在途投递数
+     */
+    public int getInFlight() {
+        return Math.max(1, config.getMaxConcurrency()) - globalPermits.availablePermits();
+    }
+    
+    /**
+     * 供应商配置变更后按新的连接池大小重建许可（在途投递归还到旧的信号量）
+     */
+    @EventListener
+    public void onVendorConfigChanged(VendorConfigChangedEvent event) {
+        if (event.getVendorCode() == null) {
+            vendorPermits.clear();
+        } else {
+            vendorPermits.remove(event.getVendorCode());
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+    
+    private VendorPermits vendorPermits(String vendorCode) {
+        String key = vendorCode == null ? DEFAULT_VENDOR : vendorCode;
+        VendorPermits permits = vendorPermits.get(key);
+        if (permits != null) {
+            return permits;
+        }
+        // 读取供应商配置可能访问数据库，不放在 computeIfAbsent 中执行
+        VendorPermits created = createVendorPermits(key);
+        permits = vendorPermits.putIfAbsent(key, created);
+        return permits == null ? created : permits;
+    }
+    
+    private VendorPermits createVendorPermits(String vendorCode) {
+        int limit = config.getVendorMaxConcurrency();
+        if (!DEFAULT_VENDOR.equals(vendorCode)) {
+            VendorConfig vendorConfig = vendorConfigService.getVendorConfig(vendorCode);
+            if (vendorConfig != null && vendorConfig.getMaxConnections() != null && vendorConfig.getMaxConnections() > 0) {
+                limit = vendorConfig.getMaxConnections();
+            }
+        }
+        limit = Math.max(1, limit);
+        return new VendorPermits(vendorCode, new Semaphore(limit), new Semaphore(limit + Math.max(0, config.getVendorMaxQueued())));
+    }
+    
+    /**
+     * 单个供应商的许可：running 限制同时投递数，admission 限制已提交未完成（投递中 + 排队）的总数
+     */
+    private record VendorPermits(String vendorCode, Semaphore running, Semaphore admission) {
+    }
+}
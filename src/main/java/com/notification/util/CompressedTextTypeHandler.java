@@ -0,0 +1,45 @@
+package com.notification.util;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 大字段类型处理器
+ * 写入时按 {@link PayloadCodec} 的配置压缩，读取时识别格式头解压，未压缩的历史行原样返回
+ * 
+ * 只通过 @TableField(typeHandler = ...) 和 SQL 中的 typeHandler 属性显式使用，不注册为 String 的全局处理器
+ * 
+ * @author Notification System
+ */
+public class CompressedTextTypeHandler extends BaseTypeHandler<String> {
+    
+    /**
+     * 自定义 SQL 参数中引用本处理器的写法：#{field," + TYPE_HANDLER + "}
+     */
+    public static final String TYPE_HANDLER = "typeHandler=com.notification.util.CompressedTextTypeHandler";
+    
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, String parameter, JdbcType jdbcType) throws SQLException {
+        ps.setString(i, PayloadCodec.current().encode(parameter));
+    }
+    
+    @Override
+    public String getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return PayloadCodec.current().decode(rs.getString(columnName));
+    }
+    
+    @Override
+    public String getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return PayloadCodec.current().decode(rs.getString(columnIndex));
+    }
+    
+    @Override
+    public String getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return PayloadCodec.current().decode(cs.getString(columnIndex));
+    }
+}
@@ -0,0 +1,249 @@
+package com.notification.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ * 
+ * 时间按 tickMs 划分为刻度，刻度号按 wheelSize（2 的幂）进制拆成多位，每一位对应一层时间轮：
+ * 第 0 层每格 1 个刻度，第 k 层每格 wheelSize^k 个刻度。条目放在到期刻度与当前刻度“最高不同位”所在的层，
+ * 当低位全部归零时把上一层对应格子里的条目重新分配到下层，到达第 0 层的格子即到期。
+ * 插入、到期均为 O(1)（每个条目最多降级 levels 次），超出最高层范围的条目放入溢出链表，最高层转满一圈时重新分配。
+ * 
+ * 多个线程可以并发调用 schedule，条目先进入无锁队列，由唯一的驱动线程搬入时间轮；
+ * 时间轮本身只被驱动线程访问，无需加锁。到期回调在驱动线程上执行，应尽快返回
+ * 
+ * @param <T> 条目类型
+ * @author Notification System
+ */
+@Slf4j
+public class HierarchicalTimingWheel<T> {
+    
+    private final String name;
+    private final long tickMs;
+    private final int wheelBits;
+    private final long slotMask;
+    private final int levels;
+    private final Bucket<T>[][] buckets;
+    private final Bucket<T> overflow = new Bucket<>();
+    private final Consumer<T> onExpire;
+    
+    /**
+     * 待搬入时间轮的条目（多生产者、单消费者）
+     */
+    private final Queue<Entry<T>> pendingInserts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong size = new AtomicLong();
+    
+    /**
+     * 当前刻度，仅驱动线程访问
+     */
+    private long currentTick;
+    
+    private volatile boolean running;
+    private Thread driver;
+    
+    /**
+     * @param name 驱动线程名称
+     * @param tickMs 刻度长度（毫秒）
+     * @param wheelSize 每层格子数（2 的幂）
+     * @param levels 层数，覆盖范围为 tickMs * wheelSize^levels
+     * @param onExpire 到期回调
+     */
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(String name, long tickMs, int wheelSize, int levels, Consumer<T> onExpire) {
+        if (tickMs <= 0 || levels <= 0 || wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("tickMs and levels must be positive, wheelSize must be a power of two");
+        }
+        if ((long) Integer.numberOfTrailingZeros(wheelSize) * levels > 62) {
+            throw new IllegalArgumentException("wheelSize^levels exceeds the tick range");
+        }
+        this.name = name;
+        this.tickMs = tickMs;
+        this.wheelBits = Integer.numberOfTrailingZeros(wheelSize);
+        this.slotMask = wheelSize - 1;
+        this.levels = levels;
+        this.onExpire = onExpire;
+        this.buckets = new Bucket[levels][wheelSize];
+        for (int level = 0; level < levels; level++) {
+            for (int slot = 0; slot < wheelSize; slot++) {
+                buckets[level][slot] = new Bucket<>();
+            }
+        }
+        this.currentTick = System.currentTimeMillis() / tickMs;
+    }
+    
+    /**
+     * 安排条目在指定时间到期（线程安全，不会早于 deadlineMs 触发）
+     * 
+     * @param payload 条目
+     * @param deadlineMs 到期时间（epoch 毫秒）
+     */
+    public void schedule(T payload, long deadlineMs) {
+        size.incrementAndGet();
+        pendingInserts.offer(new Entry<>(payload, deadlineMs));
+    }
+    
+    /**
+     * 尚未到期的条目数
+     */
+    public long size() {
+        return size.get();
+    }
+    
+    /**
+     * 启动驱动线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        driver = new Thread(this::runDriver, name);
+        driver.setDaemon(true);
+        driver.start();
+    }
+    
+    /**
+     * 停止驱动线程，未到期的条目被丢弃
+     */
+    public synchronized void stop() {
+        running = false;
+        if (driver != null) {
+            LockSupport.unpark(driver);
+        }
+    }
+    
+    /**
+     * 推进到指定时间，触发所有已到期的条目（驱动线程调用；未启动驱动线程时可由单个调用方手动推进）
+     */
+    public void advanceTo(long nowMs) {
+        drainPendingInserts();
+        long targetTick = nowMs / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            onTick(currentTick);
+        }
+    }
+    
+    private void runDriver() {
+        while (running) {
+            try {
+                advanceTo(System.currentTimeMillis());
+            } catch (Throwable e) {
+                log.error("Timing wheel driver error: {}", name, e);
+            }
+            long sleepMs = (currentTick + 1) * tickMs - System.currentTimeMillis();
+            if (sleepMs > 0) {
+                LockSupport.parkNanos(sleepMs * 1_000_000L);
+            }
+        }
+    }
+    
+    private void drainPendingInserts() {
+        Entry<T> entry;
+        while ((entry = pendingInserts.poll()) != null) {
+            place(entry);
+        }
+    }
+    
+    /**
+     * 按到期刻度放入对应的层和格子
+     */
+    private void place(Entry<T> entry) {
+        // 向上取整，保证不会早于 deadline 触发
+        long tick = Math.floorDiv(entry.deadlineMs + tickMs - 1, tickMs);
+        if (tick <= currentTick) {
+            expire(entry);
+            return;
+        }
+        int level = (63 - Long.numberOfLeadingZeros(tick ^ currentTick)) / wheelBits;
+        if (level >= levels) {
+            overflow.push(entry);
+            return;
+        }
+        int slot = (int) ((tick >>> (level * wheelBits)) & slotMask);
+        buckets[level][slot].push(entry);
+    }
+    
+    private void onTick(long tick) {
+        // 低位归零的层需要把对应格子降级，从高到低处理，保证逐层下落
+        int wrapped = 0;
+        while (wrapped < levels && (tick & ((1L << ((wrapped + 1) * wheelBits)) - 1)) == 0) {
+            wrapped++;
+        }
+        if (wrapped == levels) {
+            redistribute(overflow);
+            wrapped = levels - 1;
+        }
+        for (int level = wrapped; level >= 1; level--) {
+            redistribute(buckets[level][(int) ((tick >>> (level * wheelBits)) & slotMask)]);
+        }
+        
+        Entry<T> entry = buckets[0][(int) (tick & slotMask)].takeAll();
+        while (entry != null) {
+            Entry<T> next = entry.next;
+            entry.next = null;
+            expire(entry);
+            entry = next;
+        }
+    }
+    
+    private void redistribute(Bucket<T> bucket) {
+        Entry<T> entry = bucket.takeAll();
+        while (entry != null) {
+            Entry<T> next = entry.next;
+            entry.next = null;
+            place(entry);
+            entry = next;
+        }
+    }
+    
+    private void expire(Entry<T> entry) {
+        size.decrementAndGet();
+        try {
+            onExpire.accept(entry.payload);
+        } catch (Throwable e) {
+            log.error("Timing wheel expiry callback failed: {}", name, e);
+        }
+    }
+    
+    /**
+     * 时间轮条目（单向链表节点）
+     */
+    private static final class Entry<T> {
+        
+        final T payload;
+        final long deadlineMs;
+        Entry<T> next;
+        
+        Entry(T payload, long deadlineMs) {
+            this.payload = payload;
+            this.deadlineMs = deadlineMs;
+        }
+    }
+    
+    /**
+     * 格子，只被驱动线程访问
+     */
+    private static final class Bucket<T> {
+        
+        private Entry<T> head;
+        
+        void push(Entry<T> entry) {
+            entry.next = head;
+            head = entry;
+        }
+        
+        Entry<T> takeAll() {
+            Entry<T> all = head;
+            head = null;
+            return all;
+        }
+    }
+}
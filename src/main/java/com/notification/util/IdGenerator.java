@@ -1,26 +1,158 @@
 package com.notification.util;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.util.Enumeration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * ID 生成器工具类
- * 
+ *
+ * Snowflake 结构的 64 位 ID：41 位毫秒时间戳（自 2024-01-01 起）+ 10 位节点号 + 12 位序列号，
+ * 单节点每毫秒 4096 个，按时间递增，节点之间不会冲突。
+ * 时间戳与序列号打包在一个 AtomicLong 中用 CAS 推进，无锁；
+ * 同一毫秒序列号用尽或时钟回拨时借用下一毫秒，保证单调递增。
+ *
+ * 节点号启动时通过 cluster_node 表租用（见 ClusterMembership#leaseIdNodeId），唯一索引保证存活节点之间不重复：
+ * 配置了 notification.id.node-id 时只使用该号，被占用则启动失败；
+ * 否则从探测值开始寻找空闲的号。探测值只是优先尝试的起点，本身并不唯一：
+ * 主机名以 -数字 结尾（如 StatefulSet 的 notification-3）时取该序号，否则取本机 IPv4 地址的低 10 位
+ *
  * @author Notification System
  */
+@Slf4j
 public class IdGenerator {
-    
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
-    private static final Random RANDOM = new Random();
-    
+
+    private static final long EPOCH_MS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final String PREFIX = "ntf_";
+    private static final int DIGITS = 19;
+    private static final Pattern HOSTNAME_ORDINAL = Pattern.compile("-(\\d+)$");
+
+    /**
+     * (相对时间戳 << SEQUENCE_BITS) | 序列号
+     */
+    private static final AtomicLong STATE = new AtomicLong();
+
+    private static volatile long nodeId = detectNodeId();
+    private static volatile boolean compactKey = false;
+
     /**
      * 生成通知任务ID
-     * 格式: ntf_yyyyMMddHHmmss_随机数
+     * 格式: ntf_ + 19 位补零的 Snowflake ID（字典序即时间序）；
+     * compact-key 模式下为纯数字，可直接存入 BIGINT 主键
      */
     public static String generateNotificationId() {
-        String timestamp = LocalDateTime.now().format(FORMATTER);
-        int randomNum = RANDOM.nextInt(10000);
-        return String.format("ntf_%s_%04d", timestamp, randomNum);
+        long id = nextId();
+        return compactKey ? Long.toString(id) : format(id);
+    }
+
+    /**
+     * 生成 Snowflake 数值 ID
+     */
+    public static long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MS) << SEQUENCE_BITS;
+        long prev;
+        long next;
+        do {
+            prev = STATE.get();
+            next = now > prev ? now : prev + 1;
+        } while (!STATE.compareAndSet(prev, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+
+    /**
+     * 设置节点号和主键模式（应用启动时调用）
+     *
+     * @param configuredNodeId 配置的节点号，小于 0 表示自动探测
+     * @param compact 是否生成纯数字ID
+     */
+    public static void configure(long configuredNodeId, boolean compact) {
+        if (configuredNodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("notification.id.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        if (configuredNodeId >= 0) {
+            nodeId = configuredNodeId;
+        }
+        compactKey = compact;
+        log.info("IdGenerator configured: nodeId={}, compactKey={}", nodeId, compactKey);
+    }
+
+    /**
+     * 更换节点号（租用的节点号失效后重新租用时调用）
+     */
+    public static void setNodeId(long newNodeId) {
+        if (newNodeId < 0 || newNodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("node id must be between 0 and " + MAX_NODE_ID);
+        }
+        nodeId = newNodeId;
+    }
+
+    /**
+     * 当前节点号
+     */
+    public static long getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 格式化为定长字符串，直接写入字符数组，避免 String.format
+     */
+    private static String format(long id) {
+        char[] chars = new char[PREFIX.length() + DIGITS];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = (char) ('0' + (id % 10));
+            id /= 10;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 自动探测节点号
+     */
+    private static long detectNodeId() {
+        try {
+            String hostname = InetAddress.getLocalHost().getHostName();
+            Matcher matcher = HOSTNAME_ORDINAL.matcher(hostname);
+            if (matcher.find() && matcher.group(1).length() <= 4) {
+                return Long.parseLong(matcher.group(1)) & MAX_NODE_ID;
+            }
+
+            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+            while (interfaces != null && interfaces.hasMoreElements()) {
+                NetworkInterface networkInterface = interfaces.nextElement();
+                if (networkInterface.isLoopback() || !networkInterface.isUp()) {
+                    continue;
+                }
+                Enumeration<InetAddress> addresses = networkInterface.getInetAddresses();
+                while (addresses.hasMoreElements()) {
+                    InetAddress address = addresses.nextElement();
+                    if (address instanceof Inet4Address) {
+                        byte[] bytes = address.getAddress();
+                        return (((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF)) & MAX_NODE_ID;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to detect node id from host, falling back to pid", e);
+        }
+
+        // 兜底：进程号 + 随机数
+        long pid = ManagementFactory.getRuntimeMXBean().getPid();
+        return (pid ^ ThreadLocalRandom.current().nextLong()) & MAX_NODE_ID;
     }
 }
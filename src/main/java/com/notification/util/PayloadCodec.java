@@ -0,0 +1,227 @@
+package com.notification.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 大字段存储编解码器
+ * 
+ * 列类型仍为 TEXT，压缩后的值带格式头：~z1:{字典ID}:{原始字节数}:{Base64(zlib)}，字典ID为字典的 Adler-32（十六进制，0 表示无字典）。
+ * 恰好以 ~z 开头的原文写为 ~z0:{原文}；其余值原样读取，因此未压缩的历史行无需迁移。
+ * 压缩后不比原文短的内容原样存储
+ * 
+ * 全局实例由 {@link #configure} 在启动时设置，供 MyBatis 类型处理器使用
+ * 
+ * @author Notification System
+ */
+public final class PayloadCodec {
+    
+    private static final String MARKER = "~z";
+    private static final String COMPRESSED_PREFIX = "~z1:";
+    private static final String ESCAPED_PREFIX = "~z0:";
+    
+    /**
+     * 池中最多保留的 Deflater / Inflater 数（每个持有数百 KB 的本地内存）
+     */
+    private static final int MAX_POOLED = 32;
+    
+    private static volatile PayloadCodec current = new PayloadCodec(false, Integer.MAX_VALUE, Deflater.DEFAULT_COMPRESSION, List.of());
+    
+    private final boolean compress;
+    private final int thresholdLength;
+    private final int level;
+    private final byte[] encodeDictionary;
+    private final String encodeDictionaryId;
+    private final Map<String, byte[]> dictionaries = new LinkedHashMap<>();
+    
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+    
+    /**
+     * @param compress 是否压缩写入的值（为 false 时仍可读取压缩行）
+     * @param thresholdLength 压缩阈值（字符数）
+     * @param level Deflate 压缩级别
+     * @param dictionaries 预训练字典，第一个用于压缩，全部用于解压
+     */
+    public PayloadCodec(boolean compress, int thresholdLength, int level, List<byte[]> dictionaries) {
+        this.compress = compress;
+        this.thresholdLength = thresholdLength;
+        this.level = level;
+        for (byte[] dictionary : dictionaries) {
+            this.dictionaries.put(dictionaryId(dictionary), dictionary);
+        }
+        this.encodeDictionary = dictionaries.isEmpty() ? null : dictionaries.get(0);
+        this.encodeDictionaryId = encodeDictionary == null ? "0" : dictionaryId(encodeDictionary);
+    }
+    
+    /**
+     * 设置全局实例
+     */
+    public static void configure(PayloadCodec codec) {
+        current = codec;
+    }
+    
+    /**
+     * 全局实例
+     */
+    public static PayloadCodec current() {
+        return current;
+    }
+    
+    /**
+     * 字典ID：字典的 Adler-32，与 zlib 流中记录的字典校验值一致
+     */
+    public static String dictionaryId(byte[] dictionary) {
+        Adler32 adler = new Adler32();
+        adler.update(dictionary);
+        return Long.toHexString(adler.getValue());
+    }
+    
+    /**
+     * 编码为存储值
+     */
+    public String encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (compress && value.length() >= thresholdLength) {
+            String compressed = deflate(value);
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        return value.startsWith(MARKER) ? ESCAPED_PREFIX + value : value;
+    }
+    
+    /**
+     * 从存储值解码
+     * 
+     * @throws IllegalStateException 压缩数据损坏或引用了未配置的字典
+     */
+    public String decode(String stored) {
+        if (stored == null || !stored.startsWith(MARKER)) {
+            return stored;
+        }
+        if (stored.startsWith(ESCAPED_PREFIX)) {
+            return stored.substring(ESCAPED_PREFIX.length());
+        }
+        if (stored.startsWith(COMPRESSED_PREFIX)) {
+            return inflate(stored);
+        }
+        return stored;
+    }
+    
+    /**
+     * 是否为压缩后的存储值
+     */
+    public static boolean isCompressed(String stored) {
+        return stored != null && stored.startsWith(COMPRESSED_PREFIX);
+    }
+    
+    private String deflate(String value) {
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level);
+        }
+        try {
+            if (encodeDictionary != null) {
+                deflater.setDictionary(encodeDictionary);
+            }
+            deflater.setInput(raw);
+            deflater.finish();
+            // 输出缓冲与原文等长，写不下说明压缩没有收益
+            byte[] out = new byte[raw.length];
+            int length = 0;
+            while (!deflater.finished() && length < out.length) {
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            if (!deflater.finished()) {
+                return null;
+            }
+            String header = COMPRESSED_PREFIX + encodeDictionaryId + ':' + raw.length + ':';
+            int storedLength = header.length() + (length + 2) / 3 * 4;
+            if (storedLength >= value.length()) {
+                return null;
+            }
+            return header + Base64.getEncoder().encodeToString(Arrays.copyOf(out, length));
+        } finally {
+            release(deflater);
+        }
+    }
+    
+    private String inflate(String stored) {
+        int dictionaryEnd = stored.indexOf(':', COMPRESSED_PREFIX.length());
+        int lengthEnd = dictionaryEnd < 0 ? -1 : stored.indexOf(':', dictionaryEnd + 1);
+        if (lengthEnd < 0) {
+            throw new IllegalStateException("Malformed compressed payload header");
+        }
+        String dictionaryId = stored.substring(COMPRESSED_PREFIX.length(), dictionaryEnd);
+        byte[] dictionary = null;
+        if (!"0".equals(dictionaryId)) {
+            dictionary = dictionaries.get(dictionaryId);
+            if (dictionary == null) {
+                throw new IllegalStateException("Compressed payload uses an unknown dictionary: " + dictionaryId);
+            }
+        }
+        int rawLength = Integer.parseInt(stored, dictionaryEnd + 1, lengthEnd, 10);
+        byte[] compressed = Base64.getDecoder().decode(stored.substring(lengthEnd + 1));
+        
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (!inflater.finished()) {
+                int n = inflater.inflate(raw, length, raw.length - length);
+                if (n == 0) {
+                    if (inflater.needsDictionary() && dictionary != null) {
+                        inflater.setDictionary(dictionary);
+                    } else if (inflater.needsInput() || inflater.needsDictionary() || length == raw.length) {
+                        throw new IllegalStateException("Corrupt compressed payload");
+                    }
+                }
+                length += n;
+            }
+            if (length != rawLength) {
+                throw new IllegalStateException("Corrupt compressed payload");
+            }
+            return new String(raw, StandardCharsets.UTF_8);
+        } catch (DataFormatException | IllegalArgumentException e) {
+            throw new IllegalStateException("Corrupt compressed payload", e);
+        } finally {
+            release(inflater);
+        }
+    }
+    
+    private void release(Deflater deflater) {
+        deflater.reset();
+        if (deflaters.size() < MAX_POOLED) {
+            deflaters.offer(deflater);
+        } else {
+            deflater.end();
+        }
+    }
+    
+    private void release(Inflater inflater) {
+        inflater.reset();
+        if (inflaters.size() < MAX_POOLED) {
+            inflaters.offer(inflater);
+        } else {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.notification.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 滑动窗口布隆过滤器
+ * 
+ * 由若干代布隆过滤器组成，写入总是进入最新一代，查询检查所有代；
+ * 每隔 window / generations 轮换一次，丢弃最老的一代，因此元素大约在一个窗口后被遗忘。
+ * mightContain 返回 false 表示“确定不存在”，返回 true 表示“可能存在”。
+ * 位数组基于 AtomicLongArray，读写均无锁。
+ * 
+ * @author Notification System
+ */
+public class SlidingBloomFilter {
+    
+    private final int bitCount;
+    private final int hashCount;
+    private final long rotateIntervalMs;
+    
+    private volatile Generation[] generations;
+    private volatile long lastRotateAt;
+    
+    /**
+     * @param expectedInsertionsPerGeneration 每一代预计写入数
+     * @param falsePositiveRate 期望误判率
+     * @param generationCount 代数（至少 2）
+     * @param windowMs 窗口长度（毫秒）
+     */
+    public SlidingBloomFilter(long expectedInsertionsPerGeneration, double falsePositiveRate,
+                              int generationCount, long windowMs) {
+        long bits = (long) Math.ceil(-expectedInsertionsPerGeneration * Math.log(falsePositiveRate)
+                / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, bits));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertionsPerGeneration * Math.log(2)));
+        int count = Math.max(2, generationCount);
+        this.rotateIntervalMs = Math.max(1, windowMs / count);
+        
+        Generation[] initial = new Generation[count];
+        for (int i = 0; i < count; i++) {
+            initial[i] = new Generation(bitCount);
+        }
+        this.generations = initial;
+        this.lastRotateAt = System.currentTimeMillis();
+    }
+    
+    /**
+     * 是否可能存在
+     */
+    public boolean mightContain(String value) {
+        rotateIfNeeded();
+        long hash = hash64(value);
+        for (Generation generation : generations) {
+            if (generation.mightContain(hash, bitCount, hashCount)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 写入元素
+     */
+    public void put(String value) {
+        rotateIfNeeded();
+        Generation[] current = generations;
+        current[current.length - 1].put(hash64(value), bitCount, hashCount);
+    }
+    
+    /**
+     * 每一代占用的字节数
+     */
+    public long bytesPerGeneration() {
+        return (long) ((bitCount + 63) / 64) * Long.BYTES;
+    }
+    
+    private void rotateIfNeeded() {
+        long now = System.currentTimeMillis();
+        if (now - lastRotateAt < rotateIntervalMs) {
+            return;
+        }
+        synchronized (this) {
+            if (now - lastRotateAt < rotateIntervalMs) {
+                return;
+            }
+            // 空闲期间可能跨过多个间隔，一次补齐
+            Generation[] current = generations;
+            int shift = (int) Math.min(current.length, (now - lastRotateAt) / rotateIntervalMs);
+            Generation[] next = new Generation[current.length];
+            System.arraycopy(current, shift, next, 0, current.length - shift);
+            for (int i = current.length - shift; i < next.length; i++) {
+                next[i] = new Generation(bitCount);
+            }
+            generations = next;
+            lastRotateAt += shift * rotateIntervalMs;
+        }
+    }
+    
+    /**
+     * 64 位 FNV-1a + 混淆，高低 32 位作为双重哈希的两个基
+     */
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+    
+    /**
+     * 单代布隆过滤器
+     */
+    private static final class Generation {
+        
+        private final AtomicLongArray words;
+        
+        Generation(int bitCount) {
+            this.words = new AtomicLongArray((bitCount + 63) / 64);
+        }
+        
+        boolean mightContain(long hash, int bitCount, int hashCount) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        void put(long hash, int bitCount, int hashCount) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+                int index = bit >>> 6;
+                long mask = 1L << bit;
+                long word;
+                do {
+                    word = words.get(index);
+                    if ((word & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(index, word, word | mask));
+            }
+        }
+    }
+}
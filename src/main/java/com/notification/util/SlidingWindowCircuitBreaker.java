@@ -0,0 +1,248 @@
+package com.notification.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁滑动窗口熔断器
+ * 
+ * 窗口按时间划分为若干个桶，每个桶用一个 long 打包 [桶序号 24 位 | 失败数 20 位 | 调用数 20 位]，
+ * 通过 CAS 更新；桶序号与当前不一致（已滑出窗口）时直接覆盖。状态迁移同样只用 CAS：
+ * CLOSED 下窗口内调用数达到 minimumCalls 且失败率达到阈值时打开；
+ * OPEN 持续 openDurationMs 后第一个请求把状态切到 HALF_OPEN；
+ * HALF_OPEN 下最多同时放行 halfOpenMaxProbes 个探测请求，连续成功 halfOpenSuccessesToClose 次后关闭，任一失败重新打开。
+ * 所有方法都接收当前时间，便于测试
+ * 
+ * @author Notification System
+ */
+public class SlidingWindowCircuitBreaker {
+    
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+    
+    /**
+     * 状态迁移回调
+     */
+    @FunctionalInterface
+    public interface TransitionListener {
+        void onTransition(State from, State to, long nowMs);
+    }
+    
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long EPOCH_MASK = (1L << 24) - 1;
+    
+    private final int buckets;
+    private final long bucketMs;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationMs;
+    private final int halfOpenMaxProbes;
+    private final int halfOpenSuccessesToClose;
+    private final TransitionListener listener;
+    
+    private final AtomicLongArray window;
+    private final AtomicInteger state = new AtomicInteger(State.CLOSED.ordinal());
+    private final AtomicInteger probesInFlight = new AtomicInteger();
+    private final AtomicInteger probeSuccesses = new AtomicInteger();
+    private volatile long openUntilMs;
+    
+    /**
+     * @param windowMs 滑动窗口长度（毫秒）
+     * @param buckets 窗口内的桶数
+     * @param minimumCalls 窗口内最少调用数，不足时不判定
+     * @param failureRateThreshold 失败率阈值（0-1）
+     * @param openDurationMs 打开状态持续时间（毫秒）
+     * @param halfOpenMaxProbes 半开状态同时放行的探测请求数
+     * @param halfOpenSuccessesToClose 半开状态关闭所需的成功探测数
+     * @param listener 状态迁移回调
+     */
+    public SlidingWindowCircuitBreaker(long windowMs, int buckets, int minimumCalls, double failureRateThreshold,
+                                       long openDurationMs, int halfOpenMaxProbes, int halfOpenSuccessesToClose,
+                                       TransitionListener listener) {
+        if (buckets <= 0 || windowMs < buckets) {
+            throw new IllegalArgumentException("buckets must be positive and windowMs must be at least one ms per bucket");
+        }
+        this.buckets = buckets;
+        this.bucketMs = windowMs / buckets;
+        this.minimumCalls = Math.max(1, minimumCalls);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMs = openDurationMs;
+        this.halfOpenMaxProbes = Math.max(1, halfOpenMaxProbes);
+        this.halfOpenSuccessesToClose = Math.max(1, halfOpenSuccessesToClose);
+        this.listener = listener;
+        this.window = new AtomicLongArray(buckets);
+    }
+    
+    /**
+     * 是否放行一次调用
+     */
+    public boolean tryAcquire(long nowMs) {
+        State current = getState();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (nowMs < openUntilMs) {
+                return false;
+            }
+            transition(State.OPEN, State.HALF_OPEN, nowMs);
+            if (getState() != State.HALF_OPEN) {
+                return getState() == State.CLOSED;
+            }
+        }
+        while (true) {
+            int probes = probesInFlight.get();
+            if (probes >= halfOpenMaxProbes) {
+                return false;
+            }
+            if (probesInFlight.compareAndSet(probes, probes + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * 记录一次成功调用
+     */
+    public void onSuccess(long nowMs) {
+        if (getState() == State.HALF_OPEN) {
+            probesInFlight.updateAndGet(probes -> Math.max(0, probes - 1));
+            if (probeSuccesses.incrementAndGet() >= halfOpenSuccessesToClose
+                    && transition(State.HALF_OPEN, State.CLOSED, nowMs)) {
+                clearWindow();
+            }
+            return;
+        }
+        record(nowMs, false);
+    }
+    
+    /**
+     * 归还未产生结果的调用（调用前出错或被取消）占用的半开探测名额，不计入成功或失败
+     */
+    public void releaseProbe() {
+        if (getState() == State.HALF_OPEN) {
+            probesInFlight.updateAndGet(probes -> Math.max(0, probes - 1));
+        }
+    }
+    
+    /**
+     * 记录一次失败调用
+     */
+    public void onFailure(long nowMs) {
+        State current = getState();
+        if (current == State.HALF_OPEN) {
+            open(State.HALF_OPEN, nowMs);
+            return;
+        }
+        if (current == State.OPEN) {
+            return;
+        }
+        record(nowMs, true);
+        long snapshot = sum(nowMs);
+        long calls = snapshot & COUNT_MASK;
+        long failures = snapshot >>> COUNT_BITS;
+        if (calls >= minimumCalls && failures >= failureRateThreshold * calls) {
+            open(State.CLOSED, nowMs);
+        }
+    }
+    
+    public State getState() {
+        return State.values()[state.get()];
+    }
+    
+    /**
+     * 打开状态下距离允许探测的剩余时间（毫秒），其他状态返回 0
+     */
+    public long remainingOpenMs(long nowMs) {
+        return getState() == State.OPEN ? Math.max(0, openUntilMs - nowMs) : 0;
+    }
+    
+    /**
+     * 窗口内调用数
+     */
+    public long getCalls(long nowMs) {
+        return sum(nowMs) & COUNT_MASK;
+    }
+    
+    /**
+     * 窗口内失败数
+     */
+    public long getFailures(long nowMs) {
+        return sum(nowMs) >>> COUNT_BITS;
+    }
+    
+    /**
+     * 强制关闭并清空窗口
+     */
+    public void reset(long nowMs) {
+        State current = getState();
+        if (current != State.CLOSED && transition(current, State.CLOSED, nowMs)) {
+            clearWindow();
+        }
+    }
+    
+    private void open(State from, long nowMs) {
+        // 先准备好打开期间的状态，再通过 CAS 发布
+        openUntilMs = nowMs + openDurationMs;
+        probesInFlight.set(0);
+        probeSuccesses.set(0);
+        transition(from, State.OPEN, nowMs);
+    }
+    
+    private boolean transition(State from, State to, long nowMs) {
+        if (!state.compareAndSet(from.ordinal(), to.ordinal())) {
+            return false;
+        }
+        if (listener != null) {
+            listener.onTransition(from, to, nowMs);
+        }
+        return true;
+    }
+    
+    private void record(long nowMs, boolean failed) {
+        long epoch = (nowMs / bucketMs) & EPOCH_MASK;
+        int index = (int) ((nowMs / bucketMs) % buckets);
+        while (true) {
+            long old = window.get(index);
+            long calls;
+            long failures;
+            if ((old >>> (2 * COUNT_BITS)) == epoch) {
+                calls = Math.min(COUNT_MASK, (old & COUNT_MASK) + 1);
+                failures = Math.min(COUNT_MASK, ((old >>> COUNT_BITS) & COUNT_MASK) + (failed ? 1 : 0));
+            } else {
+                calls = 1;
+                failures = failed ? 1 : 0;
+            }
+            long updated = (epoch << (2 * COUNT_BITS)) | (failures << COUNT_BITS) | calls;
+            if (window.compareAndSet(index, old, updated)) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * 汇总窗口内的桶，返回 [失败数 | 调用数]
+     */
+    private long sum(long nowMs) {
+        long epoch = (nowMs / bucketMs) & EPOCH_MASK;
+        long calls = 0;
+        long failures = 0;
+        for (int i = 0; i < buckets; i++) {
+            long value = window.get(i);
+            long age = (epoch - (value >>> (2 * COUNT_BITS))) & EPOCH_MASK;
+            if (age < buckets) {
+                calls += value & COUNT_MASK;
+                failures += (value >>> COUNT_BITS) & COUNT_MASK;
+            }
+        }
+        return (Math.min(failures, COUNT_MASK) << COUNT_BITS) | Math.min(calls, COUNT_MASK);
+    }
+    
+    private void clearWindow() {
+        for (int i = 0; i < buckets; i++) {
+            window.set(i, 0L);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.notification.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶
+ * 
+ * 按 GCRA（通用信元速率算法）实现，与令牌桶等价：只保存一个“理论到达时间” tat，
+ * 每次放行把 tat 推后一个发放间隔；tat 领先当前时间不超过 (burst - 1) 个间隔时放行，否则拒绝并返回需要等待的时间。
+ * 整个状态是一个 AtomicLong，通过 CAS 更新
+ * 
+ * @author Notification System
+ */
+public class TokenBucket {
+    
+    private final double ratePerSecond;
+    private final int burst;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    
+    /**
+     * 理论到达时间（纳秒）
+     */
+    private final AtomicLong tat;
+    
+    /**
+     * @param ratePerSecond 每秒发放的令牌数
+     * @param burst 桶容量（允许的突发请求数）
+     */
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("ratePerSecond and burst must be positive");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.intervalNanos = Math.max(1L, (long) (1_000_000_000L / ratePerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.tat = new AtomicLong(Long.MIN_VALUE);
+    }
+    
+    /**
+     * 尝试取一个令牌
+     * 
+     * @return 0 表示放行；否则为下一个令牌可用前需要等待的纳秒数
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = tat.get();
+            long base = current == Long.MIN_VALUE || current - nowNanos < 0 ? nowNanos : current;
+            long waitNanos = base - nowNanos - toleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (tat.compareAndSet(current, base + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+    
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+    
+    public int getBurst() {
+        return burst;
+    }
+}
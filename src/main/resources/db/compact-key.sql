@@ -0,0 +1,15 @@
+-- 紧凑主键模式（notification.id.compact-key=true）
+-- 
+-- ID 生成器输出纯数字 Snowflake ID，主键改为 BIGINT：
+-- 8 字节定长且按时间递增，InnoDB 始终在聚簇索引末尾追加，不会因 50 字符 VARCHAR 主键随机插入而页分裂，
+-- 二级索引中携带的主键也随之变短。
+-- 
+-- 仅适用于新部署（表中尚无 ntf_ 前缀的历史数据），需在 schema.sql 之后、应用启动之前执行。
+
+USE notification_system;
+
+ALTER TABLE notification_task
+    MODIFY COLUMN id BIGINT NOT NULL COMMENT '通知任务ID，Snowflake 数值';
+
+ALTER TABLE notification_attempt
+    MODIFY COLUMN notification_id BIGINT NOT NULL COMMENT '关联通知任务ID';
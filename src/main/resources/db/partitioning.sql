@@ -0,0 +1,43 @@
+-- 按时间分区模式（notification.partition.enabled=true）
+-- 
+-- notification_task、notification_attempt 按 created_at 做 RANGE COLUMNS 分区：
+-- 新数据只写入最新分区，各二级索引的 B+ 树只随单个分区增长；超过保留期的分区由 PartitionMaintainer
+-- 整体删除或交换到压缩归档表，不再逐行 DELETE。未来分区也由 PartitionMaintainer 提前创建，
+-- 下面只建立一个初始分区和兜底的 pmax 分区。
+-- 
+-- MySQL 要求分区列出现在每个主键/唯一索引中，因此：
+-- 1. 主键改为 (id, created_at)，按 id 查询仍走主键前缀，但需要探测每个分区
+-- 2. 唯一索引 uk_event_active 改为 (event_id, event_active, created_at)。created_at 为秒级 DATETIME，
+--    因此索引只拦截 created_at 恰好相同（同一秒内）的重复 eventId，不再保证 eventId 在分区内或全表唯一。
+--    启用 notification.partition.enabled 后幂等快速路径强制关闭，每次创建前都按 eventId 查询活跃任务：
+--    已提交的重复请求会被拦截；并发到达（查询时对方尚未提交）且 created_at 不在同一秒的重复请求仍可能各自插入，
+--    导致供应商收到两次投递。需要严格幂等时不要启用分区，或在非分区的去重表上保证 event_id 唯一
+-- 
+-- 启用后应关闭 notification.retention（逐行清理），二者不要同时使用。
+-- 需在 schema.sql 之后执行；已有数据的表执行 ALTER 会重建整表，应在维护窗口进行。
+-- 初始分区边界请按部署日期调整（日分区为次日零点，月分区为次月一日）。
+
+USE notification_system;
+
+ALTER TABLE notification_task
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, created_at),
+    DROP INDEX uk_event_active,
+    ADD UNIQUE KEY uk_event_active (event_id, event_active, created_at);
+
+ALTER TABLE notification_task
+    PARTITION BY RANGE COLUMNS (created_at) (
+        PARTITION p_initial VALUES LESS THAN ('2026-11-01 00:00:00'),
+        PARTITION pmax VALUES LESS THAN (MAXVALUE)
+    );
+
+ALTER TABLE notification_attempt
+    MODIFY COLUMN id BIGINT NOT NULL AUTO_INCREMENT COMMENT '尝试记录ID',
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, created_at);
+
+ALTER TABLE notification_attempt
+    PARTITION BY RANGE COLUMNS (created_at) (
+        PARTITION p_initial VALUES LESS THAN ('2026-11-01 00:00:00'),
+        PARTITION pmax VALUES LESS THAN (MAXVALUE)
+    );
@@ -13,7 +13,7 @@ USE notification_system;
 -- 用途: 记录每一条通知任务的主信息与当前状态
 -- ============================================
 CREATE TABLE IF NOT EXISTS notification_task (
-    id VARCHAR(50) PRIMARY KEY COMMENT '通知任务ID，格式: ntf_yyyyMMddHHmmss_随机数',
+    id VARCHAR(50) PRIMARY KEY COMMENT '通知任务ID，格式: ntf_ + 19 位 Snowflake ID',
     vendor_code VARCHAR(50) COMMENT '供应商编码',
     target_url VARCHAR(500) NOT NULL COMMENT '实际调用URL',
     http_method VARCHAR(10) NOT NULL COMMENT 'HTTP方法: GET/POST/PUT/DELETE',
@@ -26,11 +26,17 @@ CREATE TABLE IF NOT EXISTS notification_task (
     last_error_code VARCHAR(50) COMMENT '最近错误代码',
     last_error_message VARCHAR(500) COMMENT '最近错误信息简要描述',
     event_id VARCHAR(100) COMMENT '业务幂等ID(如订单号/事件ID)',
+    event_active TINYINT COMMENT 'eventId 是否仍被占用: 1-进行中或去重窗口内成功, NULL-已释放',
     created_at DATETIME NOT NULL COMMENT '创建时间',
     updated_at DATETIME NOT NULL COMMENT '最近更新时间',
     last_attempt_at DATETIME COMMENT '最近一次尝试时间',
+    lease_until DATETIME COMMENT '投递租约到期时间，非空且未过期表示有节点正在投递',
+    next_attempt_at DATETIME COMMENT '下一次重试的计划时间(RETRYING 状态有效)',
     INDEX idx_status_vendor_created (status, vendor_code, created_at),
-    INDEX idx_event_id (event_id),
+    UNIQUE KEY uk_event_active (event_id, event_active),
+    INDEX idx_active_updated (event_active, updated_at),
+    INDEX idx_status_updated (status, updated_at, id),
+    INDEX idx_status_next_attempt (status, next_attempt_at, id),
     INDEX idx_created_at (created_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='通知任务表';
 
@@ -50,6 +56,12 @@ CREATE TABLE IF NOT EXISTS vendor_config (
     auth_config_json TEXT COMMENT '认证配置',
     default_max_retry INT DEFAULT 5 COMMENT '默认最大重试次数',
     default_timeout_ms INT DEFAULT 3000 COMMENT '默认超时时间(毫秒)',
+    max_connections INT COMMENT '连接池最大连接数，为空使用系统默认值',
+    acquire_timeout_ms INT COMMENT '从连接池获取连接的最长等待时间(毫秒)',
+    idle_ttl_ms INT COMMENT '空闲连接保活时间(毫秒)，超过后被回收',
+    connect_timeout_ms INT COMMENT '建立连接超时时间(毫秒)',
+    rate_limit_qps DOUBLE COMMENT '集群总限流速率(次/秒)，为空不限流，按存活节点数均分',
+    rate_limit_burst INT COMMENT '限流突发容量，为空等于速率',
     enabled TINYINT(1) NOT NULL DEFAULT 1 COMMENT '是否启用: 0-禁用, 1-启用',
     created_at DATETIME NOT NULL COMMENT '创建时间',
     updated_at DATETIME NOT NULL COMMENT '更新时间',
@@ -64,7 +76,7 @@ CREATE TABLE IF NOT EXISTS vendor_config (
 CREATE TABLE IF NOT EXISTS notification_attempt (
     id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '尝试记录ID',
     notification_id VARCHAR(50) NOT NULL COMMENT '关联通知任务ID',
-    attempt_no INT NOT NULL COMMENT '第几次尝试(从1开始)',
+    attempt_no INT NOT NULL COMMENT '第几轮尝试(retry_count+1，从1开始；429推迟等不消耗重试次数，同一轮可有多条)',
     request_headers TEXT COMMENT '本次请求头',
     request_body TEXT COMMENT '本次请求体',
     response_status INT COMMENT 'HTTP状态码',
@@ -77,11 +89,85 @@ CREATE TABLE IF NOT EXISTS notification_attempt (
     INDEX idx_created_at (created_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='通知尝试记录表';
 
+-- ============================================
+-- 表4: notification_outbox (通知发件箱表)
+-- 用途: 与通知任务同一事务写入，由 OutboxRelay 批量投递到 MQ，保证任务不会因 MQ 发送失败而遗留
+-- ============================================
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键',
+    notification_id VARCHAR(50) NOT NULL COMMENT '关联通知任务ID',
+    vendor_code VARCHAR(50) COMMENT '供应商编码',
+    status VARCHAR(20) NOT NULL COMMENT '状态: NEW/PUBLISHED',
+    claim_token VARCHAR(64) COMMENT '领取批次标识',
+    lease_until DATETIME COMMENT '领取租约到期时间，到期后其他节点可重新领取',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已尝试投递次数',
+    created_at DATETIME NOT NULL COMMENT '创建时间',
+    published_at DATETIME COMMENT '投递成功时间',
+    INDEX idx_status_id (status, id),
+    INDEX idx_claim_token (claim_token),
+    INDEX idx_published_at (published_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='通知发件箱表';
+
+-- ============================================
+-- 表5: cluster_node (集群节点表)
+-- 用途: 节点心跳，用于按存活节点数对后台扫描任务分片；同时租用 ID 生成器节点号，唯一索引保证不重复
+-- ============================================
+CREATE TABLE IF NOT EXISTS cluster_node (
+    node_name VARCHAR(100) PRIMARY KEY COMMENT '节点名称(主机名:进程号)',
+    id_node_id INT COMMENT '租用的 ID 生成器节点号(0-1023)',
+    started_at DATETIME NOT NULL COMMENT '启动时间',
+    heartbeat_at DATETIME NOT NULL COMMENT '最近心跳时间',
+    UNIQUE KEY uk_id_node_id (id_node_id),
+    INDEX idx_heartbeat_at (heartbeat_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='集群节点表';
+
+-- ============================================
+-- 表6: notification_task_archive / notification_attempt_archive (归档表)
+-- 用途: 分区模式下超过保留期的分区整体交换出来后写入，压缩存储；按 ID 查询状态时在主表未命中后回查
+-- ============================================
+CREATE TABLE IF NOT EXISTS notification_task_archive (
+    id VARCHAR(50) PRIMARY KEY COMMENT '通知任务ID',
+    vendor_code VARCHAR(50) COMMENT '供应商编码',
+    target_url VARCHAR(500) NOT NULL COMMENT '实际调用URL',
+    http_method VARCHAR(10) NOT NULL COMMENT 'HTTP方法',
+    headers_json TEXT COMMENT '请求头JSON',
+    body_json TEXT COMMENT '请求体JSON',
+    status VARCHAR(20) NOT NULL COMMENT '任务状态',
+    retry_count INT NOT NULL DEFAULT 0 COMMENT '已重试次数',
+    max_retry INT NOT NULL DEFAULT 5 COMMENT '最大重试次数',
+    callback_timeout_ms INT NOT NULL DEFAULT 3000 COMMENT '调用超时时间(毫秒)',
+    last_error_code VARCHAR(50) COMMENT '最近错误代码',
+    last_error_message VARCHAR(500) COMMENT '最近错误信息',
+    event_id VARCHAR(100) COMMENT '业务幂等ID',
+    event_active TINYINT COMMENT '归档时置为 NULL，不再占用 eventId',
+    created_at DATETIME NOT NULL COMMENT '创建时间',
+    updated_at DATETIME NOT NULL COMMENT '最近更新时间',
+    last_attempt_at DATETIME COMMENT '最近一次尝试时间',
+    lease_until DATETIME COMMENT '投递租约到期时间',
+    next_attempt_at DATETIME COMMENT '下一次重试的计划时间',
+    INDEX idx_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8 COMMENT='通知任务归档表';
+
+CREATE TABLE IF NOT EXISTS notification_attempt_archive (
+    id BIGINT PRIMARY KEY COMMENT '尝试记录ID',
+    notification_id VARCHAR(50) NOT NULL COMMENT '关联通知任务ID',
+    attempt_no INT NOT NULL COMMENT '第几轮尝试(同一轮可有多条)',
+    request_headers TEXT COMMENT '本次请求头',
+    request_body TEXT COMMENT '本次请求体',
+    response_status INT COMMENT 'HTTP状态码',
+    response_body TEXT COMMENT '响应体',
+    error_code VARCHAR(50) COMMENT '错误代码',
+    error_message VARCHAR(500) COMMENT '错误信息摘要',
+    cost_ms INT COMMENT '本次调用耗时(毫秒)',
+    created_at DATETIME NOT NULL COMMENT '尝试时间',
+    INDEX idx_notification_id (notification_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8 COMMENT='通知尝试记录归档表';
+
 -- ============================================
 -- 初始化供应商配置示例数据
 -- ============================================
-INSERT INTO vendor_config (vendor_code, base_url, default_path, default_http_method, auth_type, default_max_retry, default_timeout_ms, enabled, created_at, updated_at)
+INSERT INTO vendor_config (vendor_code, base_url, default_path, default_http_method, auth_type, default_max_retry, default_timeout_ms, rate_limit_qps, rate_limit_burst, enabled, created_at, updated_at)
 VALUES 
-('AD_SYSTEM_A', 'https://api.ad-system-a.com', '/notify', 'POST', 'TOKEN', 5, 3000, 1, NOW(), NOW()),
-('CRM_SYSTEM', 'https://api.crm-system.com', '/webhook', 'POST', 'BASIC', 3, 5000, 1, NOW(), NOW()),
-('INVENTORY_SYSTEM', 'https://api.inventory.com', '/update', 'PUT', 'NONE', 5, 3000, 1, NOW(), NOW());
+('AD_SYSTEM_A', 'https://api.ad-system-a.com', '/notify', 'POST', 'TOKEN', 5, 3000, NULL, NULL, 1, NOW(), NOW()),
+('CRM_SYSTEM', 'https://api.crm-system.com', '/webhook', 'POST', 'BASIC', 3, 5000, 20, 40, 1, NOW(), NOW()),
+('INVENTORY_SYSTEM', 'https://api.inventory.com', '/update', 'PUT', 'NONE', 5, 3000, NULL, NULL, 1, NOW(), NOW());
@@ -15,13 +15,20 @@ CREATE TABLE IF NOT EXISTS notification_task (
     last_error_code VARCHAR(50),
     last_error_message VARCHAR(500),
     event_id VARCHAR(100),
+    event_active TINYINT,
     created_at TIMESTAMP NOT NULL,
     updated_at TIMESTAMP NOT NULL,
-    last_attempt_at TIMESTAMP
+    last_attempt_at TIMESTAMP,
+    lease_until TIMESTAMP,
+    next_attempt_at TIMESTAMP
 );
 
 CREATE INDEX IF NOT EXISTS idx_status_vendor_created ON notification_task(status, vendor_code, created_at);
-CREATE INDEX IF NOT EXISTS idx_event_id ON notification_task(event_id);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_event_active ON notification_task(event_id, event_active);
+CREATE INDEX IF NOT EXISTS idx_active_updated ON notification_task(event_active, updated_at);
+CREATE INDEX IF NOT EXISTS idx_status_updated ON notification_task(status, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_status_next_attempt ON notification_task(status, next_attempt_at, id);
+CREATE INDEX IF NOT EXISTS idx_created_at ON notification_task(created_at);
 
 -- 供应商配置表
 CREATE TABLE IF NOT EXISTS vendor_config (
@@ -35,6 +42,12 @@ CREATE TABLE IF NOT EXISTS vendor_config (
     auth_config_json TEXT,
     default_max_retry INT DEFAULT 5,
     default_timeout_ms INT DEFAULT 3000,
+    max_connections INT,
+    acquire_timeout_ms INT,
+    idle_ttl_ms INT,
+    connect_timeout_ms INT,
+    rate_limit_qps DOUBLE,
+    rate_limit_burst INT,
     enabled BOOLEAN NOT NULL DEFAULT TRUE,
     created_at TIMESTAMP NOT NULL,
     updated_at TIMESTAMP NOT NULL
@@ -55,9 +68,74 @@ CREATE TABLE IF NOT EXISTS notification_attempt (
     created_at TIMESTAMP NOT NULL
 );
 
+CREATE INDEX IF NOT EXISTS idx_attempt_notification_id ON notification_attempt(notification_id);
+
+-- 归档表（分区模式下由 PartitionMaintainer 写入，H2 中仅用于状态查询回查）
+CREATE TABLE IF NOT EXISTS notification_task_archive (
+    id VARCHAR(50) PRIMARY KEY,
+    vendor_code VARCHAR(50),
+    target_url VARCHAR(500) NOT NULL,
+    http_method VARCHAR(10) NOT NULL,
+    headers_json TEXT,
+    body_json TEXT,
+    status VARCHAR(20) NOT NULL,
+    retry_count INT NOT NULL DEFAULT 0,
+    max_retry INT NOT NULL DEFAULT 5,
+    callback_timeout_ms INT NOT NULL DEFAULT 3000,
+    last_error_code VARCHAR(50),
+    last_error_message VARCHAR(500),
+    event_id VARCHAR(100),
+    event_active TINYINT,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    last_attempt_at TIMESTAMP,
+    lease_until TIMESTAMP,
+    next_attempt_at TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS notification_attempt_archive (
+    id BIGINT PRIMARY KEY,
+    notification_id VARCHAR(50) NOT NULL,
+    attempt_no INT NOT NULL,
+    request_headers TEXT,
+    request_body TEXT,
+    response_status INT,
+    response_body TEXT,
+    error_code VARCHAR(50),
+    error_message VARCHAR(500),
+    cost_ms INT,
+    created_at TIMESTAMP NOT NULL
+);
+
+-- 通知发件箱表
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    notification_id VARCHAR(50) NOT NULL,
+    vendor_code VARCHAR(50),
+    status VARCHAR(20) NOT NULL,
+    claim_token VARCHAR(64),
+    lease_until TIMESTAMP,
+    attempts INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL,
+    published_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_status_id ON notification_outbox(status, id);
+CREATE INDEX IF NOT EXISTS idx_outbox_claim_token ON notification_outbox(claim_token);
+CREATE INDEX IF NOT EXISTS idx_outbox_published_at ON notification_outbox(published_at);
+
+-- 集群节点表
+CREATE TABLE IF NOT EXISTS cluster_node (
+    node_name VARCHAR(100) PRIMARY KEY,
+    id_node_id INT,
+    started_at TIMESTAMP NOT NULL,
+    heartbeat_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_id_node_id UNIQUE (id_node_id)
+);
+
 -- 插入示例供应商配置
-INSERT INTO vendor_config (vendor_code, base_url, default_path, default_http_method, auth_type, default_max_retry, default_timeout_ms, enabled, created_at, updated_at)
+INSERT INTO vendor_config (vendor_code, base_url, default_path, default_http_method, auth_type, default_max_retry, default_timeout_ms, rate_limit_qps, rate_limit_burst, enabled, created_at, updated_at)
 VALUES 
-('AD_SYSTEM_A', 'https://api.ad-system-a.com', '/notify', 'POST', 'TOKEN', 5, 3000, TRUE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-('CRM_SYSTEM', 'https://api.crm-system.com', '/webhook', 'POST', 'BASIC', 3, 5000, TRUE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-('INVENTORY_SYSTEM', 'https://api.inventory.com', '/update', 'PUT', 'NONE', 5, 3000, TRUE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+('AD_SYSTEM_A', 'https://api.ad-system-a.com', '/notify', 'POST', 'TOKEN', 5, 3000, NULL, NULL, TRUE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+('CRM_SYSTEM', 'https://api.crm-system.com', '/webhook', 'POST', 'BASIC', 3, 5000, 20, 40, TRUE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+('INVENTORY_SYSTEM', 'https://api.inventory.com', '/update', 'PUT', 'NONE', 5, 3000, NULL, NULL, TRUE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
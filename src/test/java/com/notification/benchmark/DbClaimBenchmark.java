@@ -0,0 +1,222 @@
+package com.notification.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据库轮询模式的批量领取吞吐基准
+ * 
+ * 预置 --rows 条到期的 PENDING 任务，模拟 N 个节点（每个节点 --pollers 个轮询线程、各自一个连接）
+ * 用与 NotificationTaskMapper.selectDueForUpdate / leaseClaimed 相同的 SQL 领取并写租约，
+ * 领取提交后在另一个事务中标记完成，直到任务全部领取。输出各节点数下的领取吞吐、单次领取耗时，
+ * 并检查是否有任务被重复领取。
+ * 
+ * 需要 MySQL 8（FOR UPDATE SKIP LOCKED）；H2 不支持 SKIP LOCKED，只能串行领取做冒烟：
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.notification.benchmark.DbClaimBenchmark \
+ *   -Dexec.args="--url jdbc:mysql://127.0.0.1:3306/bench --user root --password secret --rows 200000 --nodes 1,2,4,8"
+ */
+public class DbClaimBenchmark {
+    
+    private static final String TABLE = "bench_claim_task";
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String url = options.getOrDefault("url", "jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        String user = options.getOrDefault("user", "sa");
+        String password = options.getOrDefault("password", "");
+        int rows = Integer.parseInt(options.getOrDefault("rows", "200000"));
+        int batch = Integer.parseInt(options.getOrDefault("batch", "64"));
+        int pollers = Integer.parseInt(options.getOrDefault("pollers", "2"));
+        int[] nodes = Arrays.stream(options.getOrDefault("nodes", "1,2,4,8").split(","))
+                .mapToInt(value -> Integer.parseInt(value.trim()))
+                .toArray();
+        boolean skipLocked = url.startsWith("jdbc:mysql");
+        
+        System.out.printf("rows=%,d batch=%d pollers/node=%d skipLocked=%s url=%s%n%n", rows, batch, pollers, skipLocked, url);
+        System.out.printf("%-6s %-10s %-14s %-16s %-16s %-10s%n",
+                "nodes", "seconds", "claims/s", "avg claim ms", "avg batch", "duplicates");
+        for (int nodeCount : nodes) {
+            prepare(url, user, password, rows);
+            run(url, user, password, nodeCount, pollers, rows, batch, skipLocked);
+        }
+    }
+    
+    private static void run(String url, String user, String password, int nodeCount, int pollers,
+                            int rows, int batch, boolean skipLocked) throws Exception {
+        AtomicIntegerArray claimCounts = new AtomicIntegerArray(rows);
+        AtomicLong claimedRows = new AtomicLong();
+        AtomicLong claimNanos = new AtomicLong();
+        AtomicLong claimBatches = new AtomicLong();
+        List<Throwable> errors = new ArrayList<>();
+        int threads = nodeCount * pollers;
+        CountDownLatch done = new CountDownLatch(threads);
+        
+        String select = "SELECT id, callback_timeout_ms FROM " + TABLE + " WHERE status = ? "
+                + "AND (next_attempt_at IS NULL OR next_attempt_at <= ?) AND (lease_until IS NULL OR lease_until < ?) "
+                + "ORDER BY next_attempt_at, id LIMIT ? FOR UPDATE" + (skipLocked ? " SKIP LOCKED" : "");
+        long begin = System.nanoTime();
+        for (int node = 0; node < nodeCount; node++) {
+            // 没有 SKIP LOCKED 时与 DbTaskPoller 一样，同一节点内的轮询线程串行领取
+            Object nodeClaimLock = new Object();
+            for (int p = 0; p < pollers; p++) {
+                Thread worker = new Thread(() -> {
+                    try (Connection connection = DriverManager.getConnection(url, user, password)) {
+                        connection.setAutoCommit(false);
+                        while (true) {
+                            long start = System.nanoTime();
+                            List<String> ids;
+                            if (skipLocked) {
+                                ids = claim(connection, select, batch);
+                            } else {
+                                synchronized (nodeClaimLock) {
+                                    ids = claim(connection, select, batch);
+                                }
+                            }
+                            if (ids.isEmpty()) {
+                                break;
+                            }
+                            claimNanos.addAndGet(System.nanoTime() - start);
+                            claimBatches.incrementAndGet();
+                            claimedRows.addAndGet(ids.size());
+                            for (String id : ids) {
+                                claimCounts.incrementAndGet(Integer.parseInt(id.substring(1)));
+                            }
+                            complete(connection, ids);
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }, "bench-node-" + node + "-poller-" + p);
+                worker.start();
+            }
+        }
+        done.await();
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("claim failed", errors.get(0));
+        }
+        
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        int duplicates = 0;
+        int missing = 0;
+        for (int i = 0; i < rows; i++) {
+            int count = claimCounts.get(i);
+            duplicates += Math.max(0, count - 1);
+            missing += count == 0 ? 1 : 0;
+        }
+        long batches = Math.max(1, claimBatches.get());
+        System.out.printf("%-6d %-10.2f %,-14.0f %-16.2f %-16.1f %-10d%s%n", nodeCount, seconds, claimedRows.get() / seconds,
+                claimNanos.get() / 1e6 / batches, (double) claimedRows.get() / batches, duplicates,
+                missing > 0 ? "  (" + missing + " rows never claimed)" : "");
+    }
+    
+    /**
+     * 在一个事务中锁定一批到期任务并写入租约
+     */
+    private static List<String> claim(Connection connection, String select, int batch) throws Exception {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<String> ids = new ArrayList<>(batch);
+        int timeoutMs = 3000;
+        try (PreparedStatement statement = connection.prepareStatement(select)) {
+            statement.setString(1, "PENDING");
+            statement.setTimestamp(2, now);
+            statement.setTimestamp(3, now);
+            statement.setInt(4, batch);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getString(1));
+                    timeoutMs = rs.getInt(2);
+                }
+            }
+        }
+        if (!ids.isEmpty()) {
+            Timestamp leaseUntil = Timestamp.valueOf(now.toLocalDateTime().plusNanos((timeoutMs + 5000) * 1_000_000L));
+            try (PreparedStatement update = connection.prepareStatement("UPDATE " + TABLE
+                    + " SET lease_until = ?, next_attempt_at = ?, updated_at = ? WHERE id IN (" + placeholders(ids.size()) + ")")) {
+                update.setTimestamp(1, leaseUntil);
+                update.setTimestamp(2, leaseUntil);
+                update.setTimestamp(3, now);
+                for (int i = 0; i < ids.size(); i++) {
+                    update.setString(4 + i, ids.get(i));
+                }
+                update.executeUpdate();
+            }
+        }
+        connection.commit();
+        return ids;
+    }
+    
+    /**
+     * 投递结果落库：状态改为 SUCCESS 并释放租约
+     */
+    private static void complete(Connection connection, List<String> ids) throws Exception {
+        try (PreparedStatement update = connection.prepareStatement("UPDATE " + TABLE
+                + " SET status = 'SUCCESS', lease_until = NULL, next_attempt_at = NULL, updated_at = ? WHERE id IN ("
+                + placeholders(ids.size()) + ")")) {
+            update.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            for (int i = 0; i < ids.size(); i++) {
+                update.setString(2 + i, ids.get(i));
+            }
+            update.executeUpdate();
+        }
+        connection.commit();
+    }
+    
+    private static void prepare(String url, String user, String password, int rows) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS " + TABLE);
+                statement.execute("CREATE TABLE " + TABLE + " (id VARCHAR(50) NOT NULL, status VARCHAR(20) NOT NULL, "
+                        + "callback_timeout_ms INT NOT NULL DEFAULT 3000, created_at DATETIME NOT NULL, updated_at DATETIME NOT NULL, "
+                        + "lease_until DATETIME, next_attempt_at DATETIME, PRIMARY KEY (id), "
+                        + "INDEX idx_status_next_attempt (status, next_attempt_at, id))");
+            }
+            connection.setAutoCommit(false);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + TABLE
+                    + " (id, status, created_at, updated_at) VALUES (?, 'PENDING', ?, ?)")) {
+                for (int i = 0; i < rows; i++) {
+                    // 固定宽度的 ID，字典序与插入顺序一致
+                    insert.setString(1, String.format("n%09d", i));
+                    insert.setTimestamp(2, now);
+                    insert.setTimestamp(3, now);
+                    insert.addBatch();
+                    if ((i + 1) % 1000 == 0 || i == rows - 1) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                }
+            }
+        }
+    }
+    
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+    
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,207 @@
+package com.notification.benchmark;
+
+import com.notification.mq.InProcessBroker;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 进程内 broker 基准
+ * 
+ * 1. 持续吞吐：多个生产者全速发送，统计 messages/sec 以及入队到开始处理的延迟（饱和时以排队时间为主）
+ * 2. 固定速率：低于饱和点的恒定速率下入队到开始处理的 p50/p99 延迟
+ * 3. 背压：处理变慢时发送方被限速到处理速率；处理停滞时发送方在 enqueueTimeoutMs 后收到拒绝，队列长度不会超过容量
+ * 4. 延迟消息：大量延迟消息等待期间线程数不变（对比原来每条消息占用一个休眠线程），统计触发偏差
+ * 
+ * 运行方式（不属于单元测试）：
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.notification.benchmark.InProcessBrokerBenchmark
+ */
+public class InProcessBrokerBenchmark {
+    
+    private static final int PRODUCERS = 4;
+    private static final int WORKERS = 8;
+    private static final int MESSAGES = 2_000_000;
+    private static final int DELAYED = 200_000;
+    private static final int PACED_RATE = 200_000;
+    private static final int PACED_SECONDS = 5;
+    
+    public static void main(String[] args) throws Exception {
+        // 预热
+        sustainedThroughput(200_000, false);
+        sustainedThroughput(MESSAGES, true);
+        pacedLatency();
+        backpressure();
+        delayedMessages();
+    }
+    
+    private static void sustainedThroughput(int messages, boolean print) throws InterruptedException {
+        long[] latencies = new long[messages];
+        AtomicInteger recorded = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(messages);
+        InProcessBroker<Integer> broker = new InProcessBroker<>("bench-mq", 65536, WORKERS, 200, 10, 1_000_000,
+                message -> done.countDown(),
+                nanos -> latencies[recorded.getAndIncrement()] = nanos);
+        broker.start();
+        
+        long start = System.nanoTime();
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            int from = p * (messages / PRODUCERS);
+            int to = p == PRODUCERS - 1 ? messages : from + messages / PRODUCERS;
+            producers[p] = new Thread(() -> {
+                for (int i = from; i < to; i++) {
+                    broker.publish(i);
+                }
+            });
+            producers[p].start();
+        }
+        if (!done.await(60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("broker did not deliver all messages");
+        }
+        long elapsedNs = System.nanoTime() - start;
+        broker.shutdown();
+        
+        if (print) {
+            Arrays.sort(latencies);
+            System.out.printf("== Sustained throughput (%d producers, %d workers, queue 65536, %d messages) ==%n",
+                    PRODUCERS, WORKERS, messages);
+            System.out.printf("throughput: %.0f msgs/sec, rejected=%d%n",
+                    messages / (elapsedNs / 1e9), broker.getRejectedCount());
+            System.out.printf("enqueue-to-dispatch us: p50=%.1f p99=%.1f max=%.1f%n%n",
+                    latencies[messages / 2] / 1e3, latencies[(int) (messages * 0.99)] / 1e3,
+                    latencies[messages - 1] / 1e3);
+        }
+    }
+    
+    private static void pacedLatency() throws InterruptedException {
+        int messages = PACED_RATE * PACED_SECONDS;
+        long[] latencies = new long[messages];
+        AtomicInteger recorded = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(messages);
+        InProcessBroker<Integer> broker = new InProcessBroker<>("bench-mq", 65536, WORKERS, 200, 10, 1_000_000,
+                message -> done.countDown(),
+                nanos -> latencies[recorded.getAndIncrement()] = nanos);
+        broker.start();
+        
+        // 单个生产者按固定间隔发送，超前时让出 CPU（不自旋，避免在少核机器上挤占工作线程），落后时追赶而不是跳过
+        long intervalNs = 1_000_000_000L / PACED_RATE;
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            long aheadNs = start + i * intervalNs - System.nanoTime();
+            if (aheadNs > 0) {
+                LockSupport.parkNanos(aheadNs);
+            }
+            broker.publish(i);
+        }
+        if (!done.await(60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("broker did not deliver all messages");
+        }
+        broker.shutdown();
+        
+        Arrays.sort(latencies);
+        System.out.printf("== Paced latency (%d msgs/sec for %ds, %d workers, %d cpus) ==%n",
+                PACED_RATE, PACED_SECONDS, WORKERS, Runtime.getRuntime().availableProcessors());
+        System.out.printf("enqueue-to-dispatch us: p50=%.1f p99=%.1f p99.9=%.1f max=%.1f%n%n",
+                latencies[messages / 2] / 1e3, latencies[(int) (messages * 0.99)] / 1e3,
+                latencies[(int) (messages * 0.999)] / 1e3, latencies[messages - 1] / 1e3);
+    }
+    
+    private static void backpressure() throws InterruptedException {
+        int capacity = 1024;
+        AtomicLong handled = new AtomicLong();
+        CountDownLatch release = new CountDownLatch(1);
+        InProcessBroker<Integer> broker = new InProcessBroker<>("bench-mq", capacity, 2, 20, 10, 1_000_000,
+                message -> {
+                    if (message < 0) {
+                        // 模拟下游停滞
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return;
+                    }
+                    // 模拟 1ms 的下游调用
+                    LockSupport.parkNanos(1_000_000L);
+                    handled.incrementAndGet();
+                },
+                nanos -> { });
+        broker.start();
+        
+        // 处理变慢：发送方被限速
+        long accepted = 0;
+        int maxQueued = 0;
+        long slowStart = System.nanoTime();
+        long deadline = slowStart + TimeUnit.SECONDS.toNanos(3);
+        while (System.nanoTime() < deadline) {
+            broker.publish(1);
+            accepted++;
+            maxQueued = Math.max(maxQueued, broker.getQueuedCount());
+        }
+        double slowSeconds = (System.nanoTime() - slowStart) / 1e9;
+        
+        // 处理停滞：两个工作线程都卡住后队列被打满，发送方在等待 20ms 后收到拒绝
+        broker.publish(-1);
+        broker.publish(-1);
+        int rejectedAttempts = 0;
+        long rejectedWaitNs = 0;
+        while (rejectedAttempts < 50) {
+            long before = System.nanoTime();
+            try {
+                broker.publish(1);
+            } catch (RejectedExecutionException e) {
+                // 调用方（发件箱中继）在这里推迟后重试
+                rejectedAttempts++;
+                rejectedWaitNs += System.nanoTime() - before;
+            }
+        }
+        maxQueued = Math.max(maxQueued, broker.getQueuedCount());
+        release.countDown();
+        broker.shutdown();
+        
+        System.out.println("== Backpressure (2 workers x 1ms handler, queue 1024, 20ms enqueue timeout) ==");
+        System.out.printf("slow consumer: producer throttled to %.0f msgs/sec (handled %d in %.1fs)%n",
+                accepted / slowSeconds, handled.get(), slowSeconds);
+        System.out.printf("stalled consumer: %d publishes rejected after %.1f ms each, max queued=%d (capacity %d)%n%n",
+                rejectedAttempts, rejectedWaitNs / 1e6 / rejectedAttempts, maxQueued, capacity);
+    }
+    
+    private static void delayedMessages() throws InterruptedException {
+        long[] deadlines = new long[DELAYED];
+        long[] lateness = new long[DELAYED];
+        CountDownLatch done = new CountDownLatch(DELAYED);
+        InProcessBroker<Integer> broker = new InProcessBroker<>("bench-mq", 65536, WORKERS, 200, 10, 1_000_000,
+                index -> {
+                    lateness[index] = System.currentTimeMillis() - deadlines[index];
+                    done.countDown();
+                },
+                nanos -> { });
+        broker.start();
+        int threadsBefore = Thread.activeCount();
+        
+        for (int i = 0; i < DELAYED; i++) {
+            long delayMs = 500 + ThreadLocalRandom.current().nextInt(3_000);
+            deadlines[i] = System.currentTimeMillis() + delayMs;
+            broker.publishDelayed(i, delayMs);
+        }
+        int threadsWhilePending = Thread.activeCount();
+        long pending = broker.getDelayedCount();
+        if (!done.await(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("broker did not deliver all delayed messages");
+        }
+        broker.shutdown();
+        
+        Arrays.sort(lateness);
+        System.out.printf("== Delayed messages (%d over 0.5s..3.5s) ==%n", DELAYED);
+        System.out.printf("threads: before=%d while %d pending=%d (sleep-per-message would need %d)%n",
+                threadsBefore, pending, threadsWhilePending, DELAYED);
+        System.out.printf("lateness ms: p50=%d p99=%d max=%d (never early: %s)%n",
+                lateness[DELAYED / 2], lateness[(int) (DELAYED * 0.99)], lateness[DELAYED - 1], lateness[0] >= 0);
+    }
+}
@@ -0,0 +1,226 @@
+package com.notification.benchmark;
+
+import com.notification.util.IdGenerator;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分区表 vs 普通表的插入吞吐基准
+ * 
+ * 用与 notification_task 相同的列和二级索引建两张表：普通表，以及按 db/partitioning.sql 调整主键/唯一索引后
+ * 按 created_at 日分区的表。多个线程以多行 INSERT 持续写入，created_at 随写入进度均匀推进 --days 天，
+ * 模拟稳定的日常写入。每写入 --report-every 行输出一次该窗口的吞吐，观察表增大后插入速度的衰减。
+ * 
+ * 需要 MySQL（H2 不支持分区，只能跑 plain 做冒烟）。1 亿行需要数小时和约 60GB 磁盘：
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.notification.benchmark.PartitionedInsertBenchmark \
+ *   -Dexec.args="--url jdbc:mysql://127.0.0.1:3306/bench --user root --password secret --rows 100000000 --mode both"
+ */
+public class PartitionedInsertBenchmark {
+    
+    private static final String COLUMNS = "id, vendor_code, target_url, http_method, headers_json, body_json, status, "
+            + "retry_count, max_retry, callback_timeout_ms, event_id, event_active, created_at, updated_at";
+    
+    private static final String COLUMN_DEFINITIONS = "id VARCHAR(50) NOT NULL, vendor_code VARCHAR(50), "
+            + "target_url VARCHAR(500) NOT NULL, http_method VARCHAR(10) NOT NULL, headers_json TEXT, body_json TEXT, "
+            + "status VARCHAR(20) NOT NULL, retry_count INT NOT NULL DEFAULT 0, max_retry INT NOT NULL DEFAULT 5, "
+            + "callback_timeout_ms INT NOT NULL DEFAULT 3000, last_error_code VARCHAR(50), last_error_message VARCHAR(500), "
+            + "event_id VARCHAR(100), event_active TINYINT, created_at DATETIME NOT NULL, updated_at DATETIME NOT NULL, "
+            + "last_attempt_at DATETIME, lease_until DATETIME, next_attempt_at DATETIME";
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String url = options.getOrDefault("url", "jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        String user = options.getOrDefault("user", "sa");
+        String password = options.getOrDefault("password", "");
+        long rows = Long.parseLong(options.getOrDefault("rows", "100000000"));
+        int batch = Integer.parseInt(options.getOrDefault("batch", "1000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+        int days = Integer.parseInt(options.getOrDefault("days", "90"));
+        long reportEvery = Long.parseLong(options.getOrDefault("report-every", String.valueOf(Math.max(batch, rows / 20))));
+        String mode = options.getOrDefault("mode", "both");
+        boolean mysql = url.startsWith("jdbc:mysql");
+        
+        System.out.printf("rows=%,d batch=%d threads=%d days=%d mode=%s url=%s%n%n", rows, batch, threads, days, mode, url);
+        if (!mode.equals("partitioned")) {
+            run(url, user, password, "bench_task_plain", false, mysql, rows, batch, threads, days, reportEvery);
+        }
+        if (!mode.equals("plain")) {
+            if (!mysql) {
+                System.out.println("partitioned run skipped: requires MySQL");
+                return;
+            }
+            run(url, user, password, "bench_task_partitioned", true, mysql, rows, batch, threads, days, reportEvery);
+        }
+    }
+    
+    private static void run(String url, String user, String password, String table, boolean partitioned, boolean mysql,
+                            long rows, int batch, int threads, int days, long reportEvery) throws Exception {
+        LocalDateTime start = LocalDate.now().minusDays(days).atStartOfDay();
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute(createTable(table, partitioned, mysql, start, days));
+        }
+        
+        System.out.printf("== %s ==%n", table);
+        System.out.printf("%-16s %-14s %-14s%n", "rows", "window rows/s", "total rows/s");
+        
+        AtomicLong claimed = new AtomicLong();
+        AtomicLong inserted = new AtomicLong();
+        AtomicLong windowStart = new AtomicLong(System.nanoTime());
+        AtomicLong nextReport = new AtomicLong(reportEvery);
+        long begin = System.nanoTime();
+        long spanSeconds = days * 86_400L;
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Throwable> errors = new ArrayList<>();
+        String sql = insertSql(table, batch);
+        
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try (Connection connection = DriverManager.getConnection(url, user, password);
+                     PreparedStatement insert = connection.prepareStatement(sql)) {
+                    connection.setAutoCommit(true);
+                    while (true) {
+                        long from = claimed.getAndAdd(batch);
+                        if (from >= rows) {
+                            break;
+                        }
+                        int size = (int) Math.min(batch, rows - from);
+                        PreparedStatement statement = size == batch ? insert : connection.prepareStatement(insertSql(table, size));
+                        int p = 1;
+                        for (int i = 0; i < size; i++) {
+                            // created_at 随进度推进，与真实写入一样总是落在最新分区
+                            LocalDateTime createdAt = start.plusSeconds(spanSeconds * (from + i) / rows);
+                            p = bind(statement, p, createdAt);
+                        }
+                        statement.executeUpdate();
+                        if (statement != insert) {
+                            statement.close();
+                        }
+                        report(inserted.addAndGet(size), nextReport, reportEvery, windowStart, begin);
+                    }
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "bench-insert-" + t);
+            worker.start();
+        }
+        done.await();
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("insert failed", errors.get(0));
+        }
+        
+        double totalSeconds = (System.nanoTime() - begin) / 1e9;
+        System.out.printf("total: %,d rows in %.1fs = %,.0f rows/s%n", inserted.get(), totalSeconds, inserted.get() / totalSeconds);
+        if (mysql) {
+            printSize(url, user, password, table);
+        }
+        System.out.println();
+    }
+    
+    private static synchronized void report(long total, AtomicLong nextReport, long reportEvery,
+                                            AtomicLong windowStart, long begin) {
+        if (total < nextReport.get()) {
+            return;
+        }
+        long now = System.nanoTime();
+        double windowSeconds = (now - windowStart.get()) / 1e9;
+        double totalSeconds = (now - begin) / 1e9;
+        System.out.printf("%,-16d %,-14.0f %,-14.0f%n", total, reportEvery / windowSeconds, total / totalSeconds);
+        windowStart.set(now);
+        nextReport.addAndGet(reportEvery);
+    }
+    
+    private static int bind(PreparedStatement statement, int p, LocalDateTime createdAt) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Timestamp timestamp = Timestamp.valueOf(createdAt);
+        statement.setString(p++, IdGenerator.generateNotificationId());
+        statement.setString(p++, "VENDOR_" + random.nextInt(20));
+        statement.setString(p++, "https://api.vendor.example.com/webhook");
+        statement.setString(p++, "POST");
+        statement.setString(p++, "{\"Content-Type\":\"application/json\"}");
+        statement.setString(p++, "{\"orderId\":\"" + random.nextLong(1L << 40) + "\",\"amount\":" + random.nextInt(100_000) + "}");
+        statement.setString(p++, random.nextInt(100) < 97 ? "SUCCESS" : "FAILED");
+        statement.setInt(p++, 0);
+        statement.setInt(p++, 5);
+        statement.setInt(p++, 3000);
+        statement.setString(p++, "evt_" + random.nextLong(Long.MAX_VALUE));
+        statement.setObject(p++, null);
+        statement.setTimestamp(p++, timestamp);
+        statement.setTimestamp(p++, timestamp);
+        return p;
+    }
+    
+    private static String insertSql(String table, int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (").append(COLUMNS).append(") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "" : ",").append("(?,?,?,?,?,?,?,?,?,?,?,?,?,?)");
+        }
+        return sql.toString();
+    }
+    
+    private static String createTable(String table, boolean partitioned, boolean mysql, LocalDateTime start, int days) {
+        StringBuilder ddl = new StringBuilder("CREATE TABLE ").append(table).append(" (").append(COLUMN_DEFINITIONS);
+        if (partitioned) {
+            ddl.append(", PRIMARY KEY (id, created_at), UNIQUE KEY uk_event_active (event_id, event_active, created_at)");
+        } else {
+            ddl.append(", PRIMARY KEY (id), UNIQUE KEY uk_event_active (event_id, event_active)");
+        }
+        ddl.append(", INDEX idx_status_vendor_created (status, vendor_code, created_at)")
+                .append(", INDEX idx_active_updated (event_active, updated_at)")
+                .append(", INDEX idx_status_updated (status, updated_at, id)")
+                .append(", INDEX idx_status_next_attempt (status, next_attempt_at, id)")
+                .append(", INDEX idx_created_at (created_at))");
+        if (mysql) {
+            ddl.append(" ENGINE=InnoDB DEFAULT CHARSET=utf8mb4");
+        }
+        if (partitioned) {
+            ddl.append(" PARTITION BY RANGE COLUMNS (created_at) (");
+            for (int day = 1; day <= days + 1; day++) {
+                ddl.append("PARTITION p").append(day).append(" VALUES LESS THAN ('").append(start.plusDays(day).toLocalDate()).append("'), ");
+            }
+            ddl.append("PARTITION pmax VALUES LESS THAN (MAXVALUE))");
+        }
+        return ddl.toString();
+    }
+    
+    private static void printSize(String url, String user, String password, String table) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+             PreparedStatement statement = connection.prepareStatement("SELECT DATA_LENGTH, INDEX_LENGTH FROM information_schema.TABLES "
+                     + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?")) {
+            statement.setString(1, table);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) {
+                    System.out.printf("size: data=%,d MB, index=%,d MB%n", rs.getLong(1) >> 20, rs.getLong(2) >> 20);
+                }
+            }
+        }
+    }
+    
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+}
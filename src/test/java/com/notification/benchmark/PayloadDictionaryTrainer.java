@@ -0,0 +1,163 @@
+package com.notification.benchmark;
+
+import com.notification.util.PayloadCodec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Deflate 预训练字典生成工具
+ * 
+ * 输入为样本文件（每行一个载荷，如从 notification_task 导出的 body_json），统计各长度为 --segment 的片段
+ * 出现在多少个样本中，按覆盖样本数从高到低挑选互不重复的片段拼成不超过 --size 字节的字典。
+ * Deflate 回溯距离越近编码越短，覆盖最多的片段放在字典末尾。
+ * 
+ * 生成的字典配置到 notification.payload-compression.dictionaries（第一个用于压缩），已使用的字典不能删除：
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.notification.benchmark.PayloadDictionaryTrainer \
+ *   -Dexec.args="--samples body-samples.txt --out payload.dict --size 16384"
+ */
+public class PayloadDictionaryTrainer {
+    
+    /**
+     * Deflate 的回溯窗口为 32KB，超出部分不会被引用
+     */
+    private static final int MAX_SIZE = 32 * 1024;
+    
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parse(args);
+        Path samplesPath = Path.of(required(options, "samples"));
+        Path out = Path.of(required(options, "out"));
+        int size = Math.min(MAX_SIZE, Integer.parseInt(options.getOrDefault("size", "16384")));
+        int segment = Integer.parseInt(options.getOrDefault("segment", "24"));
+        
+        List<byte[]> samples;
+        try (Stream<String> lines = Files.lines(samplesPath, StandardCharsets.UTF_8)) {
+            samples = lines.filter(line -> !line.isBlank())
+                    .map(line -> line.getBytes(StandardCharsets.UTF_8))
+                    .toList();
+        }
+        byte[] dictionary = train(samples, size, segment);
+        Files.write(out, dictionary);
+        System.out.printf("samples=%d dictionary=%d bytes id=%s -> %s%n",
+                samples.size(), dictionary.length, PayloadCodec.dictionaryId(dictionary), out);
+    }
+    
+    /**
+     * 从样本生成字典
+     * 
+     * @param samples 样本（UTF-8）
+     * @param size 字典大小上限（字节）
+     * @param segment 片段长度
+     */
+    public static byte[] train(List<byte[]> samples, int size, int segment) {
+        // 片段 -> 出现该片段的样本数（同一样本内重复出现只计一次）
+        Map<Segment, Integer> coverage = new HashMap<>();
+        for (byte[] sample : samples) {
+            Set<Segment> seen = new HashSet<>();
+            for (int i = 0; i + segment <= sample.length; i++) {
+                Segment key = new Segment(sample, i, segment);
+                if (seen.add(key)) {
+                    coverage.merge(key, 1, Integer::sum);
+                }
+            }
+        }
+        
+        // 只出现在一个样本中的片段对其他载荷没有帮助
+        List<Map.Entry<Segment, Integer>> ranked = new ArrayList<>(coverage.entrySet());
+        ranked.removeIf(entry -> entry.getValue() < 2);
+        ranked.sort(Map.Entry.<Segment, Integer>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(entry -> entry.getKey().offset));
+        
+        // 相邻位置的片段高度重叠，跳过与已选片段重叠的位置
+        List<Segment> chosen = new ArrayList<>();
+        Map<byte[], List<int[]>> taken = new HashMap<>();
+        int total = 0;
+        for (Map.Entry<Segment, Integer> entry : ranked) {
+            if (total + segment > size) {
+                break;
+            }
+            Segment candidate = entry.getKey();
+            List<int[]> ranges = taken.computeIfAbsent(candidate.source, s -> new ArrayList<>());
+            boolean overlaps = ranges.stream().anyMatch(r ->
+                    candidate.offset < r[1] && candidate.offset + segment > r[0]);
+            if (overlaps) {
+                continue;
+            }
+            ranges.add(new int[]{candidate.offset, candidate.offset + segment});
+            chosen.add(candidate);
+            total += segment;
+        }
+        
+        byte[] dictionary = new byte[total];
+        int position = total;
+        for (Segment chosenSegment : chosen) {
+            position -= segment;
+            System.arraycopy(chosenSegment.source, chosenSegment.offset, dictionary, position, segment);
+        }
+        return dictionary;
+    }
+    
+    private static String required(Map<String, String> options, String name) {
+        String value = options.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing --" + name);
+        }
+        return value;
+    }
+    
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+    
+    /**
+     * 样本中的一个片段，按内容比较
+     */
+    private static final class Segment {
+        
+        private final byte[] source;
+        private final int offset;
+        private final int length;
+        private final int hash;
+        
+        private Segment(byte[] source, int offset, int length) {
+            this.source = source;
+            this.offset = offset;
+            this.length = length;
+            int h = 1;
+            for (int i = offset; i < offset + length; i++) {
+                h = 31 * h + source[i];
+            }
+            this.hash = h;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Segment other) || other.hash != hash || other.length != length) {
+                return false;
+            }
+            return Arrays.equals(source, offset, offset + length,
+                    other.source, other.offset, other.offset + other.length);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.notification.benchmark;
+
+import com.notification.util.VirtualThreads;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 平台线程 vs 虚拟线程：10k 并发慢供应商调用
+ * 
+ * 每次投递与 blocking 模式的 NotificationDispatcher.dispatch 一致，在调用线程上 block() 等待 WebClient 响应；
+ * 供应商桩在每个请求上非阻塞地延迟 VENDOR_DELAY_MS 后返回。
+ * 1. platform-200：固定 200 线程（对应 Tomcat / MQ 消费线程池的常规大小）
+ * 2. platform-N：每个并发调用一个平台线程
+ * 3. virtual：每个调用一个虚拟线程，用供应商信号量（上限 N）代替线程池大小，需要 Java 21
+ * 
+ * 运行方式（不属于单元测试）：
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.notification.benchmark.VirtualThreadDispatchBenchmark
+ * Java 21：mvn -q -Pjava21 test-compile exec:java ...（同上）
+ * 
+ * 10k 并发时客户端和供应商桩各需要约 10k 个文件描述符，进程上限不足时可以在另一个进程中单独启动供应商桩：
+ * ... -Dexec.args="--vendor-only 18090"，然后 ... -Dexec.args="--vendor-url http://127.0.0.1:18090/hook"
+ */
+public class VirtualThreadDispatchBenchmark {
+    
+    private static final int CALLS = 10_000;
+    private static final long VENDOR_DELAY_MS = 500;
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && "--vendor-only".equals(args[0])) {
+            DisposableServer server = startVendor(Integer.parseInt(args[1]));
+            System.out.println("Slow vendor listening on port " + server.port());
+            server.onDispose().block();
+            return;
+        }
+        
+        DisposableServer server = null;
+        String url;
+        if (args.length == 2 && "--vendor-url".equals(args[0])) {
+            url = args[1];
+        } else {
+            server = startVendor(0);
+            url = "http://127.0.0.1:" + server.port() + "/hook";
+        }
+        
+        ConnectionProvider provider = ConnectionProvider.builder("bench-vendor")
+                .maxConnections(CALLS)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMinutes(5))
+                .build();
+        WebClient webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(
+                        HttpClient.create(provider)))
+                .build();
+        
+        System.out.printf("Java %d, %d cpus, %d calls, vendor delay %dms%n%n",
+                Runtime.version().feature(), Runtime.getRuntime().availableProcessors(), CALLS, VENDOR_DELAY_MS);
+        
+        // 预热连接池和 JIT
+        run("warm-up", Executors.newFixedThreadPool(200), webClient, url, 2_000, Integer.MAX_VALUE, false);
+        
+        run("platform-200", Executors.newFixedThreadPool(200), webClient, url, CALLS, Integer.MAX_VALUE, true);
+        run("platform-" + CALLS, Executors.newFixedThreadPool(CALLS), webClient, url, CALLS, Integer.MAX_VALUE, true);
+        if (VirtualThreads.isAvailable()) {
+            run("virtual", VirtualThreads.newThreadPerTaskExecutor("bench-vt-"), webClient, url, CALLS, CALLS, true);
+        } else {
+            System.out.println("== virtual ==");
+            System.out.println("skipped: virtual threads require Java 21, rerun with -Pjava21 on a Java 21 JDK");
+        }
+        
+        provider.dispose();
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+    
+    private static DisposableServer startVendor(int port) {
+        return HttpServer.create()
+                .host("127.0.0.1")
+                .port(port)
+                .handle((request, response) -> response.sendString(
+                        Mono.delay(Duration.ofMillis(VENDOR_DELAY_MS)).thenReturn("ok")))
+                .bindNow();
+    }
+    
+    private static void run(String name, ExecutorService executor, WebClient webClient, String url,
+                            int calls, int vendorLimit, boolean print) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long[] latencies = new long[calls];
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(calls);
+        Semaphore vendorPermits = new Semaphore(vendorLimit);
+        Runtime runtime = Runtime.getRuntime();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long maxHeap = heapBefore;
+        
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            int index = i;
+            long submittedAt = System.nanoTime();
+            executor.execute(() -> {
+                try {
+                    vendorPermits.acquire();
+                    try {
+                        webClient.get().uri(url).retrieve().bodyToMono(String.class).block();
+                    } finally {
+                        vendorPermits.release();
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                } finally {
+                    latencies[index] = System.nanoTime() - submittedAt;
+                    done.countDown();
+                }
+            });
+        }
+        while (!done.await(100, TimeUnit.MILLISECONDS)) {
+            maxHeap = Math.max(maxHeap, runtime.totalMemory() - runtime.freeMemory());
+        }
+        long elapsedNs = System.nanoTime() - start;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        
+        if (print) {
+            Arrays.sort(latencies);
+            System.out.printf("== %s ==%n", name);
+            System.out.printf("wall=%.2fs throughput=%.0f calls/sec failures=%d%n",
+                    elapsedNs / 1e9, calls / (elapsedNs / 1e9), failures.get());
+            System.out.printf("latency ms: p50=%d p99=%d max=%d%n",
+                    latencies[calls / 2] / 1_000_000, latencies[(int) (calls * 0.99)] / 1_000_000,
+                    latencies[calls - 1] / 1_000_000);
+            System.out.printf("peak platform threads=%d, peak heap growth=%dMB%n%n",
+                    threads.getPeakThreadCount(), (maxHeap - heapBefore) / (1024 * 1024));
+        }
+    }
+}
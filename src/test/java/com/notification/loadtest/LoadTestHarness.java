@@ -0,0 +1,562 @@
+package com.notification.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.loadtest.VendorSimulator.Vendor;
+import com.notification.loadtest.VendorSimulator.VendorProfile;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 端到端压测
+ * 
+ * 启动 {@link VendorSimulator}，以开放模型按固定速率调用 POST /notifications（发送时刻按计划排定，不等待前一个请求返回），
+ * 目标地址指向模拟供应商。所有延迟都从计划发送时刻起算，服务变慢时排队时间计入结果，不会被协调遗漏掩盖。
+ * 报告内容：
+ * 1. 接收吞吐和 POST 延迟分位
+ * 2. 创建 -> 供应商确认成功 的端到端延迟分位（整体和按供应商）
+ * 3. 重试放大：供应商实际收到的调用数 / 接收的通知数
+ * 4. 资源使用：压测期间采样 /actuator/prometheus 中的连接池、CPU、堆、MQ 和重试指标
+ * 
+ * 被测服务需事先启动，mock / rocketmq 模式由服务的 profile 决定（--mode 只用于标注报告），
+ * scripts/load-test.sh 会按模式启动服务并运行本程序：
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.notification.loadtest.LoadTestHarness \
+ *   -Dexec.args="--base-url http://localhost:8080/api --rate 500 --duration 120 --mode mock"
+ */
+public class LoadTestHarness {
+    
+    private static final String DEFAULT_VENDORS = "FAST:weight=6,p50=20,p99=150;"
+            + "SLOW:weight=3,p50=250,p99=2500,error=0.05;"
+            + "FLAKY:weight=1,p50=50,p99=500,error=0.2,burst429=30s/5s,hang=0.01";
+    
+    /**
+     * 报告中的延迟分位
+     */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080/api");
+        double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        int drainSeconds = Integer.parseInt(options.getOrDefault("drain", "180"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "2000"));
+        int maxRetry = Integer.parseInt(options.getOrDefault("max-retry", "5"));
+        int timeoutMs = Integer.parseInt(options.getOrDefault("timeout-ms", "3000"));
+        String metricsUrl = options.getOrDefault("metrics-url", baseUrl + "/actuator/prometheus");
+        String mode = options.getOrDefault("mode", "unspecified");
+        List<VendorProfile> profiles = new ArrayList<>();
+        for (String spec : options.getOrDefault("vendors", DEFAULT_VENDORS).split(";")) {
+            profiles.add(VendorProfile.parse(spec));
+        }
+        
+        int total = (int) Math.min(Integer.MAX_VALUE - 8, Math.round(rate * durationSeconds));
+        Run run = new Run(total, profiles.size());
+        try (VendorSimulator simulator = new VendorSimulator(profiles, run::delivered);
+             MetricsSampler sampler = new MetricsSampler(metricsUrl)) {
+            System.out.printf("mode=%s rate=%.0f/s duration=%ds requests=%,d maxInFlight=%d target=%s%n", mode, rate,
+                    durationSeconds, total, maxInFlight, baseUrl);
+            for (Vendor vendor : simulator.getVendors()) {
+                System.out.printf("  vendor %s -> %s%n", vendor.getProfile(), vendor.getUrl());
+            }
+            System.out.println();
+            
+            sampler.start();
+            run.generate(baseUrl, simulator.getVendors(), rate, maxInFlight, maxRetry, timeoutMs);
+            run.drain(drainSeconds);
+            sampler.stop();
+            run.resolveUndelivered(baseUrl);
+            
+            run.report(simulator.getVendors());
+            sampler.report();
+        }
+    }
+    
+    /**
+     * 一次压测的状态
+     */
+    private static final class Run {
+        
+        private static final int NOT_ACCEPTED = 0;
+        private static final int ACCEPTED = 1;
+        private static final int DELIVERED = 2;
+        
+        private final int total;
+        private final HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(4))
+                .build();
+        
+        private final long[] intendedNanos;
+        private final byte[] vendorOf;
+        private final String[] notificationIds;
+        private final AtomicIntegerArray state;
+        private final AtomicLongArray deliveredNanos;
+        
+        private final Histogram ingestLatency = newHistogram();
+        private final Histogram endToEnd = newHistogram();
+        private final Histogram[] endToEndByVendor;
+        private final long[] acceptedByVendor;
+        private final LongAdder duplicateDeliveries = new LongAdder();
+        private final Map<String, LongAdder> rejectedByStatus = new TreeMap<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder shed = new LongAdder();
+        private final Map<String, Integer> undeliveredStatus = new TreeMap<>();
+        
+        private long generateStartNanos;
+        private long generateEndNanos;
+        private long lastCompletionNanos;
+        private long drainEndNanos;
+        
+        private Run(int total, int vendorCount) {
+            this.total = total;
+            this.intendedNanos = new long[total];
+            this.vendorOf = new byte[total];
+            this.notificationIds = new String[total];
+            this.state = new AtomicIntegerArray(total);
+            this.deliveredNanos = new AtomicLongArray(total);
+            this.endToEndByVendor = new Histogram[vendorCount];
+            for (int i = 0; i < vendorCount; i++) {
+                endToEndByVendor[i] = newHistogram();
+            }
+            this.acceptedByVendor = new long[vendorCount];
+        }
+        
+        /**
+         * 按计划时刻发送，不等待应答；在途请求超过上限时记为丢弃（保护压测进程自身，报告中单独列出）
+         */
+        void generate(String baseUrl, List<Vendor> vendors, double rate, int maxInFlight, int maxRetry, int timeoutMs) {
+            URI endpoint = URI.create(baseUrl + "/notifications");
+            double[] cumulative = new double[vendors.size()];
+            double weightSum = 0;
+            for (int i = 0; i < vendors.size(); i++) {
+                weightSum += vendors.get(i).getProfile().weight();
+                cumulative[i] = weightSum;
+            }
+            Random random = new Random(42);
+            double intervalNanos = 1e9 / rate;
+            
+            generateStartNanos = System.nanoTime();
+            long nextProgress = generateStartNanos + TimeUnit.SECONDS.toNanos(10);
+            for (int seq = 0; seq < total; seq++) {
+                long intended = generateStartNanos + (long) (seq * intervalNanos);
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                intendedNanos[seq] = intended;
+                int vendor = pick(cumulative, weightSum * random.nextDouble());
+                vendorOf[seq] = (byte) vendor;
+                
+                if (intended >= nextProgress) {
+                    System.out.printf("  t=%3ds sent=%,d accepted=%,d delivered=%,d inFlight=%d%n",
+                            TimeUnit.NANOSECONDS.toSeconds(intended - generateStartNanos), seq, accepted.sum(),
+                            delivered.sum(), inFlight.get());
+                    nextProgress += TimeUnit.SECONDS.toNanos(10);
+                }
+                if (inFlight.get() >= maxInFlight) {
+                    shed.increment();
+                    completed.increment();
+                    continue;
+                }
+                inFlight.incrementAndGet();
+                HttpRequest request = HttpRequest.newBuilder(endpoint)
+                        .timeout(Duration.ofSeconds(30))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(requestBody(seq, vendors.get(vendor), maxRetry, timeoutMs)))
+                        .build();
+                int current = seq;
+                client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                        .whenComplete((response, error) -> onResponse(current, response, error));
+            }
+            generateEndNanos = System.nanoTime();
+        }
+        
+        private void onResponse(int seq, HttpResponse<String> response, Throwable error) {
+            long now = System.nanoTime();
+            ingestLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(now - intendedNanos[seq]));
+            try {
+                if (error != null) {
+                    countRejected(error.getClass().getSimpleName());
+                } else if (response.statusCode() / 100 == 2) {
+                    notificationIds[seq] = MAPPER.readTree(response.body()).path("notificationId").asText(null);
+                    // 供应商可能先于 POST 应答确认成功
+                    if (!state.compareAndSet(seq, NOT_ACCEPTED, ACCEPTED)) {
+                        recordDelivered(seq);
+                    }
+                    accepted.increment();
+                } else {
+                    countRejected("HTTP " + response.statusCode());
+                }
+            } catch (Exception e) {
+                countRejected(e.getClass().getSimpleName());
+            } finally {
+                synchronized (this) {
+                    lastCompletionNanos = Math.max(lastCompletionNanos, now);
+                }
+                inFlight.decrementAndGet();
+                completed.increment();
+            }
+        }
+        
+        void delivered(int vendorIndex, long seq, long nanos) {
+            if (seq < 0 || seq >= total) {
+                return;
+            }
+            int index = (int) seq;
+            if (!deliveredNanos.compareAndSet(index, 0, nanos)) {
+                duplicateDeliveries.increment();
+                return;
+            }
+            if (!state.compareAndSet(index, NOT_ACCEPTED, DELIVERED)) {
+                recordDelivered(index);
+            }
+        }
+        
+        private void recordDelivered(int seq) {
+            state.set(seq, DELIVERED);
+            long latencyMicros = TimeUnit.NANOSECONDS.toMicros(deliveredNanos.get(seq) - intendedNanos[seq]);
+            endToEnd.recordValue(latencyMicros);
+            endToEndByVendor[vendorOf[seq]].recordValue(latencyMicros);
+            delivered.increment();
+        }
+        
+        /**
+         * 等待 POST 全部返回、已接收的通知全部送达（或超时）
+         */
+        void drain(int drainSeconds) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(drainSeconds);
+            long nextProgress = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (System.nanoTime() < deadline && (completed.sum() < total || delivered.sum() < accepted.sum())) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+                if (System.nanoTime() >= nextProgress) {
+                    System.out.printf("  draining: accepted=%,d delivered=%,d inFlight=%d%n", accepted.sum(),
+                            delivered.sum(), inFlight.get());
+                    nextProgress += TimeUnit.SECONDS.toNanos(10);
+                }
+            }
+            drainEndNanos = System.nanoTime();
+        }
+        
+        /**
+         * 查询未送达通知的最终状态（FAILED、仍在重试等）
+         */
+        void resolveUndelivered(String baseUrl) {
+            for (int seq = 0; seq < total; seq++) {
+                if (state.get(seq) != ACCEPTED) {
+                    continue;
+                }
+                String status = "UNKNOWN";
+                try {
+                    HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                            URI.create(baseUrl + "/notifications/" + notificationIds[seq])).GET().build(),
+                            HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() == 200) {
+                        JsonNode body = MAPPER.readTree(response.body());
+                        status = body.path("status").asText("UNKNOWN");
+                    } else {
+                        status = "HTTP " + response.statusCode();
+                    }
+                } catch (Exception e) {
+                    status = e.getClass().getSimpleName();
+                }
+                undeliveredStatus.merge(status, 1, Integer::sum);
+            }
+        }
+        
+        void report(List<Vendor> vendors) {
+            double sendSeconds = (generateEndNanos - generateStartNanos) / 1e9;
+            double ingestSeconds = Math.max(sendSeconds, (lastCompletionNanos - generateStartNanos) / 1e9);
+            System.out.println();
+            System.out.println("== ingestion ==");
+            System.out.printf("requests=%,d accepted=%,d shed(maxInFlight)=%,d rejected=%s%n", total, accepted.sum(),
+                    shed.sum(), rejectedByStatus);
+            System.out.printf("offered=%,.1f/s accepted=%,.1f/s (over %.1fs until the last response)%n",
+                    total / sendSeconds, accepted.sum() / ingestSeconds, ingestSeconds);
+            printLatency("POST latency", ingestLatency);
+            
+            System.out.println();
+            System.out.println("== created -> SUCCESS (vendor acknowledged) ==");
+            System.out.printf("delivered=%,d of %,d accepted in %.1fs, duplicates=%,d, undelivered=%s%n", delivered.sum(),
+                    accepted.sum(), (drainEndNanos - generateStartNanos) / 1e9, duplicateDeliveries.sum(), undeliveredStatus);
+            printLatency("all", endToEnd);
+            
+            for (int seq = 0; seq < total; seq++) {
+                if (state.get(seq) != NOT_ACCEPTED) {
+                    acceptedByVendor[vendorOf[seq]]++;
+                }
+            }
+            long totalCalls = 0;
+            System.out.println();
+            System.out.println("== vendors ==");
+            System.out.printf("%-10s %10s %10s %8s %10s %8s %8s %8s %14s%n", "vendor", "accepted", "calls", "amplif.",
+                    "2xx", "5xx", "429", "hang", "e2e p99 (ms)");
+            for (Vendor vendor : vendors) {
+                int index = vendors.indexOf(vendor);
+                totalCalls += vendor.getCalls();
+                System.out.printf("%-10s %,10d %,10d %8.2f %,10d %,8d %,8d %,8d %,14.1f%n", vendor.getProfile().name(),
+                        acceptedByVendor[index], vendor.getCalls(), amplification(vendor.getCalls(), acceptedByVendor[index]),
+                        vendor.getSucceeded(), vendor.getFailed(), vendor.getThrottled(), vendor.getHung(),
+                        endToEndByVendor[index].getValueAtPercentile(99) / 1000.0);
+            }
+            System.out.printf("retry amplification (vendor calls / accepted): %.2f%n", amplification(totalCalls, accepted.sum()));
+        }
+        
+        private synchronized void countRejected(String reason) {
+            rejectedByStatus.computeIfAbsent(reason, key -> new LongAdder()).increment();
+        }
+        
+        private String requestBody(int seq, Vendor vendor, int maxRetry, int timeoutMs) {
+            Map<String, Object> loadTest = new LinkedHashMap<>();
+            loadTest.put("seq", seq);
+            loadTest.put("vendor", vendor.getProfile().name());
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("loadTest", loadTest);
+            body.put("eventType", "ORDER_PAID");
+            body.put("orderId", "ord_" + seq);
+            body.put("amount", 100 + seq % 10_000);
+            
+            Map<String, Object> request = new LinkedHashMap<>();
+            request.put("targetUrl", vendor.getUrl());
+            request.put("httpMethod", "POST");
+            request.put("headers", Map.of("Content-Type", "application/json"));
+            request.put("body", body);
+            request.put("maxRetry", maxRetry);
+            request.put("callbackTimeoutMs", timeoutMs);
+            try {
+                return MAPPER.writeValueAsString(request);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        
+        private static int pick(double[] cumulative, double value) {
+            for (int i = 0; i < cumulative.length; i++) {
+                if (value < cumulative[i]) {
+                    return i;
+                }
+            }
+            return cumulative.length - 1;
+        }
+        
+        private static double amplification(long calls, long acceptedCount) {
+            return acceptedCount == 0 ? 0 : (double) calls / acceptedCount;
+        }
+    }
+    
+    /**
+     * 定时抓取被测服务的 Prometheus 指标：瞬时量记录平均值和峰值，累计量记录压测期间的增量
+     */
+    private static final class MetricsSampler implements AutoCloseable {
+        
+        /**
+         * 瞬时量：显示名 -> 指标名（可带标签过滤），同名多个标签组合的值相加
+         */
+        private static final Map<String, String> GAUGES = new LinkedHashMap<>();
+        
+        /**
+         * 累计量
+         */
+        private static final Map<String, String> COUNTERS = new LinkedHashMap<>();
+        
+        static {
+            GAUGES.put("db pool active", "hikaricp_connections_active");
+            GAUGES.put("db pool pending", "hikaricp_connections_pending");
+            GAUGES.put("process cpu", "process_cpu_usage");
+            GAUGES.put("heap used (MB)", "jvm_memory_used_bytes{area=\"heap\"");
+            GAUGES.put("live threads", "jvm_threads_live_threads");
+            GAUGES.put("mock broker queued", "notification_broker_queued");
+            GAUGES.put("retry wheel pending", "notification_retry_pending");
+            GAUGES.put("attempt buffer", "notification_attempt_buffered");
+            
+            COUNTERS.put("db pool timeouts", "hikaricp_connections_timeout_total");
+            COUNTERS.put("outbox published", "notification_outbox_published_total");
+            COUNTERS.put("mq publishes", "notification_mq_publish_seconds_count");
+            COUNTERS.put("mq publish time (s)", "notification_mq_publish_seconds_sum");
+            COUNTERS.put("mq consumed", "notification_mq_consumed_total");
+            COUNTERS.put("retries scheduled", "notification_retry_scheduled_total");
+            COUNTERS.put("deferred", "notification_deferred_total");
+            COUNTERS.put("circuit short-circuited", "notification_circuit_short_circuited_total");
+        }
+        
+        private final URI uri;
+        private final HttpClient client = HttpClient.newHttpClient();
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        private final Map<String, double[]> gaugeStats = new HashMap<>();
+        private Map<String, Double> first;
+        private Map<String, Double> last;
+        private String unavailable;
+        
+        private MetricsSampler(String metricsUrl) {
+            this.uri = URI.create(metricsUrl);
+        }
+        
+        void start() {
+            scheduler.scheduleWithFixedDelay(this::sample, 0, 1, TimeUnit.SECONDS);
+        }
+        
+        void stop() throws InterruptedException {
+            scheduler.shutdown();
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            sample();
+        }
+        
+        private synchronized void sample() {
+            if (unavailable != null) {
+                return;
+            }
+            Map<String, Double> values;
+            try {
+                HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(5)).GET().build();
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    unavailable = "HTTP " + response.statusCode();
+                    return;
+                }
+                values = parse(response.body());
+            } catch (Exception e) {
+                if (first == null) {
+                    unavailable = e.getClass().getSimpleName();
+                }
+                return;
+            }
+            for (Map.Entry<String, String> gauge : GAUGES.entrySet()) {
+                Double value = values.get(gauge.getValue());
+                if (value != null) {
+                    // [count, sum, max]
+                    double[] stats = gaugeStats.computeIfAbsent(gauge.getKey(), key -> new double[3]);
+                    stats[0]++;
+                    stats[1] += value;
+                    stats[2] = Math.max(stats[2], value);
+                }
+            }
+            if (first == null) {
+                first = values;
+            }
+            last = values;
+        }
+        
+        /**
+         * 按 GAUGES / COUNTERS 中的名称汇总 Prometheus 文本格式
+         */
+        private static Map<String, Double> parse(String text) {
+            Map<String, Double> values = new HashMap<>();
+            for (String line : text.split("\n")) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int space = line.lastIndexOf(' ');
+                double value;
+                try {
+                    value = Double.parseDouble(line.substring(space + 1));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                String series = line.substring(0, space);
+                String name = series.contains("{") ? series.substring(0, series.indexOf('{')) : series;
+                for (Map<String, String> metrics : List.of(GAUGES, COUNTERS)) {
+                    for (String metric : metrics.values()) {
+                        int brace = metric.indexOf('{');
+                        boolean matches = brace < 0 ? name.equals(metric)
+                                : name.equals(metric.substring(0, brace)) && series.contains(metric.substring(brace + 1));
+                        if (matches) {
+                            values.merge(metric, value, Double::sum);
+                        }
+                    }
+                }
+            }
+            return values;
+        }
+        
+        synchronized void report() {
+            System.out.println();
+            System.out.println("== resources (service side) ==");
+            if (unavailable != null || first == null) {
+                System.out.printf("unavailable (%s): start the service with management.endpoints.web.exposure.include=prometheus%n",
+                        unavailable);
+                return;
+            }
+            System.out.printf("%-26s %12s %12s%n", "gauge", "avg", "max");
+            for (String gauge : GAUGES.keySet()) {
+                double[] stats = gaugeStats.get(gauge);
+                if (stats == null) {
+                    continue;
+                }
+                double scale = gauge.endsWith("(MB)") ? 1 << 20 : 1;
+                System.out.printf("%-26s %12.2f %12.2f%n", gauge, stats[1] / stats[0] / scale, stats[2] / scale);
+            }
+            System.out.printf("%-26s %12s%n", "counter", "delta");
+            for (Map.Entry<String, String> counter : COUNTERS.entrySet()) {
+                Double end = last.get(counter.getValue());
+                if (end != null) {
+                    System.out.printf("%-26s %,12.1f%n", counter.getKey(), end - first.getOrDefault(counter.getValue(), 0.0));
+                }
+            }
+        }
+        
+        @Override
+        public void close() {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    private static Histogram newHistogram() {
+        // 微秒，最长 1 小时
+        return new ConcurrentHistogram(TimeUnit.HOURS.toMicros(1), 3);
+    }
+    
+    private static void printLatency(String label, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            System.out.printf("%-14s no samples%n", label);
+            return;
+        }
+        StringBuilder line = new StringBuilder(String.format("%-14s", label));
+        for (double percentile : PERCENTILES) {
+            line.append(String.format(" p%s=%.1fms", BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString(),
+                    histogram.getValueAtPercentile(percentile) / 1000.0));
+        }
+        line.append(String.format(" max=%.1fms", histogram.getMaxValue() / 1000.0));
+        System.out.println(line);
+    }
+    
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,247 @@
+package com.notification.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 可编程的供应商模拟器
+ * 
+ * 每个模拟供应商监听独立端口（与真实供应商一样，连接池和按主机的熔断各自独立），按配置的行为应答：
+ * 1. 处于 429 突发窗口内：立即返回 429（Retry-After: 1）
+ * 2. 以 hang 概率不应答，直到调用方超时断开
+ * 3. 按对数正态分布（由 p50 / p99 确定）延迟后，以 error 概率返回 500，否则返回 200
+ * 
+ * 请求体中的 loadTest.seq 用于把应答与发送方的请求对应起来，成功应答时回调 {@link DeliveryListener}
+ */
+public class VendorSimulator implements AutoCloseable {
+    
+    /**
+     * 标准正态分布的 99 分位点
+     */
+    private static final double Z_99 = 2.3263;
+    
+    private static final long MAX_LATENCY_MS = 60_000;
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private final List<Vendor> vendors = new ArrayList<>();
+    private final DeliveryListener listener;
+    private final long startNanos = System.nanoTime();
+    
+    public VendorSimulator(List<VendorProfile> profiles, DeliveryListener listener) {
+        this.listener = listener;
+        for (int i = 0; i < profiles.size(); i++) {
+            vendors.add(new Vendor(i, profiles.get(i)));
+        }
+    }
+    
+    /**
+     * 供应商确认成功的回调
+     */
+    @FunctionalInterface
+    public interface DeliveryListener {
+        
+        /**
+         * @param vendorIndex 供应商序号（与传入的 profiles 顺序一致）
+         * @param seq 请求体中的 loadTest.seq
+         * @param nanos 应答时刻（System.nanoTime）
+         */
+        void delivered(int vendorIndex, long seq, long nanos);
+    }
+    
+    public List<Vendor> getVendors() {
+        return vendors;
+    }
+    
+    @Override
+    public void close() {
+        for (Vendor vendor : vendors) {
+            vendor.server.disposeNow();
+        }
+    }
+    
+    /**
+     * 供应商行为
+     * 
+     * 文本格式：NAME:weight=6,p50=20,p99=120,error=0.01,burst429=30s/5s,hang=0.001，未写的项取默认值
+     * 
+     * @param weight 流量权重
+     * @param p50Ms 应答延迟中位数
+     * @param p99Ms 应答延迟 99 分位
+     * @param errorRate 返回 500 的比例
+     * @param burstPeriodMs 429 突发周期，0 表示不突发
+     * @param burstLengthMs 每个周期开头返回 429 的时长
+     * @param hangRate 不应答的比例
+     */
+    public record VendorProfile(String name, double weight, double p50Ms, double p99Ms, double errorRate,
+                                long burstPeriodMs, long burstLengthMs, double hangRate) {
+        
+        public static VendorProfile parse(String spec) {
+            int colon = spec.indexOf(':');
+            String name = colon < 0 ? spec.trim() : spec.substring(0, colon).trim();
+            double weight = 1;
+            double p50 = 20;
+            double p99 = 200;
+            double error = 0;
+            long burstPeriod = 0;
+            long burstLength = 0;
+            double hang = 0;
+            if (colon >= 0) {
+                for (String option : spec.substring(colon + 1).split(",")) {
+                    String[] pair = option.trim().split("=", 2);
+                    if (pair.length != 2) {
+                        throw new IllegalArgumentException("Invalid vendor option: " + option);
+                    }
+                    switch (pair[0]) {
+                        case "weight" -> weight = Double.parseDouble(pair[1]);
+                        case "p50" -> p50 = Double.parseDouble(pair[1]);
+                        case "p99" -> p99 = Double.parseDouble(pair[1]);
+                        case "error" -> error = Double.parseDouble(pair[1]);
+                        case "hang" -> hang = Double.parseDouble(pair[1]);
+                        case "burst429" -> {
+                            String[] window = pair[1].split("/", 2);
+                            burstPeriod = parseDuration(window[0]);
+                            burstLength = parseDuration(window[1]);
+                        }
+                        default -> throw new IllegalArgumentException("Unknown vendor option: " + pair[0]);
+                    }
+                }
+            }
+            return new VendorProfile(name, weight, p50, Math.max(p50, p99), error, burstPeriod, burstLength, hang);
+        }
+        
+        private static long parseDuration(String text) {
+            if (text.endsWith("ms")) {
+                return Long.parseLong(text.substring(0, text.length() - 2));
+            }
+            if (text.endsWith("s")) {
+                return Long.parseLong(text.substring(0, text.length() - 1)) * 1000;
+            }
+            return Long.parseLong(text);
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%s(weight=%s, p50=%sms, p99=%sms, error=%s, burst429=%s, hang=%s)", name, weight, p50Ms,
+                    p99Ms, errorRate, burstPeriodMs == 0 ? "off" : burstPeriodMs + "ms/" + burstLengthMs + "ms", hangRate);
+        }
+    }
+    
+    /**
+     * 一个模拟供应商及其应答统计
+     */
+    public final class Vendor {
+        
+        private final int index;
+        private final VendorProfile profile;
+        private final double sigma;
+        private final DisposableServer server;
+        
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+        private final LongAdder hung = new LongAdder();
+        
+        private Vendor(int index, VendorProfile profile) {
+            this.index = index;
+            this.profile = profile;
+            this.sigma = Math.log(profile.p99Ms() / profile.p50Ms()) / Z_99;
+            this.server = HttpServer.create()
+                    .host("127.0.0.1")
+                    .port(0)
+                    .handle(this::handle)
+                    .bindNow();
+        }
+        
+        private Mono<Void> handle(HttpServerRequest request, HttpServerResponse response) {
+            return request.receive().aggregate().asString().defaultIfEmpty("").flatMap(body -> {
+                calls.increment();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                if (inBurst()) {
+                    throttled.increment();
+                    return response.status(429).header("Retry-After", "1").send().then();
+                }
+                if (random.nextDouble() < profile.hangRate()) {
+                    hung.increment();
+                    return Mono.never();
+                }
+                return Mono.delay(Duration.ofMillis(sampleLatencyMs(random))).then(Mono.defer(() -> {
+                    if (ThreadLocalRandom.current().nextDouble() < profile.errorRate()) {
+                        failed.increment();
+                        return response.status(500).sendString(Mono.just("{\"error\":\"simulated\"}")).then();
+                    }
+                    succeeded.increment();
+                    long seq = seqOf(body);
+                    if (seq >= 0) {
+                        listener.delivered(index, seq, System.nanoTime());
+                    }
+                    return response.status(200).header("Content-Type", "application/json")
+                            .sendString(Mono.just("{\"code\":0}")).then();
+                }));
+            });
+        }
+        
+        private boolean inBurst() {
+            if (profile.burstPeriodMs() <= 0) {
+                return false;
+            }
+            long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+            return elapsedMs % profile.burstPeriodMs() < profile.burstLengthMs();
+        }
+        
+        private long sampleLatencyMs(Random random) {
+            double latency = profile.p50Ms() * Math.exp(sigma * random.nextGaussian());
+            return Math.min(MAX_LATENCY_MS, Math.round(latency));
+        }
+        
+        private long seqOf(String body) {
+            try {
+                JsonNode seq = MAPPER.readTree(body).path("loadTest").path("seq");
+                return seq.isNumber() ? seq.asLong() : -1;
+            } catch (Exception e) {
+                return -1;
+            }
+        }
+        
+        public VendorProfile getProfile() {
+            return profile;
+        }
+        
+        public String getUrl() {
+            return "http://127.0.0.1:" + server.port() + "/hook";
+        }
+        
+        public long getCalls() {
+            return calls.sum();
+        }
+        
+        public long getSucceeded() {
+            return succeeded.sum();
+        }
+        
+        public long getFailed() {
+            return failed.sum();
+        }
+        
+        public long getThrottled() {
+            return throttled.sum();
+        }
+        
+        public long getHung() {
+            return hung.sum();
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.notification.mq;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.notification.NotificationSystemApplication;
+import com.notification.config.NotificationProperties;
+import com.notification.entity.NotificationAttempt;
+import com.notification.entity.NotificationTask;
+import com.notification.entity.enums.TaskStatus;
+import com.notification.mapper.NotificationAttemptMapper;
+import com.notification.mapper.NotificationTaskMapper;
+import com.notification.service.NotificationDispatcher;
+import com.notification.service.NotificationMetrics;
+import com.notification.util.IdGenerator;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 数据库轮询投递测试（H2 不支持 SKIP LOCKED，按 skip-locked=false 运行）
+ * 
+ * 验证领取时写入租约、租约未到期的任务不被领取、到期后重新领取，
+ * 两个节点并发领取时同一任务只投递一次，领取或投递出错时在途名额全部归还
+ */
+@SpringBootTest(
+        classes = NotificationSystemApplication.class,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:db_task_poller_test;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "notification.mq.mode=db",
+                "notification.mq.db.skip-locked=false",
+                "notification.mq.db.poller-threads=2",
+                "notification.mq.db.claim-batch-size=2",
+                "notification.mq.db.min-poll-interval-ms=5",
+                "notification.mq.db.max-poll-interval-ms=50",
+                "notification.dispatch.max-in-flight=4",
+                "notification.dispatch.lease-margin-ms=200"
+        })
+@ActiveProfiles("test")
+public class DbTaskPollerTest {
+    
+    private static final int MAX_IN_FLIGHT = 4;
+    
+    @Autowired
+    private DbTaskPoller poller;
+    
+    @Autowired
+    private NotificationTaskMapper taskMapper;
+    
+    @Autowired
+    private NotificationDispatcher dispatcher;
+    
+    @Autowired
+    private NotificationAttemptMapper attemptMapper;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private NotificationMetrics metrics;
+    
+    @Autowired
+    private NotificationProperties properties;
+    
+    private HttpServer vendorServer;
+    private String targetUrl;
+    
+    /**
+     * 任务ID -> 供应商收到的请求数
+     */
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    
+    /**
+     * 任务ID -> 供应商收到请求时任务的租约
+     */
+    private final Map<String, LocalDateTime> leaseSeen = new ConcurrentHashMap<>();
+    
+    @BeforeEach
+    public void startVendor() throws Exception {
+        attemptMapper.delete(new QueryWrapper<NotificationAttempt>());
+        taskMapper.delete(new QueryWrapper<NotificationTask>());
+        
+        vendorServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        vendorServer.setExecutor(Executors.newFixedThreadPool(8));
+        vendorServer.createContext("/hook", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String id = path.substring(path.lastIndexOf('/') + 1);
+            hits.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet();
+            NotificationTask task = taskMapper.selectById(id);
+            if (task != null && task.getLeaseUntil() != null) {
+                leaseSeen.put(id, task.getLeaseUntil());
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        vendorServer.start();
+        targetUrl = "http://127.0.0.1:" + vendorServer.getAddress().getPort() + "/hook/";
+    }
+    
+    @AfterEach
+    public void stopVendor() {
+        vendorServer.stop(0);
+    }
+    
+    @Test
+    public void testClaimsWithLeaseAndReclaimsExpiredLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        String due = insertTask(null, null);
+        // 节点宕机留下的过期租约：重新到期，被再次领取
+        String expired = insertTask(now.minusSeconds(1), now.minusSeconds(1));
+        // 其他节点持有的租约：到期前不领取
+        String leased = insertTask(now.plusSeconds(3), now.plusSeconds(3));
+        
+        waitUntil(() -> isSuccess(due) && isSuccess(expired), 10_000);
+        assertNotNull(leaseSeen.get(due), "lease should be written before the vendor call");
+        assertTrue(leaseSeen.get(due).isAfter(now), "leaseUntil=" + leaseSeen.get(due));
+        assertNull(taskMapper.selectById(due).getLeaseUntil(), "lease should be released on commit");
+        assertEquals(1, hits.get(expired).get());
+        
+        assertTrue(LocalDateTime.now().isBefore(now.plusSeconds(3)), "test ran too slowly to observe the active lease");
+        assertNull(hits.get(leased), "task with an active lease should not be claimed");
+        waitUntil(() -> isSuccess(leased), 10_000);
+        assertEquals(1, hits.get(leased).get());
+        waitUntil(() -> poller.getInFlight() == 0, 5_000);
+    }
+    
+    @Test
+    public void testTwoPollersNeverClaimTheSameTask() {
+        // 第二个节点：独立的轮询线程和领取锁，只通过数据库行锁与本节点互斥
+        DbTaskPoller otherNode = new DbTaskPoller(taskMapper, transactionTemplate, dispatcher, metrics,
+                properties, new SimpleMeterRegistry());
+        otherNode.start();
+        try {
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                ids.add(insertTask(null, null));
+            }
+            poller.wakeUp();
+            otherNode.wakeUp();
+            
+            waitUntil(() -> taskMapper.selectCount(new QueryWrapper<NotificationTask>()
+                    .eq("status", TaskStatus.SUCCESS.getCode())) == ids.size(), 30_000);
+            for (String id : ids) {
+                assertEquals(1, hits.get(id).get(), "task delivered more than once: " + id);
+            }
+        } finally {
+            otherNode.shutdown();
+        }
+    }
+    
+    @Test
+    public void testReturnsInFlightPermitsOnClaimAndDispatchErrors() {
+        // 故障注入通过独立的轮询实例：映射器和投递器的行为由 fault 决定，不在运行中修改桩；
+        // 期间暂停上下文中的轮询线程，避免它领走任务
+        poller.shutdown();
+        waitUntil(() -> pollerThreads() == 0, 5_000);
+        AtomicReference<String> fault = new AtomicReference<>("claim");
+        AtomicInteger claimCalls = new AtomicInteger();
+        AtomicInteger dispatchCalls = new AtomicInteger();
+        NotificationTaskMapper faultyMapper = (NotificationTaskMapper) Proxy.newProxyInstance(
+                NotificationTaskMapper.class.getClassLoader(), new Class<?>[] {NotificationTaskMapper.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("selectDueForUpdate")) {
+                        claimCalls.incrementAndGet();
+                        if ("claim".equals(fault.get())) {
+                            throw new IllegalStateException("claim failed");
+                        }
+                    }
+                    try {
+                        return method.invoke(taskMapper, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        NotificationDispatcher faultyDispatcher = mock(NotificationDispatcher.class, invocation -> {
+            dispatchCalls.incrementAndGet();
+            if ("sync".equals(fault.get())) {
+                throw new IllegalStateException("vendor config unavailable");
+            }
+            if ("async".equals(fault.get())) {
+                return Mono.error(new IllegalStateException("dispatch failed"));
+            }
+            try {
+                return invocation.getMethod().invoke(dispatcher, invocation.getArguments());
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+        DbTaskPoller faultyPoller = new DbTaskPoller(faultyMapper, transactionTemplate, faultyDispatcher, metrics,
+                properties, new SimpleMeterRegistry());
+        faultyPoller.start();
+        try {
+            // 领取失败：每次失败都占用过名额，泄漏时几轮之后轮询线程就会永久阻塞；重复归还时可用名额超过上限
+            waitUntil(() -> claimCalls.get() > MAX_IN_FLIGHT * 2, 5_000);
+            fault.set("sync");
+            waitUntil(() -> faultyPoller.getInFlight() == 0, 5_000);
+            assertTrue(faultyPoller.getAvailablePermits() <= MAX_IN_FLIGHT, "permits=" + faultyPoller.getAvailablePermits());
+            
+            // 投递前同步抛出（如读取供应商配置失败）：轮询线程不退出，名额归还
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < MAX_IN_FLIGHT; i++) {
+                ids.add(insertTask(null, null));
+            }
+            faultyPoller.wakeUp();
+            waitUntil(() -> dispatchCalls.get() >= MAX_IN_FLIGHT, 5_000);
+            
+            // 投递异步失败：任务保持租约，名额归还
+            fault.set("async");
+            for (int i = 0; i < MAX_IN_FLIGHT; i++) {
+                ids.add(insertTask(null, null));
+            }
+            faultyPoller.wakeUp();
+            waitUntil(() -> dispatchCalls.get() >= ids.size(), 5_000);
+            waitUntil(() -> faultyPoller.getInFlight() == 0, 5_000);
+            assertTrue(faultyPoller.getAvailablePermits() <= MAX_IN_FLIGHT, "permits=" + faultyPoller.getAvailablePermits());
+            assertTrue(hits.isEmpty());
+            
+            // 恢复后租约到期（调用超时 + 200ms），任务被重新领取并投递
+            fault.set("none");
+            waitUntil(() -> ids.stream().allMatch(this::isSuccess), 20_000);
+            waitUntil(() -> faultyPoller.getInFlight() == 0, 5_000);
+            assertEquals(MAX_IN_FLIGHT, faultyPoller.getAvailablePermits());
+            for (String id : ids) {
+                assertEquals(1, hits.get(id).get());
+            }
+        } finally {
+            faultyPoller.shutdown();
+            waitUntil(() -> pollerThreads() == 0, 5_000);
+            poller.start();
+        }
+    }
+    
+    private String insertTask(LocalDateTime leaseUntil, LocalDateTime nextAttemptAt) {
+        NotificationTask task = new NotificationTask();
+        task.setId(IdGenerator.generateNotificationId());
+        task.setTargetUrl(targetUrl + task.getId());
+        task.setHttpMethod("POST");
+        task.setBodyJson("{}");
+        task.setStatus(TaskStatus.PENDING.getCode());
+        task.setRetryCount(0);
+        task.setMaxRetry(0);
+        task.setCallbackTimeoutMs(5000);
+        task.setLeaseUntil(leaseUntil);
+        task.setNextAttemptAt(nextAttemptAt);
+        taskMapper.insert(task);
+        return task.getId();
+    }
+    
+    private boolean isSuccess(String id) {
+        return TaskStatus.SUCCESS.getCode().equals(taskMapper.selectById(id).getStatus());
+    }
+    
+    private static long pollerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("db-poller-") && thread.isAlive())
+                .count();
+    }
+    
+    private static void waitUntil(BooleanSupplier condition, long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("condition not met within " + timeoutMs + "ms");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("interrupted", e);
+            }
+        }
+    }
+}
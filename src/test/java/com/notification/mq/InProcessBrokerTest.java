@@ -0,0 +1,119 @@
+package com.notification.mq;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 进程内 broker 测试：队列满时发送方等待、超时拒绝，延迟消息到期遇到满队列时稍后重投而不丢失
+ */
+public class InProcessBrokerTest {
+    
+    private static final long ENQUEUE_TIMEOUT_MS = 300;
+    
+    /**
+     * 每处理一条消息消耗一个许可，测试通过释放许可控制消费进度
+     */
+    private final Semaphore gate = new Semaphore(0);
+    private final List<Integer> handled = new CopyOnWriteArrayList<>();
+    
+    /**
+     * 队列容量 2、单个工作线程
+     */
+    private final InProcessBroker<Integer> broker = new InProcessBroker<>("broker-test", 2, 1, ENQUEUE_TIMEOUT_MS,
+            10, 100, message -> {
+                gate.acquireUninterruptibly();
+                handled.add(message);
+            }, nanos -> { });
+    
+    @AfterEach
+    public void stopBroker() {
+        gate.release(1000);
+        broker.shutdown();
+    }
+    
+    @Test
+    public void testBlocksPublisherWhileFullAndRejectsAfterTimeout() throws Exception {
+        broker.start();
+        // 工作线程取走 0 并阻塞在处理中，1、2 填满队列
+        broker.publish(0);
+        waitUntil(() -> broker.getDeliveredCount() == 1);
+        broker.publish(1);
+        broker.publish(2);
+        assertEquals(2, broker.getQueuedCount());
+        
+        // 背压：发送方等待空位，处理完一条后放入
+        CompletableFuture<Long> blocked = CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            broker.publish(3);
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        });
+        Thread.sleep(100);
+        assertFalse(blocked.isDone(), "publisher should wait while the queue is full");
+        gate.release();
+        assertTrue(blocked.get(ENQUEUE_TIMEOUT_MS, TimeUnit.MILLISECONDS) >= 100);
+        assertEquals(0, broker.getRejectedCount());
+        
+        // 队列再次满（2、3 排队，1 处理中），等待 enqueueTimeoutMs 后拒绝
+        long start = System.nanoTime();
+        assertThrows(RejectedExecutionException.class, () -> broker.publish(4));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= ENQUEUE_TIMEOUT_MS);
+        assertEquals(1, broker.getRejectedCount());
+        
+        gate.release(3);
+        waitUntil(() -> handled.size() == 4);
+        assertEquals(List.of(0, 1, 2, 3), handled);
+    }
+    
+    @Test
+    public void testRedeliversDelayedMessageWhenQueueIsFull() throws Exception {
+        broker.start();
+        broker.publish(0);
+        waitUntil(() -> broker.getDeliveredCount() == 1);
+        broker.publish(1);
+        broker.publish(2);
+        
+        // 到期时队列已满：放回时间轮稍后重试，不阻塞时间轮线程，也不丢弃
+        broker.publishDelayed(10, 20);
+        Thread.sleep(300);
+        assertEquals(2, broker.getQueuedCount());
+        assertEquals(1, broker.getDelayedCount());
+        assertEquals(0, broker.getRejectedCount());
+        
+        gate.release(4);
+        waitUntil(() -> handled.size() == 4);
+        assertEquals(List.of(0, 1, 2, 10), handled);
+        assertEquals(0, broker.getDelayedCount());
+    }
+    
+    @Test
+    public void testRejectsWhenNotRunningOrDelayLimitReached() {
+        assertThrows(RejectedExecutionException.class, () -> broker.publish(0));
+        broker.start();
+        for (int i = 0; i < 100; i++) {
+            broker.publishDelayed(i, 60_000);
+        }
+        assertThrows(RejectedExecutionException.class, () -> broker.publishDelayed(100, 60_000));
+        assertEquals(1, broker.getRejectedCount());
+    }
+    
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 5000ms");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import com.notification.entity.NotificationAttempt;
+import com.notification.entity.NotificationTask;
+import com.notification.mapper.NotificationAttemptMapper;
+import com.notification.service.HttpClientService.HttpResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 验证调用记录异步写入：满一批立即写、不满一批按 flush-interval-ms 写，缓冲区满和写库失败时丢弃并计数，
+ * 停止时写完缓冲区中剩余的记录
+ */
+public class AttemptJournalTest {
+    
+    private static final long LONG_INTERVAL_MS = 60_000;
+    
+    /**
+     * 每次 insertBatch 的行数
+     */
+    private final List<Integer> batches = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean failWrites = new AtomicBoolean();
+    private final CountDownLatch writeGate = new CountDownLatch(1);
+    private final AtomicBoolean gateWrites = new AtomicBoolean();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AttemptJournal journal;
+    
+    @AfterEach
+    public void stopJournal() {
+        writeGate.countDown();
+        if (journal != null) {
+            journal.shutdown();
+        }
+    }
+    
+    @Test
+    public void testWritesFullBatchWithoutWaitingForInterval() throws Exception {
+        journal = newJournal(100, 3, LONG_INTERVAL_MS);
+        record(3);
+        waitUntil(() -> batches.equals(List.of(3)));
+        assertEquals(3.0, written());
+        
+        // 不满一批时等待 flush-interval-ms
+        record(1);
+        Thread.sleep(200);
+        assertEquals(List.of(3), batches);
+    }
+    
+    @Test
+    public void testFlushesPartialBatchAfterInterval() throws Exception {
+        journal = newJournal(100, 50, 100);
+        long start = System.currentTimeMillis();
+        record(2);
+        waitUntil(() -> batches.equals(List.of(2)));
+        assertTrue(System.currentTimeMillis() - start < 2_000);
+        assertEquals(2.0, written());
+    }
+    
+    @Test
+    public void testDropsRecordsWhenBufferIsFull() throws Exception {
+        gateWrites.set(true);
+        journal = newJournal(2, 1, LONG_INTERVAL_MS);
+        // 第一条被写入线程取走并阻塞在写库上，后两条占满缓冲区
+        record(1);
+        waitUntil(() -> journalBuffered() == 0);
+        record(2);
+        assertEquals(2, journalBuffered());
+        
+        record(3);
+        assertEquals(3.0, dropped("buffer_full"));
+        assertEquals(2, journalBuffered());
+        
+        writeGate.countDown();
+        waitUntil(() -> written() == 3.0);
+        assertEquals(0, journalBuffered());
+    }
+    
+    @Test
+    public void testCountsWriteFailuresAsDropped() throws Exception {
+        failWrites.set(true);
+        journal = newJournal(100, 2, LONG_INTERVAL_MS);
+        record(4);
+        waitUntil(() -> dropped("write_failed") == 4.0);
+        assertEquals(0.0, written());
+        
+        // 写库恢复后继续写入，失败的记录不重试
+        failWrites.set(false);
+        record(2);
+        waitUntil(() -> written() == 2.0);
+        assertEquals(4.0, dropped("write_failed"));
+    }
+    
+    @Test
+    public void testDrainsBufferOnShutdown() {
+        journal = newJournal(100, 50, LONG_INTERVAL_MS);
+        record(5);
+        journal.shutdown();
+        assertEquals(5.0, written());
+        assertEquals(0, journalBuffered());
+        
+        // 停止后不再接收记录
+        record(1);
+        assertEquals(0, journalBuffered());
+    }
+    
+    private AttemptJournal newJournal(int bufferCapacity, int batchSize, long flushIntervalMs) {
+        NotificationAttemptMapper mapper = mock(NotificationAttemptMapper.class);
+        doAnswer(invocation -> {
+            List<NotificationAttempt> rows = new ArrayList<>(invocation.getArgument(0));
+            if (gateWrites.get()) {
+                writeGate.await();
+            }
+            if (failWrites.get()) {
+                throw new IllegalStateException("database unavailable");
+            }
+            batches.add(rows.size());
+            return rows.size();
+        }).when(mapper).insertBatch(anyList());
+        
+        NotificationProperties properties = new NotificationProperties();
+        properties.getAttemptJournal().setBufferCapacity(bufferCapacity);
+        properties.getAttemptJournal().setBatchSize(batchSize);
+        properties.getAttemptJournal().setFlushIntervalMs(flushIntervalMs);
+        AttemptJournal created = new AttemptJournal(mapper, properties, meterRegistry);
+        created.start();
+        return created;
+    }
+    
+    private void record(int count) {
+        for (int i = 0; i < count; i++) {
+            NotificationTask task = new NotificationTask();
+            task.setId("ntf_test_" + i);
+            task.setRetryCount(0);
+            journal.record(task, HttpResponse.builder().statusCode(200).body("ok").costMs(5).build());
+        }
+    }
+    
+    private double written() {
+        return meterRegistry.counter("notification.attempt.written").count();
+    }
+    
+    private double dropped(String reason) {
+        return meterRegistry.counter("notification.attempt.dropped", "reason", reason).count();
+    }
+    
+    private int journalBuffered() {
+        return (int) meterRegistry.get("notification.attempt.buffered").gauge().value();
+    }
+    
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 5000ms");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.notification.service;
+
+import com.notification.NotificationSystemApplication;
+import com.notification.config.NotificationProperties;
+import com.notification.entity.ClusterNode;
+import com.notification.mapper.ClusterNodeMapper;
+import com.notification.util.IdGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证 ID 生成器节点号通过 cluster_node 租用：存活节点之间不重复，过期节点的号可被接管
+ */
+@SpringBootTest(
+        classes = NotificationSystemApplication.class,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:cluster_membership_test;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "notification.cluster.heartbeat-interval-ms=3600000"
+        })
+@ActiveProfiles("test")
+public class ClusterMembershipTest {
+    
+    @Autowired
+    private ClusterMembership clusterMembership;
+    
+    @Autowired
+    private ClusterNodeMapper clusterNodeMapper;
+    
+    @Autowired
+    private NotificationProperties properties;
+    
+    @Test
+    public void testStartupLeasesIdGeneratorNodeId() {
+        long leased = clusterMembership.getIdNodeId();
+        assertTrue(leased >= 0);
+        assertEquals(leased, IdGenerator.getNodeId());
+        assertEquals(clusterMembership.getNodeName(), clusterNodeMapper.selectByIdNode((int) leased).getNodeName());
+    }
+    
+    @Test
+    public void testAutoLeaseSkipsNodeIdHeldByLiveNode() {
+        long held = clusterMembership.getIdNodeId();
+        ClusterMembership other = newMember("lease-test-auto");
+        try {
+            // 探测值与存活节点相同（如 ip-10-0-1-23 与 ip-10-0-2-23）时顺延到下一个空闲号
+            long leased = other.leaseIdNodeId(-1, held);
+            assertNotEquals(held, leased);
+            assertEquals("lease-test-auto", clusterNodeMapper.selectByIdNode((int) leased).getNodeName());
+        } finally {
+            other.leave();
+        }
+    }
+    
+    @Test
+    public void testConfiguredNodeIdHeldByLiveNodeFailsStartup() {
+        long held = clusterMembership.getIdNodeId();
+        ClusterMembership other = newMember("lease-test-configured");
+        try {
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> other.leaseIdNodeId(held, 0));
+            assertTrue(e.getMessage().contains(clusterMembership.getNodeName()));
+            assertEquals(-1, other.getIdNodeId());
+        } finally {
+            other.leave();
+        }
+    }
+    
+    @Test
+    public void testTakesOverNodeIdOfExpiredNode() {
+        int nodeId = 1000;
+        ClusterNode stale = new ClusterNode();
+        stale.setNodeName("lease-test-stale");
+        stale.setIdNodeId(nodeId);
+        stale.setStartedAt(LocalDateTime.now().minusHours(1));
+        stale.setHeartbeatAt(LocalDateTime.now().minusHours(1));
+        clusterNodeMapper.insert(stale);
+        
+        ClusterMembership other = newMember("lease-test-takeover");
+        try {
+            assertEquals(nodeId, other.leaseIdNodeId(nodeId, 0));
+            assertEquals("lease-test-takeover", clusterNodeMapper.selectByIdNode(nodeId).getNodeName());
+        } finally {
+            other.leave();
+        }
+        assertNull(clusterNodeMapper.selectByIdNode(nodeId));
+    }
+    
+    private ClusterMembership newMember(String nodeName) {
+        NotificationProperties props = new NotificationProperties();
+        props.getCluster().setNodeName(nodeName);
+        props.getCluster().setNodeTtlMs(properties.getCluster().getNodeTtlMs());
+        return new ClusterMembership(clusterNodeMapper, props);
+    }
+}
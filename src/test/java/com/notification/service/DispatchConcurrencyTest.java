@@ -0,0 +1,120 @@
+package com.notification.service;
+
+import com.notification.NotificationSystemApplication;
+import com.notification.entity.NotificationTask;
+import com.notification.entity.enums.TaskStatus;
+import com.notification.mapper.NotificationTaskMapper;
+import com.notification.util.IdGenerator;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 验证投递并发不再受数据库连接池大小约束
+ * 
+ * 连接池只有 2 个连接，桩服务要求 8 个请求同时到达后才响应：
+ * 如果外部调用期间仍持有连接，最多只有 2 个请求能同时在途，栅栏永远无法打开
+ */
+@SpringBootTest(
+        classes = NotificationSystemApplication.class,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:dispatch_concurrency_test;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "spring.datasource.hikari.maximum-pool-size=2",
+                "notification.mq.mock.async-dispatch=false"
+        })
+@ActiveProfiles("test")
+public class DispatchConcurrencyTest {
+    
+    private static final int POOL_SIZE = 2;
+    private static final int CONCURRENT_DELIVERIES = 8;
+    
+    @Autowired
+    private NotificationDispatcher dispatcher;
+    
+    @Autowired
+    private NotificationTaskMapper taskMapper;
+    
+    private HttpServer vendorServer;
+    private CountDownLatch allArrived;
+    
+    @BeforeEach
+    public void startVendor() throws Exception {
+        allArrived = new CountDownLatch(CONCURRENT_DELIVERIES);
+        vendorServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        vendorServer.setExecutor(Executors.newFixedThreadPool(CONCURRENT_DELIVERIES * 2));
+        vendorServer.createContext("/hook", exchange -> {
+            allArrived.countDown();
+            int status;
+            try {
+                status = allArrived.await(10, TimeUnit.SECONDS) ? 200 : 503;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                status = 503;
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        vendorServer.start();
+    }
+    
+    @AfterEach
+    public void stopVendor() {
+        vendorServer.stop(0);
+    }
+    
+    @Test
+    public void testDeliveryConcurrencyExceedsConnectionPool() throws Exception {
+        String targetUrl = "http://127.0.0.1:" + vendorServer.getAddress().getPort() + "/hook";
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_DELIVERIES; i++) {
+            NotificationTask task = new NotificationTask();
+            task.setId(IdGenerator.generateNotificationId());
+            task.setTargetUrl(targetUrl);
+            task.setHttpMethod("POST");
+            task.setBodyJson("{\"seq\":" + i + "}");
+            task.setStatus(TaskStatus.PENDING.getCode());
+            task.setRetryCount(0);
+            task.setMaxRetry(0);
+            task.setCallbackTimeoutMs(15000);
+            taskMapper.insert(task);
+            ids.add(task.getId());
+        }
+        
+        ExecutorService workers = Executors.newFixedThreadPool(CONCURRENT_DELIVERIES);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (String id : ids) {
+                futures.add(workers.submit(() -> dispatcher.dispatch(id)));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        
+        assertEquals(0, allArrived.getCount(),
+                "vendor should observe " + CONCURRENT_DELIVERIES + " concurrent calls with a pool of " + POOL_SIZE);
+        for (String id : ids) {
+            assertEquals(TaskStatus.SUCCESS.getCode(), taskMapper.selectById(id).getStatus());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 非阻塞投递执行器测试：在途达到上限时排队，队列满时拒绝，完成的投递接力启动排队任务
+ */
+public class ReactiveDispatchExecutorTest {
+    
+    /**
+     * 每次投递在测试手动完成前一直处于在途状态
+     */
+    private final Map<String, Sinks.Empty<Void>> running = new ConcurrentHashMap<>();
+    
+    @Test
+    public void testRejectsWhenWaitingQueueIsFull() throws Exception {
+        NotificationDispatcher dispatcher = mock(NotificationDispatcher.class);
+        when(dispatcher.dispatchAsync(anyString())).thenAnswer(invocation -> {
+            Sinks.Empty<Void> sink = Sinks.empty();
+            running.put(invocation.getArgument(0), sink);
+            return sink.asMono();
+        });
+        NotificationProperties properties = new NotificationProperties();
+        properties.getDispatch().setMaxInFlight(2);
+        properties.getDispatch().setMaxWaiting(1);
+        ReactiveDispatchExecutor executor = new ReactiveDispatchExecutor(dispatcher, properties);
+        
+        CompletableFuture<Void> first = executor.submit("n1");
+        CompletableFuture<Void> second = executor.submit("n2");
+        CompletableFuture<Void> queued = executor.submit("n3");
+        waitUntil(() -> running.size() == 2);
+        assertEquals(2, executor.getInFlight());
+        assertEquals(1, executor.getWaiting());
+        
+        CompletableFuture<Void> rejected = executor.submit("n4");
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(1, executor.getRejected());
+        
+        // 完成一个在途投递后排队的任务接力启动
+        running.get("n1").tryEmitEmpty();
+        first.get(1, TimeUnit.SECONDS);
+        waitUntil(() -> running.containsKey("n3"));
+        assertEquals(0, executor.getWaiting());
+        assertFalse(queued.isDone());
+        
+        running.get("n2").tryEmitEmpty();
+        running.get("n3").tryEmitEmpty();
+        CompletableFuture.allOf(second, queued).get(1, TimeUnit.SECONDS);
+        waitUntil(() -> executor.getInFlight() == 0);
+        assertFalse(running.containsKey("n4"));
+    }
+    
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 5000ms");
+            Thread.sleep(5);
+        }
+    }
+}
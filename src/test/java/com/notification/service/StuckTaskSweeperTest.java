@@ -0,0 +1,120 @@
+package com.notification.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.notification.NotificationSystemApplication;
+import com.notification.entity.NotificationOutbox;
+import com.notification.entity.NotificationTask;
+import com.notification.entity.enums.TaskStatus;
+import com.notification.mapper.NotificationOutboxMapper;
+import com.notification.mapper.NotificationTaskMapper;
+import com.notification.util.IdGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证补偿扫描只重新入队真正卡住的任务，跨多页扫描，并按 ID 分片
+ */
+@SpringBootTest(
+        classes = NotificationSystemApplication.class,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:stuck_task_sweeper_test;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "notification.mq.mock.async-dispatch=false",
+                "notification.sweeper.interval-ms=3600000",
+                "notification.sweeper.chunk-size=2",
+                "notification.sweeper.pending-stale-ms=60000",
+                "notification.sweeper.retrying-stale-ms=600000"
+        })
+@ActiveProfiles("test")
+public class StuckTaskSweeperTest {
+    
+    @Autowired
+    private StuckTaskSweeper sweeper;
+    
+    @Autowired
+    private NotificationTaskMapper taskMapper;
+    
+    @Autowired
+    private NotificationOutboxMapper outboxMapper;
+    
+    @Test
+    public void testRecoversOnlyStaleTasksWithoutLiveLease() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> stale = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            stale.add(insertTask(TaskStatus.PENDING, now.minusMinutes(10 + i), null));
+        }
+        stale.add(insertTask(TaskStatus.RETRYING, now.minusMinutes(30), now.minusMinutes(1)));
+        
+        List<String> untouched = new ArrayList<>();
+        untouched.add(insertTask(TaskStatus.PENDING, now, null));
+        untouched.add(insertTask(TaskStatus.PENDING, now.minusMinutes(10), now.plusMinutes(1)));
+        untouched.add(insertTask(TaskStatus.RETRYING, now.minusMinutes(5), null));
+        untouched.add(insertTask(TaskStatus.SUCCESS, now.minusMinutes(10), null));
+        
+        assertEquals(stale.size(), sweeper.sweep());
+        
+        for (String id : stale) {
+            assertEquals(1, countOutbox(id), "stale task should be re-enqueued: " + id);
+            assertTrue(taskMapper.selectById(id).getUpdatedAt().isAfter(now.minusSeconds(1)));
+        }
+        for (String id : untouched) {
+            assertEquals(0, countOutbox(id), "task should not be re-enqueued: " + id);
+        }
+        
+        // 刷新过 updated_at 的任务不会被立即再次补偿
+        assertEquals(0, sweeper.sweep());
+    }
+    
+    @Test
+    public void testShardsSplitStaleTasksWithoutOverlap() {
+        LocalDateTime now = LocalDateTime.now();
+        // 用补偿扫描不处理的状态，避免与其他用例互相影响
+        Set<String> stale = new HashSet<>();
+        for (int i = 0; i < 40; i++) {
+            stale.add(insertTask(TaskStatus.FAILED, now.minusHours(2), null));
+        }
+        
+        LocalDateTime before = now.minusHours(1);
+        Set<String> seen = new HashSet<>();
+        for (int shard = 0; shard < 3; shard++) {
+            List<NotificationTask> page = taskMapper.selectStaleChunk(
+                    TaskStatus.FAILED.getCode(), before, null, null, shard, 3, 100);
+            assertTrue(page.size() < stale.size(), "each shard should read only part of the backlog");
+            for (NotificationTask task : page) {
+                assertTrue(seen.add(task.getId()), "task read by two shards: " + task.getId());
+            }
+        }
+        assertEquals(stale, seen);
+    }
+    
+    private String insertTask(TaskStatus status, LocalDateTime updatedAt, LocalDateTime leaseUntil) {
+        NotificationTask task = new NotificationTask();
+        task.setId(IdGenerator.generateNotificationId());
+        task.setTargetUrl("http://127.0.0.1:1/hook");
+        task.setHttpMethod("POST");
+        task.setStatus(status.getCode());
+        task.setRetryCount(0);
+        task.setMaxRetry(5);
+        task.setCallbackTimeoutMs(3000);
+        task.setCreatedAt(updatedAt);
+        task.setUpdatedAt(updatedAt);
+        task.setLeaseUntil(leaseUntil);
+        taskMapper.insert(task);
+        return task.getId();
+    }
+    
+    private long countOutbox(String notificationId) {
+        return outboxMapper.selectCount(new QueryWrapper<NotificationOutbox>().eq("notification_id", notificationId));
+    }
+}
@@ -0,0 +1,164 @@
+package com.notification.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.notification.NotificationSystemApplication;
+import com.notification.config.NotificationProperties;
+import com.notification.entity.NotificationAttempt;
+import com.notification.entity.NotificationTask;
+import com.notification.entity.enums.TaskStatus;
+import com.notification.mapper.NotificationAttemptMapper;
+import com.notification.mapper.NotificationTaskMapper;
+import com.notification.util.IdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证历史清理：只删除超过保留期的终态任务并级联删除尝试记录，最后一批不足 chunk-size 时结束，
+ * 按 max-rows-per-second 限速，单次运行不超过 max-run-ms，未删完的下次继续
+ */
+@SpringBootTest(
+        classes = NotificationSystemApplication.class,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:task_retention_purger_test;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "notification.mq.mock.async-dispatch=false",
+                "notification.retention.enabled=true",
+                "notification.retention.interval-ms=3600000",
+                "notification.retention.chunk-size=2",
+                "notification.retention.success-retention-days=30",
+                "notification.retention.failed-retention-days=90"
+        })
+@ActiveProfiles("test")
+public class TaskRetentionPurgerTest {
+    
+    @Autowired
+    private TaskRetentionPurger purger;
+    
+    @Autowired
+    private NotificationTaskMapper taskMapper;
+    
+    @Autowired
+    private NotificationAttemptMapper attemptMapper;
+    
+    @Autowired
+    private NotificationProperties properties;
+    
+    @BeforeEach
+    public void clearTasks() {
+        attemptMapper.delete(new QueryWrapper<>());
+        taskMapper.delete(new QueryWrapper<>());
+    }
+    
+    @AfterEach
+    public void restoreConfig() {
+        properties.getRetention().setMaxRowsPerSecond(5000);
+        properties.getRetention().setMaxRunMs(600000);
+    }
+    
+    @Test
+    public void testPurgesExpiredTerminalTasksInChunks() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> expired = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expired.add(insertTask(TaskStatus.SUCCESS, now.minusDays(31 + i)));
+        }
+        expired.add(insertTask(TaskStatus.FAILED, now.minusDays(91)));
+        
+        List<String> kept = new ArrayList<>();
+        kept.add(insertTask(TaskStatus.SUCCESS, now.minusDays(29)));
+        kept.add(insertTask(TaskStatus.FAILED, now.minusDays(60)));
+        kept.add(insertTask(TaskStatus.RETRYING, now.minusDays(100)));
+        kept.add(insertTask(TaskStatus.PENDING, now.minusDays(100)));
+        
+        assertEquals(expired.size(), purger.purge());
+        
+        for (String id : expired) {
+            assertNull(taskMapper.selectById(id), "expired task should be deleted: " + id);
+            assertEquals(0, countAttempts(id));
+        }
+        for (String id : kept) {
+            assertNotNull(taskMapper.selectById(id), "task should be kept: " + id);
+            assertEquals(1, countAttempts(id));
+        }
+        assertEquals(0, purger.purge());
+    }
+    
+    @Test
+    public void testThrottlesBetweenFullChunks() {
+        // 5 行按 2/2/1 分三批：两个满批各补足 2 行 / 10 行每秒 = 200ms，最后的不满批不再等待
+        properties.getRetention().setMaxRowsPerSecond(10);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            insertTask(TaskStatus.SUCCESS, now.minusDays(31 + i));
+        }
+        
+        long start = System.nanoTime();
+        assertEquals(5, purger.purge());
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMs >= 400, "purge should pause between full chunks, elapsedMs=" + elapsedMs);
+    }
+    
+    @Test
+    public void testStopsAtMaxRunMsAndResumesNextRun() {
+        // 第一批删除后限速等待 200ms，已超过 max-run-ms，本次只删除一批
+        properties.getRetention().setMaxRowsPerSecond(10);
+        properties.getRetention().setMaxRunMs(100);
+        LocalDateTime now = LocalDateTime.now();
+        List<String> expired = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            expired.add(insertTask(TaskStatus.SUCCESS, now.minusDays(31 + i)));
+        }
+        String failed = insertTask(TaskStatus.FAILED, now.minusDays(91));
+        
+        assertEquals(2, purger.purge());
+        // 按 created_at 从旧到新清理
+        assertNull(taskMapper.selectById(expired.get(3)));
+        assertNull(taskMapper.selectById(expired.get(2)));
+        assertNotNull(taskMapper.selectById(expired.get(1)));
+        assertNotNull(taskMapper.selectById(failed));
+        
+        properties.getRetention().setMaxRunMs(600000);
+        assertEquals(3, purger.purge());
+        assertNull(taskMapper.selectById(expired.get(0)));
+        assertNull(taskMapper.selectById(failed));
+    }
+    
+    private String insertTask(TaskStatus status, LocalDateTime createdAt) {
+        NotificationTask task = new NotificationTask();
+        task.setId(IdGenerator.generateNotificationId());
+        task.setTargetUrl("http://127.0.0.1:1/hook");
+        task.setHttpMethod("POST");
+        task.setStatus(status.getCode());
+        task.setRetryCount(0);
+        task.setMaxRetry(5);
+        task.setCallbackTimeoutMs(3000);
+        task.setCreatedAt(createdAt);
+        task.setUpdatedAt(createdAt);
+        taskMapper.insert(task);
+        
+        NotificationAttempt attempt = new NotificationAttempt();
+        attempt.setNotificationId(task.getId());
+        attempt.setAttemptNo(1);
+        attempt.setResponseStatus(200);
+        attempt.setCostMs(5);
+        attempt.setCreatedAt(createdAt);
+        attemptMapper.insertBatch(List.of(attempt));
+        return task.getId();
+    }
+    
+    private long countAttempts(String notificationId) {
+        return attemptMapper.selectCount(new QueryWrapper<NotificationAttempt>().eq("notification_id", notificationId));
+    }
+}
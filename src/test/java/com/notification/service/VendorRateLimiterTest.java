@@ -0,0 +1,75 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import com.notification.entity.VendorConfig;
+import com.notification.service.VendorRateLimiter.NodeLimit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 供应商限流器测试：集群预算按存活节点数均分，节点数变化时重建令牌桶
+ */
+public class VendorRateLimiterTest {
+    
+    private final VendorConfigService vendorConfigService = mock(VendorConfigService.class);
+    private final ClusterMembership clusterMembership = mock(ClusterMembership.class);
+    private final NotificationProperties properties = new NotificationProperties();
+    private final VendorRateLimiter limiter = new VendorRateLimiter(
+            vendorConfigService, clusterMembership, properties, new SimpleMeterRegistry());
+    
+    @Test
+    public void testSplitsClusterBudgetAndRebuildsWhenLiveNodesChange() {
+        when(vendorConfigService.getVendorConfig("acme")).thenReturn(vendorConfig(100.0, 30));
+        when(clusterMembership.getLiveNodeCount()).thenReturn(1);
+        
+        NodeLimit single = limiter.limit("acme");
+        assertEquals(100.0, single.bucket().getRatePerSecond());
+        assertEquals(30, single.bucket().getBurst());
+        assertSame(single, limiter.limit("acme"));
+        
+        // 扩容到 4 个节点：速率均分，突发向上取整
+        when(clusterMembership.getLiveNodeCount()).thenReturn(4);
+        NodeLimit split = limiter.limit("acme");
+        assertNotSame(single, split);
+        assertEquals(4, split.liveNodes());
+        assertEquals(25.0, split.bucket().getRatePerSecond());
+        assertEquals(8, split.bucket().getBurst());
+        assertEquals(100.0, split.clusterQps());
+        assertSame(split, limiter.limit("acme"));
+        
+        // 缩容后重新放大
+        when(clusterMembership.getLiveNodeCount()).thenReturn(2);
+        NodeLimit halved = limiter.limit("acme");
+        assertEquals(50.0, halved.bucket().getRatePerSecond());
+        assertEquals(15, halved.bucket().getBurst());
+    }
+    
+    @Test
+    public void testUnlimitedVendorAndDeferDelay() {
+        when(clusterMembership.getLiveNodeCount()).thenReturn(1);
+        when(vendorConfigService.getVendorConfig("free")).thenReturn(vendorConfig(null, null));
+        assertNull(limiter.limit("free").bucket());
+        assertEquals(0, limiter.tryAcquire("free"));
+        
+        // 每 10s 一个令牌：第二次调用推迟约 10s（加不超过 20% 的抖动）
+        when(vendorConfigService.getVendorConfig("slow")).thenReturn(vendorConfig(0.1, 1));
+        assertEquals(0, limiter.tryAcquire("slow"));
+        long deferMs = limiter.tryAcquire("slow");
+        assertTrue(deferMs > 9_000 && deferMs <= 12_001, "deferMs=" + deferMs);
+    }
+    
+    private static VendorConfig vendorConfig(Double qps, Integer burst) {
+        VendorConfig config = new VendorConfig();
+        config.setRateLimitQps(qps);
+        config.setRateLimitBurst(burst);
+        return config;
+    }
+}
@@ -0,0 +1,147 @@
+package com.notification.service;
+
+import com.notification.config.NotificationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 虚拟线程投递执行器测试：供应商排队已满时立即拒绝，全局并发达到上限时提交方等待
+ * 需要 Java 21（mvn -Pjava21 test）
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class VirtualDispatchExecutorTest {
+    
+    private static final int MAX_CONCURRENCY = 3;
+    
+    /**
+     * 每次投递阻塞到测试释放对应的闩锁
+     */
+    private final Map<String, CountDownLatch> gates = new ConcurrentHashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger peakRunning = new AtomicInteger();
+    private final AtomicInteger runningVendorA = new AtomicInteger();
+    private final AtomicInteger peakRunningVendorA = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private VirtualDispatchExecutor executor;
+    
+    @AfterEach
+    public void releaseAll() {
+        gates.values().forEach(CountDownLatch::countDown);
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    public void testRejectsWhenVendorQueueIsFull() throws Exception {
+        executor = newExecutor();
+        
+        // 供应商并发 1 + 排队 1
+        CompletableFuture<Void> first = executor.submit("a1", "vendor-a");
+        CompletableFuture<Void> queued = executor.submit("a2", "vendor-a");
+        waitUntil(() -> running.get() == 1);
+        
+        CompletableFuture<Void> rejected = executor.submit("a3", "vendor-a");
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(1.0, meterRegistry.counter("notification.dispatch.vendor_queue_rejected").count());
+        
+        // 其他供应商不受影响
+        CompletableFuture<Void> other = executor.submit("b1", "vendor-b");
+        waitUntil(() -> running.get() == 2);
+        
+        release("a1", "a2", "b1");
+        CompletableFuture.allOf(first, queued, other).get(5, TimeUnit.SECONDS);
+        assertEquals(1, peakRunningVendorA.get(), "vendor-a should run one dispatch at a time");
+        assertFalse(gates.containsKey("a3"));
+    }
+    
+    @Test
+    public void testBlocksSubmitterAtGlobalLimit() throws Exception {
+        executor = newExecutor();
+        CompletableFuture<Void> a1 = executor.submit("a1", "vendor-a");
+        CompletableFuture<Void> b1 = executor.submit("b1", "vendor-b");
+        CompletableFuture<Void> c1 = executor.submit("c1", "vendor-c");
+        waitUntil(() -> running.get() == MAX_CONCURRENCY);
+        assertEquals(MAX_CONCURRENCY, executor.getInFlight());
+        
+        // 全局名额用尽，提交方在 submit 中等待
+        CompletableFuture<CompletableFuture<Void>> blocked = CompletableFuture.supplyAsync(
+                () -> executor.submit("d1", "vendor-d"));
+        Thread.sleep(200);
+        assertFalse(blocked.isDone(), "submitter should wait while the global limit is reached");
+        
+        release("a1");
+        CompletableFuture<Void> d1 = blocked.get(5, TimeUnit.SECONDS);
+        waitUntil(() -> gates.containsKey("d1"));
+        assertEquals(MAX_CONCURRENCY, executor.getInFlight());
+        
+        release("b1", "c1", "d1");
+        CompletableFuture.allOf(a1, b1, c1, d1).get(5, TimeUnit.SECONDS);
+        waitUntil(() -> executor.getInFlight() == 0);
+        assertEquals(MAX_CONCURRENCY, peakRunning.get());
+    }
+    
+    private VirtualDispatchExecutor newExecutor() {
+        NotificationDispatcher dispatcher = mock(NotificationDispatcher.class);
+        doAnswer(invocation -> {
+            String id = invocation.getArgument(0);
+            boolean vendorA = id.startsWith("a");
+            peakRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            if (vendorA) {
+                peakRunningVendorA.accumulateAndGet(runningVendorA.incrementAndGet(), Math::max);
+            }
+            try {
+                gates.computeIfAbsent(id, key -> new CountDownLatch(1)).await();
+            } finally {
+                running.decrementAndGet();
+                if (vendorA) {
+                    runningVendorA.decrementAndGet();
+                }
+            }
+            return null;
+        }).when(dispatcher).dispatch(anyString());
+        
+        NotificationProperties properties = new NotificationProperties();
+        properties.getExecution().setMaxConcurrency(MAX_CONCURRENCY);
+        properties.getExecution().setVendorMaxConcurrency(1);
+        properties.getExecution().setVendorMaxQueued(1);
+        return new VirtualDispatchExecutor(dispatcher, mock(VendorConfigService.class), properties, meterRegistry);
+    }
+    
+    private void release(String... ids) {
+        for (String id : ids) {
+            gates.computeIfAbsent(id, key -> new CountDownLatch(1)).countDown();
+        }
+    }
+    
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 5000ms");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.notification.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 分层时间轮测试
+ */
+public class HierarchicalTimingWheelTest {
+    
+    @Test
+    public void testFiresExactlyAtDeadlineAcrossLevelsAndOverflow() {
+        long tickMs = 1;
+        long[] now = {0};
+        Map<Long, Long> firedAt = new HashMap<>();
+        // 4 格 x 3 层，只覆盖 64 个刻度，更远的条目进入溢出链表
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>("test", tickMs, 4, 3,
+                deadline -> firedAt.put(deadline, now[0]));
+        
+        // 模拟时钟从时间轮创建之后开始
+        long base = System.currentTimeMillis() + 1_000;
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            long deadline = base + 1 + random.nextInt(500);
+            if (!deadlines.contains(deadline)) {
+                deadlines.add(deadline);
+                wheel.schedule(deadline, deadline);
+            }
+        }
+        assertEquals(deadlines.size(), wheel.size());
+        
+        for (long t = base; t <= base + 600; t++) {
+            now[0] = t;
+            wheel.advanceTo(t);
+        }
+        
+        assertEquals(0, wheel.size());
+        assertEquals(deadlines.size(), firedAt.size());
+        for (long deadline : deadlines) {
+            assertEquals(deadline, firedAt.get(deadline), "entry should fire exactly at its deadline");
+        }
+    }
+    
+    @Test
+    public void testOverdueEntryFiresImmediately() {
+        List<String> fired = new ArrayList<>();
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>("test", 10, 512, 4, fired::add);
+        long now = System.currentTimeMillis();
+        wheel.schedule("overdue", now - 60_000);
+        wheel.schedule("later", now + 60_000);
+        wheel.advanceTo(now);
+        assertEquals(List.of("overdue"), fired);
+        assertEquals(1, wheel.size());
+    }
+}
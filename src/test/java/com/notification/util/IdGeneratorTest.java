@@ -0,0 +1,60 @@
+package com.notification.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ID 生成器测试
+ */
+public class IdGeneratorTest {
+    
+    @Test
+    public void testIdsAreUniqueAcrossThreads() throws Exception {
+        int threads = 8;
+        int perThread = 50_000;
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(IdGenerator.generateNotificationId());
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        
+        assertEquals(threads * perThread, ids.size());
+    }
+    
+    @Test
+    public void testIdsAreTimeOrderedAndFixedWidth() {
+        String previous = IdGenerator.generateNotificationId();
+        for (int i = 0; i < 100_000; i++) {
+            String current = IdGenerator.generateNotificationId();
+            assertTrue(current.compareTo(previous) > 0, current + " should sort after " + previous);
+            assertEquals(23, current.length());
+            assertTrue(current.startsWith("ntf_"));
+            previous = current;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.notification.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 大字段存储编解码器测试
+ */
+public class PayloadCodecTest {
+    
+    @Test
+    public void testRoundTripWithAndWithoutDictionary() {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 100; i++) {
+            json.append("{\"sku\":\"SKU-").append(i).append("\",\"name\":\"商品").append(i).append("\"},");
+        }
+        String value = json.append("{}]}").toString();
+        byte[] dictionary = "{\"items\":[{\"sku\":\"SKU-\",\"name\":\"".getBytes(StandardCharsets.UTF_8);
+        
+        PayloadCodec plain = new PayloadCodec(true, 1024, Deflater.DEFAULT_COMPRESSION, List.of());
+        PayloadCodec withDictionary = new PayloadCodec(true, 1024, Deflater.DEFAULT_COMPRESSION, List.of(dictionary));
+        for (PayloadCodec codec : List.of(plain, withDictionary)) {
+            String stored = codec.encode(value);
+            assertTrue(PayloadCodec.isCompressed(stored));
+            assertTrue(stored.length() < value.length() / 2, "stored length: " + stored.length());
+            assertEquals(value, codec.decode(stored));
+        }
+        
+        // 关闭压缩后仍能读取已压缩的行，缺少字典时报错
+        PayloadCodec disabled = new PayloadCodec(false, 1024, Deflater.DEFAULT_COMPRESSION, List.of(dictionary));
+        assertFalse(PayloadCodec.isCompressed(disabled.encode(value)));
+        assertEquals(value, disabled.decode(withDictionary.encode(value)));
+        assertThrows(IllegalStateException.class, () -> plain.decode(withDictionary.encode(value)));
+    }
+    
+    @Test
+    public void testUncompressedValuesStayReadable() {
+        PayloadCodec codec = new PayloadCodec(true, 16, Deflater.DEFAULT_COMPRESSION, List.of());
+        
+        // 短值和历史行原样存取
+        assertEquals("{\"a\":1}", codec.encode("{\"a\":1}"));
+        assertEquals("{\"a\":1}", codec.decode("{\"a\":1}"));
+        assertEquals("abcdefghijklmnopqrstuvwxyz", codec.encode("abcdefghijklmnopqrstuvwxyz"));
+        
+        // 恰好以格式头开头的原文经转义后还原
+        for (String value : List.of("~z1:0:3:abc", "~z0:x", "~zebra")) {
+            String stored = codec.encode(value);
+            assertFalse(PayloadCodec.isCompressed(stored));
+            assertEquals(value, codec.decode(stored));
+        }
+    }
+}
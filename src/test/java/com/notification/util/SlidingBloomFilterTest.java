@@ -0,0 +1,44 @@
+package com.notification.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 滑动窗口布隆过滤器测试
+ */
+public class SlidingBloomFilterTest {
+    
+    @Test
+    public void testNoFalseNegativesAndLowFalsePositiveRate() {
+        SlidingBloomFilter filter = new SlidingBloomFilter(100_000, 0.01, 2, 600_000);
+        for (int i = 0; i < 100_000; i++) {
+            filter.put("evt_" + i);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("evt_" + i));
+        }
+        
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other_" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+    
+    @Test
+    public void testEntriesExpireAfterWindow() throws Exception {
+        SlidingBloomFilter filter = new SlidingBloomFilter(1_000, 0.01, 2, 100);
+        filter.put("evt_1");
+        assertTrue(filter.mightContain("evt_1"));
+        
+        // 两代各 50ms，经过两次轮换后被遗忘
+        Thread.sleep(60);
+        filter.mightContain("evt_1");
+        Thread.sleep(60);
+        assertFalse(filter.mightContain("evt_1"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.notification.util;
+
+import com.notification.util.SlidingWindowCircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 滑动窗口熔断器测试
+ */
+public class SlidingWindowCircuitBreakerTest {
+    
+    @Test
+    public void testOpensOnFailureRateAndRecoversThroughHalfOpenProbes() {
+        List<State> transitions = new ArrayList<>();
+        // 窗口 1s / 10 桶，至少 10 次调用，失败率 50%，打开 5s，半开 2 个探测，2 次成功关闭
+        SlidingWindowCircuitBreaker breaker = new SlidingWindowCircuitBreaker(1_000, 10, 10, 0.5, 5_000, 2, 2,
+                (from, to, nowMs) -> transitions.add(to));
+        long now = 1_000_000;
+        
+        // 调用数不足时不判定
+        for (int i = 0; i < 9; i++) {
+            breaker.onFailure(now);
+        }
+        assertEquals(State.CLOSED, breaker.getState());
+        breaker.onFailure(now);
+        assertEquals(State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(now + 4_999));
+        assertEquals(1, breaker.remainingOpenMs(now + 4_999));
+        
+        // 打开期满后只放行有限的探测请求
+        assertTrue(breaker.tryAcquire(now + 5_000));
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire(now + 5_000));
+        assertFalse(breaker.tryAcquire(now + 5_000));
+        
+        // 探测失败重新打开
+        breaker.onFailure(now + 5_001);
+        assertEquals(State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(now + 10_000));
+        
+        assertTrue(breaker.tryAcquire(now + 10_001));
+        assertTrue(breaker.tryAcquire(now + 10_001));
+        breaker.onSuccess(now + 10_002);
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess(now + 10_002);
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getCalls(now + 10_002));
+        
+        assertEquals(List.of(State.OPEN, State.HALF_OPEN, State.OPEN, State.HALF_OPEN, State.CLOSED), transitions);
+    }
+    
+    @Test
+    public void testOldFailuresSlideOutOfWindow() {
+        SlidingWindowCircuitBreaker breaker = new SlidingWindowCircuitBreaker(1_000, 10, 10, 0.5, 5_000, 1, 1, null);
+        long now = 2_000_000;
+        for (int i = 0; i < 6; i++) {
+            breaker.onFailure(now);
+        }
+        assertEquals(6, breaker.getFailures(now + 900));
+        
+        // 1s 后旧失败滑出窗口，新的失败率不足以打开
+        long later = now + 1_000;
+        for (int i = 0; i < 10; i++) {
+            breaker.onSuccess(later);
+        }
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure(later);
+        }
+        assertEquals(14, breaker.getCalls(later));
+        assertEquals(State.CLOSED, breaker.getState());
+    }
+    
+    @Test
+    public void testReleasedProbesCanBeReacquired() {
+        SlidingWindowCircuitBreaker breaker = new SlidingWindowCircuitBreaker(1_000, 10, 1, 0.5, 5_000, 2, 1, null);
+        long now = 3_000_000;
+        breaker.onFailure(now);
+        assertTrue(breaker.tryAcquire(now + 5_000));
+        assertTrue(breaker.tryAcquire(now + 5_000));
+        assertFalse(breaker.tryAcquire(now + 5_000));
+        
+        // 调用没有产生结果就结束：名额归还，状态不变
+        breaker.releaseProbe();
+        breaker.releaseProbe();
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire(now + 5_001));
+        breaker.onSuccess(now + 5_002);
+        assertEquals(State.CLOSED, breaker.getState());
+    }
+}
@@ -0,0 +1,63 @@
+package com.notification.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 无锁令牌桶（GCRA）测试，时间由调用方传入
+ */
+public class TokenBucketTest {
+    
+    private static final long SECOND = 1_000_000_000L;
+    
+    @Test
+    public void testAdmitsBurstThenReturnsWaitUntilNextToken() {
+        // 每秒 10 个令牌（间隔 100ms），突发 5
+        TokenBucket bucket = new TokenBucket(10, 5);
+        long now = 50 * SECOND;
+        
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(now), "burst request " + i);
+        }
+        // 桶已空：下一个令牌在 100ms 后可用，拒绝不消耗令牌
+        assertEquals(100_000_000L, bucket.tryAcquire(now));
+        assertEquals(60_000_000L, bucket.tryAcquire(now + 40_000_000L));
+        assertEquals(0, bucket.tryAcquire(now + 100_000_000L));
+        assertEquals(100_000_000L, bucket.tryAcquire(now + 100_000_000L));
+        
+        // 空闲足够久后恢复到完整突发，但不会超过桶容量
+        long later = now + 10 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(later), "refilled burst request " + i);
+        }
+        assertEquals(100_000_000L, bucket.tryAcquire(later));
+    }
+    
+    @Test
+    public void testSteadyStateRate() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+        long start = 50 * SECOND;
+        
+        // 每 1ms 请求一次，覆盖 [0, 10s]：突发 5 个之后每 100ms 放行一个，放行数 = 5 + 10s * 10/s
+        int admitted = 0;
+        for (long t = 0; t <= 10 * SECOND; t += 1_000_000L) {
+            if (bucket.tryAcquire(start + t) == 0) {
+                admitted++;
+            }
+        }
+        assertEquals(5 + 100, admitted);
+    }
+    
+    @Test
+    public void testFractionalRate() {
+        // 每秒 0.5 个令牌，突发 1：间隔 2s
+        TokenBucket bucket = new TokenBucket(0.5, 1);
+        long now = 50 * SECOND;
+        
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(2 * SECOND, bucket.tryAcquire(now));
+        assertEquals(SECOND, bucket.tryAcquire(now + SECOND));
+        assertEquals(0, bucket.tryAcquire(now + 2 * SECOND));
+    }
+}